@@ -60,8 +60,13 @@ public class NiFiProperties extends Properties {
     public static final String H2_URL_APPEND = "nifi.h2.url.append";
     public static final String REMOTE_INPUT_PORT = "nifi.remote.input.socket.port";
     public static final String SITE_TO_SITE_SECURE = "nifi.remote.input.secure";
+    public static final String SITE_TO_SITE_THREADS = "nifi.remote.input.socket.threads";
+    public static final String SITE_TO_SITE_TRANSACTION_THREADS = "nifi.remote.input.socket.transaction.threads";
+    public static final String SITE_TO_SITE_TRANSACTION_QUEUE_SIZE = "nifi.remote.input.socket.transaction.queue.size";
     public static final String TEMPLATE_DIRECTORY = "nifi.templates.directory";
     public static final String ADMINISTRATIVE_YIELD_DURATION = "nifi.administrative.yield.duration";
+    public static final String ADAPTIVE_BATCHING_ENABLED = "nifi.processor.adaptive.batching.enabled";
+    public static final String ADAPTIVE_BATCHING_MAX_DURATION = "nifi.processor.adaptive.batching.max.duration";
     public static final String PERSISTENT_STATE_DIRECTORY = "nifi.persistent.state.directory";
 
     // content repository properties
@@ -82,12 +87,14 @@ public class NiFiProperties extends Properties {
     public static final String FLOWFILE_REPOSITORY_DIRECTORY = "nifi.flowfile.repository.directory";
     public static final String FLOWFILE_REPOSITORY_PARTITIONS = "nifi.flowfile.repository.partitions";
     public static final String FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL = "nifi.flowfile.repository.checkpoint.interval";
+    public static final String FLOWFILE_REPOSITORY_RECOVERY_THREADS = "nifi.flowfile.repository.recovery.threads";
     public static final String FLOWFILE_SWAP_MANAGER_IMPLEMENTATION = "nifi.swap.manager.implementation";
     public static final String QUEUE_SWAP_THRESHOLD = "nifi.queue.swap.threshold";
     public static final String SWAP_IN_THREADS = "nifi.swap.in.threads";
     public static final String SWAP_IN_PERIOD = "nifi.swap.in.period";
     public static final String SWAP_OUT_THREADS = "nifi.swap.out.threads";
     public static final String SWAP_OUT_PERIOD = "nifi.swap.out.period";
+    public static final String SWAP_COMPRESSION_ENABLED = "nifi.swap.compression.enabled";
 
     // provenance properties
     public static final String PROVENANCE_REPO_IMPLEMENTATION_CLASS = "nifi.provenance.repository.implementation";
@@ -106,6 +113,7 @@ public class NiFiProperties extends Properties {
     // component status repository properties
     public static final String COMPONENT_STATUS_REPOSITORY_IMPLEMENTATION = "nifi.components.status.repository.implementation";
     public static final String COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "nifi.components.status.snapshot.frequency";
+    public static final String COMPONENT_STATUS_CACHE_DURATION = "nifi.components.status.cache.duration";
 
     // encryptor properties
     public static final String NF_SENSITIVE_PROPS_KEY = "nifi.sensitive.props.key";
@@ -172,9 +180,11 @@ public class NiFiProperties extends Properties {
     public static final String CLUSTER_MANAGER_NODE_API_CONNECTION_TIMEOUT = "nifi.cluster.manager.node.api.connection.timeout";
     public static final String CLUSTER_MANAGER_NODE_API_READ_TIMEOUT = "nifi.cluster.manager.node.api.read.timeout";
     public static final String CLUSTER_MANAGER_NODE_API_REQUEST_THREADS = "nifi.cluster.manager.node.api.request.threads";
+    public static final String CLUSTER_MANAGER_NODE_API_MAX_REQUEST_THREADS = "nifi.cluster.manager.node.api.request.max.threads";
     public static final String CLUSTER_MANAGER_FLOW_RETRIEVAL_DELAY = "nifi.cluster.manager.flow.retrieval.delay";
     public static final String CLUSTER_MANAGER_PROTOCOL_THREADS = "nifi.cluster.manager.protocol.threads";
     public static final String CLUSTER_MANAGER_SAFEMODE_DURATION = "nifi.cluster.manager.safemode.duration";
+    public static final String CLUSTER_MANAGER_RESPONSE_CACHE_DURATION = "nifi.cluster.manager.response.cache.duration";
 
     // defaults
     public static final String DEFAULT_TITLE = "NiFi";
@@ -182,6 +192,9 @@ public class NiFiProperties extends Properties {
     public static final String DEFAULT_AUTHORITY_PROVIDER_CONFIGURATION_FILE = "conf/authority-providers.xml";
     public static final String DEFAULT_USER_CREDENTIAL_CACHE_DURATION = "24 hours";
     public static final Integer DEFAULT_REMOTE_INPUT_PORT = null;
+    public static final int DEFAULT_SITE_TO_SITE_THREADS = 10;
+    public static final int DEFAULT_SITE_TO_SITE_TRANSACTION_THREADS = 50;
+    public static final int DEFAULT_SITE_TO_SITE_TRANSACTION_QUEUE_SIZE = 100;
     public static final Path DEFAULT_TEMPLATE_DIRECTORY = Paths.get("conf", "templates");
     public static final int DEFAULT_WEB_THREADS = 200;
     public static final String DEFAULT_WEB_WORKING_DIR = "./work/jetty";
@@ -190,6 +203,7 @@ public class NiFiProperties extends Properties {
     public static final String DEFAULT_NAR_LIBRARY_DIR = "./lib";
     public static final String DEFAULT_FLOWFILE_REPO_PARTITIONS = "256";
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "2 min";
+    public static final int DEFAULT_FLOWFILE_REPO_RECOVERY_THREADS = 1;
     public static final int DEFAULT_MAX_FLOWFILES_PER_CLAIM = 100;
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
     public static final String DEFAULT_SWAP_STORAGE_LOCATION = "./flowfile_repository/swap";
@@ -198,8 +212,10 @@ public class NiFiProperties extends Properties {
     public static final int DEFAULT_SWAP_IN_THREADS = 4;
     public static final int DEFAULT_SWAP_OUT_THREADS = 4;
     public static final String DEFAULT_ADMINISTRATIVE_YIELD_DURATION = "30 sec";
+    public static final String DEFAULT_ADAPTIVE_BATCHING_MAX_DURATION = "25 millis";
     public static final String DEFAULT_PERSISTENT_STATE_DIRECTORY = "./conf/state";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
+    public static final String DEFAULT_COMPONENT_STATUS_CACHE_DURATION = "1 sec";
 
     // cluster common defaults
     public static final String DEFAULT_CLUSTER_PROTOCOL_HEARTBEAT_INTERVAL = "5 sec";
@@ -217,9 +233,11 @@ public class NiFiProperties extends Properties {
     public static final String DEFAULT_CLUSTER_MANAGER_NODE_API_CONNECTION_TIMEOUT = "30 sec";
     public static final String DEFAULT_CLUSTER_MANAGER_NODE_API_READ_TIMEOUT = "30 sec";
     public static final int DEFAULT_CLUSTER_MANAGER_NODE_API_NUM_REQUEST_THREADS = 10;
+    public static final int DEFAULT_CLUSTER_MANAGER_NODE_API_MAX_REQUEST_THREADS = 100;
     public static final String DEFAULT_CLUSTER_MANAGER_FLOW_RETRIEVAL_DELAY = "5 sec";
     public static final int DEFAULT_CLUSTER_MANAGER_PROTOCOL_THREADS = 10;
     public static final String DEFAULT_CLUSTER_MANAGER_SAFEMODE_DURATION = "0 sec";
+    public static final String DEFAULT_CLUSTER_MANAGER_RESPONSE_CACHE_DURATION = "1 sec";
 
     private NiFiProperties() {
         super();
@@ -353,10 +371,35 @@ public class NiFiProperties extends Properties {
         return getProperty(SWAP_OUT_PERIOD, DEFAULT_SWAP_OUT_PERIOD);
     }
 
+    /**
+     * @return true if Swap Files should be compressed as they are written;
+     * false by default
+     */
+    public boolean isSwapCompressionEnabled() {
+        return Boolean.parseBoolean(getProperty(SWAP_COMPRESSION_ENABLED));
+    }
+
     public String getAdministrativeYieldDuration() {
         return getProperty(ADMINISTRATIVE_YIELD_DURATION, DEFAULT_ADMINISTRATIVE_YIELD_DURATION);
     }
 
+    /**
+     * @return true if the framework should choose the Run Duration of
+     * Processors that support batching and have no Run Duration configured;
+     * false by default
+     */
+    public boolean isAdaptiveBatchingEnabled() {
+        return Boolean.parseBoolean(getProperty(ADAPTIVE_BATCHING_ENABLED));
+    }
+
+    /**
+     * @return the longest Run Duration that adaptive batching may choose,
+     * which bounds how long FlowFiles wait in an uncommitted session
+     */
+    public String getAdaptiveBatchingMaxDuration() {
+        return getProperty(ADAPTIVE_BATCHING_MAX_DURATION, DEFAULT_ADAPTIVE_BATCHING_MAX_DURATION);
+    }
+
     /**
      * The socket port to listen on for a Remote Input Port.
      *
@@ -380,6 +423,38 @@ public class NiFiProperties extends Properties {
 
     }
 
+    /**
+     * The number of threads used to negotiate with and service requests from
+     * peers connected to the Remote Input Port. Idle peers do not occupy a
+     * thread, and transactions are serviced by the transaction threads rather
+     * than by these threads.
+     *
+     * @return
+     */
+    public int getSiteToSiteThreads() {
+        return getIntegerProperty(SITE_TO_SITE_THREADS, DEFAULT_SITE_TO_SITE_THREADS);
+    }
+
+    /**
+     * The maximum number of threads used to service transactions with peers
+     * connected to the Remote Input Port.
+     *
+     * @return
+     */
+    public int getSiteToSiteTransactionThreads() {
+        return getIntegerProperty(SITE_TO_SITE_TRANSACTION_THREADS, DEFAULT_SITE_TO_SITE_TRANSACTION_THREADS);
+    }
+
+    /**
+     * The number of transactions that may wait for a transaction thread before
+     * further transactions are rejected.
+     *
+     * @return
+     */
+    public int getSiteToSiteTransactionQueueSize() {
+        return getIntegerProperty(SITE_TO_SITE_TRANSACTION_QUEUE_SIZE, DEFAULT_SITE_TO_SITE_TRANSACTION_QUEUE_SIZE);
+    }
+
     /**
      * Returns the directory to which Templates are to be persisted
      *
@@ -421,6 +496,17 @@ public class NiFiProperties extends Properties {
         return Integer.parseInt(rawProperty);
     }
 
+    /**
+     * Returns the number of threads that should be used to recover the FlowFile
+     * Repository on startup. Defaults to 1, which recovers the repository
+     * serially; concurrent recovery must be enabled explicitly.
+     *
+     * @return
+     */
+    public int getFlowFileRepositoryRecoveryThreads() {
+        return getIntegerProperty(FLOWFILE_REPOSITORY_RECOVERY_THREADS, DEFAULT_FLOWFILE_REPO_RECOVERY_THREADS);
+    }
+
     /**
      * Returns the number of milliseconds between FlowFileRepository
      * checkpointing
@@ -711,6 +797,14 @@ public class NiFiProperties extends Properties {
         return getProperty(CLUSTER_MANAGER_NODE_API_READ_TIMEOUT, DEFAULT_CLUSTER_MANAGER_NODE_API_READ_TIMEOUT);
     }
 
+    /**
+     * Returns the number of threads that the cluster manager keeps for
+     * replicating requests to the nodes. When all of them are busy, additional
+     * threads are created, up to the number returned by
+     * {@link #getClusterManagerNodeApiMaxRequestThreads()}.
+     *
+     * @return
+     */
     public int getClusterManagerNodeApiRequestThreads() {
         try {
             return Integer.parseInt(getProperty(CLUSTER_MANAGER_NODE_API_REQUEST_THREADS));
@@ -719,6 +813,19 @@ public class NiFiProperties extends Properties {
         }
     }
 
+    /**
+     * Returns the maximum number of threads that the cluster manager uses for
+     * replicating requests to the nodes. Once they are all busy, requests wait
+     * for one of them to become available. This should be at least the number
+     * of nodes, so that each node of the cluster can be requested at the same
+     * time.
+     *
+     * @return
+     */
+    public int getClusterManagerNodeApiMaxRequestThreads() {
+        return getIntegerProperty(CLUSTER_MANAGER_NODE_API_MAX_REQUEST_THREADS, DEFAULT_CLUSTER_MANAGER_NODE_API_MAX_REQUEST_THREADS);
+    }
+
     public String getClusterManagerFlowRetrievalDelay() {
         return getProperty(CLUSTER_MANAGER_FLOW_RETRIEVAL_DELAY, DEFAULT_CLUSTER_MANAGER_FLOW_RETRIEVAL_DELAY);
     }
@@ -735,6 +842,10 @@ public class NiFiProperties extends Properties {
         return getProperty(CLUSTER_MANAGER_SAFEMODE_DURATION, DEFAULT_CLUSTER_MANAGER_SAFEMODE_DURATION);
     }
 
+    public String getClusterManagerResponseCacheDuration() {
+        return getProperty(CLUSTER_MANAGER_RESPONSE_CACHE_DURATION, DEFAULT_CLUSTER_MANAGER_RESPONSE_CACHE_DURATION);
+    }
+
     public String getClusterProtocolManagerToNodeApiScheme() {
         final String isSecureProperty = getProperty(CLUSTER_PROTOCOL_IS_SECURE);
         if (Boolean.valueOf(isSecureProperty)) {
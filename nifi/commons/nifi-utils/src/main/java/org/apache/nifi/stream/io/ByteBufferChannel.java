@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.stream.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A read-only SeekableByteChannel over the contents of a ByteBuffer. The
+ * contents are the bytes between the buffer's position and limit at the time
+ * that the channel is created; the given buffer itself is never modified.
+ */
+public class ByteBufferChannel implements SeekableByteChannel {
+
+    private final ByteBuffer buffer;
+    private long position = 0L;
+    private volatile boolean open = true;
+
+    public ByteBufferChannel(final ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    public ByteBufferChannel(final byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (position >= buffer.limit()) {
+            return -1;
+        }
+
+        final int bytesToCopy = (int) Math.min(dst.remaining(), buffer.limit() - position);
+        final ByteBuffer src = buffer.duplicate();
+        src.position((int) position);
+        src.limit((int) position + bytesToCopy);
+        dst.put(src);
+        position += bytesToCopy;
+        return bytesToCopy;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position cannot be negative");
+        }
+
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return buffer.limit();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
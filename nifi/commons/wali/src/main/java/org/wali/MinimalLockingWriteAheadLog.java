@@ -18,18 +18,22 @@ package org.wali;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,6 +41,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -45,11 +50,18 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
@@ -82,6 +94,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
 
     private final SerDe<T> serde;
     private final SyncListener syncListener;
+    private final int recoveryThreadCount;
     private final FileChannel lockChannel;
     private final AtomicLong transactionIdGenerator = new AtomicLong(0L);
 
@@ -101,11 +114,22 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
     private final Lock readLock = rwLock.readLock(); // required to update a partition
     private final Lock writeLock = rwLock.writeLock(); // required for checkpoint
 
+    private static final int MAX_BUFFERED_TRANSACTIONS = 16;
+    private static final int LOOKAHEAD_TRANSACTIONS_PER_THREAD = 16;
+
     private volatile boolean updated = false;
     private volatile boolean recovered = false;
 
     public MinimalLockingWriteAheadLog(final Path path, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener) throws IOException {
-        this(new TreeSet<>(Collections.singleton(path)), partitionCount, serde, syncListener);
+        this(path, partitionCount, serde, syncListener, 1);
+    }
+
+    public MinimalLockingWriteAheadLog(final Path path, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener, final int recoveryThreadCount) throws IOException {
+        this(new TreeSet<>(Collections.singleton(path)), partitionCount, serde, syncListener, recoveryThreadCount);
+    }
+
+    public MinimalLockingWriteAheadLog(final SortedSet<Path> paths, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener) throws IOException {
+        this(paths, partitionCount, serde, syncListener, 1);
     }
 
     /**
@@ -120,11 +144,24 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
      *
      * @param serde
      * @param syncListener
+     *
+     * @param recoveryThreadCount the number of threads to use for reading the
+     * Partitions' journals when recovering records. If greater than 1, the
+     * journals are read concurrently and the transactions that they contain
+     * are then applied in the order of their Transaction IDs. This requires
+     * that the number of bytes that the SerDe reads for an edit not depend on
+     * the current state of the records. A transaction whose edits iterate over
+     * the map of current record states, rather than looking up individual
+     * records, is always read again when it is applied, so it gains nothing
+     * from being read concurrently.
+     *
      * @throws IOException
      */
     @SuppressWarnings("unchecked")
-    public MinimalLockingWriteAheadLog(final SortedSet<Path> paths, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener) throws IOException {
+    public MinimalLockingWriteAheadLog(final SortedSet<Path> paths, final int partitionCount, final SerDe<T> serde, final SyncListener syncListener,
+            final int recoveryThreadCount) throws IOException {
         this.syncListener = syncListener;
+        this.recoveryThreadCount = recoveryThreadCount;
 
         requireNonNull(paths);
         requireNonNull(serde);
@@ -284,7 +321,11 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         writeLock.lock();
         try {
             Long maxTransactionId = recoverFromSnapshot(recordMap);
-            recoverFromEdits(recordMap, maxTransactionId);
+            if (recoveryThreadCount > 1 && partitions.length > 1) {
+                recoverFromEditsConcurrently(recordMap, maxTransactionId);
+            } else {
+                recoverFromEdits(recordMap, maxTransactionId);
+            }
 
             for (final Partition<T> partition : partitions) {
                 final long transId = partition.getMaxRecoveredTransactionId();
@@ -466,6 +507,396 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         }
     }
 
+    /**
+     * Recovers records from the edit logs by reading each Partition's journals
+     * in a background task and applying the transactions read, in order of
+     * Transaction ID, on the calling thread. Because an edit may be encoded
+     * relative to the previous state of its record, a background task reads
+     * each transaction against the records as they are known at that time --
+     * the records already applied, overlaid with those updated by
+     * transactions of the same Partition that have not yet been applied. Each
+     * record state that was consulted is retained, and if any of them is no
+     * longer current when the transaction is applied, then a transaction with
+     * a lower Transaction ID in another Partition updated the record, so the
+     * transaction is read again from its retained bytes against the current
+     * records. The result is therefore the same as that of
+     * {@link #recoverFromEdits(Map, Long)}.
+     *
+     * @param modifiableRecordMap
+     * @param maxTransactionIdRestored
+     * @throws IOException
+     */
+    private void recoverFromEditsConcurrently(final Map<Object, T> modifiableRecordMap, final Long maxTransactionIdRestored) throws IOException {
+        final int threadCount = Math.min(recoveryThreadCount, partitions.length);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "Recover Write-Ahead Log-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        final Map<Object, T> unmodifiableRecordMap = Collections.unmodifiableMap(modifiableRecordMap);
+        final Map<Object, T> updateMap = new HashMap<>();
+        final AtomicLong lastAppliedTransactionId = new AtomicLong(maxTransactionIdRestored == null ? -1L : maxTransactionIdRestored);
+        final long maxLookahead = (long) threadCount * LOOKAHEAD_TRANSACTIONS_PER_THREAD;
+        final ConcurrentSkipListMap<Long, PartitionReader> deferredReaders = new ConcurrentSkipListMap<>();
+        long transactionsApplied = 0L;
+        long transactionsReread = 0L;
+
+        try {
+            final SortedMap<Long, PartitionReader> transactionMap = new TreeMap<>();
+            final List<PartitionReader> readers = new ArrayList<>(partitions.length);
+            for (final Partition<T> partition : partitions) {
+                final PartitionReader reader = new PartitionReader(partition, maxTransactionIdRestored, lastAppliedTransactionId, maxLookahead, deferredReaders, executor);
+                readers.add(reader);
+                reader.schedule();
+            }
+
+            for (final PartitionReader reader : readers) {
+                final RecoveredTransaction<T> transaction = reader.take();
+                if (transaction != null) {
+                    transactionMap.put(transaction.getTransactionId(), reader);
+                }
+            }
+
+            while (!transactionMap.isEmpty()) {
+                final Map.Entry<Long, PartitionReader> firstEntry = transactionMap.entrySet().iterator().next();
+                final Long firstTransactionId = firstEntry.getKey();
+                final PartitionReader reader = firstEntry.getValue();
+                final RecoveredTransaction<T> transaction = reader.getCurrentTransaction();
+
+                List<T> records = transaction.getRecords();
+                if (!transaction.isCurrent(modifiableRecordMap)) {
+                    records = reader.getPartition().rereadTransaction(transaction, unmodifiableRecordMap);
+                    transactionsReread++;
+                }
+
+                updateMap.clear();
+                final Set<Object> idsRemoved = reader.getPartition().applyTransaction(records, updateMap, recoveredExternalLocations);
+                modifiableRecordMap.putAll(updateMap);
+                for (final Object id : idsRemoved) {
+                    modifiableRecordMap.remove(id);
+                }
+                lastAppliedTransactionId.set(firstTransactionId);
+                transactionsApplied++;
+
+                Map.Entry<Long, PartitionReader> deferredEntry;
+                while ((deferredEntry = deferredReaders.firstEntry()) != null && deferredEntry.getKey() <= firstTransactionId + maxLookahead) {
+                    if (deferredReaders.remove(deferredEntry.getKey(), deferredEntry.getValue())) {
+                        deferredEntry.getValue().wake();
+                    }
+                }
+
+                transactionMap.remove(firstTransactionId);
+
+                final RecoveredTransaction<T> subsequentTransaction = reader.take();
+                if (subsequentTransaction != null) {
+                    transactionMap.put(subsequentTransaction.getTransactionId(), reader);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        logger.info("{} applied {} transactions read concurrently by {} threads; {} of them were re-read because the records they were read "
+                + "against may have been updated by a transaction in another Partition", new Object[]{this, transactionsApplied, threadCount, transactionsReread});
+
+        for (final Partition<T> partition : partitions) {
+            partition.endRecovery();
+        }
+    }
+
+    /**
+     * Reads the transactions of a single Partition ahead of their being
+     * applied. A PartitionReader never blocks, so that a limited number of
+     * threads can serve any number of Partitions: it runs until it has
+     * buffered {@link #MAX_BUFFERED_TRANSACTIONS} transactions, or until its
+     * next transaction is more than the lookahead beyond the last transaction
+     * applied, and is scheduled again when one of its transactions is taken or
+     * the transactions applied catch up. Limiting the lookahead limits the
+     * transactions that must be re-read to those that update a record that
+     * was updated shortly before in another Partition. A PartitionReader whose
+     * buffer is empty always reads its next transaction, as the thread
+     * applying the transactions may be waiting for it.
+     */
+    private class PartitionReader implements Runnable {
+
+        private final Partition<T> partition;
+        private final Long maxTransactionIdRestored;
+        private final AtomicLong lastAppliedTransactionId;
+        private final long maxLookahead;
+        private final ConcurrentMap<Long, PartitionReader> deferredReaders;
+        private final ExecutorService executor;
+
+        private final RecoveredTransaction<T> endOfPartition = new RecoveredTransaction<>(-1L, null, null, 0);
+        private final BlockingQueue<RecoveredTransaction<T>> transactions = new LinkedBlockingQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile boolean finished = false;
+        private volatile boolean wakeRequested = false;
+        private volatile Throwable failure;
+        private Long nextTransactionId;
+
+        // records updated by transactions that have been read but possibly not yet applied, and the
+        // transactions that updated them, in order, so that the records can be discarded once applied
+        private final Map<Object, PendingUpdate<T>> pendingUpdates = new HashMap<>();
+        private final Queue<RecoveredTransaction<T>> pendingTransactions = new LinkedList<>();
+
+        private RecoveredTransaction<T> currentTransaction;
+
+        public PartitionReader(final Partition<T> partition, final Long maxTransactionIdRestored, final AtomicLong lastAppliedTransactionId, final long maxLookahead,
+                final ConcurrentMap<Long, PartitionReader> deferredReaders, final ExecutorService executor) {
+            this.partition = partition;
+            this.maxTransactionIdRestored = maxTransactionIdRestored;
+            this.lastAppliedTransactionId = lastAppliedTransactionId;
+            this.maxLookahead = maxLookahead;
+            this.deferredReaders = deferredReaders;
+            this.executor = executor;
+        }
+
+        public Partition<T> getPartition() {
+            return partition;
+        }
+
+        public RecoveredTransaction<T> getCurrentTransaction() {
+            return currentTransaction;
+        }
+
+        /**
+         * Schedules this reader after the transactions applied have caught up
+         * with its next transaction
+         */
+        public void wake() {
+            wakeRequested = true;
+            schedule();
+        }
+
+        public void schedule() {
+            if (!finished && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (final RejectedExecutionException ree) {
+                    // recovery has been aborted
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        /**
+         * Waits for the next transaction of the Partition
+         *
+         * @return the next transaction, or <code>null</code> if the Partition
+         * has no more transactions
+         * @throws IOException if the Partition could not be read
+         */
+        public RecoveredTransaction<T> take() throws IOException {
+            final RecoveredTransaction<T> transaction;
+            try {
+                transaction = transactions.take();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting to recover " + partition, ie);
+            }
+            schedule();
+
+            if (transaction == endOfPartition) {
+                currentTransaction = null;
+
+                final Throwable t = failure;
+                if (t instanceof IOException) {
+                    throw (IOException) t;
+                } else if (t instanceof RuntimeException) {
+                    throw (RuntimeException) t;
+                } else if (t instanceof Error) {
+                    throw (Error) t;
+                } else if (t != null) {
+                    throw new IOException(t);
+                }
+                return null;
+            }
+
+            currentTransaction = transaction;
+            return transaction;
+        }
+
+        @Override
+        public void run() {
+            wakeRequested = false;
+            boolean deferred = false;
+            try {
+                while (!finished && transactions.size() < MAX_BUFFERED_TRANSACTIONS) {
+                    if (nextTransactionId == null) {
+                        nextTransactionId = readNextTransactionId();
+                        if (nextTransactionId == null) {
+                            finished = true;
+                            transactions.add(endOfPartition);
+                            break;
+                        }
+                    }
+
+                    if (!transactions.isEmpty() && nextTransactionId > lastAppliedTransactionId.get() + maxLookahead) {
+                        deferredReaders.put(nextTransactionId, this);
+                        deferred = true;
+                        break;
+                    }
+
+                    final RecoveredTransaction<T> transaction = readTransaction(nextTransactionId);
+                    nextTransactionId = null;
+                    if (transaction != null) {
+                        transactions.add(transaction);
+                    }
+                }
+            } catch (final Throwable t) {
+                failure = t;
+                finished = true;
+                transactions.add(endOfPartition);
+            } finally {
+                scheduled.set(false);
+            }
+
+            // we may have been taken from or woken after we last checked; if our buffer was emptied while we were
+            // deferring, the transaction that was taken did not schedule us since we were still running
+            if (wakeRequested || (!finished && transactions.isEmpty()) || (!deferred && transactions.size() < MAX_BUFFERED_TRANSACTIONS)) {
+                schedule();
+            }
+        }
+
+        private Long readNextTransactionId() throws IOException {
+            while (true) {
+                final Long transactionId;
+                try {
+                    transactionId = partition.getNextRecoverableTransactionId();
+                } catch (final IOException e) {
+                    logger.error("{} unexpectedly found End-of-File when reading from {}; assuming crash and ignoring the remainder of the Partition",
+                            MinimalLockingWriteAheadLog.this, partition);
+                    return null;
+                }
+
+                if (transactionId == null || maxTransactionIdRestored == null || transactionId > maxTransactionIdRestored) {
+                    return transactionId;
+                }
+
+                // skip the transaction, because our snapshot already contained it.
+                try {
+                    partition.recoverNextTransaction(new HashMap<Object, T>(), new HashMap<Object, T>(), new HashSet<String>());
+                } catch (final EOFException e) {
+                    logger.error("{} unexpectedly reached End of File while reading from {} for Transaction {}; assuming crash and ignoring this transaction.",
+                            new Object[]{MinimalLockingWriteAheadLog.this, partition, transactionId});
+                }
+            }
+        }
+
+        private RecoveredTransaction<T> readTransaction(final long transactionId) throws IOException {
+            discardAppliedUpdates();
+
+            final RecordTrackingMap currentRecords = new RecordTrackingMap();
+            final RecoveredTransaction<T> transaction;
+            try {
+                transaction = partition.readNextTransaction(transactionId, currentRecords);
+            } catch (final EOFException e) {
+                logger.error("{} unexpectedly reached End-of-File when reading from {} for Transaction ID {}; assuming crash and ignoring this transaction",
+                        new Object[]{MinimalLockingWriteAheadLog.this, partition, transactionId});
+                return null;
+            }
+
+            transaction.setRecordsRead(currentRecords.getRecordsRead(), currentRecords.isIterated());
+            addPendingUpdates(transaction);
+            return transaction;
+        }
+
+        private void addPendingUpdates(final RecoveredTransaction<T> transaction) {
+            final long transactionId = transaction.getTransactionId();
+            for (final T record : transaction.getRecords()) {
+                final Object recordId = serde.getRecordIdentifier(record);
+                final UpdateType updateType = serde.getUpdateType(record);
+                if ((updateType == UpdateType.SWAP_IN || updateType == UpdateType.SWAP_OUT) && serde.getLocation(record) == null) {
+                    continue; // ignored when the transaction is applied
+                }
+
+                final boolean removed = updateType == UpdateType.DELETE || updateType == UpdateType.SWAP_OUT;
+                pendingUpdates.put(recordId, new PendingUpdate<>(transactionId, removed ? null : record));
+            }
+
+            pendingTransactions.add(transaction);
+        }
+
+        private void discardAppliedUpdates() {
+            final long appliedTransactionId = lastAppliedTransactionId.get();
+
+            RecoveredTransaction<T> pendingTransaction;
+            while ((pendingTransaction = pendingTransactions.peek()) != null && pendingTransaction.getTransactionId() <= appliedTransactionId) {
+                pendingTransactions.remove();
+
+                for (final T record : pendingTransaction.getRecords()) {
+                    final Object recordId = serde.getRecordIdentifier(record);
+                    final PendingUpdate<T> pendingUpdate = pendingUpdates.get(recordId);
+                    if (pendingUpdate != null && pendingUpdate.getTransactionId() == pendingTransaction.getTransactionId()) {
+                        pendingUpdates.remove(recordId);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The record states against which a transaction is read: the records
+         * updated by this Partition's pending transactions, followed by those
+         * already applied. Records the states that were consulted, or that
+         * all of them were, if the map was iterated.
+         */
+        private class RecordTrackingMap extends AbstractMap<Object, T> {
+
+            private final Map<Object, T> recordsRead = new HashMap<>();
+            private boolean iterated = false;
+
+            public Map<Object, T> getRecordsRead() {
+                return recordsRead;
+            }
+
+            public boolean isIterated() {
+                return iterated;
+            }
+
+            @Override
+            public T get(final Object key) {
+                if (recordsRead.containsKey(key)) {
+                    return recordsRead.get(key);
+                }
+
+                final PendingUpdate<T> pendingUpdate = pendingUpdates.get(key);
+                final T record = pendingUpdate == null ? recordMap.get(key) : pendingUpdate.getRecord();
+                recordsRead.put(key, record);
+                return record;
+            }
+
+            @Override
+            public boolean containsKey(final Object key) {
+                return get(key) != null;
+            }
+
+            /**
+             * Returns a snapshot of all records. Records that were already
+             * consulted keep the state that was returned for them. Since
+             * records that are applied concurrently may be missing from the
+             * snapshot, the transaction is read again when it is applied.
+             */
+            @Override
+            public Set<Map.Entry<Object, T>> entrySet() {
+                iterated = true;
+
+                final Map<Object, T> records = new HashMap<>(recordMap);
+                for (final Map.Entry<Object, PendingUpdate<T>> entry : pendingUpdates.entrySet()) {
+                    records.put(entry.getKey(), entry.getValue().getRecord());
+                }
+                records.putAll(recordsRead);
+                records.values().removeAll(Collections.singleton(null));
+                return Collections.unmodifiableMap(records).entrySet();
+            }
+        }
+    }
+
     @Override
     public synchronized int checkpoint() throws IOException {
         final Set<T> records;
@@ -594,6 +1025,141 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         return 1;
     }
 
+    /**
+     * A transaction that was read from a Partition during concurrent recovery,
+     * along with its bytes and the record states that it was read against
+     */
+    private static class RecoveredTransaction<S> {
+
+        private final long transactionId;
+        private final List<S> records;
+        private final byte[] bytes;
+        private final int version;
+        private Map<Object, S> recordsRead = Collections.emptyMap();
+        private boolean allRecordsRead = false;
+
+        public RecoveredTransaction(final long transactionId, final List<S> records, final byte[] bytes, final int version) {
+            this.transactionId = transactionId;
+            this.records = records;
+            this.bytes = bytes;
+            this.version = version;
+        }
+
+        public long getTransactionId() {
+            return transactionId;
+        }
+
+        public List<S> getRecords() {
+            return records;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public void setRecordsRead(final Map<Object, S> recordsRead, final boolean allRecordsRead) {
+            this.recordsRead = recordsRead;
+            this.allRecordsRead = allRecordsRead;
+        }
+
+        /**
+         * @param recordMap the records as of the application of this
+         * transaction
+         * @return <code>true</code> if every record state that this transaction
+         * was read against is still the current state of the record
+         */
+        public boolean isCurrent(final Map<Object, S> recordMap) {
+            if (allRecordsRead) {
+                return false;
+            }
+
+            for (final Map.Entry<Object, S> entry : recordsRead.entrySet()) {
+                if (recordMap.get(entry.getKey()) != entry.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class PendingUpdate<S> {
+
+        private final long transactionId;
+        private final S record;
+
+        public PendingUpdate(final long transactionId, final S record) {
+            this.transactionId = transactionId;
+            this.record = record;
+        }
+
+        public long getTransactionId() {
+            return transactionId;
+        }
+
+        public S getRecord() {
+            return record;
+        }
+    }
+
+    /**
+     * Retains a copy of the bytes read through it
+     */
+    private static class RecordingInputStream extends FilterInputStream {
+
+        private final ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
+
+        public RecordingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b >= 0) {
+                baos.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int bytesRead = in.read(b, off, len);
+            if (bytesRead > 0) {
+                baos.write(b, off, bytesRead);
+            }
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final byte[] buffer = new byte[(int) Math.min(n, 8192L)];
+            final int bytesRead = read(buffer, 0, buffer.length);
+            return Math.max(bytesRead, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(final int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        public byte[] getBytes() {
+            return baos.toByteArray();
+        }
+    }
+
     /**
      * Represents a partition of this repository, which maps directly to a
      * .journal file.
@@ -948,15 +1514,60 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
         }
 
         public Set<Object> recoverNextTransaction(final Map<Object, S> currentRecordMap, final Map<Object, S> updatedRecordMap, final Set<String> swapLocations) throws IOException {
-            final Set<Object> idsRemoved = new HashSet<>();
+            final List<S> records = readTransaction(recoveryIn, currentRecordMap, recoveryVersion);
+            return applyTransaction(records, updatedRecordMap, swapLocations);
+        }
+
+        /**
+         * Reads the next transaction, whose Transaction ID has already been
+         * read via {@link #getNextRecoverableTransactionId()}, retaining the
+         * bytes of the transaction so that it can be read again via
+         * {@link #rereadTransaction(RecoveredTransaction, Map)} if the record
+         * states that it was read against turn out to be stale
+         *
+         * @param transactionId
+         * @param currentRecordMap
+         * @return
+         * @throws IOException
+         */
+        public RecoveredTransaction<S> readNextTransaction(final long transactionId, final Map<Object, S> currentRecordMap) throws IOException {
+            final RecordingInputStream recordingIn = new RecordingInputStream(recoveryIn);
+            final List<S> records = readTransaction(new DataInputStream(recordingIn), currentRecordMap, recoveryVersion);
+            return new RecoveredTransaction<>(transactionId, records, recordingIn.getBytes(), recoveryVersion);
+        }
+
+        public List<S> rereadTransaction(final RecoveredTransaction<S> transaction, final Map<Object, S> currentRecordMap) throws IOException {
+            final byte[] bytes = transaction.getBytes();
+            final ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+            final List<S> records = readTransaction(new DataInputStream(bais), currentRecordMap, transaction.getVersion());
+            if (bais.available() > 0) {
+                throw new IOException("Re-read Transaction " + transaction.getTransactionId() + " from " + this + " but consumed only " + (bytes.length - bais.available())
+                        + " of its " + bytes.length + " bytes; the " + serde.getClass().getName() + " SerDe does not support concurrent recovery");
+            }
+            return records;
+        }
+
+        private List<S> readTransaction(final DataInputStream in, final Map<Object, S> currentRecordMap, final int version) throws IOException {
+            final List<S> records = new ArrayList<>();
 
             int transactionFlag;
             do {
-                final S record = serde.deserializeEdit(recoveryIn, currentRecordMap, recoveryVersion);
+                final S record = serde.deserializeEdit(in, currentRecordMap, version);
                 if (logger.isTraceEnabled()) {
                     logger.trace("{} Recovering Transaction {}: {}", new Object[]{this, maxTransactionId.get(), record});
                 }
 
+                records.add(record);
+                transactionFlag = in.read();
+            } while (transactionFlag != TRANSACTION_COMMIT);
+
+            return records;
+        }
+
+        public Set<Object> applyTransaction(final List<S> records, final Map<Object, S> updatedRecordMap, final Set<String> swapLocations) {
+            final Set<Object> idsRemoved = new HashSet<>();
+
+            for (final S record : records) {
                 final Object recordId = serde.getRecordIdentifier(record);
                 final UpdateType updateType = serde.getUpdateType(record);
                 if (updateType == UpdateType.DELETE) {
@@ -984,9 +1595,7 @@ public final class MinimalLockingWriteAheadLog<T> implements WriteAheadRepositor
                     updatedRecordMap.put(recordId, record);
                     idsRemoved.remove(recordId);
                 }
-
-                transactionFlag = recoveryIn.read();
-            } while (transactionFlag != TRANSACTION_COMMIT);
+            }
 
             return idsRemoved;
         }
@@ -20,6 +20,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
@@ -28,8 +30,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
@@ -253,6 +260,208 @@ public class TestMinimalLockingWriteAheadLog {
 
     }
 
+    @Test
+    public void testConcurrentRecoveryOfDeltaEncodedEdits() throws IOException {
+        final int numPartitions = 16;
+        final Path path = Paths.get("target/minimal-locking-repo-concurrent-recovery");
+        final Path copyPath = Paths.get("target/minimal-locking-repo-concurrent-recovery-copy");
+        deleteRecursively(path.toFile());
+        deleteRecursively(copyPath.toFile());
+        Files.createDirectories(path);
+
+        final DeltaRecordSerde serde = new DeltaRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        // Each transaction goes to the next Partition, so successive updates to a record are spread across Partitions,
+        // and each update writes only the properties that changed, so recovering it depends on the previous update.
+        final Random random = new Random(42L);
+        final Map<String, DummyRecord> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            final Map<String, DummyRecord> transaction = new HashMap<>();
+            final int numRecords = 1 + random.nextInt(3);
+            while (transaction.size() < numRecords) {
+                final String id = String.valueOf(random.nextInt(2000));
+                final DummyRecord previous = expected.get(id);
+                final DummyRecord record;
+                if (previous == null) {
+                    record = new DummyRecord(id, UpdateType.CREATE).setProperty("counter", "0").setProperty("name", "record-" + id);
+                } else if (random.nextInt(10) == 0) {
+                    record = new DummyRecord(id, UpdateType.DELETE);
+                } else {
+                    final int counter = Integer.parseInt(previous.getProperty("counter"));
+                    record = new DummyRecord(id, UpdateType.UPDATE).setProperties(previous.getProperties()).setProperty("counter", String.valueOf(counter + 1));
+                }
+                transaction.put(id, record);
+            }
+
+            repo.update(transaction.values(), false);
+            for (final DummyRecord record : transaction.values()) {
+                if (record.getUpdateType() == UpdateType.DELETE) {
+                    expected.remove(record.getId());
+                } else {
+                    expected.put(record.getId(), record);
+                }
+            }
+        }
+        repo.shutdown();
+        copyRecursively(path.toFile(), copyPath.toFile());
+
+        final WriteAheadRepository<DummyRecord> serialRepo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null, 1);
+        assertRecords(expected, serialRepo.recoverRecords());
+        serialRepo.shutdown();
+
+        final WriteAheadRepository<DummyRecord> concurrentRepo = new MinimalLockingWriteAheadLog<>(copyPath, numPartitions, serde, null, 4);
+        assertRecords(expected, concurrentRepo.recoverRecords());
+        concurrentRepo.shutdown();
+    }
+
+    @Test
+    public void testConcurrentRecoveryWithSerDeThatIteratesRecords() throws IOException {
+        final int numPartitions = 8;
+        final Path path = Paths.get("target/minimal-locking-repo-concurrent-recovery-iterating");
+        final Path copyPath = Paths.get("target/minimal-locking-repo-concurrent-recovery-iterating-copy");
+        deleteRecursively(path.toFile());
+        deleteRecursively(copyPath.toFile());
+        Files.createDirectories(path);
+
+        final IteratingRecordSerde serde = new IteratingRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        final Random random = new Random(42L);
+        final Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            final String id = String.valueOf(random.nextInt(200));
+            final DummyRecord record;
+            if (!ids.add(id)) {
+                ids.remove(id);
+                record = new DummyRecord(id, UpdateType.DELETE);
+            } else {
+                record = new DummyRecord(id, UpdateType.CREATE).setProperty("name", "record-" + id);
+            }
+            repo.update(Collections.singleton(record), false);
+        }
+        repo.shutdown();
+        copyRecursively(path.toFile(), copyPath.toFile());
+
+        final WriteAheadRepository<DummyRecord> serialRepo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null, 1);
+        final Map<String, DummyRecord> expected = new HashMap<>();
+        for (final DummyRecord record : serialRepo.recoverRecords()) {
+            expected.put(record.getId(), record);
+        }
+        serialRepo.shutdown();
+        assertEquals(ids, expected.keySet());
+
+        final WriteAheadRepository<DummyRecord> concurrentRepo = new MinimalLockingWriteAheadLog<>(copyPath, numPartitions, serde, null, 4);
+        assertRecords(expected, concurrentRepo.recoverRecords());
+        concurrentRepo.shutdown();
+    }
+
+    @Test(timeout = 120000)
+    public void testConcurrentRecoveryOfManySmallTransactionsCompletes() throws IOException {
+        final int numPartitions = 16;
+        final Path path = Paths.get("target/minimal-locking-repo-concurrent-recovery-small-transactions");
+        deleteRecursively(path.toFile());
+        Files.createDirectories(path);
+
+        final DummyRecordSerde serde = new DummyRecordSerde();
+        final WriteAheadRepository<DummyRecord> repo = new MinimalLockingWriteAheadLog<>(path, numPartitions, serde, null);
+        assertTrue(repo.recoverRecords().isEmpty());
+
+        // readers frequently defer reading ahead while their buffered transactions are being taken
+        final Random random = new Random(1L);
+        final Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 200000; i++) {
+            final String id = String.valueOf(random.nextInt(1000));
+            ids.add(id);
+            repo.update(Collections.singleton(new DummyRecord(id, UpdateType.CREATE).setProperty("A", "B")), false);
+        }
+        repo.shutdown();
+
+        for (int i = 0; i < 3; i++) {
+            final Path copyPath = Paths.get("target/minimal-locking-repo-concurrent-recovery-small-transactions-" + i);
+            deleteRecursively(copyPath.toFile());
+            copyRecursively(path.toFile(), copyPath.toFile());
+
+            final WriteAheadRepository<DummyRecord> concurrentRepo = new MinimalLockingWriteAheadLog<>(copyPath, numPartitions, serde, null, 4);
+            assertEquals(ids.size(), concurrentRepo.recoverRecords().size());
+            concurrentRepo.shutdown();
+        }
+    }
+
+    private void assertRecords(final Map<String, DummyRecord> expected, final Collection<DummyRecord> recovered) {
+        assertEquals(expected.size(), recovered.size());
+        for (final DummyRecord record : recovered) {
+            assertEquals(expected.get(record.getId()).getProperties(), record.getProperties());
+        }
+    }
+
+    /**
+     * Serializes only the properties of a record that differ from those of
+     * the record's previous version, as the FlowFile Repository does with
+     * FlowFile attributes
+     */
+    private static class DeltaRecordSerde extends DummyRecordSerde {
+
+        @Override
+        public void serializeEdit(final DummyRecord previousState, final DummyRecord record, final DataOutputStream out) throws IOException {
+            out.write(record.getUpdateType().ordinal());
+            out.writeUTF(record.getId());
+
+            if (record.getUpdateType() != UpdateType.DELETE) {
+                final Map<String, String> changed = new HashMap<>(record.getProperties());
+                if (previousState != null) {
+                    changed.entrySet().removeAll(previousState.getProperties().entrySet());
+                }
+
+                out.writeInt(changed.size());
+                for (final Map.Entry<String, String> entry : changed.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        public DummyRecord deserializeEdit(final DataInputStream in, final Map<Object, DummyRecord> currentVersion, final int version) throws IOException {
+            final DummyRecord edit = deserializeRecord(in, version);
+            final DummyRecord previous = currentVersion.get(edit.getId());
+            if (edit.getUpdateType() == UpdateType.DELETE || previous == null) {
+                return edit;
+            }
+
+            final DummyRecord record = new DummyRecord(edit.getId(), edit.getUpdateType()).setProperties(previous.getProperties());
+            for (final Map.Entry<String, String> entry : edit.getProperties().entrySet()) {
+                record.setProperty(entry.getKey(), entry.getValue());
+            }
+            return record;
+        }
+    }
+
+    /**
+     * Records, on each recovered record, how many records existed when it was
+     * created, which can only be determined by iterating over the current
+     * records
+     */
+    private static class IteratingRecordSerde extends DummyRecordSerde {
+
+        @Override
+        public DummyRecord deserializeEdit(final DataInputStream in, final Map<Object, DummyRecord> currentVersion, final int version) throws IOException {
+            final DummyRecord record = deserializeRecord(in, version);
+            if (record.getUpdateType() != UpdateType.DELETE) {
+                int existing = 0;
+                for (final Map.Entry<Object, DummyRecord> entry : currentVersion.entrySet()) {
+                    if (!entry.getKey().equals(record.getId())) {
+                        existing++;
+                    }
+                }
+                record.setProperty("existing", String.valueOf(existing));
+            }
+            return record;
+        }
+    }
+
     private static class InsertThread extends Thread {
 
         private final List<List<DummyRecord>> records;
@@ -285,6 +494,17 @@ public class TestMinimalLockingWriteAheadLog {
         }
     }
 
+    private void copyRecursively(final File source, final File destination) throws IOException {
+        if (source.isDirectory()) {
+            Files.createDirectories(destination.toPath());
+            for (final File child : source.listFiles()) {
+                copyRecursively(child, new File(destination, child.getName()));
+            }
+        } else {
+            Files.copy(source.toPath(), destination.toPath());
+        }
+    }
+
     private void deleteRecursively(final File file) {
         final File[] children = file.listFiles();
         if (children != null) {
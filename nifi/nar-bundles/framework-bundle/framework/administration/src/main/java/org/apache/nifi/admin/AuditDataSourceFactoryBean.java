@@ -107,6 +107,13 @@ public class AuditDataSourceFactoryBean implements FactoryBean {
             + "FOREIGN KEY (ACTION_ID) REFERENCES ACTION(ID)"
             + ")";
 
+    // -------
+    // indexes
+    // -------
+    private static final String CREATE_ACTION_TIMESTAMP_INDEX = "CREATE INDEX IF NOT EXISTS IDX_ACTION_TIMESTAMP ON ACTION(ACTION_TIMESTAMP, ID)";
+
+    private static final String CREATE_ACTION_SOURCE_ID_INDEX = "CREATE INDEX IF NOT EXISTS IDX_ACTION_SOURCE_ID ON ACTION(SOURCE_ID, ACTION_TIMESTAMP)";
+
     private JdbcConnectionPool connectionPool;
 
     private NiFiProperties properties;
@@ -171,8 +178,14 @@ public class AuditDataSourceFactoryBean implements FactoryBean {
                     statement.execute(CREATE_PURGE_DETAILS_TABLE);
                 } else {
                     logger.info("Existing database found and connected to at: " + databaseUrl);
+                    RepositoryUtils.closeQuietly(rs);
+                    statement = connection.createStatement();
                 }
 
+                // indexes for history queries, which are added to existing databases as well
+                statement.execute(CREATE_ACTION_TIMESTAMP_INDEX);
+                statement.execute(CREATE_ACTION_SOURCE_ID_INDEX);
+
                 // commit any changes
                 connection.commit();
             } catch (SQLException sqle) {
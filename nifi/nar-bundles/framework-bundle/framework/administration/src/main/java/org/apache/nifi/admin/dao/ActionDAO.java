@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.admin.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,14 @@ public interface ActionDAO {
      */
     void createAction(Action action) throws DataAccessException;
 
+    /**
+     * Persists the specified actions in a single batch per table.
+     *
+     * @param actions
+     * @throws DataAccessException
+     */
+    void createActions(Collection<Action> actions) throws DataAccessException;
+
     /**
      * Finds all actions that meet the specified criteria.
      *
@@ -23,6 +23,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -131,6 +132,8 @@ public class StandardActionDAO implements ActionDAO {
     // ------------
     private static final String SELECT_ACTIONS = "SELECT * FROM ACTION";
 
+    private static final String SELECT_LATEST_ACTION_IDS = "SELECT ID FROM ACTION ORDER BY ID DESC LIMIT ?";
+
     private static final String SELECT_ACTION_COUNT = "SELECT COUNT(*) AS ACTION_COUNT FROM ACTION";
 
     private static final String SELECT_ACTION_BY_ID = "SELECT * "
@@ -138,6 +141,9 @@ public class StandardActionDAO implements ActionDAO {
             + "WHERE "
             + "ID = ?";
 
+    private static final String ACTIONS_AFTER_CONDITION = "(ACTION_TIMESTAMP %1$s (SELECT ACTION_TIMESTAMP FROM ACTION WHERE ID = ?) "
+            + "OR (ACTION_TIMESTAMP = (SELECT ACTION_TIMESTAMP FROM ACTION WHERE ID = ?) AND ID %1$s ?))";
+
     private static final String DELETE_ACTIONS = "DELETE FROM ACTION WHERE ACTION_TIMESTAMP < ?";
 
     private static final String DELETE_SPECIFIC_ACTIONS = "DELETE FROM %s WHERE %s IN (SELECT ID FROM ACTION WHERE ACTION_TIMESTAMP < ?)";
@@ -196,61 +202,73 @@ public class StandardActionDAO implements ActionDAO {
 
     @Override
     public void createAction(Action action) throws DataAccessException {
-        if (action.getUserDn() == null) {
-            throw new IllegalArgumentException("User cannot be null.");
+        createActions(Collections.singletonList(action));
+    }
+
+    @Override
+    public void createActions(Collection<Action> actions) throws DataAccessException {
+        for (final Action action : actions) {
+            if (action.getUserDn() == null) {
+                throw new IllegalArgumentException("User cannot be null.");
+            }
+
+            if (action.getTimestamp() == null) {
+                throw new IllegalArgumentException("Action timestamp cannot be null.");
+            }
         }
 
-        if (action.getTimestamp() == null) {
-            throw new IllegalArgumentException("Action timestamp cannot be null.");
+        if (actions.isEmpty()) {
+            return;
         }
 
         PreparedStatement statement = null;
         ResultSet rs = null;
         try {
             // obtain a statement to insert to the action table
-            statement = connection.prepareStatement(INSERT_ACTION, Statement.RETURN_GENERATED_KEYS);
-            statement.setString(1, StringUtils.left(action.getUserDn(), 255));
-            statement.setString(2, StringUtils.left(action.getUserName(), 100));
-            statement.setString(3, action.getSourceId());
-            statement.setString(4, StringUtils.left(action.getSourceName(), 1000));
-            statement.setString(5, action.getSourceType().toString());
-            statement.setString(6, action.getOperation().toString());
-            statement.setTimestamp(7, new java.sql.Timestamp(action.getTimestamp().getTime()));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
-
-            // get the action id
-            rs = statement.getGeneratedKeys();
-            if (updateCount == 1 && rs.next()) {
-                action.setId(rs.getInt(1));
-            } else {
-                throw new DataAccessException("Unable to insert action.");
+            statement = connection.prepareStatement(INSERT_ACTION);
+            for (final Action action : actions) {
+                statement.setString(1, StringUtils.left(action.getUserDn(), 255));
+                statement.setString(2, StringUtils.left(action.getUserName(), 100));
+                statement.setString(3, action.getSourceId());
+                statement.setString(4, StringUtils.left(action.getSourceName(), 1000));
+                statement.setString(5, action.getSourceType().toString());
+                statement.setString(6, action.getOperation().toString());
+                statement.setTimestamp(7, new java.sql.Timestamp(action.getTimestamp().getTime()));
+                statement.addBatch();
             }
 
-            // close the previous statement
+            // insert the actions
+            verifyUpdateCounts(statement.executeBatch(), "Unable to insert action.");
             statement.close();
 
-            // determine the type of component
-            ComponentDetails componentDetails = action.getComponentDetails();
-            if (componentDetails instanceof ProcessorDetails) {
-                createProcessorDetails(action.getId(), (ProcessorDetails) componentDetails);
-            } else if (componentDetails instanceof RemoteProcessGroupDetails) {
-                createRemoteProcessGroupDetails(action.getId(), (RemoteProcessGroupDetails) componentDetails);
+            // get the action ids. the insert holds an exclusive lock on the action table until the
+            // transaction completes so the latest ids belong to the actions inserted above, newest first
+            statement = connection.prepareStatement(SELECT_LATEST_ACTION_IDS);
+            statement.setInt(1, actions.size());
+            rs = statement.executeQuery();
+            final List<Integer> actionIds = new ArrayList<>(actions.size());
+            while (rs.next()) {
+                actionIds.add(rs.getInt(1));
+            }
+            if (actionIds.size() != actions.size()) {
+                throw new DataAccessException("Unable to insert action.");
             }
 
-            // determine the type of action
-            ActionDetails details = action.getActionDetails();
-            if (details instanceof ConnectDetails) {
-                createConnectDetails(action.getId(), (ConnectDetails) details);
-            } else if (details instanceof MoveDetails) {
-                createMoveDetails(action.getId(), (MoveDetails) details);
-            } else if (details instanceof ConfigureDetails) {
-                createConfigureDetails(action.getId(), (ConfigureDetails) details);
-            } else if (details instanceof PurgeDetails) {
-                createPurgeDetails(action.getId(), (PurgeDetails) details);
+            int index = actionIds.size();
+            for (final Action action : actions) {
+                action.setId(actionIds.get(--index));
             }
 
+            RepositoryUtils.closeQuietly(rs);
+            statement.close();
+
+            // insert the details of each type of component and action
+            createProcessorDetails(actions);
+            createRemoteProcessGroupDetails(actions);
+            createConnectDetails(actions);
+            createMoveDetails(actions);
+            createConfigureDetails(actions);
+            createPurgeDetails(actions);
         } catch (SQLException sqle) {
             throw new DataAccessException(sqle);
         } finally {
@@ -259,30 +277,49 @@ public class StandardActionDAO implements ActionDAO {
         }
     }
 
+    /**
+     * Ensures each statement in a batch updated a single row.
+     *
+     * @param updateCounts
+     * @param message
+     * @throws DataAccessException
+     */
+    private void verifyUpdateCounts(int[] updateCounts, String message) throws DataAccessException {
+        for (final int updateCount : updateCounts) {
+            if (updateCount != 1 && updateCount != Statement.SUCCESS_NO_INFO) {
+                throw new DataAccessException(message);
+            }
+        }
+    }
+
     /**
      * Persists the processor details.
      *
-     * @param actionId
-     * @param processorDetails
+     * @param actions
+     * @throws SQLException
      * @throws DataAccessException
      */
-    private void createProcessorDetails(int actionId, ProcessorDetails processorDetails) throws DataAccessException {
+    private void createProcessorDetails(Collection<Action> actions) throws SQLException, DataAccessException {
         PreparedStatement statement = null;
         try {
-            // obtain a statement to insert to the processor action table
-            statement = connection.prepareStatement(INSERT_PROCESSOR_DETAILS);
-            statement.setInt(1, actionId);
-            statement.setString(2, StringUtils.left(processorDetails.getType(), 1000));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
+            for (final Action action : actions) {
+                if (action.getComponentDetails() instanceof ProcessorDetails) {
+                    final ProcessorDetails processorDetails = (ProcessorDetails) action.getComponentDetails();
+
+                    // obtain a statement to insert to the processor action table
+                    if (statement == null) {
+                        statement = connection.prepareStatement(INSERT_PROCESSOR_DETAILS);
+                    }
+                    statement.setInt(1, action.getId());
+                    statement.setString(2, StringUtils.left(processorDetails.getType(), 1000));
+                    statement.addBatch();
+                }
+            }
 
-            // ensure the operation completed successfully
-            if (updateCount != 1) {
-                throw new DataAccessException("Unable to insert processor details.");
+            // insert the details
+            if (statement != null) {
+                verifyUpdateCounts(statement.executeBatch(), "Unable to insert processor details.");
             }
-        } catch (SQLException sqle) {
-            throw new DataAccessException(sqle);
         } finally {
             RepositoryUtils.closeQuietly(statement);
         }
@@ -291,27 +328,31 @@ public class StandardActionDAO implements ActionDAO {
     /**
      * Persists the remote process group details.
      *
-     * @param actionId
-     * @param remoteProcessGroupDetails
+     * @param actions
+     * @throws SQLException
      * @throws DataAccessException
      */
-    private void createRemoteProcessGroupDetails(int actionId, RemoteProcessGroupDetails remoteProcessGroupDetails) throws DataAccessException {
+    private void createRemoteProcessGroupDetails(Collection<Action> actions) throws SQLException, DataAccessException {
         PreparedStatement statement = null;
         try {
-            // obtain a statement to insert to the processor action table
-            statement = connection.prepareStatement(INSERT_REMOTE_PROCESS_GROUP_DETAILS);
-            statement.setInt(1, actionId);
-            statement.setString(2, StringUtils.left(remoteProcessGroupDetails.getUri(), 2500));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
+            for (final Action action : actions) {
+                if (action.getComponentDetails() instanceof RemoteProcessGroupDetails) {
+                    final RemoteProcessGroupDetails remoteProcessGroupDetails = (RemoteProcessGroupDetails) action.getComponentDetails();
+
+                    // obtain a statement to insert to the remote process group action table
+                    if (statement == null) {
+                        statement = connection.prepareStatement(INSERT_REMOTE_PROCESS_GROUP_DETAILS);
+                    }
+                    statement.setInt(1, action.getId());
+                    statement.setString(2, StringUtils.left(remoteProcessGroupDetails.getUri(), 2500));
+                    statement.addBatch();
+                }
+            }
 
-            // ensure the operation completed successfully
-            if (updateCount != 1) {
-                throw new DataAccessException("Unable to insert remote prcoess group details.");
+            // insert the details
+            if (statement != null) {
+                verifyUpdateCounts(statement.executeBatch(), "Unable to insert remote prcoess group details.");
             }
-        } catch (SQLException sqle) {
-            throw new DataAccessException(sqle);
         } finally {
             RepositoryUtils.closeQuietly(statement);
         }
@@ -320,33 +361,37 @@ public class StandardActionDAO implements ActionDAO {
     /**
      * Persists the connection details.
      *
-     * @param actionId
-     * @param connectionDetails
+     * @param actions
+     * @throws SQLException
      * @throws DataAccessException
      */
-    private void createConnectDetails(int actionId, ConnectDetails connectionDetails) throws DataAccessException {
+    private void createConnectDetails(Collection<Action> actions) throws SQLException, DataAccessException {
         PreparedStatement statement = null;
         try {
-            // obtain a statement to insert to the processor action table
-            statement = connection.prepareStatement(INSERT_CONNECT_DETAILS);
-            statement.setInt(1, actionId);
-            statement.setString(2, connectionDetails.getSourceId());
-            statement.setString(3, StringUtils.left(connectionDetails.getSourceName(), 1000));
-            statement.setString(4, StringUtils.left(connectionDetails.getSourceType().toString(), 1000));
-            statement.setString(5, StringUtils.left(connectionDetails.getRelationship(), 1000));
-            statement.setString(6, connectionDetails.getDestinationId());
-            statement.setString(7, StringUtils.left(connectionDetails.getDestinationName(), 1000));
-            statement.setString(8, StringUtils.left(connectionDetails.getDestinationType().toString(), 1000));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
-
-            // ensure the operation completed successfully
-            if (updateCount != 1) {
-                throw new DataAccessException("Unable to insert connection details.");
+            for (final Action action : actions) {
+                if (action.getActionDetails() instanceof ConnectDetails) {
+                    final ConnectDetails connectionDetails = (ConnectDetails) action.getActionDetails();
+
+                    // obtain a statement to insert to the connect action table
+                    if (statement == null) {
+                        statement = connection.prepareStatement(INSERT_CONNECT_DETAILS);
+                    }
+                    statement.setInt(1, action.getId());
+                    statement.setString(2, connectionDetails.getSourceId());
+                    statement.setString(3, StringUtils.left(connectionDetails.getSourceName(), 1000));
+                    statement.setString(4, StringUtils.left(connectionDetails.getSourceType().toString(), 1000));
+                    statement.setString(5, StringUtils.left(connectionDetails.getRelationship(), 1000));
+                    statement.setString(6, connectionDetails.getDestinationId());
+                    statement.setString(7, StringUtils.left(connectionDetails.getDestinationName(), 1000));
+                    statement.setString(8, StringUtils.left(connectionDetails.getDestinationType().toString(), 1000));
+                    statement.addBatch();
+                }
+            }
+
+            // insert the details
+            if (statement != null) {
+                verifyUpdateCounts(statement.executeBatch(), "Unable to insert connection details.");
             }
-        } catch (SQLException sqle) {
-            throw new DataAccessException(sqle);
         } finally {
             RepositoryUtils.closeQuietly(statement);
         }
@@ -355,30 +400,34 @@ public class StandardActionDAO implements ActionDAO {
     /**
      * Persists the move details.
      *
-     * @param actionId
-     * @param moveDetails
+     * @param actions
+     * @throws SQLException
      * @throws DataAccessException
      */
-    private void createMoveDetails(int actionId, MoveDetails moveDetails) throws DataAccessException {
+    private void createMoveDetails(Collection<Action> actions) throws SQLException, DataAccessException {
         PreparedStatement statement = null;
         try {
-            // obtain a statement to insert to the processor action table
-            statement = connection.prepareStatement(INSERT_MOVE_DETAILS);
-            statement.setInt(1, actionId);
-            statement.setString(2, moveDetails.getGroupId());
-            statement.setString(3, StringUtils.left(moveDetails.getGroup(), 1000));
-            statement.setString(4, moveDetails.getPreviousGroupId());
-            statement.setString(5, StringUtils.left(moveDetails.getPreviousGroup(), 1000));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
+            for (final Action action : actions) {
+                if (action.getActionDetails() instanceof MoveDetails) {
+                    final MoveDetails moveDetails = (MoveDetails) action.getActionDetails();
+
+                    // obtain a statement to insert to the move action table
+                    if (statement == null) {
+                        statement = connection.prepareStatement(INSERT_MOVE_DETAILS);
+                    }
+                    statement.setInt(1, action.getId());
+                    statement.setString(2, moveDetails.getGroupId());
+                    statement.setString(3, StringUtils.left(moveDetails.getGroup(), 1000));
+                    statement.setString(4, moveDetails.getPreviousGroupId());
+                    statement.setString(5, StringUtils.left(moveDetails.getPreviousGroup(), 1000));
+                    statement.addBatch();
+                }
+            }
 
-            // ensure the operation completed successfully
-            if (updateCount != 1) {
-                throw new DataAccessException("Unable to insert move details.");
+            // insert the details
+            if (statement != null) {
+                verifyUpdateCounts(statement.executeBatch(), "Unable to insert move details.");
             }
-        } catch (SQLException sqle) {
-            throw new DataAccessException(sqle);
         } finally {
             RepositoryUtils.closeQuietly(statement);
         }
@@ -387,29 +436,33 @@ public class StandardActionDAO implements ActionDAO {
     /**
      * Persists the configuration details.
      *
-     * @param actionId
-     * @param configurationDetails
+     * @param actions
+     * @throws SQLException
      * @throws DataAccessException
      */
-    private void createConfigureDetails(int actionId, ConfigureDetails configurationDetails) throws DataAccessException {
+    private void createConfigureDetails(Collection<Action> actions) throws SQLException, DataAccessException {
         PreparedStatement statement = null;
         try {
-            // obtain a statement to insert to the processor action table
-            statement = connection.prepareStatement(INSERT_CONFIGURE_DETAILS);
-            statement.setInt(1, actionId);
-            statement.setString(2, StringUtils.left(configurationDetails.getName(), 1000));
-            statement.setString(3, StringUtils.left(configurationDetails.getValue(), 5000));
-            statement.setString(4, StringUtils.left(configurationDetails.getPreviousValue(), 5000));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
+            for (final Action action : actions) {
+                if (action.getActionDetails() instanceof ConfigureDetails) {
+                    final ConfigureDetails configurationDetails = (ConfigureDetails) action.getActionDetails();
+
+                    // obtain a statement to insert to the configure action table
+                    if (statement == null) {
+                        statement = connection.prepareStatement(INSERT_CONFIGURE_DETAILS);
+                    }
+                    statement.setInt(1, action.getId());
+                    statement.setString(2, StringUtils.left(configurationDetails.getName(), 1000));
+                    statement.setString(3, StringUtils.left(configurationDetails.getValue(), 5000));
+                    statement.setString(4, StringUtils.left(configurationDetails.getPreviousValue(), 5000));
+                    statement.addBatch();
+                }
+            }
 
-            // ensure the operation completed successfully
-            if (updateCount != 1) {
-                throw new DataAccessException("Unable to insert configure details.");
+            // insert the details
+            if (statement != null) {
+                verifyUpdateCounts(statement.executeBatch(), "Unable to insert configure details.");
             }
-        } catch (SQLException sqle) {
-            throw new DataAccessException(sqle);
         } finally {
             RepositoryUtils.closeQuietly(statement);
         }
@@ -418,27 +471,31 @@ public class StandardActionDAO implements ActionDAO {
     /**
      * Persists the purge details.
      *
-     * @param actionId
-     * @param purgeDetails
+     * @param actions
+     * @throws SQLException
      * @throws DataAccessException
      */
-    private void createPurgeDetails(int actionId, PurgeDetails purgeDetails) throws DataAccessException {
+    private void createPurgeDetails(Collection<Action> actions) throws SQLException, DataAccessException {
         PreparedStatement statement = null;
         try {
-            // obtain a statement to insert to the processor action table
-            statement = connection.prepareStatement(INSERT_PURGE_DETAILS);
-            statement.setInt(1, actionId);
-            statement.setTimestamp(2, new java.sql.Timestamp(purgeDetails.getEndDate().getTime()));
-
-            // insert the action
-            int updateCount = statement.executeUpdate();
+            for (final Action action : actions) {
+                if (action.getActionDetails() instanceof PurgeDetails) {
+                    final PurgeDetails purgeDetails = (PurgeDetails) action.getActionDetails();
+
+                    // obtain a statement to insert to the purge action table
+                    if (statement == null) {
+                        statement = connection.prepareStatement(INSERT_PURGE_DETAILS);
+                    }
+                    statement.setInt(1, action.getId());
+                    statement.setTimestamp(2, new java.sql.Timestamp(purgeDetails.getEndDate().getTime()));
+                    statement.addBatch();
+                }
+            }
 
-            // ensure the operation completed successfully
-            if (updateCount != 1) {
-                throw new DataAccessException("Unable to insert connection details.");
+            // insert the details
+            if (statement != null) {
+                verifyUpdateCounts(statement.executeBatch(), "Unable to insert purge details.");
             }
-        } catch (SQLException sqle) {
-            throw new DataAccessException(sqle);
         } finally {
             RepositoryUtils.closeQuietly(statement);
         }
@@ -536,13 +593,20 @@ public class StandardActionDAO implements ActionDAO {
                 throw new DataAccessException("Unable to determine total action count.");
             }
 
+            // when paging by timestamp, continue from the last action of the previous page rather than
+            // skipping over the offset. the id breaks ties between actions with the same timestamp
+            final boolean keyset = historyQuery.getAfterActionId() != null && "ACTION_TIMESTAMP".equals(sortColumn);
+            if (keyset) {
+                where.add(String.format(ACTIONS_AFTER_CONDITION, "asc".equalsIgnoreCase(sortOrder) ? ">" : "<"));
+            }
+
             sql = SELECT_ACTIONS;
             if (!where.isEmpty()) {
                 sql += " WHERE " + StringUtils.join(where, " AND ");
             }
 
             // append the sort criteria
-            sql += (" ORDER BY " + sortColumn + " " + sortOrder);
+            sql += (" ORDER BY " + sortColumn + " " + sortOrder + ", ID " + sortOrder);
 
             // append the offset and limit
             sql += " LIMIT ? OFFSET ?";
@@ -574,11 +638,18 @@ public class StandardActionDAO implements ActionDAO {
                 statement.setString(paramIndex++, historyQuery.getSourceId());
             }
 
+            // set the last action of the previous page as necessary
+            if (keyset) {
+                statement.setInt(paramIndex++, historyQuery.getAfterActionId());
+                statement.setInt(paramIndex++, historyQuery.getAfterActionId());
+                statement.setInt(paramIndex++, historyQuery.getAfterActionId());
+            }
+
             // set the limit
             statement.setInt(paramIndex++, historyQuery.getCount());
 
             // set the offset according to the currented page calculated above
-            statement.setInt(paramIndex, historyQuery.getOffset());
+            statement.setInt(paramIndex, keyset ? 0 : historyQuery.getOffset());
 
             // execute the query
             rs = statement.executeQuery();
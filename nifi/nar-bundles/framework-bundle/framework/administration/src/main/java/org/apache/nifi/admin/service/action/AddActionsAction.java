@@ -37,10 +37,8 @@ public class AddActionsAction implements AdministrationAction<Void> {
     public Void execute(DAOFactory daoFactory, AuthorityProvider authorityProvider) {
         ActionDAO actionDao = daoFactory.getActionDAO();
 
-        // add each action
-        for (Action action : actions) {
-            actionDao.createAction(action);
-        }
+        // add the actions
+        actionDao.createActions(actions);
 
         return null;
     }
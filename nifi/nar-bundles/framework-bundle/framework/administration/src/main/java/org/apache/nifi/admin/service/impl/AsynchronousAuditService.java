@@ -0,0 +1,440 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.admin.service.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.nifi.action.Action;
+import org.apache.nifi.admin.service.AdministrationException;
+import org.apache.nifi.admin.service.AuditService;
+import org.apache.nifi.history.History;
+import org.apache.nifi.history.HistoryQuery;
+import org.apache.nifi.history.PreviousValue;
+import org.apache.nifi.util.NiFiProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * AuditService that records actions asynchronously. Actions are appended to a
+ * journal in the database directory and queued, and a background thread
+ * inserts them into the audit database in batches. If NiFi stops before they
+ * are inserted, they are recovered from the journal on the next start.
+ *
+ * Queries wait for the actions that were recorded before them to be inserted,
+ * so they always include them. When the queue is full, recording actions
+ * blocks until the background thread catches up.
+ */
+public class AsynchronousAuditService implements AuditService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsynchronousAuditService.class);
+
+    public static final String JOURNAL_FILE_NAME = "nifi-audit.journal";
+    public static final String CHECKPOINT_FILE_NAME = "nifi-audit.checkpoint";
+
+    private static final int DEFAULT_CAPACITY = 10000;
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition persisted = lock.newCondition();
+
+    // the queued actions, including those currently being inserted
+    private final Deque<JournaledAction> queue = new ArrayDeque<>();
+    private long lastJournaledSequence;
+    private long lastPersistedSequence;
+    private boolean running = false;
+
+    private File journalFile;
+    private FileOutputStream journalOut;
+    private DataOutputStream journal;
+    private RandomAccessFile checkpoint;
+    private Thread writer;
+
+    private AuditService auditService;
+    private NiFiProperties properties;
+    private int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * Recovers any actions that were journaled but not inserted and starts
+     * inserting queued actions.
+     *
+     * @throws IOException
+     */
+    public void start() throws IOException {
+        // locate the repository directory
+        final String repositoryDirectoryPath = properties.getProperty(NiFiProperties.REPOSITORY_DATABASE_DIRECTORY);
+
+        // ensure the repository directory is specified
+        if (repositoryDirectoryPath == null) {
+            throw new NullPointerException("Database directory must be specified.");
+        }
+
+        final File repositoryDirectory = new File(repositoryDirectoryPath);
+        if (!repositoryDirectory.exists() && !repositoryDirectory.mkdirs()) {
+            throw new IOException("Unable to create database directory " + repositoryDirectory);
+        }
+
+        lock.lock();
+        try {
+            checkpoint = new RandomAccessFile(new File(repositoryDirectory, CHECKPOINT_FILE_NAME), "rw");
+            lastPersistedSequence = checkpoint.length() >= 8 ? checkpoint.readLong() : 0L;
+            lastJournaledSequence = lastPersistedSequence;
+
+            journalFile = new File(repositoryDirectory, JOURNAL_FILE_NAME);
+            final long journalLength = recover();
+            try (final RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+                // discard any entry that was not completely written
+                raf.setLength(journalLength);
+            }
+
+            journalOut = new FileOutputStream(journalFile, true);
+            journal = new DataOutputStream(journalOut);
+
+            if (!queue.isEmpty()) {
+                logger.info("Recovered {} actions from the audit journal that had not been recorded", queue.size());
+            }
+
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+
+        writer = new Thread(new Writer(), "Audit Writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues the journaled actions that follow the checkpoint.
+     *
+     * @return the length of the complete entries in the journal
+     * @throws IOException
+     */
+    private long recover() throws IOException {
+        if (!journalFile.exists()) {
+            return 0L;
+        }
+
+        long length = 0L;
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journalFile)))) {
+            while (true) {
+                final long sequence;
+                final byte[] serialized;
+                try {
+                    sequence = in.readLong();
+                    serialized = new byte[in.readInt()];
+                    in.readFully(serialized);
+                } catch (final EOFException eof) {
+                    break;
+                }
+
+                length += 12 + serialized.length;
+                lastJournaledSequence = Math.max(lastJournaledSequence, sequence);
+                if (sequence > lastPersistedSequence) {
+                    queue.add(new JournaledAction(sequence, deserialize(serialized)));
+                }
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Inserts the queued actions and stops the background thread. Actions that
+     * are recorded afterward are inserted immediately.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            persisted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        closeQuietly(journal);
+        closeQuietly(checkpoint);
+    }
+
+    @Override
+    public void addActions(Collection<Action> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+
+        // serialize outside of the lock
+        final List<byte[]> serialized = new ArrayList<>(actions.size());
+        for (final Action action : actions) {
+            serialized.add(serialize(action));
+        }
+
+        lock.lock();
+        try {
+            // apply back pressure while the queue is full
+            while (running && !queue.isEmpty() && queue.size() + actions.size() > capacity) {
+                notFull.awaitUninterruptibly();
+            }
+
+            if (running) {
+                final long journalLength = journalOut.getChannel().size();
+                try {
+                    long sequence = lastJournaledSequence;
+                    for (final byte[] bytes : serialized) {
+                        journal.writeLong(++sequence);
+                        journal.writeInt(bytes.length);
+                        journal.write(bytes);
+                    }
+                    journal.flush();
+                    journalOut.getFD().sync();
+                } catch (final IOException ioe) {
+                    // remove any partial entries so that later entries can be recovered
+                    journalOut.getChannel().truncate(journalLength);
+                    throw ioe;
+                }
+
+                for (final Action action : actions) {
+                    queue.add(new JournaledAction(++lastJournaledSequence, action));
+                }
+                notEmpty.signal();
+                return;
+            }
+        } catch (final IOException ioe) {
+            throw new AdministrationException("Unable to journal actions: " + ioe, ioe);
+        } finally {
+            lock.unlock();
+        }
+
+        // not started or already shut down
+        auditService.addActions(actions);
+    }
+
+    @Override
+    public Map<String, List<PreviousValue>> getPreviousValues(String processorId) {
+        waitForQueuedActions();
+        return auditService.getPreviousValues(processorId);
+    }
+
+    @Override
+    public History getActions(HistoryQuery actionQuery) {
+        waitForQueuedActions();
+        return auditService.getActions(actionQuery);
+    }
+
+    @Override
+    public Action getAction(Integer actionId) {
+        waitForQueuedActions();
+        return auditService.getAction(actionId);
+    }
+
+    @Override
+    public void purgeActions(Date end, Action purgeAction) {
+        waitForQueuedActions();
+        auditService.purgeActions(end, purgeAction);
+    }
+
+    /**
+     * Waits until every action that has been queued so far has been inserted.
+     */
+    private void waitForQueuedActions() {
+        lock.lock();
+        try {
+            final long sequence = lastJournaledSequence;
+            while (running && lastPersistedSequence < sequence) {
+                persisted.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the specified actions. If they cannot be inserted together, they
+     * are inserted individually so one invalid action does not prevent the
+     * others from being recorded.
+     *
+     * @param actions
+     */
+    private void insert(final List<Action> actions) {
+        try {
+            auditService.addActions(actions);
+            return;
+        } catch (final Throwable t) {
+            if (actions.size() == 1) {
+                logger.warn("Unable to record actions: " + t.getMessage());
+                if (logger.isDebugEnabled()) {
+                    logger.warn(StringUtils.EMPTY, t);
+                }
+                return;
+            }
+        }
+
+        for (final Action action : actions) {
+            insert(Collections.singletonList(action));
+        }
+    }
+
+    private byte[] serialize(final Action action) {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(baos)) {
+            out.writeObject(action);
+        } catch (final IOException ioe) {
+            throw new AdministrationException("Unable to serialize action: " + ioe, ioe);
+        }
+        return baos.toByteArray();
+    }
+
+    private Action deserialize(final byte[] serialized) throws IOException {
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+            return (Action) in.readObject();
+        } catch (final ClassNotFoundException cnfe) {
+            throw new IOException("Unable to recover journaled action", cnfe);
+        }
+    }
+
+    private void closeQuietly(final Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (final IOException ioe) {
+            }
+        }
+    }
+
+    /**
+     * Inserts queued actions until the service is shut down and the queue is
+     * empty.
+     */
+    private class Writer implements Runnable {
+
+        @Override
+        public void run() {
+            final List<JournaledAction> batch = new ArrayList<>(MAX_BATCH_SIZE);
+            while (true) {
+                batch.clear();
+
+                lock.lock();
+                try {
+                    while (running && queue.isEmpty()) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+
+                    // leave the actions queued while they are inserted so they count against the capacity
+                    for (final Iterator<JournaledAction> itr = queue.iterator(); itr.hasNext() && batch.size() < MAX_BATCH_SIZE;) {
+                        batch.add(itr.next());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+
+                final List<Action> actions = new ArrayList<>(batch.size());
+                for (final JournaledAction journaledAction : batch) {
+                    actions.add(journaledAction.action);
+                }
+                insert(actions);
+
+                lock.lock();
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        queue.poll();
+                    }
+                    lastPersistedSequence = batch.get(batch.size() - 1).sequence;
+
+                    checkpoint.seek(0L);
+                    checkpoint.writeLong(lastPersistedSequence);
+                    checkpoint.getFD().sync();
+
+                    // every journaled action has been inserted
+                    if (queue.isEmpty()) {
+                        journalOut.getChannel().truncate(0L);
+                    }
+                } catch (final IOException ioe) {
+                    logger.warn("Unable to update the audit journal; actions may be recorded again on restart: " + ioe);
+                } finally {
+                    notFull.signalAll();
+                    persisted.signalAll();
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * An action and its position in the journal.
+     */
+    private static class JournaledAction {
+
+        private final long sequence;
+        private final Action action;
+
+        private JournaledAction(final long sequence, final Action action) {
+            this.sequence = sequence;
+            this.action = action;
+        }
+    }
+
+    /* setters */
+    public void setAuditService(AuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    public void setProperties(NiFiProperties properties) {
+        this.properties = properties;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+}
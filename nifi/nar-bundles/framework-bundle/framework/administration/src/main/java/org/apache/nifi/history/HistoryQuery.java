@@ -31,6 +31,7 @@ public class HistoryQuery {
     private Integer count;
     private String sortColumn;
     private String sortOrder;
+    private Integer afterActionId;
 
     public Date getEndDate() {
         return endDate;
@@ -96,4 +97,19 @@ public class HistoryQuery {
         this.sortOrder = sortOrder;
     }
 
+
+    /**
+     * The id of the last action of the previous page. When specified, and the
+     * results are sorted by timestamp, the actions that follow it in the sort
+     * order are returned and the offset is ignored.
+     *
+     * @return
+     */
+    public Integer getAfterActionId() {
+        return afterActionId;
+    }
+
+    public void setAfterActionId(Integer afterActionId) {
+        this.afterActionId = afterActionId;
+    }
 }
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.admin.dao.impl;
+
+import java.io.File;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.nifi.action.Action;
+import org.apache.nifi.action.Component;
+import org.apache.nifi.action.Operation;
+import org.apache.nifi.action.component.details.ProcessorDetails;
+import org.apache.nifi.action.details.ConfigureDetails;
+import org.apache.nifi.action.details.MoveDetails;
+import org.apache.nifi.admin.AuditDataSourceFactoryBean;
+import org.apache.nifi.history.History;
+import org.apache.nifi.history.HistoryQuery;
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.util.file.FileUtils;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ */
+public class StandardActionDAOTest {
+
+    private static final File DATABASE_DIRECTORY = new File("target/standard-action-dao");
+
+    private AuditDataSourceFactoryBean dataSourceFactory;
+    private JdbcConnectionPool dataSource;
+    private Connection connection;
+    private StandardActionDAO actionDao;
+
+    @Before
+    public void setup() throws Exception {
+        if (DATABASE_DIRECTORY.exists()) {
+            FileUtils.deleteFile(DATABASE_DIRECTORY, true);
+        }
+
+        final NiFiProperties properties = Mockito.mock(NiFiProperties.class);
+        Mockito.when(properties.getProperty(NiFiProperties.REPOSITORY_DATABASE_DIRECTORY)).thenReturn(DATABASE_DIRECTORY.getPath());
+
+        dataSourceFactory = new AuditDataSourceFactoryBean();
+        dataSourceFactory.setProperties(properties);
+        dataSource = (JdbcConnectionPool) dataSourceFactory.getObject();
+        connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        actionDao = new StandardActionDAO(connection);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        connection.close();
+        dataSourceFactory.shutdown();
+    }
+
+    /**
+     * Ensures a batch of actions is assigned ids in order and their details are
+     * persisted.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreateActions() throws Exception {
+        final List<Action> actions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            actions.add(createAction(i, i));
+        }
+        actionDao.createActions(actions);
+        actionDao.createAction(createAction(10, 10));
+        connection.commit();
+
+        for (int i = 0; i < actions.size(); i++) {
+            final Action action = actions.get(i);
+            Assert.assertEquals(Integer.valueOf(i + 1), action.getId());
+
+            final Action persisted = actionDao.getAction(action.getId());
+            Assert.assertEquals(action.getSourceId(), persisted.getSourceId());
+            if (i % 2 == 0) {
+                Assert.assertEquals("Type " + i, ((ProcessorDetails) persisted.getComponentDetails()).getType());
+                Assert.assertEquals("value " + i, ((ConfigureDetails) persisted.getActionDetails()).getValue());
+            } else {
+                Assert.assertNull(persisted.getComponentDetails());
+                Assert.assertEquals("group " + i, ((MoveDetails) persisted.getActionDetails()).getGroupId());
+            }
+        }
+        Assert.assertEquals("10", actionDao.getAction(11).getSourceId());
+    }
+
+    /**
+     * Ensures actions created concurrently on separate connections are each
+     * assigned the id of their own row, so their details are attributed to the
+     * right action.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreateActionsConcurrently() throws Exception {
+        final int threadCount = 2;
+        final int iterations = 50;
+        final int batchSize = 5;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        final List<Future<List<Action>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threadCount; t++) {
+                final int thread = t;
+                futures.add(executor.submit(new Callable<List<Action>>() {
+                    @Override
+                    public List<Action> call() throws Exception {
+                        final List<Action> created = new ArrayList<>();
+                        try (final Connection threadConnection = dataSource.getConnection()) {
+                            threadConnection.setAutoCommit(false);
+                            final StandardActionDAO threadDao = new StandardActionDAO(threadConnection);
+                            for (int i = 0; i < iterations; i++) {
+                                final List<Action> batch = new ArrayList<>();
+                                for (int j = 0; j < batchSize; j++) {
+                                    // each thread creates actions with a different kind of details so misattributed details are detected
+                                    batch.add(createAction((((thread * iterations) + i) * batchSize + j) * 2 + thread, 0));
+                                }
+
+                                barrier.await(10, TimeUnit.SECONDS);
+                                threadDao.createActions(batch);
+                                threadConnection.commit();
+                                created.addAll(batch);
+                            }
+                        }
+                        return created;
+                    }
+                }));
+            }
+
+            final Set<Integer> ids = new HashSet<>();
+            for (final Future<List<Action>> future : futures) {
+                for (final Action action : future.get(60, TimeUnit.SECONDS)) {
+                    Assert.assertTrue(ids.add(action.getId()));
+
+                    final Action persisted = actionDao.getAction(action.getId());
+                    Assert.assertEquals(action.getSourceId(), persisted.getSourceId());
+                    if (action.getActionDetails() instanceof ConfigureDetails) {
+                        Assert.assertEquals(((ProcessorDetails) action.getComponentDetails()).getType(), ((ProcessorDetails) persisted.getComponentDetails()).getType());
+                        Assert.assertEquals(((ConfigureDetails) action.getActionDetails()).getValue(), ((ConfigureDetails) persisted.getActionDetails()).getValue());
+                    } else {
+                        Assert.assertNull(persisted.getComponentDetails());
+                        Assert.assertEquals(((MoveDetails) action.getActionDetails()).getGroupId(), ((MoveDetails) persisted.getActionDetails()).getGroupId());
+                    }
+                }
+            }
+            Assert.assertEquals(threadCount * iterations * batchSize, ids.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ensures paging after an action returns the same pages as paging by
+     * offset, including when actions share a timestamp.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFindActionsAfterAction() throws Exception {
+        final List<Action> actions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            actions.add(createAction(i, i / 3));
+        }
+        actionDao.createActions(actions);
+        connection.commit();
+
+        for (final String sortOrder : Arrays.asList("desc", "asc")) {
+            Integer afterActionId = null;
+            for (int offset = 0; offset < actions.size(); offset += 4) {
+                final HistoryQuery offsetQuery = createQuery(sortOrder, offset, null);
+                final History expected = actionDao.findActions(offsetQuery);
+
+                final HistoryQuery keysetQuery = createQuery(sortOrder, 0, afterActionId);
+                final History actual = actionDao.findActions(keysetQuery);
+
+                Assert.assertEquals(Integer.valueOf(actions.size()), actual.getTotal());
+                Assert.assertEquals(getIds(expected), getIds(actual));
+
+                final List<Integer> ids = getIds(actual);
+                afterActionId = ids.get(ids.size() - 1);
+            }
+        }
+    }
+
+    private HistoryQuery createQuery(final String sortOrder, final int offset, final Integer afterActionId) {
+        final HistoryQuery query = new HistoryQuery();
+        query.setSortOrder(sortOrder);
+        query.setOffset(offset);
+        query.setCount(4);
+        query.setAfterActionId(afterActionId);
+        return query;
+    }
+
+    private List<Integer> getIds(final History history) {
+        final List<Integer> ids = new ArrayList<>();
+        for (final Action action : history.getActions()) {
+            ids.add(action.getId());
+        }
+        return ids;
+    }
+
+    private Action createAction(final int index, final int seconds) {
+        final Action action = new Action();
+        action.setUserDn("user-dn");
+        action.setUserName("user");
+        action.setSourceId(String.valueOf(index));
+        action.setSourceName("Processor " + index);
+        action.setSourceType(Component.Processor);
+        action.setTimestamp(new Date(seconds * 1000L));
+
+        if (index % 2 == 0) {
+            final ProcessorDetails processorDetails = new ProcessorDetails();
+            processorDetails.setType("Type " + index);
+            action.setComponentDetails(processorDetails);
+
+            final ConfigureDetails configureDetails = new ConfigureDetails();
+            configureDetails.setName("Property");
+            configureDetails.setValue("value " + index);
+            action.setOperation(Operation.Configure);
+            action.setActionDetails(configureDetails);
+        } else {
+            final MoveDetails moveDetails = new MoveDetails();
+            moveDetails.setGroupId("group " + index);
+            moveDetails.setGroup("Group");
+            moveDetails.setPreviousGroupId("previous group");
+            moveDetails.setPreviousGroup("Previous Group");
+            action.setOperation(Operation.Move);
+            action.setActionDetails(moveDetails);
+        }
+
+        return action;
+    }
+}
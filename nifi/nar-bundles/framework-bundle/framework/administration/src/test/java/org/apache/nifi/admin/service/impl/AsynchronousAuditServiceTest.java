@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.admin.service.impl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.nifi.action.Action;
+import org.apache.nifi.action.Component;
+import org.apache.nifi.action.Operation;
+import org.apache.nifi.action.details.ConfigureDetails;
+import org.apache.nifi.admin.service.AdministrationException;
+import org.apache.nifi.admin.service.AuditService;
+import org.apache.nifi.history.History;
+import org.apache.nifi.history.HistoryQuery;
+import org.apache.nifi.history.PreviousValue;
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.util.file.FileUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+/**
+ *
+ */
+public class AsynchronousAuditServiceTest {
+
+    private static final File DATABASE_DIRECTORY = new File("target/asynchronous-audit-service");
+
+    private NiFiProperties properties;
+
+    @Before
+    public void setup() throws Exception {
+        if (DATABASE_DIRECTORY.exists()) {
+            FileUtils.deleteFile(DATABASE_DIRECTORY, true);
+        }
+
+        properties = Mockito.mock(NiFiProperties.class);
+        Mockito.when(properties.getProperty(NiFiProperties.REPOSITORY_DATABASE_DIRECTORY)).thenReturn(DATABASE_DIRECTORY.getPath());
+    }
+
+    /**
+     * Ensures queries include the actions that were recorded before them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testQueryWaitsForQueuedActions() throws Exception {
+        final AuditService auditService = Mockito.mock(AuditService.class);
+        final AsynchronousAuditService asynchronousAuditService = createService(auditService);
+        try {
+            final List<Action> actions = Arrays.asList(createAction("1"), createAction("2"));
+            asynchronousAuditService.addActions(actions);
+
+            final HistoryQuery query = new HistoryQuery();
+            asynchronousAuditService.getActions(query);
+
+            final InOrder inOrder = Mockito.inOrder(auditService);
+            inOrder.verify(auditService).addActions(actions);
+            inOrder.verify(auditService).getActions(query);
+        } finally {
+            asynchronousAuditService.shutdown();
+        }
+    }
+
+    /**
+     * Ensures actions that were journaled but not inserted are recovered.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testUninsertedActionsAreRecovered() throws Exception {
+        final RecordingAuditService recorded = new RecordingAuditService();
+        final AsynchronousAuditService first = createService(recorded);
+        first.addActions(Collections.singletonList(createAction("1")));
+        first.getAction(1);
+        Assert.assertEquals(Arrays.asList("1"), recorded.getSourceIds());
+
+        // simulate NiFi stopping while the database is unavailable
+        final CountDownLatch stopped = new CountDownLatch(1);
+        recorded.block(stopped);
+        first.addActions(Arrays.asList(createAction("2"), createAction("3")));
+        first.addActions(Collections.singletonList(createAction("4")));
+
+        final RecordingAuditService recovered = new RecordingAuditService();
+        final AsynchronousAuditService second = createService(recovered);
+        second.getAction(1);
+        Assert.assertEquals(Arrays.asList("2", "3", "4"), recovered.getSourceIds());
+
+        // actions are not recovered again once they have been inserted
+        second.shutdown();
+        final RecordingAuditService recoveredAgain = new RecordingAuditService();
+        createService(recoveredAgain).shutdown();
+        Assert.assertTrue(recoveredAgain.getSourceIds().isEmpty());
+
+        stopped.countDown();
+        first.shutdown();
+    }
+
+    /**
+     * Ensures recording actions blocks while the queue is full.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testBackPressure() throws Exception {
+        final RecordingAuditService recorded = new RecordingAuditService();
+        final CountDownLatch inserting = new CountDownLatch(1);
+        recorded.block(inserting);
+
+        final AsynchronousAuditService asynchronousAuditService = createService(recorded);
+        asynchronousAuditService.setCapacity(2);
+        try {
+            asynchronousAuditService.addActions(Collections.singletonList(createAction("1")));
+            asynchronousAuditService.addActions(Collections.singletonList(createAction("2")));
+
+            final CountDownLatch added = new CountDownLatch(1);
+            final Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    asynchronousAuditService.addActions(Collections.singletonList(createAction("3")));
+                    added.countDown();
+                }
+            });
+            producer.start();
+
+            Assert.assertFalse(added.await(200, TimeUnit.MILLISECONDS));
+            inserting.countDown();
+            Assert.assertTrue(added.await(5, TimeUnit.SECONDS));
+        } finally {
+            asynchronousAuditService.shutdown();
+        }
+
+        Assert.assertEquals(Arrays.asList("1", "2", "3"), recorded.getSourceIds());
+    }
+
+    /**
+     * Ensures an action that cannot be inserted does not prevent the others in
+     * its batch from being recorded.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalidActionIsSkipped() throws Exception {
+        final RecordingAuditService recorded = new RecordingAuditService();
+        final AsynchronousAuditService asynchronousAuditService = createService(recorded);
+        try {
+            asynchronousAuditService.addActions(Arrays.asList(createAction("1"), createAction(RecordingAuditService.INVALID), createAction("3")));
+            asynchronousAuditService.getAction(1);
+        } finally {
+            asynchronousAuditService.shutdown();
+        }
+
+        Assert.assertEquals(Arrays.asList("1", "3"), recorded.getSourceIds());
+    }
+
+    private AsynchronousAuditService createService(final AuditService auditService) throws Exception {
+        final AsynchronousAuditService asynchronousAuditService = new AsynchronousAuditService();
+        asynchronousAuditService.setAuditService(auditService);
+        asynchronousAuditService.setProperties(properties);
+        asynchronousAuditService.start();
+        return asynchronousAuditService;
+    }
+
+    private Action createAction(final String sourceId) {
+        final ConfigureDetails configureDetails = new ConfigureDetails();
+        configureDetails.setName("Property");
+        configureDetails.setValue("value");
+
+        final Action action = new Action();
+        action.setUserDn("user-dn");
+        action.setUserName("user");
+        action.setSourceId(sourceId);
+        action.setSourceName("Processor " + sourceId);
+        action.setSourceType(Component.Processor);
+        action.setOperation(Operation.Configure);
+        action.setTimestamp(new Date());
+        action.setActionDetails(configureDetails);
+        return action;
+    }
+
+    /**
+     * Records the source id of each action that is added. Adding actions with
+     * an invalid source id fails.
+     */
+    private static class RecordingAuditService implements AuditService {
+
+        private static final String INVALID = "invalid";
+
+        private final List<String> sourceIds = Collections.synchronizedList(new ArrayList<String>());
+        private volatile CountDownLatch latch;
+
+        private void block(final CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        private List<String> getSourceIds() {
+            return new ArrayList<>(sourceIds);
+        }
+
+        @Override
+        public void addActions(final Collection<Action> actions) {
+            final CountDownLatch blockingLatch = latch;
+            if (blockingLatch != null) {
+                try {
+                    blockingLatch.await();
+                } catch (final InterruptedException ie) {
+                    throw new AdministrationException(ie);
+                }
+            }
+
+            for (final Action action : actions) {
+                if (INVALID.equals(action.getSourceId())) {
+                    throw new AdministrationException("Invalid action");
+                }
+            }
+            for (final Action action : actions) {
+                sourceIds.add(action.getSourceId());
+            }
+        }
+
+        @Override
+        public Map<String, List<PreviousValue>> getPreviousValues(final String processorId) {
+            return null;
+        }
+
+        @Override
+        public History getActions(final HistoryQuery actionQuery) {
+            return null;
+        }
+
+        @Override
+        public Action getAction(final Integer actionId) {
+            return null;
+        }
+
+        @Override
+        public void purgeActions(final Date end, final Action purgeAction) {
+        }
+    }
+}
@@ -50,6 +50,8 @@ public class SystemDiagnosticsDTO {
     private Set<StorageUsageDTO> contentRepositoryStorageUsage;
     private Set<GarbageCollectionDTO> garbageCollection;
 
+    private LockStatisticsDTO processGroupLockStatistics;
+
     private Date statsLastRefreshed;
 
     /* getters / setters */
@@ -274,6 +276,19 @@ public class SystemDiagnosticsDTO {
         this.garbageCollection = garbageCollection;
     }
 
+    /**
+     * The statistics of the locks taken by requests to this instance.
+     *
+     * @return
+     */
+    public LockStatisticsDTO getProcessGroupLockStatistics() {
+        return processGroupLockStatistics;
+    }
+
+    public void setProcessGroupLockStatistics(LockStatisticsDTO processGroupLockStatistics) {
+        this.processGroupLockStatistics = processGroupLockStatistics;
+    }
+
     /**
      * When these diagnostics were generated.
      *
@@ -458,4 +473,110 @@ public class SystemDiagnosticsDTO {
         }
 
     }
+
+    /**
+     * Details of the locks taken by requests.
+     */
+    @XmlType(name = "lockStatistics")
+    public static class LockStatisticsDTO {
+
+        private Long readLockCount;
+        private Long readLockWaitMillis;
+        private Long maxReadLockWaitMillis;
+        private Long writeLockCount;
+        private Long writeLockWaitMillis;
+        private Long maxWriteLockWaitMillis;
+        private Integer waitingCount;
+
+        /**
+         * The number of read locks granted.
+         *
+         * @return
+         */
+        public Long getReadLockCount() {
+            return readLockCount;
+        }
+
+        public void setReadLockCount(Long readLockCount) {
+            this.readLockCount = readLockCount;
+        }
+
+        /**
+         * The total time spent waiting for read locks, in milliseconds.
+         *
+         * @return
+         */
+        public Long getReadLockWaitMillis() {
+            return readLockWaitMillis;
+        }
+
+        public void setReadLockWaitMillis(Long readLockWaitMillis) {
+            this.readLockWaitMillis = readLockWaitMillis;
+        }
+
+        /**
+         * The longest time spent waiting for a read lock, in milliseconds.
+         *
+         * @return
+         */
+        public Long getMaxReadLockWaitMillis() {
+            return maxReadLockWaitMillis;
+        }
+
+        public void setMaxReadLockWaitMillis(Long maxReadLockWaitMillis) {
+            this.maxReadLockWaitMillis = maxReadLockWaitMillis;
+        }
+
+        /**
+         * The number of write locks granted.
+         *
+         * @return
+         */
+        public Long getWriteLockCount() {
+            return writeLockCount;
+        }
+
+        public void setWriteLockCount(Long writeLockCount) {
+            this.writeLockCount = writeLockCount;
+        }
+
+        /**
+         * The total time spent waiting for write locks, in milliseconds.
+         *
+         * @return
+         */
+        public Long getWriteLockWaitMillis() {
+            return writeLockWaitMillis;
+        }
+
+        public void setWriteLockWaitMillis(Long writeLockWaitMillis) {
+            this.writeLockWaitMillis = writeLockWaitMillis;
+        }
+
+        /**
+         * The longest time spent waiting for a write lock, in milliseconds.
+         *
+         * @return
+         */
+        public Long getMaxWriteLockWaitMillis() {
+            return maxWriteLockWaitMillis;
+        }
+
+        public void setMaxWriteLockWaitMillis(Long maxWriteLockWaitMillis) {
+            this.maxWriteLockWaitMillis = maxWriteLockWaitMillis;
+        }
+
+        /**
+         * The number of requests currently waiting for a lock.
+         *
+         * @return
+         */
+        public Integer getWaitingCount() {
+            return waitingCount;
+        }
+
+        public void setWaitingCount(Integer waitingCount) {
+            this.waitingCount = waitingCount;
+        }
+    }
 }
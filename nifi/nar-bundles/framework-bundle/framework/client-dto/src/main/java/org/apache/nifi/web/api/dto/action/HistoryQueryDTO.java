@@ -35,6 +35,7 @@ public class HistoryQueryDTO {
     private Integer count;
     private String sortColumn;
     private String sortOrder;
+    private Integer afterActionId;
 
     /**
      * The user name.
@@ -141,4 +142,19 @@ public class HistoryQueryDTO {
     public void setSortOrder(String sortOrder) {
         this.sortOrder = sortOrder;
     }
+
+    /**
+     * The id of the last action of the previous page. When sorting by
+     * timestamp, the actions that follow it are returned instead of those at
+     * the offset.
+     *
+     * @return
+     */
+    public Integer getAfterActionId() {
+        return afterActionId;
+    }
+
+    public void setAfterActionId(Integer afterActionId) {
+        this.afterActionId = afterActionId;
+    }
 }
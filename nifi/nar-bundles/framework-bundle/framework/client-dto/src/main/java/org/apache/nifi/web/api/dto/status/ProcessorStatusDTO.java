@@ -40,6 +40,9 @@ public class ProcessorStatusDTO extends StatusDTO {
     private String tasksDuration;
     private Integer activeThreadCount;
 
+    private Long batchDurationMillis;
+    private Integer batchSize;
+
     /* getters / setters */
     /**
      * The id for the processor.
@@ -173,6 +176,34 @@ public class ProcessorStatusDTO extends StatusDTO {
         this.activeThreadCount = threadCount;
     }
 
+    /**
+     * The Run Duration in effect for this Processor, whether configured or
+     * chosen by the framework.
+     *
+     * @return
+     */
+    public Long getBatchDurationMillis() {
+        return batchDurationMillis;
+    }
+
+    public void setBatchDurationMillis(Long batchDurationMillis) {
+        this.batchDurationMillis = batchDurationMillis;
+    }
+
+    /**
+     * The average number of invocations committed together when the framework
+     * chooses the Run Duration of this Processor.
+     *
+     * @return
+     */
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
     /**
      * The number of task this connectable has had over the last 5 minutes.
      *
@@ -52,6 +52,10 @@ import org.slf4j.LoggerFactory;
  * Furthermore, the method should not be called if the caller has already read
  * the ClientResponse's input stream.
  *
+ * If the entity of the ClientResponse was read when the response was received,
+ * then it may be obtained by calling getClientEntity(). In that case, the
+ * ClientResponse's input stream has already been consumed.
+ *
  * If a ClientResponse was unable to be created, then a NodeResponse will store
  * the Throwable, which may be obtained by calling getThrowable().
  *
@@ -70,10 +74,16 @@ public class NodeResponse {
     private final Throwable throwable;
     private boolean hasCreatedResponse = false;
     private final Entity updatedEntity;
+    private final Entity clientEntity;
     private final long requestDurationNanos;
     private final String requestId;
 
     public NodeResponse(final NodeIdentifier nodeId, final String httpMethod, final URI requestUri, final ClientResponse clientResponse, final long requestDurationNanos, final String requestId) {
+        this(nodeId, httpMethod, requestUri, clientResponse, null, requestDurationNanos, requestId);
+    }
+
+    public NodeResponse(final NodeIdentifier nodeId, final String httpMethod, final URI requestUri, final ClientResponse clientResponse,
+            final Entity clientEntity, final long requestDurationNanos, final String requestId) {
         if (nodeId == null) {
             throw new IllegalArgumentException("Node identifier may not be null.");
         } else if (StringUtils.isBlank(httpMethod)) {
@@ -87,6 +97,7 @@ public class NodeResponse {
         this.httpMethod = httpMethod;
         this.requestUri = requestUri;
         this.clientResponse = clientResponse;
+        this.clientEntity = clientEntity;
         this.throwable = null;
         this.updatedEntity = null;
         this.requestDurationNanos = requestDurationNanos;
@@ -107,6 +118,7 @@ public class NodeResponse {
         this.httpMethod = httpMethod;
         this.requestUri = requestUri;
         this.clientResponse = null;
+        this.clientEntity = null;
         this.throwable = throwable;
         this.updatedEntity = null;
         this.requestDurationNanos = -1L;
@@ -121,6 +133,7 @@ public class NodeResponse {
         this.httpMethod = example.httpMethod;
         this.requestUri = example.requestUri;
         this.clientResponse = example.clientResponse;
+        this.clientEntity = example.clientEntity;
         this.throwable = example.throwable;
         this.updatedEntity = updatedEntity;
         this.requestDurationNanos = example.requestDurationNanos;
@@ -191,6 +204,39 @@ public class NodeResponse {
         return clientResponse;
     }
 
+    /**
+     * Returns the entity of the client's response. If the entity was read when
+     * the response was received, that entity is returned. Otherwise, the
+     * entity is read from the ClientResponse's input stream, which can only be
+     * read once.
+     *
+     * @param <T> the type of entity
+     * @param entityType the type of entity
+     * @return the entity
+     */
+    public <T extends Entity> T getClientEntity(final Class<T> entityType) {
+        if (entityType.isInstance(clientEntity)) {
+            return entityType.cast(clientEntity);
+        }
+        return clientResponse.getEntity(entityType);
+    }
+
+    /**
+     * @return the entity to send in place of the client's entity, or null if
+     * the client's entity is sent unchanged
+     */
+    public Entity getUpdatedEntity() {
+        return updatedEntity;
+    }
+
+    /**
+     * @return true if the entity of the client's response was read when the
+     * response was received, false otherwise
+     */
+    public boolean hasClientEntity() {
+        return clientEntity != null;
+    }
+
     /**
      * Creates a Response by mapping the ClientResponse values to it. Since the
      * ClientResponse's input stream can only be read once, this method should
@@ -295,7 +341,9 @@ public class NodeResponse {
         if (!HttpMethod.HEAD.equalsIgnoreCase(httpMethod)) {
 
             // set the entity
-            if (updatedEntity == null) {
+            if (updatedEntity == null && clientEntity != null) {
+                responseBuilder.entity(clientEntity);
+            } else if (updatedEntity == null) {
                 responseBuilder.entity(new StreamingOutput() {
                     @Override
                     public void write(final OutputStream output) throws IOException, WebApplicationException {
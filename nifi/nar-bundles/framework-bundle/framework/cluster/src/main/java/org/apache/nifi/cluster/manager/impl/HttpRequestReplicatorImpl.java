@@ -17,6 +17,7 @@
 package org.apache.nifi.cluster.manager.impl;
 
 import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.WebResource;
@@ -26,8 +27,6 @@ import com.sun.jersey.core.util.MultivaluedMapImpl;
 
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -39,8 +38,11 @@ import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.HttpMethod;
@@ -53,6 +55,7 @@ import org.apache.nifi.cluster.manager.exception.UriConstructionException;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.logging.NiFiLog;
 import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.web.api.entity.Entity;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -60,11 +63,21 @@ import org.slf4j.LoggerFactory;
 
 /**
  * An implementation of the <code>HttpRequestReplicator</code> interface. This
- * implementation parallelizes the node HTTP requests using the given
- * <code>ExecutorService</code> instance. Individual requests may have
+ * implementation parallelizes the node HTTP requests using an
+ * <code>ExecutorService</code> that keeps the given number of threads and
+ * creates additional threads, up to the given maximum, when all of them are
+ * busy, so that every node of a large cluster is requested at the same time.
+ * Once the maximum number of threads are busy, requests wait for a thread to
+ * become available. Individual requests may have
  * connection and read timeouts set, which may be set during instance
  * construction. Otherwise, the default is not to timeout.
  *
+ * If the response of a node is a successful response to a request whose
+ * responses are merged by the cluster manager, then its entity is read as soon
+ * as the response is received, by the thread that issued the request. This
+ * allows the responses of the nodes that respond first to be deserialized
+ * while waiting for the remaining nodes.
+ *
  * If a node protocol scheme is provided during construction, then all requests
  * will be replicated using the given scheme. If null is provided as the scheme
  * (the default), then the requests will be replicated using the scheme of the
@@ -79,13 +92,15 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
 
     // defaults
     private static final int DEFAULT_SHUTDOWN_REPLICATOR_SECONDS = 30;
+    private static final long IDLE_THREAD_KEEP_ALIVE_SECONDS = 60;
 
     // logger
     private static final Logger logger = new NiFiLog(LoggerFactory.getLogger(HttpRequestReplicatorImpl.class));
 
     // final members
     private final Client client;            // the client to use for issuing requests
-    private final int numThreads;           // number of threads to use for request replication
+    private final int numThreads;           // number of threads to keep for request replication
+    private final int maxThreads;           // maximum number of threads for request replication
     private final int connectionTimeoutMs;  // connection timeout per node request
     private final int readTimeoutMs;        // read timeout per node request
 
@@ -100,7 +115,7 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
      * Creates an instance. The connection timeout and read timeout will be
      * infinite.
      *
-     * @param numThreads the number of threads to use when parallelizing
+     * @param numThreads the number of threads to keep when parallelizing
      * requests
      * @param client a client for making requests
      */
@@ -109,9 +124,10 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
     }
 
     /**
-     * Creates an instance.
+     * Creates an instance that never uses more than the given number of
+     * threads.
      *
-     * @param numThreads the number of threads to use when parallelizing
+     * @param numThreads the number of threads to keep when parallelizing
      * requests
      * @param client a client for making requests
      * @param connectionTimeoutMs the connection timeout specified in
@@ -119,6 +135,23 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
      * @param readTimeoutMs the read timeout specified in milliseconds
      */
     public HttpRequestReplicatorImpl(final int numThreads, final Client client, final String connectionTimeout, final String readTimeout) {
+        this(numThreads, numThreads, client, connectionTimeout, readTimeout);
+    }
+
+    /**
+     * Creates an instance.
+     *
+     * @param numThreads the number of threads to keep when parallelizing
+     * requests
+     * @param maxThreads the maximum number of threads to use when
+     * parallelizing requests. If less than <code>numThreads</code>, then
+     * <code>numThreads</code> is used.
+     * @param client a client for making requests
+     * @param connectionTimeoutMs the connection timeout specified in
+     * milliseconds
+     * @param readTimeoutMs the read timeout specified in milliseconds
+     */
+    public HttpRequestReplicatorImpl(final int numThreads, final int maxThreads, final Client client, final String connectionTimeout, final String readTimeout) {
 
         if (numThreads <= 0) {
             throw new IllegalArgumentException("The number of threads must be greater than zero.");
@@ -127,6 +160,7 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
         }
 
         this.numThreads = numThreads;
+        this.maxThreads = Math.max(numThreads, maxThreads);
         this.client = client;
         this.connectionTimeoutMs = (int) FormatUtils.getTimeDuration(connectionTimeout, TimeUnit.MILLISECONDS);
         this.readTimeoutMs = (int) FormatUtils.getTimeDuration(readTimeout, TimeUnit.MILLISECONDS);
@@ -141,7 +175,12 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
         if (isRunning()) {
             throw new IllegalStateException("Instance is already started.");
         }
-        executorService = Executors.newFixedThreadPool(numThreads);
+        // the responses of all nodes are needed to respond to a client, so requests are only queued behind one
+        // another once the maximum number of threads are busy
+        final ReplicationQueue queue = new ReplicationQueue();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(numThreads, maxThreads, IDLE_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, queue, queue);
+        queue.setExecutor(executor);
+        executorService = executor;
     }
 
     @Override
@@ -267,7 +306,7 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
         final CompletionService<NodeResponse> completionService = new ExecutorCompletionService<>(executorService);
 
         // keeps track of future requests so that failed requests can be tied back to the failing node
-        final Collection<NodeHttpRequestFutureWrapper> futureNodeHttpRequests = new ArrayList<>();
+        final Map<Future<NodeResponse>, NodeHttpRequestFutureWrapper> futureNodeHttpRequests = new HashMap<>();
 
         // construct the URIs for the nodes
         final Map<NodeIdentifier, URI> uriMap = new HashMap<>();
@@ -289,7 +328,8 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
             final NodeHttpRequestCallable callable = (entity == null)
                     ? new NodeHttpRequestCallable(nodeId, method, nodeUri, parameters, headers)
                     : new NodeHttpRequestCallable(nodeId, method, nodeUri, entity, headers);
-            futureNodeHttpRequests.add(new NodeHttpRequestFutureWrapper(nodeId, method, nodeUri, completionService.submit(callable)));
+            final Future<NodeResponse> future = completionService.submit(callable);
+            futureNodeHttpRequests.put(future, new NodeHttpRequestFutureWrapper(nodeId, method, nodeUri, future));
         }
 
         // get the node responses
@@ -303,12 +343,8 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
                 // get the future resource response for the node
                 final Future<NodeResponse> futureNodeResourceResponse = completionService.take();
 
-                // find the original request by comparing the submitted future with the future returned by the completion service
-                for (final NodeHttpRequestFutureWrapper futureNodeHttpRequestElem : futureNodeHttpRequests) {
-                    if (futureNodeHttpRequestElem.getFuture() == futureNodeResourceResponse) {
-                        futureNodeHttpRequest = futureNodeHttpRequestElem;
-                    }
-                }
+                // find the original request of the future returned by the completion service
+                futureNodeHttpRequest = futureNodeHttpRequests.get(futureNodeResourceResponse);
 
                 // try to retrieve the node response and add to result
                 final NodeResponse nodeResponse = futureNodeResourceResponse.get();
@@ -474,15 +510,29 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
                     throw new IllegalArgumentException("HTTP Method '" + method + "' not supported for request replication.");
                 }
 
+                // read the entity now if the cluster manager will merge it, so that it is deserialized in parallel with the other responses
+                final Class<? extends Entity> entityType = WebClusterManager.getInterpretedEntityType(uri, method);
+                final Entity clientEntity;
+                if (entityType != null && isSuccessful(clientResponse)) {
+                    clientEntity = clientResponse.getEntity(entityType);
+                } else {
+                    clientEntity = null;
+                }
+
                 // create and return the response
-                return new NodeResponse(nodeId, method, uri, clientResponse, System.nanoTime() - startNanos, requestId);
+                return new NodeResponse(nodeId, method, uri, clientResponse, clientEntity, System.nanoTime() - startNanos, requestId);
 
-            } catch (final UniformInterfaceException | IllegalArgumentException t) {
+            } catch (final UniformInterfaceException | ClientHandlerException | IllegalArgumentException t) {
                 return new NodeResponse(nodeId, method, uri, t);
             }
 
         }
 
+        private boolean isSuccessful(final ClientResponse clientResponse) {
+            final int statusCode = clientResponse.getStatus();
+            return 200 <= statusCode && statusCode <= 299;
+        }
+
         private WebResource.Builder getResourceBuilder() {
 
             // convert parameters to a more convenient data structure
@@ -528,4 +578,37 @@ public class HttpRequestReplicatorImpl implements HttpRequestReplicator {
         }
 
     }
+
+    /**
+     * A queue that refuses requests while the executor is able to create
+     * another thread, so that the executor grows to its maximum size before
+     * any request waits for a thread. Requests that are refused once the
+     * executor has reached its maximum size are queued.
+     */
+    private static class ReplicationQueue extends LinkedBlockingQueue<Runnable> implements RejectedExecutionHandler {
+
+        private static final long serialVersionUID = 1L;
+
+        private volatile ThreadPoolExecutor executor;
+
+        private void setExecutor(final ThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public boolean offer(final Runnable runnable) {
+            final ThreadPoolExecutor executor = this.executor;
+            if (executor != null && executor.getPoolSize() < executor.getMaximumPoolSize() && executor.getActiveCount() >= executor.getPoolSize()) {
+                return false;
+            }
+            return super.offer(runnable);
+        }
+
+        @Override
+        public void rejectedExecution(final Runnable runnable, final ThreadPoolExecutor executor) {
+            if (executor.isShutdown() || !super.offer(runnable)) {
+                throw new RejectedExecutionException("HTTP Request Replicator has been stopped");
+            }
+        }
+    }
 }
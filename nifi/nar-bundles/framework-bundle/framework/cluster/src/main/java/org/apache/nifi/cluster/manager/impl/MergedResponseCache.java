@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.manager.impl;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.manager.exception.UriConstructionException;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.entity.Entity;
+
+/**
+ * Caches the merged responses of read-only requests that are replicated to
+ * the nodes. Identical requests that arrive while a response is being
+ * retrieved wait for that response instead of replicating the request again,
+ * and identical requests that arrive within the configured duration of a
+ * response being retrieved are given that response.
+ *
+ * Two requests are identical when they have the same method, URI, parameters
+ * and nodes, and the same headers other than those that only describe the
+ * client (e.g., User-Agent). Only successful responses whose entity is held in
+ * memory can be shared between requests. The cache must be invalidated
+ * whenever a mutable request is replicated.
+ *
+ * A duration of zero disables the cache.
+ */
+public class MergedResponseCache {
+
+    // headers that do not affect the response of a node
+    private static final Set<String> IGNORED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        IGNORED_HEADERS.addAll(Arrays.asList("user-agent", "referer", "cookie", "connection", "cache-control",
+                "pragma", "accept-language", "x-requested-with", WebClusterManager.REQUEST_ID_HEADER));
+    }
+
+    private final long durationNanos;
+    private final ConcurrentMap<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param duration the amount of time a response is cached for
+     * @param timeUnit the unit of the duration
+     */
+    public MergedResponseCache(final long duration, final TimeUnit timeUnit) {
+        this.durationNanos = timeUnit.toNanos(duration);
+    }
+
+    /**
+     * Returns the cached response of the given request, waiting for it if an
+     * identical request is being replicated. Otherwise, the response is
+     * retrieved with the given loader.
+     *
+     * @param method the request method
+     * @param uri the request URI
+     * @param parameters the request parameters
+     * @param headers the request headers
+     * @param nodeIds the nodes the request is replicated to
+     * @param loader retrieves the response when it is not cached
+     * @return the response
+     * @throws UriConstructionException if the loader fails to construct the
+     * URI of a node
+     */
+    public NodeResponse getResponse(final String method, final URI uri, final Map<String, List<String>> parameters,
+            final Map<String, String> headers, final Set<NodeIdentifier> nodeIds, final ResponseLoader loader) throws UriConstructionException {
+
+        if (durationNanos <= 0) {
+            return loader.load();
+        }
+
+        final CacheKey key = new CacheKey(method, uri, parameters, headers, nodeIds);
+        while (true) {
+            final CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                final CacheEntry created = new CacheEntry();
+                if (entries.putIfAbsent(key, created) == null) {
+                    return load(key, created, loader);
+                }
+                continue;
+            }
+
+            final NodeResponse response = entry.await();
+            if (entry.isExpired(System.nanoTime())) {
+                // retrieve the response again, unless another request already replaced this entry
+                entries.remove(key, entry);
+                continue;
+            }
+
+            if (response == null) {
+                // the response of the identical request could not be shared
+                return loader.load();
+            }
+            return copy(response);
+        }
+    }
+
+    /**
+     * Removes every cached response, so that subsequent requests are
+     * replicated to the nodes. Requests that are already being replicated are
+     * not shared with subsequent requests.
+     */
+    public void invalidate() {
+        entries.clear();
+    }
+
+    /**
+     * @return the number of responses that are cached or being retrieved
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private NodeResponse load(final CacheKey key, final CacheEntry entry, final ResponseLoader loader) throws UriConstructionException {
+        NodeResponse response = null;
+        try {
+            response = loader.load();
+            return response;
+        } finally {
+            final boolean shareable = isShareable(response);
+            entry.complete(shareable ? response : null, System.nanoTime() + durationNanos);
+            if (!shareable) {
+                entries.remove(key, entry);
+            }
+            purgeExpired();
+        }
+    }
+
+    private void purgeExpired() {
+        final long now = System.nanoTime();
+        for (final Iterator<CacheEntry> itr = entries.values().iterator(); itr.hasNext();) {
+            if (itr.next().isExpired(now)) {
+                itr.remove();
+            }
+        }
+    }
+
+    private boolean isShareable(final NodeResponse response) {
+        return response != null && !response.hasThrowable() && response.is2xx()
+                && (response.getUpdatedEntity() != null || response.hasClientEntity());
+    }
+
+    private NodeResponse copy(final NodeResponse response) {
+        final Entity entity = (response.getUpdatedEntity() == null) ? response.getClientEntity(Entity.class) : response.getUpdatedEntity();
+        return new NodeResponse(response, entity);
+    }
+
+    /**
+     * Retrieves the response of a request from the nodes.
+     */
+    public static interface ResponseLoader {
+
+        /**
+         * @return the merged response of the nodes
+         * @throws UriConstructionException if the URI of a node could not be
+         * constructed
+         */
+        NodeResponse load() throws UriConstructionException;
+    }
+
+    /**
+     * A response that is cached or being retrieved.
+     */
+    private static class CacheEntry {
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile NodeResponse response;
+        private volatile long expirationNanos;
+        private volatile boolean done = false;
+
+        private void complete(final NodeResponse response, final long expirationNanos) {
+            this.response = response;
+            this.expirationNanos = expirationNanos;
+            this.done = true;
+            completed.countDown();
+        }
+
+        private NodeResponse await() {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        completed.await();
+                        return response;
+                    } catch (final InterruptedException ie) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private boolean isExpired(final long nowNanos) {
+            return done && nowNanos - expirationNanos >= 0;
+        }
+    }
+
+    /**
+     * The parts of a request that determine its response.
+     */
+    private static class CacheKey {
+
+        private final String method;
+        private final URI uri;
+        private final Map<String, List<String>> parameters = new TreeMap<>();
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final Set<NodeIdentifier> nodeIds;
+
+        private CacheKey(final String method, final URI uri, final Map<String, List<String>> parameters,
+                final Map<String, String> headers, final Set<NodeIdentifier> nodeIds) {
+            this.method = method.toUpperCase();
+            this.uri = uri;
+            this.nodeIds = new HashSet<>(nodeIds);
+
+            if (parameters != null) {
+                for (final Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+                    this.parameters.put(entry.getKey(), entry.getValue() == null ? Collections.<String>emptyList() : new ArrayList<>(entry.getValue()));
+                }
+            }
+
+            for (final Map.Entry<String, String> entry : headers.entrySet()) {
+                if (!IGNORED_HEADERS.contains(entry.getKey())) {
+                    this.headers.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + method.hashCode();
+            hash = 31 * hash + uri.hashCode();
+            hash = 31 * hash + parameters.hashCode();
+            hash = 31 * hash + nodeIds.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+
+            final CacheKey other = (CacheKey) obj;
+            return method.equals(other.method) && uri.equals(other.uri) && parameters.equals(other.parameters)
+                    && headers.equals(other.headers) && nodeIds.equals(other.nodeIds);
+        }
+    }
+}
@@ -182,6 +182,7 @@ import org.apache.nifi.web.api.dto.status.ClusterStatusHistoryDTO;
 import org.apache.nifi.web.api.dto.status.NodeStatusHistoryDTO;
 import org.apache.nifi.web.api.dto.status.StatusHistoryDTO;
 import org.apache.nifi.web.api.dto.status.StatusSnapshotDTO;
+import org.apache.nifi.web.api.entity.Entity;
 import org.apache.nifi.web.api.entity.FlowSnippetEntity;
 import org.apache.nifi.web.api.entity.ProcessGroupEntity;
 import org.apache.nifi.web.api.entity.ProcessorEntity;
@@ -299,6 +300,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
     private final DataFlowManagementService dataFlowManagementService;
     private final ClusterManagerProtocolSenderListener senderListener;
     private final StringEncryptor encryptor;
+    private final MergedResponseCache responseCache;
     private final Queue<Heartbeat> pendingHeartbeats = new ConcurrentLinkedQueue<>();
     private final ReentrantReadWriteLock resourceRWLock = new ReentrantReadWriteLock();
     private final ClusterManagerLock readLock = new ClusterManagerLock(resourceRWLock.readLock(), "Read");
@@ -367,6 +369,14 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
         }
         componentStatusSnapshotMillis = snapshotMillis;
 
+        long responseCacheMillis;
+        try {
+            responseCacheMillis = FormatUtils.getTimeDuration(properties.getClusterManagerResponseCacheDuration(), TimeUnit.MILLISECONDS);
+        } catch (final Exception e) {
+            responseCacheMillis = FormatUtils.getTimeDuration(NiFiProperties.DEFAULT_CLUSTER_MANAGER_RESPONSE_CACHE_DURATION, TimeUnit.MILLISECONDS);
+        }
+        responseCache = new MergedResponseCache(responseCacheMillis, TimeUnit.MILLISECONDS);
+
         remoteInputPort = properties.getRemoteInputPort();
         if (remoteInputPort == null) {
             remoteSiteListener = null;
@@ -382,9 +392,11 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                     throw new IllegalStateException("NiFi Configured to allow Secure Site-to-Site communications but the Keystore/Truststore properties are not configured");
                 }
 
-                remoteSiteListener = new SocketRemoteSiteListener(remoteInputPort.intValue(), sslContext, this);
+                remoteSiteListener = new SocketRemoteSiteListener(remoteInputPort.intValue(), sslContext, this, properties.getSiteToSiteThreads(),
+                        properties.getSiteToSiteTransactionThreads(), properties.getSiteToSiteTransactionQueueSize());
             } else {
-                remoteSiteListener = new SocketRemoteSiteListener(remoteInputPort.intValue(), null, this);
+                remoteSiteListener = new SocketRemoteSiteListener(remoteInputPort.intValue(), null, this, properties.getSiteToSiteThreads(),
+                        properties.getSiteToSiteTransactionThreads(), properties.getSiteToSiteTransactionQueueSize());
             }
         }
 
@@ -1725,6 +1737,22 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
     public NodeResponse applyRequest(final String method, final URI uri, final Map<String, List<String>> parameters, final Map<String, String> headers, final Set<NodeIdentifier> nodeIdentifiers)
             throws NoConnectedNodesException, NoResponseFromNodesException, UriConstructionException, ConnectingNodeMutableRequestException, DisconnectedNodeMutableRequestException, SafeModeMutableRequestException {
 
+        // identical read-only requests share a single replication and its merged response
+        if (!canChangeNodeState(method, uri) && isResponseInterpreted(uri, method)) {
+            return responseCache.getResponse(method, uri, parameters, headers, nodeIdentifiers, new MergedResponseCache.ResponseLoader() {
+                @Override
+                public NodeResponse load() throws UriConstructionException {
+                    return replicateRequest(method, uri, parameters, headers, nodeIdentifiers);
+                }
+            });
+        }
+
+        return replicateRequest(method, uri, parameters, headers, nodeIdentifiers);
+    }
+
+    private NodeResponse replicateRequest(final String method, final URI uri, final Map<String, List<String>> parameters, final Map<String, String> headers, final Set<NodeIdentifier> nodeIdentifiers)
+            throws NoConnectedNodesException, NoResponseFromNodesException, UriConstructionException, ConnectingNodeMutableRequestException, DisconnectedNodeMutableRequestException, SafeModeMutableRequestException {
+
         final boolean mutableRequest = canChangeNodeState(method, uri);
         final ClusterManagerLock lock = mutableRequest ? writeLock : readLock;
 
@@ -1753,6 +1781,10 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                 return clientResponse;
             }
         } finally {
+            // cached responses may no longer reflect the flow
+            if (mutableRequest) {
+                responseCache.invalidate();
+            }
             lock.unlock("applyRequest(String, URI, Map<String, List<String>>, Map<String, String>, Set<NodeIdentifier>");
         }
     }
@@ -1796,6 +1828,10 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
             }
 
         } finally {
+            // cached responses may no longer reflect the flow
+            if (mutableRequest) {
+                responseCache.invalidate();
+            }
             lock.unlock("applyRequest(String, URI, Object, Map<String, String>, Set<NodeIdentifier>");
         }
     }
@@ -2073,11 +2109,36 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
     }
 
     static boolean isResponseInterpreted(final URI uri, final String method) {
-        return isProcessorsEndpoint(uri, method) || isProcessorEndpoint(uri, method)
-                || isRemoteProcessGroupsEndpoint(uri, method) || isRemoteProcessGroupEndpoint(uri, method)
-                || isProcessGroupEndpoint(uri, method)
-                || isTemplateEndpoint(uri, method) || isFlowSnippetEndpoint(uri, method)
-                || isProvenanceQueryEndpoint(uri, method) || isProvenanceEventEndpoint(uri, method);
+        return getInterpretedEntityType(uri, method) != null;
+    }
+
+    /**
+     * Returns the type of the entity that is merged from the node responses to
+     * the given request, or null if the node responses are not interpreted.
+     *
+     * @param uri the request uri
+     * @param method the request method
+     * @return the entity type or null
+     */
+    static Class<? extends Entity> getInterpretedEntityType(final URI uri, final String method) {
+        if (isProcessorEndpoint(uri, method)) {
+            return ProcessorEntity.class;
+        } else if (isProcessorsEndpoint(uri, method)) {
+            return ProcessorsEntity.class;
+        } else if (isProcessGroupEndpoint(uri, method)) {
+            return ProcessGroupEntity.class;
+        } else if (isTemplateEndpoint(uri, method) || isFlowSnippetEndpoint(uri, method)) {
+            return FlowSnippetEntity.class;
+        } else if (isRemoteProcessGroupEndpoint(uri, method)) {
+            return RemoteProcessGroupEntity.class;
+        } else if (isRemoteProcessGroupsEndpoint(uri, method)) {
+            return RemoteProcessGroupsEntity.class;
+        } else if (isProvenanceQueryEndpoint(uri, method)) {
+            return ProvenanceEntity.class;
+        } else if (isProvenanceEventEndpoint(uri, method)) {
+            return ProvenanceEventEntity.class;
+        }
+        return null;
     }
 
     private void mergeProcessorValidationErrors(final ProcessorDTO processor, Map<NodeIdentifier, ProcessorDTO> processorMap) {
@@ -2326,7 +2387,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
         nodeResponsesToDrain.remove(clientResponse);
 
         if (hasSuccessfulClientResponse && isProcessorEndpoint(uri, method)) {
-            final ProcessorEntity responseEntity = clientResponse.getClientResponse().getEntity(ProcessorEntity.class);
+            final ProcessorEntity responseEntity = clientResponse.getClientEntity(ProcessorEntity.class);
             final ProcessorDTO processor = responseEntity.getProcessor();
 
             final Map<NodeIdentifier, ProcessorDTO> processorMap = new HashMap<>();
@@ -2335,7 +2396,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                     continue;
                 }
 
-                final ProcessorEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(ProcessorEntity.class);
+                final ProcessorEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(ProcessorEntity.class);
                 final ProcessorDTO nodeProcessor = nodeResponseEntity.getProcessor();
                 processorMap.put(nodeResponse.getNodeId(), nodeProcessor);
             }
@@ -2343,7 +2404,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
             mergeProcessorValidationErrors(processor, processorMap);
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && isProcessorsEndpoint(uri, method)) {
-            final ProcessorsEntity responseEntity = clientResponse.getClientResponse().getEntity(ProcessorsEntity.class);
+            final ProcessorsEntity responseEntity = clientResponse.getClientEntity(ProcessorsEntity.class);
             final Set<ProcessorDTO> processors = responseEntity.getProcessors();
 
             final Map<String, Map<NodeIdentifier, ProcessorDTO>> processorMap = new HashMap<>();
@@ -2352,7 +2413,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                     continue;
                 }
 
-                final ProcessorsEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(ProcessorsEntity.class);
+                final ProcessorsEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(ProcessorsEntity.class);
                 final Set<ProcessorDTO> nodeProcessors = nodeResponseEntity.getProcessors();
 
                 for (final ProcessorDTO nodeProcessor : nodeProcessors) {
@@ -2376,7 +2437,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
             // create a new client response
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && isProcessGroupEndpoint(uri, method)) {
-            final ProcessGroupEntity responseEntity = clientResponse.getClientResponse().getEntity(ProcessGroupEntity.class);
+            final ProcessGroupEntity responseEntity = clientResponse.getClientEntity(ProcessGroupEntity.class);
             final ProcessGroupDTO responseDto = responseEntity.getProcessGroup();
 
             final FlowSnippetDTO contents = responseDto.getContents();
@@ -2393,7 +2454,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                         continue;
                     }
 
-                    final ProcessGroupEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(ProcessGroupEntity.class);
+                    final ProcessGroupEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(ProcessGroupEntity.class);
                     final ProcessGroupDTO nodeProcessGroup = nodeResponseEntity.getProcessGroup();
 
                     for (final ProcessorDTO nodeProcessor : nodeProcessGroup.getContents().getProcessors()) {
@@ -2437,7 +2498,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
             // create a new client response
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && (isTemplateEndpoint(uri, method) || isFlowSnippetEndpoint(uri, method))) {
-            final FlowSnippetEntity responseEntity = clientResponse.getClientResponse().getEntity(FlowSnippetEntity.class);
+            final FlowSnippetEntity responseEntity = clientResponse.getClientEntity(FlowSnippetEntity.class);
             final FlowSnippetDTO contents = responseEntity.getContents();
 
             if (contents == null) {
@@ -2453,7 +2514,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                         continue;
                     }
 
-                    final FlowSnippetEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(FlowSnippetEntity.class);
+                    final FlowSnippetEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(FlowSnippetEntity.class);
                     final FlowSnippetDTO nodeContents = nodeResponseEntity.getContents();
 
                     for (final ProcessorDTO nodeProcessor : nodeContents.getProcessors()) {
@@ -2497,7 +2558,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
             // create a new client response
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && (isRemoteProcessGroupEndpoint(uri, method))) {
-            final RemoteProcessGroupEntity responseEntity = clientResponse.getClientResponse().getEntity(RemoteProcessGroupEntity.class);
+            final RemoteProcessGroupEntity responseEntity = clientResponse.getClientEntity(RemoteProcessGroupEntity.class);
             final RemoteProcessGroupDTO remoteProcessGroup = responseEntity.getRemoteProcessGroup();
 
             final Map<NodeIdentifier, RemoteProcessGroupDTO> remoteProcessGroupMap = new HashMap<>();
@@ -2506,7 +2567,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                     continue;
                 }
 
-                final RemoteProcessGroupEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(RemoteProcessGroupEntity.class);
+                final RemoteProcessGroupEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(RemoteProcessGroupEntity.class);
                 final RemoteProcessGroupDTO nodeRemoteProcessGroup = nodeResponseEntity.getRemoteProcessGroup();
 
                 remoteProcessGroupMap.put(nodeResponse.getNodeId(), nodeRemoteProcessGroup);
@@ -2515,7 +2576,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
 
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && (isRemoteProcessGroupsEndpoint(uri, method))) {
-            final RemoteProcessGroupsEntity responseEntity = clientResponse.getClientResponse().getEntity(RemoteProcessGroupsEntity.class);
+            final RemoteProcessGroupsEntity responseEntity = clientResponse.getClientEntity(RemoteProcessGroupsEntity.class);
             final Set<RemoteProcessGroupDTO> remoteProcessGroups = responseEntity.getRemoteProcessGroups();
 
             final Map<String, Map<NodeIdentifier, RemoteProcessGroupDTO>> remoteProcessGroupMap = new HashMap<>();
@@ -2524,7 +2585,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                     continue;
                 }
 
-                final RemoteProcessGroupsEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(RemoteProcessGroupsEntity.class);
+                final RemoteProcessGroupsEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(RemoteProcessGroupsEntity.class);
                 final Set<RemoteProcessGroupDTO> nodeRemoteProcessGroups = nodeResponseEntity.getRemoteProcessGroups();
 
                 for (final RemoteProcessGroupDTO nodeRemoteProcessGroup : nodeRemoteProcessGroups) {
@@ -2548,7 +2609,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
             // create a new client response
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && isProvenanceQueryEndpoint(uri, method)) {
-            final ProvenanceEntity responseEntity = clientResponse.getClientResponse().getEntity(ProvenanceEntity.class);
+            final ProvenanceEntity responseEntity = clientResponse.getClientEntity(ProvenanceEntity.class);
             final ProvenanceDTO query = responseEntity.getProvenance();
 
             final Map<NodeIdentifier, ProvenanceDTO> resultsMap = new HashMap<>();
@@ -2557,7 +2618,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
                     continue;
                 }
 
-                final ProvenanceEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientResponse().getEntity(ProvenanceEntity.class);
+                final ProvenanceEntity nodeResponseEntity = (nodeResponse == clientResponse) ? responseEntity : nodeResponse.getClientEntity(ProvenanceEntity.class);
                 final ProvenanceDTO nodeQuery = nodeResponseEntity.getProvenance();
 
                 resultsMap.put(nodeResponse.getNodeId(), nodeQuery);
@@ -2566,7 +2627,7 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
 
             clientResponse = new NodeResponse(clientResponse, responseEntity);
         } else if (hasSuccessfulClientResponse && isProvenanceEventEndpoint(uri, method)) {
-            final ProvenanceEventEntity responseEntity = clientResponse.getClientResponse().getEntity(ProvenanceEventEntity.class);
+            final ProvenanceEventEntity responseEntity = clientResponse.getClientEntity(ProvenanceEventEntity.class);
             final ProvenanceEventDTO event = responseEntity.getProvenanceEvent();
 
             // this request was sent to a specific node... populate its details
@@ -2658,8 +2719,8 @@ public class WebClusterManager implements HttpClusterManager, ProtocolHandler, C
         final ExecutorService executorService = Executors.newFixedThreadPool(properties.getClusterManagerProtocolThreads());
         final CompletionService<Void> completionService = new ExecutorCompletionService<>(executorService);
         for (final NodeResponse nodeResponse : nodeResponses) {
-            // if we received a response, then clear out the response data
-            if (!nodeResponse.hasThrowable()) {
+            // if we received a response whose entity has not been read, then clear out the response data
+            if (!nodeResponse.hasThrowable() && !nodeResponse.hasClientEntity()) {
                 completionService.submit(new Runnable() {
                     @Override
                     public void run() {
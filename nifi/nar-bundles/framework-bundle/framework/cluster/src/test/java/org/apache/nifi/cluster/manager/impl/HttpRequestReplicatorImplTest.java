@@ -43,6 +43,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.apache.nifi.cluster.manager.testutils.HttpResponseAction;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.entity.ProcessorEntity;
 import static org.junit.Assert.*;
 
 /**
@@ -168,6 +169,39 @@ public class HttpRequestReplicatorImplTest {
 
     }
 
+    @Test
+    public void testReplicateGetReadsInterpretedEntity() throws Throwable {
+
+        // nodes
+        Set<NodeIdentifier> nodeIds = createNodes(executorThreadCount + 1, "localhost", serverPort);
+
+        // responses
+        final String processorId = "00000000-0000-0000-0000-000000000000";
+        for (int i = 0; i < nodeIds.size(); i++) {
+            HttpResponse response = new HttpResponse(Status.OK, "<processorEntity><processor><id>" + processorId + "</id></processor></processorEntity>");
+            response.addHeader("Content-Type", "application/xml");
+            server.addResponseAction(new HttpResponseAction(response));
+        }
+
+        Set<NodeResponse> responses = replicator.replicate(
+                nodeIds,
+                HttpMethod.GET,
+                new URI("http://prototype.host/nifi-api/controller/process-groups/root/processors/" + processorId),
+                expectedRequestParameters,
+                expectedRequestHeaders);
+
+        assertEquals(nodeIds.size(), responses.size());
+        for (NodeResponse response : responses) {
+            if (response.hasThrowable()) {
+                throw response.getThrowable();
+            }
+
+            // the entity was read when the response was received
+            assertTrue(response.hasClientEntity());
+            assertEquals(processorId, response.getClientEntity(ProcessorEntity.class).getProcessor().getId());
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testReplicateGetWithEntity() throws Throwable {
         testReplicateXXXEntity(HttpMethod.GET);
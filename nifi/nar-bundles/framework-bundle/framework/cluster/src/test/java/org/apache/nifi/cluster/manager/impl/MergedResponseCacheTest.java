@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.cluster.manager.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.jersey.api.client.ClientResponse;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
+import org.apache.nifi.web.api.entity.ProcessGroupEntity;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * @author unattributed
+ */
+public class MergedResponseCacheTest {
+
+    private static final URI REQUEST_URI = URI.create("http://localhost/nifi-api/controller/process-groups/root");
+    private static final Set<NodeIdentifier> NODE_IDS = Collections.singleton(new NodeIdentifier("1", "localhost", 8080, "localhost", 8081));
+    private static final Map<String, List<String>> PARAMETERS = Collections.singletonMap("verbose", Arrays.asList("true"));
+
+    @Test(timeout = 10000)
+    public void testConcurrentRequestsAreCoalesced() throws Exception {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountingLoader loader = new CountingLoader(200) {
+            @Override
+            public NodeResponse load() {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (final InterruptedException ie) {
+                    throw new RuntimeException(ie);
+                }
+                return super.load();
+            }
+        };
+
+        final AtomicReference<NodeResponse> first = new AtomicReference<>();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                first.set(cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader));
+            }
+        });
+        thread.start();
+        loading.await();
+
+        final AtomicReference<NodeResponse> second = new AtomicReference<>();
+        final Thread waiting = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                second.set(cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent2"), NODE_IDS, loader));
+            }
+        });
+        waiting.start();
+
+        Thread.sleep(100L);
+        release.countDown();
+        thread.join();
+        waiting.join();
+
+        assertEquals(1, loader.getCount());
+        assertNotSame(first.get(), second.get());
+        assertSame(first.get().getUpdatedEntity(), second.get().getUpdatedEntity());
+    }
+
+    @Test
+    public void testResponseIsCachedUntilInvalidated() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final CountingLoader loader = new CountingLoader(200);
+
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        assertEquals(1, loader.getCount());
+
+        // requests of another user are not shared
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user2", "agent1"), NODE_IDS, loader);
+        assertEquals(2, loader.getCount());
+
+        cache.invalidate();
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        assertEquals(3, loader.getCount());
+    }
+
+    @Test
+    public void testResponseExpires() throws Exception {
+        final MergedResponseCache cache = new MergedResponseCache(50, TimeUnit.MILLISECONDS);
+        final CountingLoader loader = new CountingLoader(200);
+
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        Thread.sleep(100L);
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        assertEquals(2, loader.getCount());
+        assertTrue(cache.size() <= 1);
+    }
+
+    @Test
+    public void testUnsuccessfulResponseIsNotCached() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final CountingLoader loader = new CountingLoader(409);
+
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        assertEquals(2, loader.getCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDisabled() {
+        final MergedResponseCache cache = new MergedResponseCache(0, TimeUnit.SECONDS);
+        final CountingLoader loader = new CountingLoader(200);
+
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        cache.getResponse("GET", REQUEST_URI, PARAMETERS, headers("user1", "agent1"), NODE_IDS, loader);
+        assertEquals(2, loader.getCount());
+    }
+
+    private Map<String, String> headers(final String user, final String userAgent) {
+        final Map<String, String> headers = new HashMap<>();
+        headers.put("X-ProxiedEntitiesChain", "<" + user + ">");
+        headers.put("User-Agent", userAgent);
+        return headers;
+    }
+
+    /**
+     * Counts the number of responses it creates.
+     */
+    private static class CountingLoader implements MergedResponseCache.ResponseLoader {
+
+        private final int status;
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        private CountingLoader(final int status) {
+            this.status = status;
+        }
+
+        private int getCount() {
+            return count.get();
+        }
+
+        @Override
+        public NodeResponse load() {
+            count.incrementAndGet();
+
+            final ClientResponse clientResponse = Mockito.mock(ClientResponse.class);
+            Mockito.when(clientResponse.getStatus()).thenReturn(status);
+
+            final ProcessGroupEntity entity = new ProcessGroupEntity();
+            final NodeResponse nodeResponse = new NodeResponse(NODE_IDS.iterator().next(), "GET", REQUEST_URI, clientResponse, entity, 0L, "request-id");
+            return new NodeResponse(nodeResponse, entity);
+        }
+    }
+}
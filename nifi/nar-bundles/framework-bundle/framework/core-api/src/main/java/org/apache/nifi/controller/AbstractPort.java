@@ -140,6 +140,7 @@ public abstract class AbstractPort implements Port {
         }
 
         this.name.set(name);
+        notifySearchableConfigurationModified();
     }
 
     @Override
@@ -160,6 +161,18 @@ public abstract class AbstractPort implements Port {
     @Override
     public void setComments(final String comments) {
         this.comments.set(comments);
+        notifySearchableConfigurationModified();
+    }
+
+    /**
+     * Notifies the ProcessGroup to which this Port belongs, if any, that the
+     * searchable configuration of this Port has changed
+     */
+    protected void notifySearchableConfigurationModified() {
+        final ProcessGroup group = processGroup.get();
+        if (group != null) {
+            group.onComponentModified(getIdentifier());
+        }
     }
 
     @Override
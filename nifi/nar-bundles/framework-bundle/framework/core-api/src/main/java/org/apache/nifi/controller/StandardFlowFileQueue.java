@@ -38,6 +38,7 @@ import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.FlowFileFilter;
 import org.apache.nifi.processor.FlowFileFilter.FlowFileFilterResult;
@@ -154,6 +155,12 @@ public final class StandardFlowFileQueue implements FlowFileQueue {
         } finally {
             writeLock.unlock("setPriorities");
         }
+
+        // the prioritizers are part of the searchable configuration of the connection
+        final ProcessGroup group = connection.getProcessGroup();
+        if (group != null) {
+            group.onComponentModified(connection.getIdentifier());
+        }
     }
 
     @Override
@@ -435,13 +442,10 @@ public final class StandardFlowFileQueue implements FlowFileQueue {
                 return null;
             }
 
-            final List<FlowFileRecord> swapRecords = new ArrayList<>(Math.min(SWAP_RECORD_POLL_SIZE, swapQueue.size()));
-            final Iterator<FlowFileRecord> itr = swapQueue.iterator();
-            while (itr.hasNext() && swapRecords.size() < SWAP_RECORD_POLL_SIZE) {
-                FlowFileRecord record = itr.next();
-                swapRecords.add(record);
-                itr.remove();
-            }
+            // remove the records as a range; removing them one at a time from the front of the list shifts the remainder each time
+            final List<FlowFileRecord> toRemove = swapQueue.subList(0, SWAP_RECORD_POLL_SIZE);
+            final List<FlowFileRecord> swapRecords = new ArrayList<>(toRemove);
+            toRemove.clear();
 
             swapQueue.trimToSize();
             return swapRecords;
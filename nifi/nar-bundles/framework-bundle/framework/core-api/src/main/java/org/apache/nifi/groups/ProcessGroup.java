@@ -97,6 +97,16 @@ public interface ProcessGroup {
      */
     void setComments(String comments);
 
+    /**
+     * Notifies this ProcessGroup that the searchable configuration (such as
+     * the name, comments or properties) of the component with the given
+     * identifier has changed. The component must be a direct child of this
+     * ProcessGroup; unknown identifiers are ignored.
+     *
+     * @param componentId
+     */
+    void onComponentModified(String componentId);
+
     /**
      * Returns the counts for this ProcessGroup
      *
@@ -85,6 +85,7 @@ public final class StandardConnection implements Connection {
 
     public void setName(final String name) {
         this.name.set(name);
+        notifySearchableConfigurationModified();
     }
 
     @Override
@@ -158,6 +159,7 @@ public final class StandardConnection implements Connection {
             this.relationships.set(currentRelationships);
             throw e;
         }
+        notifySearchableConfigurationModified();
     }
 
     public void setDestination(final Connectable newDestination) {
@@ -181,6 +183,14 @@ public final class StandardConnection implements Connection {
             this.destination.set(previousDestination);
             throw e;
         }
+        notifySearchableConfigurationModified();
+    }
+
+    private void notifySearchableConfigurationModified() {
+        final ProcessGroup group = processGroup.get();
+        if (group != null) {
+            group.onComponentModified(id);
+        }
     }
 
     @Override
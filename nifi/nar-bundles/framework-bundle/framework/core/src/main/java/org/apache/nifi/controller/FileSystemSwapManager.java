@@ -28,12 +28,15 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -42,10 +45,15 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -53,6 +61,9 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.apache.nifi.controller.repository.ConnectionSwapInfo;
 import org.apache.nifi.controller.repository.FlowFileRecord;
@@ -64,7 +75,10 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ContentClaimManager;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
 import org.apache.nifi.stream.io.BufferedOutputStream;
+import org.apache.nifi.stream.io.ByteArrayOutputStream;
 import org.apache.nifi.processor.QueueSize;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.FormatUtils;
@@ -84,11 +98,19 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private static final Pattern SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+\\.swap");
     private static final Pattern TEMP_SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+\\.swap\\.part");
     
-    public static final int SWAP_ENCODING_VERSION = 6;
+    public static final int SWAP_ENCODING_VERSION = 7;
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
 
+    // the number of FlowFiles in each independently decodable block of a Swap File
+    static final int RECORDS_PER_BLOCK = 1000;
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int CLAIM_NONE = 0;
+    private static final int CLAIM_DURABLE = 1;
+    private static final int CLAIM_LOSS_TOLERANT = 2;
+
     private final ScheduledExecutorService swapQueueIdentifierExecutor;
     private final ScheduledExecutorService swapInExecutor;
+    private final ExecutorService swapInDecodeExecutor;
     private volatile FlowFileRepository flowFileRepository;
     private volatile EventReporter eventReporter;
 
@@ -98,6 +120,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private final long swapInMillis;
     private final long swapOutMillis;
     private final int swapOutThreadCount;
+    private final int swapInThreadCount;
+    private final boolean compressSwapFiles;
 
     private ContentClaimManager claimManager;	// effectively final
 
@@ -117,7 +141,12 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         swapInMillis = FormatUtils.getTimeDuration(properties.getSwapInPeriod(), TimeUnit.MILLISECONDS);
         swapOutMillis = FormatUtils.getTimeDuration(properties.getSwapOutPeriod(), TimeUnit.MILLISECONDS);
         swapOutThreadCount = properties.getSwapOutThreads();
-        swapInExecutor = new FlowEngine(properties.getSwapInThreads(), "Swap In FlowFiles");
+        swapInThreadCount = properties.getSwapInThreads();
+        compressSwapFiles = properties.isSwapCompressionEnabled();
+        swapInExecutor = new FlowEngine(swapInThreadCount, "Swap In FlowFiles");
+
+        // decoding is CPU-bound, and the Swap In threads spend most of their time waiting for it
+        swapInDecodeExecutor = new FlowEngine(Runtime.getRuntime().availableProcessors(), "Decode Swapped FlowFiles", true);
     }
 
     @Override
@@ -143,10 +172,38 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         this.flowFileRepository = flowFileRepository;
         this.eventReporter = eventReporter;
         swapQueueIdentifierExecutor.scheduleWithFixedDelay(new QueueIdentifier(connectionProvider), swapOutMillis, swapOutMillis, TimeUnit.MILLISECONDS);
-        swapInExecutor.scheduleWithFixedDelay(new SwapInTask(), swapInMillis, swapInMillis, TimeUnit.MILLISECONDS);
+
+        // each task swaps in FlowFiles for whichever queues are not already locked by another task
+        for (int i = 0; i < swapInThreadCount; i++) {
+            swapInExecutor.scheduleWithFixedDelay(new SwapInTask(), swapInMillis, swapInMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     public int serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination) throws IOException {
+        final int recordsSwapped = serializeFlowFiles(toSwap, queue, destination, compressSwapFiles);
+        if (recordsSwapped > 0) {
+            logger.info("Successfully swapped out {} FlowFiles from {} to Swap File {}", new Object[]{recordsSwapped, queue, swapLocation});
+        }
+
+        return recordsSwapped;
+    }
+
+    /**
+     * Writes the given FlowFiles to the destination using the current swap
+     * encoding. The header is the same as that of earlier versions: the
+     * encoding version, the queue identifier, the number of FlowFiles and
+     * their total content size. It is followed by a flags byte, a dictionary
+     * of the strings that occur more than once in the file, and then the
+     * FlowFiles in blocks of up to {@link #RECORDS_PER_BLOCK}. The dictionary
+     * and each block are length-prefixed and, if compression is enabled,
+     * individually deflated, so that the blocks can be decoded concurrently.
+     *
+     * Within a block, numbers are written as variable-length integers; IDs and
+     * entry dates as the difference from the previous FlowFile's, and the other
+     * dates relative to the FlowFile's entry date. Each string is either a
+     * reference into the dictionary or is written inline.
+     */
+    static int serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final OutputStream destination, final boolean compress) throws IOException {
         if (toSwap == null || toSwap.isEmpty()) {
             return 0;
         }
@@ -164,69 +221,192 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             out.writeUTF(queue.getIdentifier());
             out.writeInt(toSwap.size());
             out.writeLong(contentSize);
+            out.writeByte(compress ? FLAG_COMPRESSED : 0);
 
-            for (final FlowFileRecord flowFile : toSwap) {
-                out.writeLong(flowFile.getId());
-                out.writeLong(flowFile.getEntryDate());
+            final Map<String, Integer> dictionary = createDictionary(toSwap);
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeVarLong(dictionary.size(), buffer);
+            for (final String value : dictionary.keySet()) {
+                writeInlineString(value, buffer);
+            }
+            writeSection(buffer, compress, out);
+
+            for (int blockStart = 0; blockStart < toSwap.size(); blockStart += RECORDS_PER_BLOCK) {
+                final List<FlowFileRecord> block = toSwap.subList(blockStart, Math.min(toSwap.size(), blockStart + RECORDS_PER_BLOCK));
+                buffer.reset();
+                encodeBlock(block, dictionary, buffer);
+                writeVarLong(block.size(), out);
+                writeSection(buffer, compress, out);
+            }
+        } finally {
+            out.flush();
+        }
 
-                final Set<String> lineageIdentifiers = flowFile.getLineageIdentifiers();
-                out.writeInt(lineageIdentifiers.size());
-                for (final String lineageId : lineageIdentifiers) {
-                    out.writeUTF(lineageId);
-                }
+        return toSwap.size();
+    }
 
-                out.writeLong(flowFile.getLineageStartDate());
-                out.writeLong(flowFile.getLastQueueDate());
-                out.writeLong(flowFile.getSize());
+    /**
+     * @return a mapping of each string that occurs more than once in the given
+     * FlowFiles to its index in the dictionary
+     */
+    private static Map<String, Integer> createDictionary(final List<FlowFileRecord> flowFiles) {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (final FlowFileRecord flowFile : flowFiles) {
+            for (final String lineageId : flowFile.getLineageIdentifiers()) {
+                count(lineageId, counts);
+            }
 
-                final ContentClaim claim = flowFile.getContentClaim();
-                if (claim == null) {
-                    out.writeBoolean(false);
-                } else {
-                    out.writeBoolean(true);
-                    out.writeUTF(claim.getId());
-                    out.writeUTF(claim.getContainer());
-                    out.writeUTF(claim.getSection());
-                    out.writeLong(flowFile.getContentClaimOffset());
-                    out.writeBoolean(claim.isLossTolerant());
-                }
+            final ContentClaim claim = flowFile.getContentClaim();
+            if (claim != null) {
+                count(claim.getId(), counts);
+                count(claim.getContainer(), counts);
+                count(claim.getSection(), counts);
+            }
 
-                final Map<String, String> attributes = flowFile.getAttributes();
-                out.writeInt(attributes.size());
-                for (final Map.Entry<String, String> entry : attributes.entrySet()) {
-                    writeString(entry.getKey(), out);
-                    writeString(entry.getValue(), out);
-                }
+            for (final Map.Entry<String, String> entry : flowFile.getAttributes().entrySet()) {
+                count(entry.getKey(), counts);
+                count(entry.getValue(), counts);
             }
-        } finally {
-            out.flush();
         }
 
-        logger.info("Successfully swapped out {} FlowFiles from {} to Swap File {}", new Object[]{toSwap.size(), queue, swapLocation});
+        final Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (final Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 1) {
+                dictionary.put(entry.getKey(), dictionary.size());
+            }
+        }
+        return dictionary;
+    }
 
-        return toSwap.size();
+    private static void count(final String value, final Map<String, Integer> counts) {
+        final Integer count = counts.get(value);
+        counts.put(value, count == null ? 1 : count + 1);
     }
 
-    private void writeString(final String toWrite, final OutputStream out) throws IOException {
-        final byte[] bytes = toWrite.getBytes("UTF-8");
-        final int utflen = bytes.length;
+    private static void encodeBlock(final List<FlowFileRecord> flowFiles, final Map<String, Integer> dictionary, final OutputStream out) throws IOException {
+        long previousId = 0L;
+        long previousEntryDate = 0L;
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final long entryDate = flowFile.getEntryDate();
+            writeVarLong(zigZag(flowFile.getId() - previousId), out);
+            writeVarLong(zigZag(entryDate - previousEntryDate), out);
+            previousId = flowFile.getId();
+            previousEntryDate = entryDate;
+
+            final Set<String> lineageIdentifiers = flowFile.getLineageIdentifiers();
+            writeVarLong(lineageIdentifiers.size(), out);
+            for (final String lineageId : lineageIdentifiers) {
+                writeString(lineageId, dictionary, out);
+            }
+
+            writeVarLong(zigZag(entryDate - flowFile.getLineageStartDate()), out);
+            writeVarLong(zigZag(flowFile.getLastQueueDate() - entryDate), out);
+            writeVarLong(flowFile.getSize(), out);
+
+            final ContentClaim claim = flowFile.getContentClaim();
+            if (claim == null) {
+                out.write(CLAIM_NONE);
+            } else {
+                out.write(claim.isLossTolerant() ? CLAIM_LOSS_TOLERANT : CLAIM_DURABLE);
+                writeString(claim.getId(), dictionary, out);
+                writeString(claim.getContainer(), dictionary, out);
+                writeString(claim.getSection(), dictionary, out);
+                writeVarLong(flowFile.getContentClaimOffset(), out);
+            }
 
-        if (utflen < 65535) {
-            out.write(utflen >>> 8);
-            out.write(utflen);
+            final Map<String, String> attributes = flowFile.getAttributes();
+            writeVarLong(attributes.size(), out);
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                writeString(entry.getKey(), dictionary, out);
+                writeString(entry.getValue(), dictionary, out);
+            }
+        }
+    }
+
+    /**
+     * Writes the given string as an even reference into the dictionary if the
+     * dictionary contains it, or as an odd length followed by its UTF-8 bytes
+     */
+    private static void writeString(final String value, final Map<String, Integer> dictionary, final OutputStream out) throws IOException {
+        final Integer index = dictionary.get(value);
+        if (index == null) {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(((long) bytes.length << 1) | 1L, out);
             out.write(bytes);
         } else {
-            out.write(255);
-            out.write(255);
-            out.write(utflen >>> 24);
-            out.write(utflen >>> 16);
-            out.write(utflen >>> 8);
-            out.write(utflen);
-            out.write(bytes);
+            writeVarLong((long) index << 1, out);
         }
     }
 
+    private static void writeInlineString(final String value, final OutputStream out) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length, out);
+        out.write(bytes);
+    }
+
+    /**
+     * Writes the contents of the buffer, preceded by its length and by the
+     * length of the (possibly compressed) bytes that follow
+     */
+    private static void writeSection(final ByteArrayOutputStream buffer, final boolean compress, final OutputStream out) throws IOException {
+        final byte[] raw = buffer.getUnderlyingBuffer();
+        final int rawLength = buffer.size();
+        writeVarLong(rawLength, out);
+
+        if (!compress) {
+            writeVarLong(rawLength, out);
+            out.write(raw, 0, rawLength);
+            return;
+        }
+
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw, 0, rawLength);
+            deflater.finish();
+
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(rawLength / 2 + 64);
+            final byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                final int length = deflater.deflate(chunk);
+                compressed.write(chunk, 0, length);
+            }
+
+            writeVarLong(compressed.size(), out);
+            compressed.writeTo(out);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeVarLong(final long value, final OutputStream out) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0L) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
     static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final FlowFileQueue queue, final ContentClaimManager claimManager) throws IOException {
+        return readFlowFiles(in, queue, claimManager, null).getFlowFiles();
+    }
+
+    /**
+     * Reads the Swap File from the given stream, decoding its FlowFiles with
+     * the given executor so that the caller can go on to do other work, such
+     * as adding the FlowFiles of the previous Swap File to the queue. If the
+     * executor is <code>null</code>, the FlowFiles are decoded by the calling
+     * thread before this method returns.
+     */
+    static PendingFlowFiles readFlowFiles(final DataInputStream in, final FlowFileQueue queue, final ContentClaimManager claimManager, final Executor decodeExecutor) throws IOException {
         final int swapEncodingVersion = in.readInt();
         if (swapEncodingVersion > SWAP_ENCODING_VERSION) {
             throw new IOException("Cannot swap FlowFiles in from SwapFile because the encoding version is "
@@ -241,10 +421,170 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final int numRecords = in.readInt();
         in.readLong();  // Content Size
 
-        return deserializeFlowFiles(in, numRecords, queue, swapEncodingVersion, false, claimManager);
+        return readFlowFiles(in, numRecords, swapEncodingVersion, false, claimManager, decodeExecutor);
     }
 
     static List<FlowFileRecord> deserializeFlowFiles(final DataInputStream in, final int numFlowFiles, final FlowFileQueue queue, final int serializationVersion, final boolean incrementContentClaims, final ContentClaimManager claimManager) throws IOException {
+        return readFlowFiles(in, numFlowFiles, serializationVersion, incrementContentClaims, claimManager, null).getFlowFiles();
+    }
+
+    private static PendingFlowFiles readFlowFiles(final DataInputStream in, final int numFlowFiles, final int serializationVersion, final boolean incrementContentClaims,
+            final ContentClaimManager claimManager, final Executor decodeExecutor) throws IOException {
+        final List<Future<List<FlowFileRecord>>> blocks = new ArrayList<>();
+        if (serializationVersion < 7) {
+            final List<FlowFileRecord> flowFiles = deserializeLegacyFlowFiles(in, numFlowFiles, serializationVersion, incrementContentClaims, claimManager);
+            blocks.add(decode(new Callable<List<FlowFileRecord>>() {
+                @Override
+                public List<FlowFileRecord> call() {
+                    return flowFiles;
+                }
+            }, null));
+            return new PendingFlowFiles(blocks, numFlowFiles);
+        }
+
+        final int flags = in.readUnsignedByte();
+        final boolean compressed = (flags & FLAG_COMPRESSED) != 0;
+
+        final BlockReader dictionaryReader = new BlockReader(readSection(in, compressed));
+        final String[] dictionary = new String[dictionaryReader.readVarInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = dictionaryReader.readInlineString();
+        }
+
+        int blockRecords = 0;
+        while (blockRecords < numFlowFiles) {
+            final int recordCount = readVarInt(in);
+            if (recordCount < 1 || recordCount > numFlowFiles - blockRecords) {
+                throw new IOException("Swap File is corrupt: found a block of " + recordCount + " FlowFiles after " + blockRecords + " of " + numFlowFiles + " FlowFiles");
+            }
+
+            final int rawLength = readVarInt(in);
+            final byte[] stored = new byte[readVarInt(in)];
+            in.readFully(stored);
+
+            blocks.add(decode(new Callable<List<FlowFileRecord>>() {
+                @Override
+                public List<FlowFileRecord> call() throws IOException {
+                    final byte[] raw = compressed ? inflate(stored, rawLength) : stored;
+                    return decodeBlock(new BlockReader(raw), recordCount, dictionary, incrementContentClaims, claimManager);
+                }
+            }, decodeExecutor));
+            blockRecords += recordCount;
+        }
+
+        return new PendingFlowFiles(blocks, numFlowFiles);
+    }
+
+    private static Future<List<FlowFileRecord>> decode(final Callable<List<FlowFileRecord>> decoder, final Executor decodeExecutor) {
+        final FutureTask<List<FlowFileRecord>> task = new FutureTask<>(decoder);
+        if (decodeExecutor == null) {
+            task.run();
+        } else {
+            decodeExecutor.execute(task);
+        }
+        return task;
+    }
+
+    private static List<FlowFileRecord> decodeBlock(final BlockReader reader, final int recordCount, final String[] dictionary,
+            final boolean incrementContentClaims, final ContentClaimManager claimManager) throws IOException {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(recordCount);
+        long id = 0L;
+        long entryDate = 0L;
+        for (int i = 0; i < recordCount; i++) {
+            id += unZigZag(reader.readVarLong());
+            entryDate += unZigZag(reader.readVarLong());
+
+            final StandardFlowFileRecord.Builder ffBuilder = new StandardFlowFileRecord.Builder();
+            ffBuilder.id(id);
+            ffBuilder.entryDate(entryDate);
+
+            final int numLineageIdentifiers = reader.readVarInt();
+            final Set<String> lineageIdentifiers = new HashSet<>(numLineageIdentifiers);
+            for (int lineageIdIdx = 0; lineageIdIdx < numLineageIdentifiers; lineageIdIdx++) {
+                lineageIdentifiers.add(reader.readString(dictionary));
+            }
+            ffBuilder.lineageIdentifiers(lineageIdentifiers);
+            ffBuilder.lineageStartDate(entryDate - unZigZag(reader.readVarLong()));
+            ffBuilder.lastQueueDate(entryDate + unZigZag(reader.readVarLong()));
+            ffBuilder.size(reader.readVarLong());
+
+            final int claimType = reader.readByte();
+            if (claimType != CLAIM_NONE) {
+                final String claimId = reader.readString(dictionary);
+                final String container = reader.readString(dictionary);
+                final String section = reader.readString(dictionary);
+                final long claimOffset = reader.readVarLong();
+
+                final ContentClaim claim = claimManager.newContentClaim(container, section, claimId, claimType == CLAIM_LOSS_TOLERANT);
+                if (incrementContentClaims) {
+                    claimManager.incrementClaimantCount(claim);
+                }
+
+                ffBuilder.contentClaim(claim);
+                ffBuilder.contentClaimOffset(claimOffset);
+            }
+
+            final int numAttributes = reader.readVarInt();
+            for (int j = 0; j < numAttributes; j++) {
+                final String key = reader.readString(dictionary);
+                final String value = reader.readString(dictionary);
+                ffBuilder.addAttribute(key, value);
+            }
+
+            flowFiles.add(ffBuilder.build());
+        }
+
+        return flowFiles;
+    }
+
+    private static byte[] readSection(final DataInputStream in, final boolean compressed) throws IOException {
+        final int rawLength = readVarInt(in);
+        final byte[] stored = new byte[readVarInt(in)];
+        in.readFully(stored);
+        return compressed ? inflate(stored, rawLength) : stored;
+    }
+
+    private static byte[] inflate(final byte[] compressed, final int rawLength) throws IOException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            final byte[] raw = new byte[rawLength];
+            int inflatedLength = 0;
+            while (inflatedLength < rawLength) {
+                final int length = inflater.inflate(raw, inflatedLength, rawLength - inflatedLength);
+                if (length == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new EOFException();
+                }
+                inflatedLength += length;
+            }
+            return raw;
+        } catch (final DataFormatException dfe) {
+            throw new IOException("Swap File is corrupt", dfe);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int readVarInt(final InputStream in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value > Integer.MAX_VALUE) {
+                    throw new IOException("Swap File is corrupt: invalid length " + value);
+                }
+                return (int) value;
+            }
+        }
+        throw new IOException("Swap File is corrupt: invalid length");
+    }
+
+    private static List<FlowFileRecord> deserializeLegacyFlowFiles(final DataInputStream in, final int numFlowFiles, final int serializationVersion,
+            final boolean incrementContentClaims, final ContentClaimManager claimManager) throws IOException {
         final List<FlowFileRecord> flowFiles = new ArrayList<>();
         for (int i = 0; i < numFlowFiles; i++) {
             // legacy encoding had an "action" because it used to be couple with FlowFile Repository code
@@ -376,6 +716,125 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
     }
 
+    /**
+     * Reads the fields of a block of FlowFiles from a byte array
+     */
+    private static class BlockReader {
+
+        private final byte[] buffer;
+        private int position = 0;
+
+        public BlockReader(final byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        public int readByte() throws EOFException {
+            if (position >= buffer.length) {
+                throw new EOFException();
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        public long readVarLong() throws IOException {
+            long value = 0L;
+            for (int shift = 0; shift < 64; shift += 7) {
+                final int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Swap File is corrupt: invalid variable-length integer");
+        }
+
+        public int readVarInt() throws IOException {
+            final long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IOException("Swap File is corrupt: invalid length " + value);
+            }
+            return (int) value;
+        }
+
+        public String readString(final String[] dictionary) throws IOException {
+            final long value = readVarLong();
+            if ((value & 1L) == 1L) {
+                return readUtf8(value >>> 1);
+            }
+
+            final long index = value >>> 1;
+            if (index >= dictionary.length) {
+                throw new IOException("Swap File is corrupt: invalid dictionary reference " + index);
+            }
+            return dictionary[(int) index];
+        }
+
+        public String readInlineString() throws IOException {
+            return readUtf8(readVarLong());
+        }
+
+        private String readUtf8(final long length) throws EOFException {
+            if (length < 0 || length > buffer.length - position) {
+                throw new EOFException();
+            }
+            final String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+
+    /**
+     * The FlowFiles of a Swap File, which may still be being decoded
+     */
+    static class PendingFlowFiles {
+
+        private final List<Future<List<FlowFileRecord>>> blocks;
+        private final int flowFileCount;
+
+        public PendingFlowFiles(final List<Future<List<FlowFileRecord>>> blocks, final int flowFileCount) {
+            this.blocks = blocks;
+            this.flowFileCount = flowFileCount;
+        }
+
+        /**
+         * Waits for all of the FlowFiles to be decoded
+         *
+         * @return the FlowFiles, in the order in which they were swapped out
+         * @throws IOException if the Swap File could not be decoded
+         */
+        public List<FlowFileRecord> getFlowFiles() throws IOException {
+            final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+            try {
+                for (final Future<List<FlowFileRecord>> block : blocks) {
+                    flowFiles.addAll(block.get());
+                }
+            } catch (final InterruptedException ie) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for Swap File to be decoded", ie);
+            } catch (final ExecutionException ee) {
+                cancel();
+                final Throwable cause = ee.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(cause);
+            }
+            return flowFiles;
+        }
+
+        /**
+         * Stops decoding any FlowFiles that have not yet been decoded
+         */
+        public void cancel() {
+            for (final Future<List<FlowFileRecord>> block : blocks) {
+                block.cancel(false);
+            }
+        }
+    }
+
     private class QueueIdentifier implements Runnable {
 
         private final QueueProvider connectionProvider;
@@ -430,33 +889,66 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                     try {
                         final Queue<File> queue = queueLockWrapper.getQueue();
 
+                        // When the queue is prioritized, each Swap File is a sorted run, and the run whose first FlowFile
+                        // has the highest priority is swapped in next, so that the runs are merged in priority order.
+                        final float swapInLimit = (float) flowFileQueue.getSwapThreshold() * 0.9F;
+                        File prefetchedFile = null;
+                        PendingFlowFiles prefetchedFlowFiles = null;
+
                         // Swap FlowFiles in until we hit 90% of the threshold, or until we're out of files.
-                        while (flowFileQueue.unswappedSize() < ((float) flowFileQueue.getSwapThreshold() * 0.9F)) {
+                        while (flowFileQueue.unswappedSize() < swapInLimit) {
                             File swapFile = null;
                             try {
-                                swapFile = queue.poll();
+                                swapFile = queueLockWrapper.poll(flowFileQueue.getPriorities());
                                 if (swapFile == null) {
                                     break;
                                 }
 
-                                try (final InputStream fis = new FileInputStream(swapFile);
-                                        final DataInputStream in = new DataInputStream(fis)) {
-                                    final List<FlowFileRecord> swappedFlowFiles = deserializeFlowFiles(in, flowFileQueue, claimManager);
-                                    flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swappedFlowFiles, flowFileQueue);
-                                    flowFileQueue.putSwappedRecords(swappedFlowFiles);
+                                final PendingFlowFiles pendingFlowFiles;
+                                if (swapFile.equals(prefetchedFile)) {
+                                    pendingFlowFiles = prefetchedFlowFiles;
+                                } else {
+                                    if (prefetchedFlowFiles != null) {
+                                        prefetchedFlowFiles.cancel();
+                                    }
+                                    pendingFlowFiles = readSwapFile(swapFile, flowFileQueue);
                                 }
+                                prefetchedFile = null;
+                                prefetchedFlowFiles = null;
+
+                                final List<FlowFileRecord> swappedFlowFiles = pendingFlowFiles.getFlowFiles();
+
+                                // If these FlowFiles will not fill the queue, start decoding the next Swap File while
+                                // these FlowFiles are recorded in the repository and added to the queue.
+                                if (flowFileQueue.unswappedSize() + swappedFlowFiles.size() < swapInLimit) {
+                                    prefetchedFile = queueLockWrapper.peek(flowFileQueue.getPriorities());
+                                    if (prefetchedFile != null) {
+                                        try {
+                                            prefetchedFlowFiles = readSwapFile(prefetchedFile, flowFileQueue);
+                                        } catch (final IOException | RuntimeException e) {
+                                            // the file will be read again, and the failure reported, when it is swapped in
+                                            prefetchedFile = null;
+                                        }
+                                    }
+                                }
+
+                                flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swappedFlowFiles, flowFileQueue);
+                                flowFileQueue.putSwappedRecords(swappedFlowFiles);
+                                queueLockWrapper.removeHead(swapFile);
 
                                 if (!swapFile.delete()) {
                                     warn("Swapped in FlowFiles from file " + swapFile.getAbsolutePath() + " but failed to delete the file; this file should be cleaned up manually");
                                 }
                             } catch (final EOFException eof) {
                                 error("Failed to Swap In FlowFiles for " + flowFileQueue + " due to: Corrupt Swap File; will remove this Swap File: " + swapFile);
-                                
+                                queueLockWrapper.removeHead(swapFile);
+
                                 if ( !swapFile.delete() ) {
                                     warn("Failed to remove corrupt Swap File " + swapFile + "; This file should be cleaned up manually");
                                 }
                             } catch (final FileNotFoundException fnfe) {
                                 error("Failed to Swap In FlowFiles for " + flowFileQueue + " due to: Could not find Swap File " + swapFile);
+                                queueLockWrapper.removeHead(swapFile);
                             } catch (final Exception e) {
                                 error("Failed to Swap In FlowFiles for " + flowFileQueue + " due to " + e, e);
                                 
@@ -465,6 +957,10 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                                 }
                             }
                         }
+
+                        if (prefetchedFlowFiles != null) {
+                            prefetchedFlowFiles.cancel();
+                        }
                     } finally {
                         queueLockWrapper.getLock().unlock();
                     }
@@ -473,6 +969,13 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
     }
 
+    private PendingFlowFiles readSwapFile(final File swapFile, final FlowFileQueue flowFileQueue) throws IOException {
+        try (final InputStream fis = new FileInputStream(swapFile);
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            return readFlowFiles(in, flowFileQueue, claimManager, swapInDecodeExecutor);
+        }
+    }
+
     private void error(final String error, final Throwable t) {
         error(error);
         if ( logger.isDebugEnabled() ) {
@@ -521,6 +1024,13 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                     final String swapLocation = swapFile.getAbsolutePath();
                     final List<FlowFileRecord> toSwap = flowFileQueue.pollSwappableRecords();
 
+                    // Sort the FlowFiles by priority, so that the Swap File is a sorted run. This is done here, rather
+                    // than in the queue, so that the queue is not locked while sorting.
+                    final List<FlowFilePrioritizer> prioritizers = flowFileQueue.getPriorities();
+                    if (!prioritizers.isEmpty()) {
+                        Collections.sort(toSwap, new PrioritizerComparator(prioritizers));
+                    }
+
                     int recordsSwapped;
                     try {
                         try (final FileOutputStream fos = new FileOutputStream(swapTempFile)) {
@@ -550,7 +1060,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                             }
                         }
 
-                        swapQueue.getQueue().add(swapFile);
+                        swapQueue.add(swapFile, toSwap.get(0));
                     } else {
                         swapTempFile.delete();
                     }
@@ -586,6 +1096,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
 
         final ConnectionSwapInfo swapInfo = new ConnectionSwapInfo();
+        final Map<String, FlowFileRecord> runHeads = new HashMap<>();
         int swappedCount = 0;
         long swappedBytes = 0L;
         long maxRecoveredId = 0L;
@@ -629,7 +1140,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                 swappedCount += numRecords;
                 swappedBytes += contentSize;
 
-                final List<FlowFileRecord> records = deserializeFlowFiles(in, numRecords, queue, swapEncodingVersion, true, claimManager);
+                final List<FlowFileRecord> records = readFlowFiles(in, numRecords, swapEncodingVersion, true, claimManager, swapInDecodeExecutor).getFlowFiles();
                 long maxId = 0L;
                 for (final FlowFileRecord record : records) {
                     if (record.getId() > maxId) {
@@ -640,17 +1151,28 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
                 if (maxId > maxRecoveredId) {
                     maxRecoveredId = maxId;
                 }
+
+                // files written before the queue was prioritized, or with other prioritizers, are not sorted
+                final List<FlowFilePrioritizer> prioritizers = queue.getPriorities();
+                if (!records.isEmpty()) {
+                    final FlowFileRecord head = prioritizers.isEmpty() ? records.get(0) : Collections.min(records, new PrioritizerComparator(prioritizers));
+                    runHeads.put(swapFile.getAbsolutePath(), head);
+                }
             } catch (final IOException ioe) {
                 error("Cannot recover Swapped FlowFiles from Swap File " + swapFile + " due to " + ioe, ioe);
             }
         }
 
-        restoreSwapLocations(queueMap.values(), swapInfo);
+        restoreSwapLocations(queueMap.values(), swapInfo, runHeads);
         logger.info("Recovered {} FlowFiles ({} bytes) from Swap Files", swappedCount, swappedBytes);
         return maxRecoveredId;
     }
 
     public void restoreSwapLocations(final Collection<FlowFileQueue> flowFileQueues, final ConnectionSwapInfo swapInfo) {
+        restoreSwapLocations(flowFileQueues, swapInfo, Collections.<String, FlowFileRecord>emptyMap());
+    }
+
+    private void restoreSwapLocations(final Collection<FlowFileQueue> flowFileQueues, final ConnectionSwapInfo swapInfo, final Map<String, FlowFileRecord> runHeads) {
         for (final FlowFileQueue queue : flowFileQueues) {
             final String queueId = queue.getIdentifier();
             final Collection<String> swapFileLocations = swapInfo.getSwapFileLocations(queueId);
@@ -673,7 +1195,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             for (final Map.Entry<String, QueueSize> innerEntry : sortedFileQueueMap.entrySet()) {
                 final File swapFile = new File(innerEntry.getKey());
                 final QueueSize size = innerEntry.getValue();
-                fileQueue.getQueue().add(swapFile);
+                fileQueue.add(swapFile, runHeads.get(innerEntry.getKey()));
                 queue.incrementSwapCount(size.getObjectCount(), size.getByteCount());
             }
         }
@@ -682,6 +1204,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     public void shutdown() {
         swapQueueIdentifierExecutor.shutdownNow();
         swapInExecutor.shutdownNow();
+        swapInDecodeExecutor.shutdownNow();
     }
 
     private static class SwapFileComparator implements Comparator<String> {
@@ -735,10 +1258,36 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         }
     }
 
-    private static class QueueLockWrapper {
+    /**
+     * Orders FlowFiles by a queue's prioritizers only, so that FlowFiles of
+     * equal priority keep their relative order when sorted
+     */
+    private static class PrioritizerComparator implements Comparator<FlowFile> {
+
+        private final List<FlowFilePrioritizer> prioritizers;
+
+        public PrioritizerComparator(final List<FlowFilePrioritizer> prioritizers) {
+            this.prioritizers = prioritizers;
+        }
+
+        @Override
+        public int compare(final FlowFile o1, final FlowFile o2) {
+            for (final FlowFilePrioritizer prioritizer : prioritizers) {
+                final int comparison = prioritizer.compare(o1, o2);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        }
+    }
+
+    static class QueueLockWrapper {
 
         private final Lock lock = new ReentrantLock();
         private final Queue<File> queue;
+        // the highest-priority FlowFile in each Swap File, if known
+        private final ConcurrentMap<File, FlowFileRecord> runHeads = new ConcurrentHashMap<>();
 
         public QueueLockWrapper(final Queue<File> queue) {
             this.queue = queue;
@@ -748,6 +1297,61 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             return queue;
         }
 
+        public void add(final File swapFile, final FlowFileRecord head) {
+            if (head != null) {
+                runHeads.put(swapFile, head);
+            }
+            queue.add(swapFile);
+        }
+
+        public void removeHead(final File swapFile) {
+            runHeads.remove(swapFile);
+        }
+
+        /**
+         * Removes and returns the Swap File that should be swapped in next:
+         * the oldest if there are no prioritizers, otherwise the one with the
+         * highest-priority FlowFile, breaking ties by age. Must be called with
+         * the lock held.
+         */
+        public File poll(final List<FlowFilePrioritizer> prioritizers) {
+            if (prioritizers.isEmpty()) {
+                return queue.poll();
+            }
+
+            final File next = peek(prioritizers);
+            if (next != null) {
+                queue.remove(next);
+            }
+            return next;
+        }
+
+        /**
+         * @return the Swap File that {@link #poll(List)} would return, without
+         * removing it
+         */
+        public File peek(final List<FlowFilePrioritizer> prioritizers) {
+            if (prioritizers.isEmpty()) {
+                return queue.peek();
+            }
+
+            final Comparator<FlowFile> comparator = new PrioritizerComparator(prioritizers);
+            File next = null;
+            FlowFileRecord nextHead = null;
+            for (final File swapFile : queue) {
+                final FlowFileRecord head = runHeads.get(swapFile);
+                if (next == null) {
+                    next = swapFile;
+                    nextHead = head;
+                } else if (head != null && (nextHead == null || comparator.compare(head, nextHead) < 0)) {
+                    // files are queued in the order that they were written, so only replace on a strictly higher priority
+                    next = swapFile;
+                    nextHead = head;
+                }
+            }
+            return next;
+        }
+
         public Lock getLock() {
             return lock;
         }
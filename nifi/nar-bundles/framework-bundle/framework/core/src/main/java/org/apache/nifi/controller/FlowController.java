@@ -42,6 +42,7 @@ import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -93,6 +94,7 @@ import org.apache.nifi.controller.repository.claim.ContentClaimManager;
 import org.apache.nifi.controller.repository.claim.ContentDirection;
 import org.apache.nifi.controller.repository.claim.StandardContentClaimManager;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
+import org.apache.nifi.controller.scheduling.AdaptiveBatchTuner;
 import org.apache.nifi.controller.scheduling.EventDrivenSchedulingAgent;
 import org.apache.nifi.controller.scheduling.ProcessContextFactory;
 import org.apache.nifi.controller.scheduling.QuartzSchedulingAgent;
@@ -102,6 +104,7 @@ import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.controller.service.ControllerServiceProvider;
 import org.apache.nifi.controller.service.StandardControllerServiceProvider;
 import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ControllerStatusSnapshot;
 import org.apache.nifi.controller.status.PortStatus;
 import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.ProcessorStatus;
@@ -122,6 +125,7 @@ import org.apache.nifi.events.VolatileBulletinRepository;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.framework.security.util.SslContextFactory;
+import org.apache.nifi.groups.ComponentSearchIndex;
 import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.groups.RemoteProcessGroup;
 import org.apache.nifi.groups.RemoteProcessGroupPortDescriptor;
@@ -185,6 +189,7 @@ import org.apache.nifi.web.api.dto.status.StatusHistoryDTO;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
 
 import com.sun.jersey.api.client.ClientHandlerException;
 
@@ -229,6 +234,11 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
     private final UserService userService;
     private final EventDrivenWorkerQueue eventDrivenWorkerQueue;
     private final ComponentStatusRepository componentStatusRepository;
+    private final long statusCacheMillis;
+    private final AtomicReference<ControllerStatusSnapshot> statusSnapshotRef = new AtomicReference<>();
+    private final AtomicLong statusSnapshotVersion = new AtomicLong(0L);
+    private final Object statusSnapshotMonitor = new Object();
+    private final ComponentSearchIndex searchIndex = new ComponentSearchIndex();
     private final long systemStartTime = System.currentTimeMillis();    // time at which the node was started
     private final ConcurrentMap<String, ReportingTaskNode> reportingTasks = new ConcurrentHashMap<>();
 
@@ -443,7 +453,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
 
         this.snippetManager = new SnippetManager();
 
-        rootGroup = new StandardProcessGroup(UUID.randomUUID().toString(), this, processScheduler, properties, encryptor);
+        rootGroup = new StandardProcessGroup(UUID.randomUUID().toString(), this, processScheduler, properties, encryptor, searchIndex);
         rootGroup.setName(DEFAULT_ROOT_GROUP_NAME);
         instanceId = UUID.randomUUID().toString();
 
@@ -456,7 +466,8 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
         } else {
             // Register the SocketFlowFileServerProtocol as the appropriate resource for site-to-site Server Protocol
             RemoteResourceManager.setServerProtocolImplementation(SocketFlowFileServerProtocol.RESOURCE_NAME, SocketFlowFileServerProtocol.class);
-            externalSiteListener = new SocketRemoteSiteListener(remoteInputSocketPort, isSiteToSiteSecure ? sslContext : null);
+            externalSiteListener = new SocketRemoteSiteListener(remoteInputSocketPort, isSiteToSiteSecure ? sslContext : null, null, properties.getSiteToSiteThreads(),
+                    properties.getSiteToSiteTransactionThreads(), properties.getSiteToSiteTransactionQueueSize());
             externalSiteListener.setRootGroup(rootGroup);
         }
 
@@ -469,11 +480,21 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
             snapshotMillis = FormatUtils.getTimeDuration(NiFiProperties.DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY, TimeUnit.MILLISECONDS);
         }
 
+        // Determine how long a computed status snapshot may be shared before it is recomputed
+        final String statusCacheDuration = properties.getProperty(NiFiProperties.COMPONENT_STATUS_CACHE_DURATION, NiFiProperties.DEFAULT_COMPONENT_STATUS_CACHE_DURATION);
+        long cacheMillis;
+        try {
+            cacheMillis = FormatUtils.getTimeDuration(statusCacheDuration, TimeUnit.MILLISECONDS);
+        } catch (final Exception e) {
+            cacheMillis = FormatUtils.getTimeDuration(NiFiProperties.DEFAULT_COMPONENT_STATUS_CACHE_DURATION, TimeUnit.MILLISECONDS);
+        }
+        statusCacheMillis = cacheMillis;
+
         componentStatusRepository = createComponentStatusRepository();
         timerDrivenEngineRef.get().scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
-                componentStatusRepository.capture(getControllerStatus());
+                componentStatusRepository.capture(refreshStatusSnapshot().getRootGroupStatus());
             }
         }, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
 
@@ -751,7 +772,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
      * @throws NullPointerException if the argument is null
      */
     public ProcessGroup createProcessGroup(final String id) {
-        return new StandardProcessGroup(requireNonNull(id).intern(), this, processScheduler, properties, encryptor);
+        return new StandardProcessGroup(requireNonNull(id).intern(), this, processScheduler, properties, encryptor, searchIndex);
     }
 
     /**
@@ -1112,6 +1133,23 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
         }
     }
 
+    /**
+     * Serializes the current state of the controller to a DOM Document
+     *
+     * @param serializer
+     * @return the document
+     * @throws FlowSerializationException if serialization of the flow fails for
+     * any reason
+     */
+    public Document serialize(final StandardFlowSerializer serializer) throws FlowSerializationException {
+        readLock.lock();
+        try {
+            return serializer.toDocument(this);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
     /**
      * Synchronizes this controller with the proposed flow.
      *
@@ -1222,6 +1260,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
         writeLock.lock();
         try {
             rootGroup = group;
+            searchIndex.rebuild(group);
 
             if (externalSiteListener != null) {
                 externalSiteListener.setRootGroup(group);
@@ -1946,13 +1985,85 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
         return (root == null) ? null : root.findProcessGroup(searchId);
     }
 
+    /**
+     * @return the index of the searchable text of every component in the flow
+     */
+    public ComponentSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
     @Override
     public ProcessGroupStatus getControllerStatus() {
-        return getGroupStatus(getRootGroupId());
+        return getStatusSnapshot().getRootGroupStatus();
     }
 
+    /**
+     * Returns the status of the Process Group with the given ID, as provided by
+     * the current status snapshot
+     *
+     * @param groupId
+     * @return the status of the group, or null if no group exists with the
+     * given ID
+     */
     public ProcessGroupStatus getGroupStatus(final String groupId) {
-        return getGroupStatus(groupId, getProcessorStats());
+        final String searchId = groupId.equals(ROOT_GROUP_ID_ALIAS) ? getRootGroupId() : groupId;
+        final ProcessGroupStatus status = getStatusSnapshot().getGroupStatus(searchId);
+        if (status != null) {
+            return status;
+        }
+
+        // the group may have been created since the snapshot was computed
+        if (getGroup(searchId) == null) {
+            return null;
+        }
+        return refreshStatusSnapshot().getGroupStatus(searchId);
+    }
+
+    /**
+     * Returns a snapshot of the status of the entire flow. If the most recent
+     * snapshot is older than the configured status cache duration, a new
+     * snapshot is computed; otherwise, the most recent snapshot is returned so
+     * that concurrent and repeated requests for status share the cost of
+     * walking the flow. If multiple threads find the snapshot to be stale at
+     * the same time, only one of them computes the new snapshot.
+     *
+     * @return the current status snapshot
+     */
+    public ControllerStatusSnapshot getStatusSnapshot() {
+        final ControllerStatusSnapshot snapshot = statusSnapshotRef.get();
+        if (snapshot != null && System.currentTimeMillis() - snapshot.getTimestamp() < statusCacheMillis) {
+            return snapshot;
+        }
+
+        synchronized (statusSnapshotMonitor) {
+            // another thread may have refreshed the snapshot while we were waiting
+            final ControllerStatusSnapshot current = statusSnapshotRef.get();
+            if (current != null && current != snapshot && System.currentTimeMillis() - current.getTimestamp() < statusCacheMillis) {
+                return current;
+            }
+
+            return computeStatusSnapshot();
+        }
+    }
+
+    /**
+     * Computes a new status snapshot, regardless of the age of the most recent
+     * snapshot, and makes it available to all subsequent requests for status
+     *
+     * @return the newly computed status snapshot
+     */
+    public ControllerStatusSnapshot refreshStatusSnapshot() {
+        synchronized (statusSnapshotMonitor) {
+            return computeStatusSnapshot();
+        }
+    }
+
+    private ControllerStatusSnapshot computeStatusSnapshot() {
+        final long timestamp = System.currentTimeMillis();
+        final ProcessGroupStatus rootStatus = getGroupStatus(getRootGroupId(), getProcessorStats());
+        final ControllerStatusSnapshot snapshot = new ControllerStatusSnapshot(statusSnapshotVersion.incrementAndGet(), timestamp, rootStatus);
+        statusSnapshotRef.set(snapshot);
+        return snapshot;
     }
 
     public ProcessGroupStatus getGroupStatus(final String groupId, final RepositoryStatusReport statusReport) {
@@ -2372,6 +2483,15 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
 
         status.setActiveThreadCount(processScheduler.getActiveThreadCount(procNode));
 
+        final long runNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+        final AdaptiveBatchTuner batchTuner = processScheduler.getBatchTuner(procNode);
+        if (procNode.isHighThroughputSupported() && runNanos == 0L && batchTuner.isEnabled()) {
+            status.setBatchDurationNanos(batchTuner.getBatchDuration(TimeUnit.NANOSECONDS));
+            status.setBatchSize(batchTuner.getBatchSize());
+        } else {
+            status.setBatchDurationNanos(runNanos);
+        }
+
         return status;
     }
 
@@ -2590,7 +2710,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
     }
 
     public int getActiveThreadCount() {
-        return getGroupStatus(getRootGroupId()).getActiveThreadCount();
+        return getControllerStatus().getActiveThreadCount();
     }
 
     private RepositoryStatusReport getProcessorStats() {
@@ -3408,7 +3528,7 @@ public class FlowController implements EventAccess, ControllerServiceProvider, H
                     return null;
                 }
 
-                final ProcessGroupStatus procGroupStatus = getGroupStatus(bean.getRootGroup(), getProcessorStats());
+                final ProcessGroupStatus procGroupStatus = getControllerStatus();
                 // create heartbeat payload
                 final HeartbeatPayload hbPayload = new HeartbeatPayload();
                 hbPayload.setSystemStartTime(systemStartTime);
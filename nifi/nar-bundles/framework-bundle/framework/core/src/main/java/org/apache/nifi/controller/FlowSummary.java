@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * The parts of a serialized flow that are needed before the flow is
+ * synchronized with the controller: the thread counts and whether or not the
+ * root group contains any components.
+ *
+ * These are read with a streaming parser, so that a large flow does not need
+ * to be parsed into a DOM (and its root group into DTOs) only to determine
+ * that it is not empty.
+ */
+final class FlowSummary {
+
+    /**
+     * The child elements of the root group that make the flow non-empty.
+     * Input Ports are not included, as the root group of a new flow is allowed
+     * to contain them.
+     */
+    private static final Set<String> COMPONENT_ELEMENT_NAMES = new HashSet<>(Arrays.asList(
+            "processor", "connection", "funnel", "label", "outputPort", "processGroup", "remoteProcessGroup"));
+
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private String maxThreadCount = "";
+    private String maxTimerDrivenThreadCount = "";
+    private String maxEventDrivenThreadCount = "";
+    private boolean empty = true;
+
+    private FlowSummary() {
+    }
+
+    /**
+     * @param flow the serialized flow
+     * @return a summary of the given flow; a flow that is null or has no bytes
+     * is summarized as empty
+     * @throws FlowSerializationException if the flow is not well-formed XML
+     */
+    public static FlowSummary read(final byte[] flow) throws FlowSerializationException {
+        final FlowSummary summary = new FlowSummary();
+        if (flow == null || flow.length == 0) {
+            return summary;
+        }
+
+        try {
+            final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(flow));
+            try {
+                if (reader.nextTag() != XMLStreamConstants.START_ELEMENT) {
+                    return summary;
+                }
+
+                boolean rootGroupFound = false;
+                while (nextChildElement(reader)) {
+                    switch (reader.getLocalName()) {
+                        case "maxThreadCount":
+                            summary.maxThreadCount = reader.getElementText();
+                            break;
+                        case "maxTimerDrivenThreadCount":
+                            summary.maxTimerDrivenThreadCount = reader.getElementText();
+                            break;
+                        case "maxEventDrivenThreadCount":
+                            summary.maxEventDrivenThreadCount = reader.getElementText();
+                            break;
+                        case "rootGroup":
+                            if (rootGroupFound) {
+                                skipElement(reader);
+                            } else {
+                                rootGroupFound = true;
+                                summary.empty = isEmpty(reader);
+                            }
+                            break;
+                        default:
+                            skipElement(reader);
+                            break;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (final XMLStreamException e) {
+            throw new FlowSerializationException(e);
+        }
+
+        return summary;
+    }
+
+    /**
+     * @return the legacy single thread count, or null if the flow specifies
+     * separate Timer-Driven and Event-Driven thread counts
+     */
+    public Integer getMaxThreadCount() {
+        return maxThreadCount.trim().isEmpty() ? null : Integer.parseInt(maxThreadCount);
+    }
+
+    public int getMaxTimerDrivenThreadCount() {
+        return Integer.parseInt(maxTimerDrivenThreadCount);
+    }
+
+    public int getMaxEventDrivenThreadCount() {
+        return Integer.parseInt(maxEventDrivenThreadCount);
+    }
+
+    /**
+     * @return true if the root group of the flow contains no components
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    private static boolean isEmpty(final XMLStreamReader reader) throws XMLStreamException {
+        boolean empty = true;
+        while (nextChildElement(reader)) {
+            if (empty && COMPONENT_ELEMENT_NAMES.contains(reader.getLocalName())) {
+                empty = false;
+            }
+            skipElement(reader);
+        }
+        return empty;
+    }
+
+    private static boolean nextChildElement(final XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
@@ -68,17 +68,7 @@ public class StandardFlowSerializer implements FlowSerializer {
     @Override
     public void serialize(final FlowController controller, final OutputStream os) throws FlowSerializationException {
         try {
-            // create a new, empty document
-            final DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            final DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            final Document doc = docBuilder.newDocument();
-
-            // populate document with controller state
-            final Element rootNode = doc.createElement("flowController");
-            doc.appendChild(rootNode);
-            addTextElement(rootNode, "maxTimerDrivenThreadCount", controller.getMaxTimerDrivenThreadCount());
-            addTextElement(rootNode, "maxEventDrivenThreadCount", controller.getMaxEventDrivenThreadCount());
-            addProcessGroup(rootNode, controller.getGroup(controller.getRootGroupId()), "rootGroup");
+            final Document doc = toDocument(controller);
 
             final DOMSource domSource = new DOMSource(doc);
             final StreamResult streamResult = new StreamResult(new BufferedOutputStream(os));
@@ -92,7 +82,37 @@ public class StandardFlowSerializer implements FlowSerializer {
             // transform the document to byte stream
             transformer.transform(domSource, streamResult);
 
-        } catch (final ParserConfigurationException | DOMException | TransformerFactoryConfigurationError | IllegalArgumentException | TransformerException e) {
+        } catch (final DOMException | TransformerFactoryConfigurationError | IllegalArgumentException | TransformerException e) {
+            throw new FlowSerializationException(e);
+        }
+    }
+
+    /**
+     * Creates a DOM representation of the given Flow Controller without
+     * converting it to bytes. This allows callers, such as the flow
+     * configuration journal, to determine which components have changed
+     * without paying for the transformation of the entire flow.
+     *
+     * @param controller the controller to serialize
+     * @return the document
+     * @throws FlowSerializationException if the document cannot be created
+     */
+    public Document toDocument(final FlowController controller) throws FlowSerializationException {
+        try {
+            // create a new, empty document
+            final DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
+            final DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
+            final Document doc = docBuilder.newDocument();
+
+            // populate document with controller state
+            final Element rootNode = doc.createElement("flowController");
+            doc.appendChild(rootNode);
+            addTextElement(rootNode, "maxTimerDrivenThreadCount", controller.getMaxTimerDrivenThreadCount());
+            addTextElement(rootNode, "maxEventDrivenThreadCount", controller.getMaxEventDrivenThreadCount());
+            addProcessGroup(rootNode, controller.getGroup(controller.getRootGroupId()), "rootGroup");
+
+            return doc;
+        } catch (final ParserConfigurationException | DOMException e) {
             throw new FlowSerializationException(e);
         }
     }
@@ -19,11 +19,9 @@ package org.apache.nifi.controller;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -31,7 +29,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.zip.GZIPInputStream;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -52,7 +49,7 @@ import org.apache.nifi.connectable.Size;
 import org.apache.nifi.controller.exception.ProcessorInstantiationException;
 import org.apache.nifi.controller.label.Label;
 import org.apache.nifi.events.BulletinFactory;
-import org.apache.nifi.util.file.FileUtils;
+import org.apache.nifi.persistence.FlowConfigurationJournal;
 import org.apache.nifi.fingerprint.FingerprintException;
 import org.apache.nifi.fingerprint.FingerprintFactory;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
@@ -68,7 +65,6 @@ import org.apache.nifi.scheduling.SchedulingStrategy;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.web.api.dto.ConnectableDTO;
 import org.apache.nifi.web.api.dto.ConnectionDTO;
-import org.apache.nifi.web.api.dto.FlowSnippetDTO;
 import org.apache.nifi.web.api.dto.FunnelDTO;
 import org.apache.nifi.web.api.dto.LabelDTO;
 import org.apache.nifi.web.api.dto.PortDTO;
@@ -78,7 +74,6 @@ import org.apache.nifi.web.api.dto.ProcessorConfigDTO;
 import org.apache.nifi.web.api.dto.ProcessorDTO;
 import org.apache.nifi.web.api.dto.RemoteProcessGroupDTO;
 
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.nifi.encrypt.StringEncryptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -106,12 +101,7 @@ public class StandardFlowSynchronizer implements FlowSynchronizer {
             return true;
         }
 
-        final Document document = parseFlowBytes(dataFlow.getFlow());
-        final Element rootElement = document.getDocumentElement();
-
-        final Element rootGroupElement = (Element) rootElement.getElementsByTagName("rootGroup").item(0);
-        final ProcessGroupDTO rootGroupDto = FlowFromDOMFactory.getProcessGroup(null, rootGroupElement, encryptor);
-        return isEmpty(rootGroupDto);
+        return FlowSummary.read(dataFlow.getFlow()).isEmpty();
     }
 
     @Override
@@ -144,23 +134,20 @@ public class StandardFlowSynchronizer implements FlowSynchronizer {
                 if (existingFlow == null || existingFlow.length == 0) {
                     existingFlowEmpty = true;
                 } else {
-                    final Document document = parseFlowBytes(existingFlow);
-                    final Element rootElement = document.getDocumentElement();
+                    logger.trace("Reading summary of existing flow");
+                    final FlowSummary summary = FlowSummary.read(existingFlow);
 
                     logger.trace("Setting controller thread counts");
-                    final Integer maxThreadCount = getInteger(rootElement, "maxThreadCount");
+                    final Integer maxThreadCount = summary.getMaxThreadCount();
                     if (maxThreadCount == null) {
-                        controller.setMaxTimerDrivenThreadCount(getInt(rootElement, "maxTimerDrivenThreadCount"));
-                        controller.setMaxEventDrivenThreadCount(getInt(rootElement, "maxEventDrivenThreadCount"));
+                        controller.setMaxTimerDrivenThreadCount(summary.getMaxTimerDrivenThreadCount());
+                        controller.setMaxEventDrivenThreadCount(summary.getMaxEventDrivenThreadCount());
                     } else {
                         controller.setMaxTimerDrivenThreadCount(maxThreadCount * 2 / 3);
                         controller.setMaxEventDrivenThreadCount(maxThreadCount / 3);
                     }
 
-                    logger.trace("Parsing process group from DOM");
-                    final Element rootGroupElement = (Element) rootElement.getElementsByTagName("rootGroup").item(0);
-                    final ProcessGroupDTO rootGroupDto = FlowFromDOMFactory.getProcessGroup(null, rootGroupElement, encryptor);
-                    existingFlowEmpty = isEmpty(rootGroupDto);
+                    existingFlowEmpty = summary.isEmpty();
                     logger.debug("Existing Flow Empty = {}", existingFlowEmpty);
                 }
             }
@@ -261,26 +248,6 @@ public class StandardFlowSynchronizer implements FlowSynchronizer {
         }
     }
 
-    private static boolean isEmpty(final ProcessGroupDTO dto) {
-        if (dto == null) {
-            return true;
-        }
-
-        final FlowSnippetDTO contents = dto.getContents();
-        if (contents == null) {
-            return true;
-        }
-
-        return CollectionUtils.isEmpty(contents.getProcessors())
-                && CollectionUtils.isEmpty(contents.getConnections())
-                && CollectionUtils.isEmpty(contents.getFunnels())
-                && CollectionUtils.isEmpty(contents.getLabels())
-                && CollectionUtils.isEmpty(contents.getOutputPorts())
-                && CollectionUtils.isEmpty(contents.getProcessGroups())
-                && CollectionUtils.isEmpty(contents.getProcessors())
-                && CollectionUtils.isEmpty(contents.getRemoteProcessGroups());
-    }
-
     private static Document parseFlowBytes(final byte[] flow) throws FlowSerializationException {
         // create document by parsing proposed flow bytes
         try {
@@ -305,12 +272,7 @@ public class StandardFlowSynchronizer implements FlowSynchronizer {
         }
 
         final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-        try (final InputStream in = Files.newInputStream(flowPath, StandardOpenOption.READ);
-                final InputStream gzipIn = new GZIPInputStream(in)) {
-            FileUtils.copy(gzipIn, baos);
-        }
-
+        new FlowConfigurationJournal(flowPath).read(baos);
         return baos.toByteArray();
     }
 
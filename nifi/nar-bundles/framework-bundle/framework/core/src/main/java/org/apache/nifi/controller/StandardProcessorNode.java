@@ -185,6 +185,7 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
         } finally {
             writeLock.unlock();
         }
+        notifySearchableConfigurationModified();
     }
 
     @Override
@@ -370,6 +371,29 @@ public class StandardProcessorNode extends ProcessorNode implements Connectable
         } finally {
             writeLock.unlock();
         }
+        notifySearchableConfigurationModified();
+    }
+
+    @Override
+    public void setProperty(final String name, final String value) {
+        super.setProperty(name, value);
+        notifySearchableConfigurationModified();
+    }
+
+    @Override
+    public boolean removeProperty(final String name) {
+        final boolean removed = super.removeProperty(name);
+        if (removed) {
+            notifySearchableConfigurationModified();
+        }
+        return removed;
+    }
+
+    private void notifySearchableConfigurationModified() {
+        final ProcessGroup group = processGroup.get();
+        if (group != null) {
+            group.onComponentModified(getIdentifier());
+        }
     }
 
     /**
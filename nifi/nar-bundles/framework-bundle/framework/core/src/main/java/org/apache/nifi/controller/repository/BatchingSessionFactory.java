@@ -31,6 +31,8 @@ import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.QueueSize;
 import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.ByteChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -187,6 +189,16 @@ public class BatchingSessionFactory implements ProcessSessionFactory {
             session.read(source, reader);
         }
 
+        @Override
+        public void read(FlowFile source, ByteChannelCallback reader) {
+            session.read(source, reader);
+        }
+
+        @Override
+        public void read(FlowFile source, ByteBufferCallback reader) {
+            session.read(source, reader);
+        }
+
         @Override
         public FlowFile merge(Collection<FlowFile> sources, FlowFile destination) {
             return session.merge(sources, destination);
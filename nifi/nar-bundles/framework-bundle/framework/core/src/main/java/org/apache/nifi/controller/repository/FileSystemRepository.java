@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -66,6 +67,7 @@ import org.apache.nifi.controller.repository.claim.ContentClaimManager;
 import org.apache.nifi.controller.repository.io.SyncOnCloseOutputStream;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.util.file.FileUtils;
+import org.apache.nifi.stream.io.ByteBufferChannel;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.LongHolder;
@@ -81,7 +83,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author none
  */
-public class FileSystemRepository implements ContentRepository {
+public class FileSystemRepository implements SeekableContentRepository {
 
     public static final int SECTIONS_PER_CONTAINER = 1024;
     public static final String ARCHIVE_DIR_NAME = "archive";
@@ -608,8 +610,25 @@ public class FileSystemRepository implements ContentRepository {
 
     @Override
     public long importFrom(final Path content, final ContentClaim claim, final boolean append) throws IOException {
-        try (final InputStream in = Files.newInputStream(content, StandardOpenOption.READ)) {
-            return importFrom(in, claim, append);
+        // transfer between the channels so that the content is not copied through the heap
+        try (final FileChannel sourceChannel = FileChannel.open(content, StandardOpenOption.READ);
+                final FileOutputStream out = new FileOutputStream(getPath(claim).toFile(), append)) {
+            final FileChannel destinationChannel = out.getChannel();
+            final long size = sourceChannel.size();
+            long copied = 0L;
+            while (copied < size) {
+                final long bytesCopied = sourceChannel.transferTo(copied, size - copied, destinationChannel);
+                if (bytesCopied <= 0L) {
+                    // the source was truncated while it was being imported
+                    break;
+                }
+                copied += bytesCopied;
+            }
+
+            if (alwaysSync) {
+                out.getFD().sync();
+            }
+            return copied;
         }
     }
 
@@ -674,24 +693,23 @@ public class FileSystemRepository implements ContentRepository {
 
         }
 
-        if (append) {
-            try (final InputStream sourceStream = Files.newInputStream(getPath(claim, true), StandardOpenOption.READ);
-                    final OutputStream destinationStream = Files.newOutputStream(destination, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
-                StreamUtils.skip(sourceStream, offset);
-
-                final byte[] buffer = new byte[8192];
-                int len;
-                long copied = 0L;
-                while ((len = sourceStream.read(buffer, 0, (int) Math.min(length - copied, buffer.length))) > 0) {
-                    destinationStream.write(buffer, 0, len);
-                    copied += len;
+        final StandardOpenOption[] destinationOptions = append
+                ? new StandardOpenOption[]{StandardOpenOption.WRITE, StandardOpenOption.APPEND}
+                : new StandardOpenOption[]{StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING};
+
+        // transfer the range between the channels so that the content is not copied through the heap
+        try (final FileChannel sourceChannel = FileChannel.open(getPath(claim, true), StandardOpenOption.READ);
+                final FileChannel destinationChannel = FileChannel.open(destination, destinationOptions)) {
+            final long bytesToCopy = Math.min(length, claimSize - offset);
+            long copied = 0L;
+            while (copied < bytesToCopy) {
+                final long bytesCopied = sourceChannel.transferTo(offset + copied, bytesToCopy - copied, destinationChannel);
+                if (bytesCopied <= 0L) {
+                    break;
                 }
-                return copied;
-            }
-        } else {
-            try (final OutputStream out = Files.newOutputStream(destination, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
-                return exportTo(claim, out, offset, length);
+                copied += bytesCopied;
             }
+            return copied;
         }
     }
 
@@ -746,6 +764,15 @@ public class FileSystemRepository implements ContentRepository {
         return new FileInputStream(path.toFile());
     }
 
+    @Override
+    public SeekableByteChannel readChannel(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return new ByteBufferChannel(new byte[0]);
+        }
+        final Path path = getPath(claim, true);
+        return FileChannel.open(path, StandardOpenOption.READ);
+    }
+
     @Override
     @SuppressWarnings("resource")
     public OutputStream write(final ContentClaim claim) throws IOException {
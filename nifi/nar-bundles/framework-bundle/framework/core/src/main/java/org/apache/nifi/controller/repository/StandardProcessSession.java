@@ -21,6 +21,10 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -46,7 +50,9 @@ import org.apache.nifi.controller.ProcessorNode;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.io.ByteCountingInputStream;
 import org.apache.nifi.controller.repository.io.ByteCountingOutputStream;
+import org.apache.nifi.controller.repository.io.ContentClaimByteChannel;
 import org.apache.nifi.controller.repository.io.DisableOnCloseOutputStream;
+import org.apache.nifi.controller.repository.io.FlowFileAccessByteChannel;
 import org.apache.nifi.controller.repository.io.FlowFileAccessInputStream;
 import org.apache.nifi.controller.repository.io.FlowFileAccessOutputStream;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
@@ -54,6 +60,7 @@ import org.apache.nifi.controller.repository.io.LongHolder;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.stream.io.BufferedOutputStream;
+import org.apache.nifi.stream.io.ByteBufferChannel;
 import org.apache.nifi.stream.io.NonCloseableInputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.processor.DataUnit;
@@ -65,6 +72,8 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.ByteChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -97,6 +106,9 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
     private static final long MAX_APPENDABLE_CLAIM_SIZE = DataUnit.parseDataSize(
             NiFiProperties.getInstance().getMaxAppendableClaimSize(), DataUnit.B).longValue();
     private static final int MAX_FLOWFILES_PER_CLAIM = NiFiProperties.getInstance().getMaxFlowFilesPerClaim();
+    // content smaller than this is copied onto the heap rather than memory-mapped, as mapping has a fixed cost
+    // and a mapping is not released until its buffer is garbage collected
+    private static final long MIN_MAPPED_CONTENT_SIZE = 1024L * 1024L;
 
     public static final String DEFAULT_FLOWFILE_PATH = "./";
 
@@ -1766,6 +1778,134 @@ public final class StandardProcessSession implements ProcessSession, ProvenanceE
         }
     }
 
+    private SeekableByteChannel getByteChannel(final FlowFile flowFile, final ContentClaim claim) throws ContentNotFoundException {
+        // If there's no content, don't bother going to the Content Repository
+        if (flowFile.getSize() == 0L) {
+            return new ByteBufferChannel(new byte[0]);
+        }
+
+        try {
+            final ContentRepository contentRepository = context.getContentRepository();
+            if (contentRepository instanceof SeekableContentRepository) {
+                return ((SeekableContentRepository) contentRepository).readChannel(claim);
+            }
+            return new ContentClaimByteChannel(contentRepository, claim);
+        } catch (final ContentNotFoundException cnfe) {
+            throw cnfe;
+        } catch (final IOException ioe) {
+            throw new FlowFileAccessException("Failed to read content of " + flowFile, ioe);
+        }
+    }
+
+    @Override
+    public void read(final FlowFile source, final ByteChannelCallback reader) {
+        validateRecordState(source);
+        final StandardRepositoryRecord record = records.get(source);
+
+        try {
+            ensureNotAppending(record.getCurrentClaim());
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        try (final FlowFileAccessByteChannel channel = new FlowFileAccessByteChannel(getByteChannel(source, record.getCurrentClaim()),
+                source, record.getCurrentClaim(), record.getCurrentClaimOffset())) {
+            boolean cnfeThrown = false;
+
+            try {
+                recursionSet.add(source);
+                reader.process(channel);
+            } catch (final ContentNotFoundException cnfe) {
+                cnfeThrown = true;
+                throw cnfe;
+            } finally {
+                recursionSet.remove(source);
+                bytesRead.increment(channel.getBytesRead());
+
+                // if cnfeThrown is true, we don't need to re-thrown the Exception; it will propagate.
+                if (!cnfeThrown && channel.getContentNotFoundException() != null) {
+                    throw channel.getContentNotFoundException();
+                }
+            }
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+        } catch (final IOException ex) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ex.toString(), ex);
+        }
+    }
+
+    @Override
+    public void read(final FlowFile source, final ByteBufferCallback reader) {
+        validateRecordState(source);
+        final StandardRepositoryRecord record = records.get(source);
+
+        if (source.getSize() > Integer.MAX_VALUE) {
+            throw new FlowFileAccessException("Cannot provide the content of " + source + " as a ByteBuffer because it is larger than " + Integer.MAX_VALUE + " bytes");
+        }
+
+        try {
+            ensureNotAppending(record.getCurrentClaim());
+        } catch (final IOException e) {
+            throw new FlowFileAccessException("Failed to access ContentClaim for " + source.toString(), e);
+        }
+
+        final ByteBuffer buffer;
+        try (final SeekableByteChannel channel = getByteChannel(source, record.getCurrentClaim())) {
+            buffer = getByteBuffer(channel, source, record.getCurrentClaim(), record.getCurrentClaimOffset());
+        } catch (final ContentNotFoundException nfe) {
+            handleContentNotFound(nfe, record);
+            return;
+        } catch (final IOException ioe) {
+            throw new FlowFileAccessException("Failed to read content of " + source, ioe);
+        }
+
+        try {
+            recursionSet.add(source);
+            reader.process(buffer);
+        } catch (final IOException ex) {
+            throw new ProcessException("IOException thrown from " + connectableDescription + ": " + ex.toString(), ex);
+        } finally {
+            recursionSet.remove(source);
+        }
+
+        bytesRead.increment(source.getSize());
+    }
+
+    /**
+     * Returns a read-only buffer over the content of the given FlowFile. If the
+     * Content Repository provides a FileChannel and the content is at least
+     * {@link #MIN_MAPPED_CONTENT_SIZE} bytes, the content is memory-mapped;
+     * otherwise, it is copied onto the heap. There is no way to unmap a
+     * MappedByteBuffer explicitly, so the file remains mapped until the buffer
+     * is garbage collected, even after the session is committed and the
+     * claim's file is deleted or archived.
+     */
+    private ByteBuffer getByteBuffer(final SeekableByteChannel channel, final FlowFile flowFile, final ContentClaim claim, final long claimOffset) throws IOException {
+        final int size = (int) flowFile.getSize();
+        if (size == 0) {
+            return ByteBuffer.allocate(0).asReadOnlyBuffer();
+        }
+
+        if (channel.size() < claimOffset + size) {
+            throw new ContentNotFoundException(claim, "Content Claim contains only " + channel.size() + " bytes but FlowFile requires " + (claimOffset + size));
+        }
+
+        if (channel instanceof FileChannel && size >= MIN_MAPPED_CONTENT_SIZE) {
+            return ((FileChannel) channel).map(MapMode.READ_ONLY, claimOffset, size);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        channel.position(claimOffset);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new ContentNotFoundException(claim, "Content Claim ended before all " + size + " bytes of " + flowFile + " could be read");
+            }
+        }
+
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
     @Override
     public FlowFile merge(final Collection<FlowFile> sources, final FlowFile destination) {
         return merge(sources, destination, null, null, null);
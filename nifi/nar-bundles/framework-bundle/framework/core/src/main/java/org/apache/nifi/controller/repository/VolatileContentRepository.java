@@ -21,6 +21,7 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -42,9 +43,11 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ContentClaimManager;
 import org.apache.nifi.controller.repository.claim.StandardContentClaim;
 import org.apache.nifi.controller.repository.io.ArrayManagedOutputStream;
+import org.apache.nifi.controller.repository.io.ContentClaimByteChannel;
 import org.apache.nifi.controller.repository.io.MemoryManager;
 import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.stream.io.ByteArrayInputStream;
+import org.apache.nifi.stream.io.ByteBufferChannel;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.util.NiFiProperties;
@@ -55,8 +58,12 @@ import org.slf4j.LoggerFactory;
 /**
  * <p>
  * An in-memory implementation of the {@link ContentRepository} interface. This
- * implementation stores FlowFile content in the Java heap and keeps track of
- * the number of bytes used. If the number of bytes used by FlowFile content
+ * implementation stores FlowFile content in off-heap (direct) memory, so that
+ * the amount of content held does not affect the size of the Java heap or
+ * garbage collection pauses, and keeps track of the number of bytes used. The
+ * JVM must be permitted to allocate enough direct memory (via
+ * <code>-XX:MaxDirectMemorySize</code>) to hold the configured maximum size.
+ * If the number of bytes used by FlowFile content
  * exceeds some threshold (configured via the
  * <code>nifi.volatile.content.repository.max.size</code> property in the NiFi
  * properties with a default of 100 MB), one of two situations will occur:
@@ -83,7 +90,7 @@ import org.slf4j.LoggerFactory;
  * ContentClaim will result in an {@link IllegalStateException} being thrown.
  * </p>
  */
-public class VolatileContentRepository implements ContentRepository {
+public class VolatileContentRepository implements SeekableContentRepository {
 
     private final Logger logger = LoggerFactory.getLogger(VolatileContentRepository.class);
     public static String CONTAINER_NAME = "in-memory";
@@ -442,6 +449,24 @@ public class VolatileContentRepository implements ContentRepository {
         return (backupClaim == null) ? getContent(claim).read() : getBackupRepository().read(backupClaim);
     }
 
+    @Override
+    public SeekableByteChannel readChannel(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return new ByteBufferChannel(new byte[0]);
+        }
+
+        final ContentClaim backupClaim = getBackupClaim(claim);
+        return (backupClaim == null) ? getContent(claim).readChannel() : readBackupChannel(backupClaim);
+    }
+
+    private SeekableByteChannel readBackupChannel(final ContentClaim backupClaim) throws IOException {
+        final ContentRepository backupRepository = getBackupRepository();
+        if (backupRepository instanceof SeekableContentRepository) {
+            return ((SeekableContentRepository) backupRepository).readChannel(backupClaim);
+        }
+        return new ContentClaimByteChannel(backupRepository, backupClaim);
+    }
+
     @Override
     public OutputStream write(final ContentClaim claim) throws IOException {
         final ContentClaim backupClaim = getBackupClaim(claim);
@@ -535,6 +560,10 @@ public class VolatileContentRepository implements ContentRepository {
             return out.read();
         }
 
+        public synchronized SeekableByteChannel readChannel() throws IOException {
+            return out.readChannel();
+        }
+
         public synchronized void reset() {
             out.reset();
         }
@@ -623,6 +652,15 @@ public class VolatileContentRepository implements ContentRepository {
                     return amos.newInputStream();
                 }
             }
+
+            public SeekableByteChannel readChannel() throws IOException {
+                if (amos == null) {
+                    final ContentClaim backupClaim = getBackupClaim(claim);
+                    return readBackupChannel(backupClaim);
+                } else {
+                    return amos.newByteChannel();
+                }
+            }
         }
     }
 
@@ -34,11 +34,16 @@ import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.nifi.controller.FlowFileQueue;
@@ -90,6 +95,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private final long checkpointDelayMillis;
     private final Path flowFileRepositoryPath;
     private final int numPartitions;
+    private final int recoveryThreadCount;
     private final ScheduledExecutorService checkpointExecutor;
 
     // effectively final
@@ -128,6 +134,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // determine the database file path and ensure it exists
         flowFileRepositoryPath = properties.getFlowFileRepositoryPath();
         numPartitions = properties.getFlowFileRepositoryPartitions();
+        recoveryThreadCount = properties.getFlowFileRepositoryRecoveryThreads();
         checkpointDelayMillis = FormatUtils.getTimeDuration(properties.getFlowFileRepositoryCheckpointInterval(), TimeUnit.MILLISECONDS);
         
         checkpointExecutor = Executors.newSingleThreadScheduledExecutor();
@@ -144,7 +151,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // backup and then the data deleted from the normal location; then can move backup to normal location and
         // delete backup. On restore, if no files exist in partition's directory, would have to check backup directory
         serde = new WriteAheadRecordSerde(claimManager);
-        wal = new MinimalLockingWriteAheadLog<>(flowFileRepositoryPath, numPartitions, serde, this);
+        wal = new MinimalLockingWriteAheadLog<>(flowFileRepositoryPath, numPartitions, serde, this, recoveryThreadCount);
     }
 
     @Override
@@ -323,28 +330,27 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         final Collection<RepositoryRecord> recordList = wal.recoverRecords();
         serde.setQueueMap(null);
 
-        for (final RepositoryRecord record : recordList) {
-            final ContentClaim claim = record.getCurrentClaim();
-            if (claim != null) {
-                claimManager.incrementClaimantCount(claim);
-            }
-        }
-
-        // Determine the next sequence number for FlowFiles
+        // Determine the next sequence number for FlowFiles and group the FlowFiles by queue, so that
+        // the queues can be populated concurrently.
         long maxId = minimumSequenceNumber;
+        final Map<FlowFileQueue, List<RepositoryRecord>> recordsByQueue = new HashMap<>();
         for (final RepositoryRecord record : recordList) {
             final long recordId = serde.getRecordIdentifier(record);
             if (recordId > maxId) {
                 maxId = recordId;
             }
 
-            final FlowFileRecord flowFile = record.getCurrent();
             final FlowFileQueue queue = record.getOriginalQueue();
-            if (queue != null) {
-                queue.put(flowFile);
+            List<RepositoryRecord> queueRecords = recordsByQueue.get(queue);
+            if (queueRecords == null) {
+                queueRecords = new ArrayList<>();
+                recordsByQueue.put(queue, queueRecords);
             }
+            queueRecords.add(record);
         }
 
+        restoreFlowFiles(recordsByQueue);
+
         // Set the AtomicLong to 1 more than the max ID so that calls to #getNextFlowFileSequence() will
         // return the appropriate number.
         flowFileSequenceGenerator.set(maxId + 1);
@@ -372,6 +378,64 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         return maxId;
     }
 
+    /**
+     * Increments the claimant count of each FlowFile's Content Claim and
+     * places the FlowFile into its queue, using a separate task for each queue
+     *
+     * @param recordsByQueue the records to restore, keyed by the queue that
+     * they belong to, or <code>null</code> for records that have no queue
+     * @throws IOException if unable to restore the FlowFiles
+     */
+    private void restoreFlowFiles(final Map<FlowFileQueue, List<RepositoryRecord>> recordsByQueue) throws IOException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(recoveryThreadCount, recordsByQueue.size())), new ThreadFactory() {
+            private final AtomicInteger threadIndex = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "Restore FlowFiles-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>(recordsByQueue.size());
+            for (final Map.Entry<FlowFileQueue, List<RepositoryRecord>> entry : recordsByQueue.entrySet()) {
+                final FlowFileQueue queue = entry.getKey();
+                final List<RepositoryRecord> records = entry.getValue();
+
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (final RepositoryRecord record : records) {
+                            final ContentClaim claim = record.getCurrentClaim();
+                            if (claim != null) {
+                                claimManager.incrementClaimantCount(claim);
+                            }
+
+                            if (queue != null) {
+                                queue.put(record.getCurrent());
+                            }
+                        }
+                    }
+                }));
+            }
+
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException ee) {
+                    throw new IOException("Failed to restore FlowFiles", ee.getCause());
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while restoring FlowFiles", ie);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Override
     public long getNextFlowFileSequence() {
         return flowFileSequenceGenerator.getAndIncrement();
@@ -396,7 +460,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         public static final byte ACTION_SWAPPED_IN = 4;
 
         private Map<String, FlowFileQueue> flowFileQueueMap = null;
-        private long recordsRestored = 0L;
+        private final AtomicLong recordsRestored = new AtomicLong(0L);
         private final ContentClaimManager claimManager;
 
         public WriteAheadRecordSerde(final ContentClaimManager claimManager) {
@@ -582,7 +646,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                 ffBuilder.addAttributes(attributes);
             } else if (attributesChanged != 0) {
                 throw new IOException("Attribute Change Qualifier not found in stream; found value: "
-                        + attributesChanged + " after successfully restoring " + recordsRestored + " records. The FlowFile Repository appears to be corrupt!");
+                        + attributesChanged + " after successfully restoring " + recordsRestored.get() + " records. The FlowFile Repository appears to be corrupt!");
             }
 
             final FlowFileRecord flowFile = ffBuilder.build();
@@ -611,7 +675,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                 }
             }
 
-            recordsRestored++;
+            recordsRestored.incrementAndGet();
             return standardRepoRecord;
         }
 
@@ -681,7 +745,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                 throw new EOFException();
             } else if (attributesChanged != 0) {
                 throw new IOException("Attribute Change Qualifier not found in stream; found value: "
-                        + attributesChanged + " after successfully restoring " + recordsRestored + " records");
+                        + attributesChanged + " after successfully restoring " + recordsRestored.get() + " records");
             }
 
             final FlowFileRecord flowFile = ffBuilder.build();
@@ -710,7 +774,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                 }
             }
 
-            recordsRestored++;
+            recordsRestored.incrementAndGet();
             return record;
         }
 
@@ -761,7 +825,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
                 throw new EOFException();
             } else if (claimExists != 0) {
                 throw new IOException("Claim Existence Qualifier not found in stream; found value: "
-                        + claimExists + " after successfully restoring " + recordsRestored + " records");
+                        + claimExists + " after successfully restoring " + recordsRestored.get() + " records");
             }
         }
 
@@ -20,12 +20,22 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+/**
+ * An OutputStream that stores the bytes written to it in blocks that are
+ * checked out of a {@link MemoryManager}. Data is copied directly between the
+ * caller and the (off-heap) blocks; readers always operate on duplicates of
+ * the blocks so that they never disturb the position used by the writer.
+ */
 public class ArrayManagedOutputStream extends OutputStream {
 
     private final MemoryManager memoryManager;
@@ -34,22 +44,34 @@ public class ArrayManagedOutputStream extends OutputStream {
     private final Lock readLock = rwLock.readLock();
     private final Lock writeLock = rwLock.writeLock();
 
-    private final List<byte[]> blocks = new ArrayList<>();
+    private final List<ByteBuffer> blocks = new ArrayList<>();
     private int currentIndex;
-    private byte[] currentBlock;
+    private ByteBuffer currentBlock;
     private long curSize;
 
     public ArrayManagedOutputStream(final MemoryManager memoryManager) {
         this.memoryManager = memoryManager;
     }
 
+    private static void copyInto(final ByteBuffer block, final int blockOffset, final byte[] b, final int off, final int len) {
+        final ByteBuffer destination = block.duplicate();
+        destination.position(blockOffset);
+        destination.put(b, off, len);
+    }
+
+    private static void copyFrom(final ByteBuffer block, final int blockOffset, final byte[] b, final int off, final int len) {
+        final ByteBuffer source = block.duplicate();
+        source.position(blockOffset);
+        source.get(b, off, len);
+    }
+
     @Override
     public void write(final byte[] b, int off, final int len) throws IOException {
         writeLock.lock();
         try {
-            final int bytesFreeThisBlock = currentBlock == null ? 0 : currentBlock.length - currentIndex;
+            final int bytesFreeThisBlock = currentBlock == null ? 0 : currentBlock.capacity() - currentIndex;
             if (bytesFreeThisBlock >= len) {
-                System.arraycopy(b, off, currentBlock, currentIndex, len);
+                copyInto(currentBlock, currentIndex, b, off, len);
                 currentIndex += len;
                 curSize += len;
 
@@ -64,9 +86,9 @@ public class ArrayManagedOutputStream extends OutputStream {
             }
 
             // get all of the blocks that we need
-            final List<byte[]> newBlocks = new ArrayList<>(blocksNeeded);
+            final List<ByteBuffer> newBlocks = new ArrayList<>(blocksNeeded);
             for (int i = 0; i < blocksNeeded; i++) {
-                final byte[] newBlock = memoryManager.checkOut();
+                final ByteBuffer newBlock = memoryManager.checkOut();
                 if (newBlock == null) {
                     memoryManager.checkIn(newBlocks);
                     throw new IOException("No space left in Content Repository");
@@ -78,9 +100,9 @@ public class ArrayManagedOutputStream extends OutputStream {
             // we've successfully obtained the blocks needed. Copy the data.
             // first copy what we can to the current block
             long bytesCopied = 0;
-            final int bytesForCur = currentBlock == null ? 0 : currentBlock.length - currentIndex;
+            final int bytesForCur = bytesFreeThisBlock;
             if (bytesForCur > 0) {
-                System.arraycopy(b, off, currentBlock, currentIndex, bytesForCur);
+                copyInto(currentBlock, currentIndex, b, off, bytesForCur);
 
                 off += bytesForCur;
                 bytesCopied += bytesForCur;
@@ -89,9 +111,9 @@ public class ArrayManagedOutputStream extends OutputStream {
             }
 
             // then copy to all new blocks
-            for (final byte[] block : newBlocks) {
-                final int bytesToCopy = (int) Math.min(len - bytesCopied, block.length);
-                System.arraycopy(b, off, block, 0, bytesToCopy);
+            for (final ByteBuffer block : newBlocks) {
+                final int bytesToCopy = (int) Math.min(len - bytesCopied, block.capacity());
+                copyInto(block, 0, b, off, bytesToCopy);
                 currentIndex = bytesToCopy;
                 currentBlock = block;
                 off += bytesToCopy;
@@ -141,14 +163,18 @@ public class ArrayManagedOutputStream extends OutputStream {
     public void writeTo(final OutputStream out) throws IOException {
         readLock.lock();
         try {
-            int i = 0;
-            for (final byte[] block : blocks) {
-                if (++i == blocks.size()) {
-                    if (currentIndex > 0) {
-                        out.write(block, 0, currentIndex);
-                    }
-                } else {
-                    out.write(block);
+            final byte[] buffer = new byte[Math.min(memoryManager.getBlockSize(), 8192)];
+            long bytesRemaining = curSize;
+            for (final ByteBuffer block : blocks) {
+                final ByteBuffer source = block.duplicate();
+                source.clear();
+                source.limit((int) Math.min(source.capacity(), bytesRemaining));
+                bytesRemaining -= source.limit();
+
+                while (source.hasRemaining()) {
+                    final int bytesToCopy = Math.min(buffer.length, source.remaining());
+                    source.get(buffer, 0, bytesToCopy);
+                    out.write(buffer, 0, bytesToCopy);
                 }
             }
         } finally {
@@ -159,11 +185,8 @@ public class ArrayManagedOutputStream extends OutputStream {
     public int getBufferLength() {
         readLock.lock();
         try {
-            if (currentBlock == null) {
-                return 0;
-            }
             // all blocks are same size
-            return blocks.size() * currentBlock.length;
+            return blocks.size() * memoryManager.getBlockSize();
         } finally {
             readLock.unlock();
         }
@@ -204,8 +227,8 @@ public class ArrayManagedOutputStream extends OutputStream {
                         byteIndex = 0;
                     }
 
-                    final byte[] buffer = blocks.get(blockIndex);
-                    final int b = buffer[byteIndex++] & 0xFF;
+                    final ByteBuffer buffer = blocks.get(blockIndex);
+                    final int b = buffer.get(byteIndex++) & 0xFF;
                     bytesRead++;
 
                     return b;
@@ -227,11 +250,11 @@ public class ArrayManagedOutputStream extends OutputStream {
                         byteIndex = 0;
                     }
 
-                    final byte[] buffer = blocks.get(blockIndex);
+                    final ByteBuffer buffer = blocks.get(blockIndex);
                     final long bytesUnread = totalSize - bytesRead;
-                    final int bytesToCopy = (int) Math.min(bytesUnread, Math.min(len, buffer.length - byteIndex));
+                    final int bytesToCopy = (int) Math.min(bytesUnread, Math.min(len, buffer.capacity() - byteIndex));
 
-                    System.arraycopy(buffer, byteIndex, b, off, bytesToCopy);
+                    copyFrom(buffer, byteIndex, b, off, bytesToCopy);
                     byteIndex += bytesToCopy;
                     bytesRead += bytesToCopy;
 
@@ -242,4 +265,103 @@ public class ArrayManagedOutputStream extends OutputStream {
             }
         };
     }
+
+    /**
+     * @return a read-only channel that provides random access to the bytes
+     * that have been written to this stream at the time that this method is
+     * called
+     */
+    public SeekableByteChannel newByteChannel() {
+        final int blockSize;
+        final long totalSize;
+
+        readLock.lock();
+        try {
+            blockSize = memoryManager.getBlockSize();
+            totalSize = curSize;
+        } finally {
+            readLock.unlock();
+        }
+
+        return new SeekableByteChannel() {
+            private long position = 0L;
+            private boolean open = true;
+
+            private void ensureOpen() throws ClosedChannelException {
+                if (!open) {
+                    throw new ClosedChannelException();
+                }
+            }
+
+            @Override
+            public int read(final ByteBuffer dst) throws IOException {
+                ensureOpen();
+                if (position >= totalSize) {
+                    return -1;
+                }
+
+                readLock.lock();
+                try {
+                    int bytesCopied = 0;
+                    while (dst.hasRemaining() && position < totalSize) {
+                        final ByteBuffer block = blocks.get((int) (position / blockSize)).duplicate();
+                        final int blockOffset = (int) (position % blockSize);
+                        final int bytesToCopy = (int) Math.min(totalSize - position, Math.min(dst.remaining(), block.capacity() - blockOffset));
+
+                        block.position(blockOffset);
+                        block.limit(blockOffset + bytesToCopy);
+                        dst.put(block);
+                        position += bytesToCopy;
+                        bytesCopied += bytesToCopy;
+                    }
+
+                    return bytesCopied;
+                } finally {
+                    readLock.unlock();
+                }
+            }
+
+            @Override
+            public int write(final ByteBuffer src) {
+                throw new NonWritableChannelException();
+            }
+
+            @Override
+            public long position() throws IOException {
+                ensureOpen();
+                return position;
+            }
+
+            @Override
+            public SeekableByteChannel position(final long newPosition) throws IOException {
+                ensureOpen();
+                if (newPosition < 0) {
+                    throw new IllegalArgumentException("Position cannot be negative");
+                }
+                position = newPosition;
+                return this;
+            }
+
+            @Override
+            public long size() throws IOException {
+                ensureOpen();
+                return totalSize;
+            }
+
+            @Override
+            public SeekableByteChannel truncate(final long size) {
+                throw new NonWritableChannelException();
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
 }
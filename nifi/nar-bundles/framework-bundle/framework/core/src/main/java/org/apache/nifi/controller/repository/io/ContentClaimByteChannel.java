@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.nifi.controller.repository.ContentRepository;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+
+/**
+ * <p>
+ * A read-only SeekableByteChannel over the content of a Content Claim, for
+ * Content Repositories that do not implement
+ * {@link org.apache.nifi.controller.repository.SeekableContentRepository}.
+ * </p>
+ *
+ * <p>
+ * The content is read through {@link ContentRepository#read(ContentClaim)}.
+ * Seeking forward skips bytes of the current stream; seeking backward closes
+ * the stream and skips from the start of a new one. Reading sequentially is
+ * therefore as efficient as reading the stream, but seeking backward costs as
+ * much as reading the content up to the new position.
+ * </p>
+ */
+public class ContentClaimByteChannel implements SeekableByteChannel {
+
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final ContentRepository repository;
+    private final ContentClaim claim;
+
+    private InputStream in;
+    private long streamPosition = 0L;
+    private long position = 0L;
+    private long size = -1L;
+    private boolean open = true;
+
+    public ContentClaimByteChannel(final ContentRepository repository, final ContentClaim claim) {
+        this.repository = repository;
+        this.claim = claim;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * Positions the underlying stream at the position of this channel.
+     *
+     * @return <code>false</code> if the content ends before the position of
+     * this channel
+     * @throws IOException
+     */
+    private boolean seekStream() throws IOException {
+        if (in == null || position < streamPosition) {
+            closeStream();
+            in = repository.read(claim);
+            streamPosition = 0L;
+        }
+
+        // skip by reading, because InputStream.skip may skip past the end of the content without indicating so
+        final byte[] skipBuffer = (position > streamPosition) ? new byte[(int) Math.min(SKIP_BUFFER_SIZE, position - streamPosition)] : null;
+        while (streamPosition < position) {
+            final int count = in.read(skipBuffer, 0, (int) Math.min(skipBuffer.length, position - streamPosition));
+            if (count < 0) {
+                return false;
+            }
+            streamPosition += count;
+        }
+        return true;
+    }
+
+    private void closeStream() {
+        if (in != null) {
+            try {
+                in.close();
+            } catch (final IOException ioe) {
+            }
+            in = null;
+        }
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (claim == null || !seekStream()) {
+            return -1;
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        final int count;
+        if (dst.hasArray()) {
+            count = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (count > 0) {
+                dst.position(dst.position() + count);
+            }
+        } else {
+            final byte[] buffer = new byte[Math.min(SKIP_BUFFER_SIZE, dst.remaining())];
+            count = in.read(buffer);
+            if (count > 0) {
+                dst.put(buffer, 0, count);
+            }
+        }
+
+        if (count > 0) {
+            streamPosition += count;
+            position += count;
+        }
+        return count;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position cannot be negative");
+        }
+
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        if (size < 0L) {
+            size = (claim == null) ? 0L : repository.size(claim);
+        }
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        closeStream();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.nifi.controller.repository.ContentNotFoundException;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.exception.FlowFileAccessException;
+
+/**
+ * <p>
+ * A read-only view of the portion of a Content Claim that holds the content of
+ * a single FlowFile. Position 0 of this channel corresponds to the given offset
+ * into the Content Claim and the size of the channel is the size of the
+ * FlowFile.
+ * </p>
+ *
+ * <p>
+ * As with {@link FlowFileAccessInputStream}, any IOException thrown by the
+ * underlying channel is wrapped in a FlowFileAccessException, and a
+ * ContentNotFoundException is thrown if the Content Claim holds fewer bytes
+ * than the FlowFile claims to have.
+ * </p>
+ */
+public class FlowFileAccessByteChannel implements SeekableByteChannel {
+
+    private final SeekableByteChannel channel;
+    private final FlowFile flowFile;
+    private final ContentClaim claim;
+    private final long claimOffset;
+
+    private long position = 0L;
+    private long bytesRead = 0L;
+    private boolean open = true;
+    private ContentNotFoundException thrown;
+
+    public FlowFileAccessByteChannel(final SeekableByteChannel channel, final FlowFile flowFile, final ContentClaim claim, final long claimOffset) {
+        this.channel = channel;
+        this.flowFile = flowFile;
+        this.claim = claim;
+        this.claimOffset = claimOffset;
+    }
+
+    /**
+     * Returns the ContentNotFoundException that was thrown by this channel, or
+     * <code>null</code> if no such Exception was thrown.
+     *
+     * @return
+     */
+    public ContentNotFoundException getContentNotFoundException() {
+        return thrown;
+    }
+
+    /**
+     * @return the total number of bytes that have been read from this channel
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        ensureOpen();
+
+        final long size = flowFile.getSize();
+        if (position >= size) {
+            return -1;
+        }
+
+        final int originalLimit = dst.limit();
+        final long bytesRemaining = size - position;
+        if (dst.remaining() > bytesRemaining) {
+            dst.limit(dst.position() + (int) bytesRemaining);
+        }
+
+        final int count;
+        try {
+            channel.position(claimOffset + position);
+            count = channel.read(dst);
+        } catch (final IOException ioe) {
+            throw new FlowFileAccessException("Could not read from " + flowFile, ioe);
+        } finally {
+            dst.limit(originalLimit);
+        }
+
+        if (count < 0) {
+            thrown = new ContentNotFoundException(claim, "Channel contained only " + position + " bytes but should have contained " + size);
+            throw thrown;
+        }
+
+        position += count;
+        bytesRead += count;
+        return count;
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Position cannot be negative");
+        }
+
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return flowFile.getSize();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        try {
+            channel.close();
+        } catch (final IOException ioe) {
+        }
+    }
+}
@@ -16,37 +16,101 @@
  */
 package org.apache.nifi.controller.repository.io;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages a fixed amount of off-heap memory that is handed out in blocks of a
+ * fixed size. Memory is obtained from the operating system lazily, in slabs of
+ * many blocks, so that a large repository does not need to be allocated up
+ * front, and blocks that are checked back in are kept on a lock-free free list
+ * for reuse rather than being returned to the operating system. Because the
+ * blocks live outside of the Java heap, the amount of memory managed does not
+ * affect heap size or garbage collection pauses; it is, however, limited by the
+ * JVM's <code>-XX:MaxDirectMemorySize</code> setting.
+ */
 public class MemoryManager {
 
+    private static final Logger logger = LoggerFactory.getLogger(MemoryManager.class);
+    private static final int SLAB_SIZE = 64 * 1024 * 1024;
+
     private final int blockSize;
+    private final int maxBlocks;
+    private final int blocksPerSlab;
 
-    private final BlockingQueue<byte[]> queue;
+    private final AtomicInteger allocatedBlocks = new AtomicInteger(0);
+    private final Queue<ByteBuffer> freeBlocks = new ConcurrentLinkedQueue<>();
 
     public MemoryManager(final long totalSize, final int blockSize) {
         this.blockSize = blockSize;
+        this.maxBlocks = (int) Math.min(Integer.MAX_VALUE, totalSize / blockSize);
+        this.blocksPerSlab = Math.max(1, SLAB_SIZE / blockSize);
+    }
 
-        final int numBlocks = (int) (totalSize / blockSize);
-        queue = new LinkedBlockingQueue<>(numBlocks);
+    /**
+     * @return a block of <code>getBlockSize()</code> bytes, or
+     * <code>null</code> if all of the memory is in use
+     */
+    ByteBuffer checkOut() {
+        final ByteBuffer block = freeBlocks.poll();
+        if (block != null) {
+            return block;
+        }
 
-        for (int i = 0; i < numBlocks; i++) {
-            queue.offer(new byte[blockSize]);
+        return allocate();
+    }
+
+    private ByteBuffer allocate() {
+        while (true) {
+            final int allocated = allocatedBlocks.get();
+            if (allocated >= maxBlocks) {
+                // another thread may have checked in a block in the meantime
+                return freeBlocks.poll();
+            }
+
+            final int blockCount = Math.min(maxBlocks - allocated, blocksPerSlab);
+            if (!allocatedBlocks.compareAndSet(allocated, allocated + blockCount)) {
+                continue;
+            }
+
+            final ByteBuffer slab;
+            try {
+                slab = ByteBuffer.allocateDirect(blockCount * blockSize);
+            } catch (final OutOfMemoryError oome) {
+                allocatedBlocks.addAndGet(-blockCount);
+                logger.warn("Unable to allocate {} bytes of direct memory for in-memory content; consider increasing -XX:MaxDirectMemorySize", (long) blockCount * blockSize);
+                return freeBlocks.poll();
+            }
+
+            for (int i = 1; i < blockCount; i++) {
+                freeBlocks.offer(slice(slab, i));
+            }
+            return slice(slab, 0);
         }
     }
 
-    byte[] checkOut() {
-        return queue.poll();
+    private ByteBuffer slice(final ByteBuffer slab, final int blockIndex) {
+        final ByteBuffer duplicate = slab.duplicate();
+        duplicate.position(blockIndex * blockSize);
+        duplicate.limit((blockIndex + 1) * blockSize);
+        return duplicate.slice();
     }
 
-    void checkIn(final byte[] buffer) {
-        queue.offer(buffer);
+    void checkIn(final ByteBuffer block) {
+        block.clear();
+        freeBlocks.offer(block);
     }
 
-    void checkIn(final Collection<byte[]> buffers) {
-        queue.addAll(buffers);
+    void checkIn(final Collection<ByteBuffer> blocks) {
+        for (final ByteBuffer block : blocks) {
+            checkIn(block);
+        }
     }
 
     int getBlockSize() {
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the Run Duration of a Processor that supports batching but has no
+ * Run Duration configured. The duration is doubled, up to a maximum, each
+ * time a batch runs out of time while the Processor still has work to do,
+ * and halved each time a batch ends because the Processor's work ran out or
+ * its destinations became unavailable. A busy Processor therefore commits
+ * large sessions, while a lightly loaded Processor commits each invocation
+ * as soon as it completes.
+ *
+ * Batching is turned off for Processors whose invocations are so expensive
+ * that a batch no longer than the maximum could not contain several of
+ * them, as there would be little cost to amortize.
+ */
+public class AdaptiveBatchTuner {
+
+    static final long MIN_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+    static final int MIN_INVOCATIONS_PER_BATCH = 4;
+
+    private final long maxBatchNanos;
+
+    private volatile long batchNanos = 0L;
+    private volatile long invocationNanos = 0L;
+    private volatile double batchSize = 0D;
+
+    /**
+     * @param maxBatchDuration the longest Run Duration that may be chosen, or
+     * 0 to disable adaptive batching
+     * @param timeUnit the unit of <code>maxBatchDuration</code>
+     */
+    public AdaptiveBatchTuner(final long maxBatchDuration, final TimeUnit timeUnit) {
+        this.maxBatchNanos = timeUnit.toNanos(maxBatchDuration);
+    }
+
+    public boolean isEnabled() {
+        return maxBatchNanos > 0L;
+    }
+
+    /**
+     * @param timeUnit the unit to return the duration in
+     * @return the Run Duration to use for the next batch; 0 if invocations
+     * should not be batched
+     */
+    public long getBatchDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(batchNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the average number of invocations that were committed together
+     * by recent batches
+     */
+    public int getBatchSize() {
+        return (int) Math.round(batchSize);
+    }
+
+    /**
+     * Adjusts the Run Duration based on the outcome of a batch.
+     *
+     * @param elapsedNanos how long the batch ran for
+     * @param invocations the number of invocations in the batch
+     * @param backlogged <code>true</code> if the batch ended only because its
+     * Run Duration elapsed, or, when not batching, if the Processor still had
+     * work to do after its invocation
+     */
+    public synchronized void onBatchComplete(final long elapsedNanos, final int invocations, final boolean backlogged) {
+        if (!isEnabled() || invocations < 1) {
+            return;
+        }
+
+        // moving averages, so that a single slow invocation does not disable batching
+        final long nanosPerInvocation = elapsedNanos / invocations;
+        invocationNanos = (invocationNanos == 0L) ? nanosPerInvocation : (invocationNanos * 7 + nanosPerInvocation) / 8;
+        batchSize = (batchSize == 0D) ? invocations : (batchSize * 7 + invocations) / 8;
+
+        if (invocationNanos * MIN_INVOCATIONS_PER_BATCH > maxBatchNanos) {
+            batchNanos = 0L;
+            return;
+        }
+
+        if (backlogged) {
+            final long increased = (batchNanos == 0L) ? Math.max(MIN_BATCH_NANOS, invocationNanos * MIN_INVOCATIONS_PER_BATCH) : batchNanos * 2;
+            batchNanos = Math.min(increased, maxBatchNanos);
+        } else {
+            final long decreased = batchNanos / 2;
+            batchNanos = (decreased < MIN_BATCH_NANOS) ? 0L : decreased;
+        }
+    }
+}
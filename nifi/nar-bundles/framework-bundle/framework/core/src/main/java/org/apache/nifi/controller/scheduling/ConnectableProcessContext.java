@@ -191,4 +191,9 @@ public class ConnectableProcessContext implements ProcessContext {
         }
         return new HashSet<>(connectable.getRelationships());
     }
+
+    @Override
+    public boolean isBatchingSessions() {
+        return false;
+    }
 }
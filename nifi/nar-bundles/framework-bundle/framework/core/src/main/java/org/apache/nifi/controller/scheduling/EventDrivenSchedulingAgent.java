@@ -177,8 +177,6 @@ public class EventDrivenSchedulingAgent implements SchedulingAgent {
 
                 if (connectable instanceof ProcessorNode) {
                     final ProcessorNode procNode = (ProcessorNode) connectable;
-                    final StandardProcessContext standardProcessContext = new StandardProcessContext(procNode, controllerServiceProvider, encryptor);
-
                     final long runNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
                     final ProcessSessionFactory sessionFactory;
                     final StandardProcessSession rawSession;
@@ -193,6 +191,8 @@ public class EventDrivenSchedulingAgent implements SchedulingAgent {
                         batch = false;
                     }
 
+                    final StandardProcessContext standardProcessContext = new StandardProcessContext(procNode, controllerServiceProvider, encryptor, batch);
+
                     final long startNanos = System.nanoTime();
                     final long finishNanos = startNanos + runNanos;
                     int invocationCount = 0;
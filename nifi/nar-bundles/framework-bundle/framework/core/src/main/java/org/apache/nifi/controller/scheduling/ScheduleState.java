@@ -30,6 +30,11 @@ public class ScheduleState {
     private final List<ScheduledFuture<?>> futures = new ArrayList<>();
     private final AtomicBoolean mustCallOnStoppedMethods = new AtomicBoolean(false);
     private volatile long lastStopTime = -1;
+    private final AdaptiveBatchTuner batchTuner;
+
+    public ScheduleState(final AdaptiveBatchTuner batchTuner) {
+        this.batchTuner = batchTuner;
+    }
 
     public int incrementActiveThreadCount() {
         return activeThreadCount.incrementAndGet();
@@ -60,6 +65,14 @@ public class ScheduleState {
         return lastStopTime;
     }
 
+    /**
+     * @return the tuner that chooses the Run Duration for the component, if it
+     * is a Processor that supports batching and has no Run Duration configured
+     */
+    public AdaptiveBatchTuner getBatchTuner() {
+        return batchTuner;
+    }
+
     /**
      * Maintains an AtomicBoolean so that the first thread to call this method
      * after a Processor is no longer scheduled to run will receive a
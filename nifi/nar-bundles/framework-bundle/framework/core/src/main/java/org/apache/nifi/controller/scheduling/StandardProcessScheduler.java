@@ -78,6 +78,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
     // thread pool for starting/stopping components
     private final ExecutorService componentLifeCycleThreadPool = new ThreadPoolExecutor(25, 50, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(5000));
     private final StringEncryptor encryptor;
+    private final long maxAdaptiveBatchNanos;
 
     public StandardProcessScheduler(final Heartbeater heartbeater, final ControllerServiceProvider controllerServiceProvider, final StringEncryptor encryptor) {
         this.heartbeater = heartbeater;
@@ -87,6 +88,10 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         administrativeYieldDuration = NiFiProperties.getInstance().getAdministrativeYieldDuration();
         administrativeYieldMillis = FormatUtils.getTimeDuration(administrativeYieldDuration, TimeUnit.MILLISECONDS);
 
+        final NiFiProperties properties = NiFiProperties.getInstance();
+        maxAdaptiveBatchNanos = properties.isAdaptiveBatchingEnabled()
+                ? FormatUtils.getTimeDuration(properties.getAdaptiveBatchingMaxDuration(), TimeUnit.NANOSECONDS) : 0L;
+
         frameworkTaskExecutor = new FlowEngine(4, "Framework Task Thread");
     }
 
@@ -541,6 +546,15 @@ public final class StandardProcessScheduler implements ProcessScheduler {
         procNode.setScheduledState(ScheduledState.STOPPED);
     }
 
+    /**
+     * @param scheduled the component
+     * @return the tuner that chooses the Run Duration of the given component
+     * when adaptive batching applies to it
+     */
+    public AdaptiveBatchTuner getBatchTuner(final Object scheduled) {
+        return getScheduleState(scheduled).getBatchTuner();
+    }
+
     @Override
     public boolean isScheduled(final Object scheduled) {
         final ScheduleState scheduleState = scheduleStates.get(scheduled);
@@ -558,7 +572,7 @@ public final class StandardProcessScheduler implements ProcessScheduler {
     private ScheduleState getScheduleState(final Object schedulable) {
         ScheduleState scheduleState = scheduleStates.get(schedulable);
         if (scheduleState == null) {
-            scheduleState = new ScheduleState();
+            scheduleState = new ScheduleState(new AdaptiveBatchTuner(maxAdaptiveBatchNanos, TimeUnit.NANOSECONDS));
             ScheduleState previous = scheduleStates.putIfAbsent(schedulable, scheduleState);
             if (previous != null) {
                 scheduleState = previous;
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable view of the status of the entire flow at a point in time. A
+ * snapshot is computed by walking the entire Process Group tree once and is
+ * then shared by every consumer of status (the User Interface and REST API,
+ * heartbeats, the Component Status Repository and Reporting Tasks), rather
+ * than each of them walking the tree independently.
+ *
+ * The status objects held by a snapshot are shared and must not be modified.
+ */
+public class ControllerStatusSnapshot {
+
+    private final long version;
+    private final long timestamp;
+    private final ProcessGroupStatus rootGroupStatus;
+    private final Map<String, ProcessGroupStatus> groupStatusMap;
+
+    public ControllerStatusSnapshot(final long version, final long timestamp, final ProcessGroupStatus rootGroupStatus) {
+        this.version = version;
+        this.timestamp = timestamp;
+        this.rootGroupStatus = rootGroupStatus;
+        this.groupStatusMap = indexGroupStatus(rootGroupStatus);
+    }
+
+    private static Map<String, ProcessGroupStatus> indexGroupStatus(final ProcessGroupStatus rootGroupStatus) {
+        final Map<String, ProcessGroupStatus> map = new HashMap<>();
+        if (rootGroupStatus == null) {
+            return map;
+        }
+
+        final Deque<ProcessGroupStatus> toIndex = new ArrayDeque<>();
+        toIndex.add(rootGroupStatus);
+        while (!toIndex.isEmpty()) {
+            final ProcessGroupStatus groupStatus = toIndex.poll();
+            map.put(groupStatus.getId(), groupStatus);
+
+            final Collection<ProcessGroupStatus> childStatuses = groupStatus.getProcessGroupStatus();
+            if (childStatuses != null) {
+                toIndex.addAll(childStatuses);
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * @return a monotonically increasing number that identifies this snapshot;
+     * a snapshot with a larger version was computed after one with a smaller
+     * version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the time, in milliseconds since epoch, at which this snapshot
+     * was computed
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return the status of the root Process Group
+     */
+    public ProcessGroupStatus getRootGroupStatus() {
+        return rootGroupStatus;
+    }
+
+    /**
+     * @param groupId
+     * @return the status of the Process Group with the given ID, or
+     * <code>null</code> if no Process Group with that ID existed when the
+     * snapshot was computed
+     */
+    public ProcessGroupStatus getGroupStatus(final String groupId) {
+        return groupStatusMap.get(groupId);
+    }
+}
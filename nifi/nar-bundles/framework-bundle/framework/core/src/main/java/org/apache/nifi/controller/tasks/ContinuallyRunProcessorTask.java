@@ -27,6 +27,7 @@ import org.apache.nifi.controller.repository.ProcessContext;
 import org.apache.nifi.controller.repository.StandardFlowFileEvent;
 import org.apache.nifi.controller.repository.StandardProcessSession;
 import org.apache.nifi.controller.repository.StandardProcessSessionFactory;
+import org.apache.nifi.controller.scheduling.AdaptiveBatchTuner;
 import org.apache.nifi.controller.scheduling.ProcessContextFactory;
 import org.apache.nifi.controller.scheduling.ScheduleState;
 import org.apache.nifi.controller.scheduling.SchedulingAgent;
@@ -53,6 +54,7 @@ public class ContinuallyRunProcessorTask implements Runnable {
     private final ProcessContext context;
     private final ScheduleState scheduleState;
     private final StandardProcessContext processContext;
+    private final StandardProcessContext batchingProcessContext;
     private final FlowController flowController;
     private final int numRelationships;
 
@@ -67,34 +69,26 @@ public class ContinuallyRunProcessorTask implements Runnable {
 
         context = contextFactory.newProcessContext(procNode, new AtomicLong(0L));
         this.processContext = new StandardProcessContext(procNode, flowController, encryptor);
+        this.batchingProcessContext = new StandardProcessContext(procNode, flowController, encryptor, true);
     }
 
     @Override
     public void run() {
-        // make sure processor is not yielded
-        boolean shouldRun = (procNode.getYieldExpiration() < System.currentTimeMillis());
-        if (!shouldRun) {
-            return;
-        }
-
         // make sure that either we're not clustered or this processor runs on all nodes or that this is the primary node
-        shouldRun = !procNode.isIsolated() || !flowController.isClustered() || flowController.isPrimary();
-        if (!shouldRun) {
+        if (procNode.isIsolated() && flowController.isClustered() && !flowController.isPrimary()) {
             return;
         }
 
-        // make sure that either proc has incoming FlowFiles or has no incoming connections or is annotated with @TriggerWhenEmpty
-        shouldRun = procNode.isTriggerWhenEmpty() || !procNode.hasIncomingConnection() || Connectables.flowFilesQueued(procNode);
-        if (!shouldRun) {
+        // make sure that the processor is not yielded and has work to do
+        if (!isWorkToDo()) {
             return;
         }
 
-        if (numRelationships > 0) {
-            final int requiredNumberOfAvailableRelationships = procNode.isTriggerWhenAnyDestinationAvailable() ? 1 : numRelationships;
-            shouldRun = context.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships);
-        }
-
-        final long batchNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+        // if no Run Duration is configured, the framework may choose one
+        final AdaptiveBatchTuner batchTuner = scheduleState.getBatchTuner();
+        final long configuredBatchNanos = procNode.getRunDuration(TimeUnit.NANOSECONDS);
+        final boolean adaptive = procNode.isHighThroughputSupported() && configuredBatchNanos == 0L && batchTuner.isEnabled();
+        final long batchNanos = adaptive ? batchTuner.getBatchDuration(TimeUnit.NANOSECONDS) : configuredBatchNanos;
         final ProcessSessionFactory sessionFactory;
         final StandardProcessSession rawSession;
         final boolean batch;
@@ -108,36 +102,30 @@ public class ContinuallyRunProcessorTask implements Runnable {
             batch = false;
         }
 
-        if (!shouldRun) {
-            return;
-        }
-
         scheduleState.incrementActiveThreadCount();
 
         final long startNanos = System.nanoTime();
         final long finishNanos = startNanos + batchNanos;
         int invocationCount = 0;
+        boolean backlogged = false;
         try {
             try (final AutoCloseable ncl = NarCloseable.withNarLoader()) {
+                boolean shouldRun = true;
                 while (shouldRun) {
-                    procNode.onTrigger(processContext, sessionFactory);
+                    procNode.onTrigger(batch ? batchingProcessContext : processContext, sessionFactory);
                     invocationCount++;
 
                     if (!batch) {
+                        backlogged = adaptive && isWorkToDo();
                         return;
                     }
 
                     if (System.nanoTime() > finishNanos) {
+                        backlogged = true;
                         return;
                     }
 
-                    shouldRun = procNode.isTriggerWhenEmpty() || !procNode.hasIncomingConnection() || Connectables.flowFilesQueued(procNode);
-                    shouldRun = shouldRun && (procNode.getYieldExpiration() < System.currentTimeMillis());
-
-                    if (shouldRun && numRelationships > 0) {
-                        final int requiredNumberOfAvailableRelationships = procNode.isTriggerWhenAnyDestinationAvailable() ? 1 : numRelationships;
-                        shouldRun = context.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships);
-                    }
+                    shouldRun = isWorkToDo();
                 }
             } catch (final ProcessException pe) {
                 final ProcessorLog procLog = new SimpleProcessLogger(procNode.getIdentifier(), procNode.getProcessor());
@@ -158,6 +146,9 @@ public class ContinuallyRunProcessorTask implements Runnable {
             }
 
             final long processingNanos = System.nanoTime() - startNanos;
+            if (adaptive) {
+                batchTuner.onBatchComplete(processingNanos, invocationCount, backlogged);
+            }
 
             // if the processor is no longer scheduled to run and this is the last thread,
             // invoke the OnStopped methods
@@ -182,4 +173,21 @@ public class ContinuallyRunProcessorTask implements Runnable {
         }
     }
 
+    /**
+     * @return true if the processor is not yielded, has incoming FlowFiles or
+     * no incoming connections or is annotated with {@code @TriggerWhenEmpty},
+     * and has enough of its relationships available
+     */
+    private boolean isWorkToDo() {
+        if (procNode.getYieldExpiration() >= System.currentTimeMillis()) {
+            return false;
+        }
+
+        final boolean workToDo = procNode.isTriggerWhenEmpty() || !procNode.hasIncomingConnection() || Connectables.flowFilesQueued(procNode);
+        if (workToDo && numRelationships > 0) {
+            final int requiredNumberOfAvailableRelationships = procNode.isTriggerWhenAnyDestinationAvailable() ? 1 : numRelationships;
+            return context.isRelationshipAvailabilitySatisfied(requiredNumberOfAvailableRelationships);
+        }
+        return workToDo;
+    }
 }
@@ -17,15 +17,16 @@
 package org.apache.nifi.fingerprint;
 
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,11 +34,10 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.FlowController;
@@ -45,7 +45,6 @@ import org.apache.nifi.controller.Template;
 import org.apache.nifi.controller.exception.ProcessorInstantiationException;
 import org.apache.nifi.encrypt.StringEncryptor;
 import org.apache.nifi.processor.Processor;
-import org.apache.nifi.util.DomUtils;
 import org.apache.nifi.web.api.dto.ConnectionDTO;
 import org.apache.nifi.web.api.dto.FlowSnippetDTO;
 import org.apache.nifi.web.api.dto.FunnelDTO;
@@ -62,11 +61,6 @@ import org.apache.nifi.web.api.dto.TemplateDTO;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
 
 /**
  * Creates a fingerprint of a flow.xml. The order of elements or attributes in
@@ -92,30 +86,18 @@ public final class FingerprintFactory {
     // no fingerprint value
     public static final String NO_VALUE = "NO_VALUE";
 
-    private static final String FLOW_CONFIG_XSD = "/FlowConfiguration.xsd";
-    private static final Schema FLOW_CONFIG_SCHEMA;
-    private static final DocumentBuilder FLOW_CONFIG_DOC_BUILDER;
     private static final String ENCRYPTED_VALUE_PREFIX = "enc{";
     private static final String ENCRYPTED_VALUE_SUFFIX = "}";
+    private static final XMLInputFactory XML_INPUT_FACTORY;
     private final StringEncryptor encryptor;
 
     private static final Logger logger = LoggerFactory.getLogger(FingerprintFactory.class);
 
     static {
-        final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        documentBuilderFactory.setNamespaceAware(true);
-        final SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        try {
-            FLOW_CONFIG_SCHEMA = schemaFactory.newSchema(FingerprintFactory.class.getResource(FLOW_CONFIG_XSD));
-        } catch (final Exception e) {
-            throw new RuntimeException("Failed to parse schema for file flow configuration.", e);
-        }
-        try {
-            documentBuilderFactory.setSchema(FLOW_CONFIG_SCHEMA);
-            FLOW_CONFIG_DOC_BUILDER = documentBuilderFactory.newDocumentBuilder();
-        } catch (final Exception e) {
-            throw new RuntimeException("Failed to create document builder for flow configuration.", e);
-        }
+        XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
     }
 
     public FingerprintFactory(final StringEncryptor encryptor) {
@@ -126,6 +108,12 @@ public final class FingerprintFactory {
      * Creates a fingerprint of a flow. The order of elements or attributes in
      * the flow does not influence the fingerprint generation.
      *
+     * The flow is read with a streaming parser rather than being parsed into a
+     * DOM. Only the elements that contribute to the fingerprint are retained,
+     * and only until the fingerprint of the Process Group that contains them
+     * has been generated, so the memory required is proportional to the size of
+     * the fingerprint rather than the size of the flow.
+     *
      * @param flowBytes the flow represented as bytes
      * @param controller
      *
@@ -134,10 +122,36 @@ public final class FingerprintFactory {
      * @throws FingerprintException if the fingerprint failed to be generated
      */
     public String createFingerprint(final byte[] flowBytes, final FlowController controller) throws FingerprintException {
+        if (flowBytes == null || flowBytes.length == 0) {
+            return "";
+        }
+
+        XMLStreamReader reader = null;
         try {
-            return createFingerprint(parseFlow(flowBytes), controller);
-        } catch (final NoSuchAlgorithmException e) {
+            reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(flowBytes));
+
+            // advance to the flow controller element
+            while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+            }
+            if (!reader.isStartElement()) {
+                logger.warn("Unable to create fingerprint because no 'flowController' element found in XML.");
+                return "";
+            }
+
+            // builder to hold fingerprint state
+            final StringBuilder fingerprintBuilder = new StringBuilder();
+            addFlowControllerFingerprint(fingerprintBuilder, reader, controller);
+            return fingerprintBuilder.toString();
+        } catch (final XMLStreamException e) {
             throw new FingerprintException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (final XMLStreamException e) {
+                    logger.debug("Failed to close XML Stream Reader due to {}", e.toString());
+                }
+            }
         }
     }
 
@@ -151,35 +165,6 @@ public final class FingerprintFactory {
         return strb.toString();
     }
 
-    /**
-     * Creates a fingerprint from an XML document representing the flow.xml.
-     *
-     * @param flowDoc the DOM
-     *
-     * @return the fingerprint
-     *
-     * @throws NoSuchAlgorithmException
-     * @throws UnsupportedEncodingException
-     */
-    private String createFingerprint(final Document flowDoc, final FlowController controller) throws NoSuchAlgorithmException {
-        if (flowDoc == null) {
-            return "";
-        }
-
-        // builder to hold fingerprint state
-        final StringBuilder fingerprintBuilder = new StringBuilder();
-
-        // add flow controller fingerprint
-        final Element flowControllerElem = flowDoc.getDocumentElement();
-        if (flowControllerElem == null) {
-            logger.warn("Unable to create fingerprint because no 'flowController' element found in XML.");
-            return "";
-        }
-        addFlowControllerFingerprint(fingerprintBuilder, flowControllerElem, controller);
-
-        return fingerprintBuilder.toString();
-    }
-
     /**
      * Creates a fingerprint of a Collection of Templates The order of the
      * templates does not influence the fingerprint generation.
@@ -225,34 +210,6 @@ public final class FingerprintFactory {
         return fingerprintBuilder.toString();
     }
 
-    /**
-     * Parse the given flow.xml bytes into a Document instance.
-     *
-     * @param flow a flow
-     *
-     * @return the DOM
-     *
-     * @throws FingerprintException if the flow could not be parsed
-     */
-    private Document parseFlow(final byte[] flow) throws FingerprintException {
-        if (flow == null || flow.length == 0) {
-            return null;
-        }
-
-        try {
-            return FLOW_CONFIG_DOC_BUILDER.parse(new ByteArrayInputStream(flow));
-        } catch (final SAXException | IOException ex) {
-            throw new FingerprintException(ex);
-        }
-    }
-
-    private StringBuilder addFlowControllerFingerprint(final StringBuilder builder, final Element flowControllerElem, final FlowController controller) {
-        // root group
-        final Element rootGroupElem = (Element) DomUtils.getChildNodesByTagName(flowControllerElem, "rootGroup").item(0);
-        addProcessGroupFingerprint(builder, rootGroupElem, controller);
-        return builder;
-    }
-
     private StringBuilder addTemplateFingerprint(final StringBuilder builder, final TemplateDTO dto) {
         builder.append(dto.getId());
         builder.append(dto.getName());
@@ -381,67 +338,96 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addProcessGroupFingerprint(final StringBuilder builder, final Element processGroupElem, final FlowController controller) throws FingerprintException {
-        // id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(processGroupElem, "id"));
-
-        // processors
-        final List<Element> processorElems = DomUtils.getChildElementsByTagName(processGroupElem, "processor");
-        Collections.sort(processorElems, getIdsComparator());
-        for (final Element processorElem : processorElems) {
-            addFlowFileProcessorFingerprint(builder, processorElem, controller);
-        }
-
-        // input ports
-        final NodeList inputPortElems = DomUtils.getChildNodesByTagName(processGroupElem, "inputPort");
-        final List<Element> sortedInputPortElems = sortElements(inputPortElems, getIdsComparator());
-        for (final Element inputPortElem : sortedInputPortElems) {
-            addPortFingerprint(builder, inputPortElem);
-        }
-
-        // labels
-        final NodeList labelElems = DomUtils.getChildNodesByTagName(processGroupElem, "label");
-        final List<Element> sortedLabels = sortElements(labelElems, getIdsComparator());
-        for (final Element labelElem : sortedLabels) {
-            addLabelFingerprint(builder, labelElem);
-        }
-
-        // output ports
-        final NodeList outputPortElems = DomUtils.getChildNodesByTagName(processGroupElem, "outputPort");
-        final List<Element> sortedOutputPortElems = sortElements(outputPortElems, getIdsComparator());
-        for (final Element outputPortElem : sortedOutputPortElems) {
-            addPortFingerprint(builder, outputPortElem);
+    private StringBuilder addFlowControllerFingerprint(final StringBuilder builder, final XMLStreamReader reader, final FlowController controller) throws XMLStreamException {
+        // root group
+        while (nextChildElement(reader)) {
+            if ("rootGroup".equals(reader.getLocalName())) {
+                builder.append(createProcessGroupFingerprint(reader, controller).getFingerprint());
+                return builder;
+            }
+            skipElement(reader);
         }
 
-        // process groups
-        final NodeList nestedProcessGroupElems = DomUtils.getChildNodesByTagName(processGroupElem, "processGroup");
-        final List<Element> sortedNestedProcessGroupElems = sortElements(nestedProcessGroupElems, getIdsComparator());
-        for (final Element nestedProcessGroupElem : sortedNestedProcessGroupElems) {
-            addProcessGroupFingerprint(builder, nestedProcessGroupElem, controller);
-        }
+        throw new FingerprintException("Unable to create fingerprint because no 'rootGroup' element found in XML.");
+    }
 
-        // remote process groups
-        final NodeList remoteProcessGroupElems = DomUtils.getChildNodesByTagName(processGroupElem, "remoteProcessGroup");
-        final List<Element> sortedRemoteProcessGroupElems = sortElements(remoteProcessGroupElems, getIdsComparator());
-        for (final Element remoteProcessGroupElem : sortedRemoteProcessGroupElems) {
-            addRemoteProcessGroupFingerprint(builder, remoteProcessGroupElem);
+    /**
+     * Creates the fingerprint of the Process Group whose start element the
+     * given reader is positioned at, leaving the reader positioned at the
+     * Process Group's end element.
+     */
+    private SortableFingerprint createProcessGroupFingerprint(final XMLStreamReader reader, final FlowController controller) throws XMLStreamException {
+        String id = null;
+        final List<SortableFingerprint> processors = new ArrayList<>();
+        final List<SortableFingerprint> inputPorts = new ArrayList<>();
+        final List<SortableFingerprint> labels = new ArrayList<>();
+        final List<SortableFingerprint> outputPorts = new ArrayList<>();
+        final List<SortableFingerprint> processGroups = new ArrayList<>();
+        final List<SortableFingerprint> remoteProcessGroups = new ArrayList<>();
+        final List<SortableFingerprint> connections = new ArrayList<>();
+        final List<SortableFingerprint> funnels = new ArrayList<>();
+
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
+                case "id":
+                    final FlowElement idElement = readElement(reader);
+                    if (id == null) {
+                        id = getValue(idElement);
+                    }
+                    break;
+                case "processor":
+                    final FlowElement processorElem = readElement(reader);
+                    processors.add(new SortableFingerprint(getFirstValue(processorElem, "id"), addFlowFileProcessorFingerprint(new StringBuilder(), processorElem, controller)));
+                    break;
+                case "inputPort":
+                    final FlowElement inputPortElem = readElement(reader);
+                    inputPorts.add(new SortableFingerprint(getFirstValue(inputPortElem, "id"), addPortFingerprint(new StringBuilder(), inputPortElem)));
+                    break;
+                case "outputPort":
+                    final FlowElement outputPortElem = readElement(reader);
+                    outputPorts.add(new SortableFingerprint(getFirstValue(outputPortElem, "id"), addPortFingerprint(new StringBuilder(), outputPortElem)));
+                    break;
+                case "label":
+                    final FlowElement labelElem = readElement(reader);
+                    labels.add(new SortableFingerprint(getFirstValue(labelElem, "id"), addLabelFingerprint(new StringBuilder(), labelElem)));
+                    break;
+                case "funnel":
+                    final FlowElement funnelElem = readElement(reader);
+                    funnels.add(new SortableFingerprint(getFirstValue(funnelElem, "id"), addFunnelFingerprint(new StringBuilder(), funnelElem)));
+                    break;
+                case "processGroup":
+                    processGroups.add(createProcessGroupFingerprint(reader, controller));
+                    break;
+                case "remoteProcessGroup":
+                    final FlowElement remoteProcessGroupElem = readElement(reader);
+                    remoteProcessGroups.add(new SortableFingerprint(getFirstValue(remoteProcessGroupElem, "id"),
+                            addRemoteProcessGroupFingerprint(new StringBuilder(), remoteProcessGroupElem)));
+                    break;
+                case "connection":
+                    final FlowElement connectionElem = readElement(reader);
+                    connections.add(new SortableFingerprint(getFirstValue(connectionElem, "id"), addConnectionFingerprint(new StringBuilder(), connectionElem)));
+                    break;
+                default:
+                    skipElement(reader);
+                    break;
+            }
         }
 
-        // connections
-        final NodeList connectionElems = DomUtils.getChildNodesByTagName(processGroupElem, "connection");
-        final List<Element> sortedConnectionElems = sortElements(connectionElems, getIdsComparator());
-        for (final Element connectionElem : sortedConnectionElems) {
-            addConnectionFingerprint(builder, connectionElem);
-        }
+        final StringBuilder builder = new StringBuilder();
 
-        // funnel
-        final NodeList funnelElems = DomUtils.getChildNodesByTagName(processGroupElem, "funnel");
-        final List<Element> sortedFunnelElems = sortElements(funnelElems, getIdsComparator());
-        for (final Element funnelElem : sortedFunnelElems) {
-            addFunnelFingerprint(builder, funnelElem);
+        // id
+        final String groupId = (id == null) ? NO_VALUE : id;
+        builder.append(groupId);
+
+        // the components of each type are ordered by id
+        for (final List<SortableFingerprint> components : Arrays.asList(processors, inputPorts, labels, outputPorts, processGroups, remoteProcessGroups, connections, funnels)) {
+            Collections.sort(components);
+            for (final SortableFingerprint component : components) {
+                builder.append(component.getFingerprint());
+            }
         }
 
-        return builder;
+        return new SortableFingerprint(groupId, builder);
     }
 
     private StringBuilder addProcessGroupFingerprint(final StringBuilder builder, final ProcessGroupDTO group) {
@@ -454,15 +440,14 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addFlowFileProcessorFingerprint(final StringBuilder builder, final Element processorElem, final FlowController controller) throws FingerprintException {
+    private StringBuilder addFlowFileProcessorFingerprint(final StringBuilder builder, final FlowElement processorElem, final FlowController controller) throws FingerprintException {
         // id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(processorElem, "id"));
+        appendFirstValue(builder, processorElem, "id");
         // class
-        final NodeList childNodes = DomUtils.getChildNodesByTagName(processorElem, "class");
-        final String className = childNodes.item(0).getTextContent();
-        appendFirstValue(builder, childNodes);
+        final String className = processorElem.getChildren("class").get(0).getTextContent();
+        appendFirstValue(builder, processorElem, "class");
         // annotation data
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(processorElem, "annotationData"));
+        appendFirstValue(builder, processorElem, "annotationData");
 
         // create an instance of the Processor so that we know the default property values
         Processor processor = null;
@@ -478,15 +463,15 @@ public final class FingerprintFactory {
         }
 
         // properties
-        final NodeList propertyElems = DomUtils.getChildNodesByTagName(processorElem, "property");
-        final List<Element> sortedPropertyElems = sortElements(propertyElems, getProcessorPropertiesComparator());
-        for (final Element propertyElem : sortedPropertyElems) {
+        final List<FlowElement> sortedPropertyElems = new ArrayList<>(processorElem.getChildren("property"));
+        Collections.sort(sortedPropertyElems, getProcessorPropertiesComparator());
+        for (final FlowElement propertyElem : sortedPropertyElems) {
             addFlowFileProcessorPropertyFingerprint(builder, propertyElem, processor);
         }
 
-        final NodeList autoTerminateElems = DomUtils.getChildNodesByTagName(processorElem, "autoTerminatedRelationship");
-        final List<Element> sortedAutoTerminateElems = sortElements(autoTerminateElems, getElementTextComparator());
-        for (final Element autoTerminateElem : sortedAutoTerminateElems) {
+        final List<FlowElement> sortedAutoTerminateElems = new ArrayList<>(processorElem.getChildren("autoTerminatedRelationship"));
+        Collections.sort(sortedAutoTerminateElems, getElementTextComparator());
+        for (final FlowElement autoTerminateElem : sortedAutoTerminateElems) {
             builder.append(autoTerminateElem.getTextContent());
         }
 
@@ -537,18 +522,18 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    StringBuilder addFlowFileProcessorPropertyFingerprint(final StringBuilder builder, final Element propElem, final Processor processor) throws FingerprintException {
+    StringBuilder addFlowFileProcessorPropertyFingerprint(final StringBuilder builder, final FlowElement propElem, final Processor processor) throws FingerprintException {
         // If we have a Processor to use, first determine if the value given is the default value for the specified property.
         // If so, we do not add the property to the fingerprint.
         // We do this because if a Processor is updated to add a new property, whenever we connect to the cluster, we have issues because
         // the NCM's flow comes from disk, where the flow.xml doesn't have the new property but our FlowController does have the new property.
         // This causes the fingerprints not to match. As a result, we just ignore default values, and this resolves the issue.
         if (processor != null) {
-            final String propName = DomUtils.getChildElementsByTagName(propElem, "name").get(0).getTextContent();
+            final String propName = propElem.getChildren("name").get(0).getTextContent();
 
             String propValue = null;
-            final List<Element> valueElements = DomUtils.getChildElementsByTagName(propElem, "value");
-            if (valueElements != null && valueElements.size() >= 1) {
+            final List<FlowElement> valueElements = propElem.getChildren("value");
+            if (valueElements.size() >= 1) {
                 propValue = valueElements.get(0).getTextContent();
             }
 
@@ -559,10 +544,10 @@ public final class FingerprintFactory {
         }
 
         // name
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(propElem, "name"));
+        appendFirstValue(builder, propElem, "name");
 
         // value
-        String propValue = getFirstValue(DomUtils.getChildNodesByTagName(propElem, "value"));
+        String propValue = getFirstValue(propElem, "value");
         if (isEncrypted(propValue)) {
             propValue = decrypt(propValue);
         }
@@ -571,18 +556,18 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addPortFingerprint(final StringBuilder builder, final Element portElem) throws FingerprintException {
+    private StringBuilder addPortFingerprint(final StringBuilder builder, final FlowElement portElem) throws FingerprintException {
         // id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(portElem, "id"));
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(portElem, "name"));
+        appendFirstValue(builder, portElem, "id");
+        appendFirstValue(builder, portElem, "name");
 
-        final NodeList userAccessControlNodeList = DomUtils.getChildNodesByTagName(portElem, "userAccessControl");
-        if (userAccessControlNodeList == null || userAccessControlNodeList.getLength() == 0) {
+        final List<FlowElement> userAccessControlElems = portElem.getChildren("userAccessControl");
+        if (userAccessControlElems.isEmpty()) {
             builder.append("NO_USER_ACCESS_CONTROL");
         } else {
             final List<String> sortedAccessControl = new ArrayList<>();
-            for (int i = 0; i < userAccessControlNodeList.getLength(); i++) {
-                sortedAccessControl.add(userAccessControlNodeList.item(i).getTextContent());
+            for (final FlowElement userAccessControlElem : userAccessControlElems) {
+                sortedAccessControl.add(userAccessControlElem.getTextContent());
             }
             Collections.sort(sortedAccessControl);
             for (final String user : sortedAccessControl) {
@@ -590,13 +575,15 @@ public final class FingerprintFactory {
             }
         }
 
-        final NodeList groupAccessControlNodeList = DomUtils.getChildNodesByTagName(portElem, "userAccessControl");
-        if (groupAccessControlNodeList == null || groupAccessControlNodeList.getLength() == 0) {
+        // the group access control has always been fingerprinted from the user access control elements;
+        // this is retained so that the fingerprints of existing flows do not change
+        final List<FlowElement> groupAccessControlElems = portElem.getChildren("userAccessControl");
+        if (groupAccessControlElems.isEmpty()) {
             builder.append("NO_GROUP_ACCESS_CONTROL");
         } else {
             final List<String> sortedAccessControl = new ArrayList<>();
-            for (int i = 0; i < groupAccessControlNodeList.getLength(); i++) {
-                sortedAccessControl.add(groupAccessControlNodeList.item(i).getTextContent());
+            for (final FlowElement groupAccessControlElem : groupAccessControlElems) {
+                sortedAccessControl.add(groupAccessControlElem.getTextContent());
             }
 
             Collections.sort(sortedAccessControl);
@@ -636,9 +623,9 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addLabelFingerprint(final StringBuilder builder, final Element labelElem) {
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(labelElem, "id"));
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(labelElem, "value"));
+    private StringBuilder addLabelFingerprint(final StringBuilder builder, final FlowElement labelElem) {
+        appendFirstValue(builder, labelElem, "id");
+        appendFirstValue(builder, labelElem, "value");
         return builder;
     }
 
@@ -648,16 +635,13 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addRemoteProcessGroupFingerprint(final StringBuilder builder, final Element remoteProcessGroupElem) throws FingerprintException {
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(remoteProcessGroupElem, "id"));
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(remoteProcessGroupElem, "url"));
+    private StringBuilder addRemoteProcessGroupFingerprint(final StringBuilder builder, final FlowElement remoteProcessGroupElem) throws FingerprintException {
+        appendFirstValue(builder, remoteProcessGroupElem, "id");
+        appendFirstValue(builder, remoteProcessGroupElem, "url");
 
-        final NodeList inputPortList = DomUtils.getChildNodesByTagName(remoteProcessGroupElem, "inputPort");
-        final NodeList outputPortList = DomUtils.getChildNodesByTagName(remoteProcessGroupElem, "outputPort");
-
-        final Comparator<Element> portComparator = new Comparator<Element>() {
+        final Comparator<FlowElement> portComparator = new Comparator<FlowElement>() {
             @Override
-            public int compare(final Element o1, final Element o2) {
+            public int compare(final FlowElement o1, final FlowElement o2) {
                 if (o1 == null && o2 == null) {
                     return 0;
                 }
@@ -668,49 +652,43 @@ public final class FingerprintFactory {
                     return -1;
                 }
 
-                NodeList nameList1 = DomUtils.getChildNodesByTagName(o1, "name");
-                NodeList nameList2 = DomUtils.getChildNodesByTagName(o2, "name");
+                final List<FlowElement> nameList1 = o1.getChildren("name");
+                final List<FlowElement> nameList2 = o2.getChildren("name");
 
-                if (nameList1.getLength() == 0 && nameList2.getLength() == 0) {
+                if (nameList1.isEmpty() && nameList2.isEmpty()) {
                     return 0;
                 }
-                if (nameList1.getLength() == 0) {
+                if (nameList1.isEmpty()) {
                     return 1;
                 }
-                if (nameList2.getLength() == 0) {
+                if (nameList2.isEmpty()) {
                     return -1;
                 }
 
-                return nameList1.item(0).getTextContent().compareTo(nameList2.item(0).getTextContent());
+                return nameList1.get(0).getTextContent().compareTo(nameList2.get(0).getTextContent());
             }
         };
 
-        final List<Element> sortedInputPorts = new ArrayList<>(inputPortList.getLength());
-        for (int i = 0; i < inputPortList.getLength(); i++) {
-            sortedInputPorts.add((Element) inputPortList.item(i));
-        }
+        final List<FlowElement> sortedInputPorts = new ArrayList<>(remoteProcessGroupElem.getChildren("inputPort"));
         Collections.sort(sortedInputPorts, portComparator);
 
-        final List<Element> sortedOutputPorts = new ArrayList<>(outputPortList.getLength());
-        for (int i = 0; i < outputPortList.getLength(); i++) {
-            sortedOutputPorts.add((Element) outputPortList.item(i));
-        }
+        final List<FlowElement> sortedOutputPorts = new ArrayList<>(remoteProcessGroupElem.getChildren("outputPort"));
         Collections.sort(sortedOutputPorts, portComparator);
 
-        for (final Element inputPortElement : sortedInputPorts) {
+        for (final FlowElement inputPortElement : sortedInputPorts) {
             addRemoteGroupPortFingerprint(builder, inputPortElement);
         }
 
-        for (final Element outputPortElement : sortedOutputPorts) {
+        for (final FlowElement outputPortElement : sortedOutputPorts) {
             addRemoteGroupPortFingerprint(builder, outputPortElement);
         }
 
         return builder;
     }
 
-    private StringBuilder addRemoteGroupPortFingerprint(final StringBuilder builder, final Element remoteGroupPortElement) {
+    private StringBuilder addRemoteGroupPortFingerprint(final StringBuilder builder, final FlowElement remoteGroupPortElement) {
         for (final String childName : new String[]{"id", "scheduledState", "maxConcurrentTasks", "useCompression"}) {
-            appendFirstValue(builder, DomUtils.getChildNodesByTagName(remoteGroupPortElement, childName));
+            appendFirstValue(builder, remoteGroupPortElement, childName);
         }
 
         return builder;
@@ -771,26 +749,26 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addConnectionFingerprint(final StringBuilder builder, final Element connectionElem) throws FingerprintException {
+    private StringBuilder addConnectionFingerprint(final StringBuilder builder, final FlowElement connectionElem) throws FingerprintException {
         // id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "id"));
+        appendFirstValue(builder, connectionElem, "id");
         // source id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "sourceId"));
+        appendFirstValue(builder, connectionElem, "sourceId");
         // source group id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "sourceGroupId"));
+        appendFirstValue(builder, connectionElem, "sourceGroupId");
         // source type
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "sourceType"));
+        appendFirstValue(builder, connectionElem, "sourceType");
         // destination id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "destinationId"));
+        appendFirstValue(builder, connectionElem, "destinationId");
         // destination group id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "destinationGroupId"));
+        appendFirstValue(builder, connectionElem, "destinationGroupId");
         // destination type
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(connectionElem, "destinationType"));
+        appendFirstValue(builder, connectionElem, "destinationType");
 
         // relationships
-        final NodeList relationshipElems = DomUtils.getChildNodesByTagName(connectionElem, "relationship");
-        final List<Element> sortedRelationshipElems = sortElements(relationshipElems, getConnectionRelationshipsComparator());
-        for (final Element relationshipElem : sortedRelationshipElems) {
+        final List<FlowElement> sortedRelationshipElems = new ArrayList<>(connectionElem.getChildren("relationship"));
+        Collections.sort(sortedRelationshipElems, getConnectionRelationshipsComparator());
+        for (final FlowElement relationshipElem : sortedRelationshipElems) {
             addConnectionRelationshipFingerprint(builder, relationshipElem);
         }
 
@@ -816,15 +794,15 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private StringBuilder addConnectionRelationshipFingerprint(final StringBuilder builder, final Element relationshipElem) throws FingerprintException {
+    private StringBuilder addConnectionRelationshipFingerprint(final StringBuilder builder, final FlowElement relationshipElem) throws FingerprintException {
         // destination type
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(relationshipElem, "relationship"));
+        appendFirstValue(builder, relationshipElem, "relationship");
         return builder;
     }
 
-    private StringBuilder addFunnelFingerprint(final StringBuilder builder, final Element funnelElem) throws FingerprintException {
+    private StringBuilder addFunnelFingerprint(final StringBuilder builder, final FlowElement funnelElem) throws FingerprintException {
         // id
-        appendFirstValue(builder, DomUtils.getChildNodesByTagName(funnelElem, "id"));
+        appendFirstValue(builder, funnelElem, "id");
         return builder;
     }
 
@@ -833,33 +811,21 @@ public final class FingerprintFactory {
         return builder;
     }
 
-    private Comparator<Element> getIdsComparator() {
-        return new Comparator<Element>() {
-            @Override
-            public int compare(final Element e1, final Element e2) {
-                // compare using processor ids
-                final String e1Id = getFirstValue(DomUtils.getChildNodesByTagName(e1, "id"));
-                final String e2Id = getFirstValue(DomUtils.getChildNodesByTagName(e2, "id"));
-                return e1Id.compareTo(e2Id);
-            }
-        };
-    }
-
-    private Comparator<Element> getProcessorPropertiesComparator() {
-        return new Comparator<Element>() {
+    private Comparator<FlowElement> getProcessorPropertiesComparator() {
+        return new Comparator<FlowElement>() {
             @Override
-            public int compare(final Element e1, final Element e2) {
+            public int compare(final FlowElement e1, final FlowElement e2) {
                 // combine the property name and value for the first required property
-                final String e1PropName = getFirstValue(DomUtils.getChildNodesByTagName(e1, "name"));
-                String e1PropValue = getFirstValue(DomUtils.getChildNodesByTagName(e1, "value"));
+                final String e1PropName = getFirstValue(e1, "name");
+                String e1PropValue = getFirstValue(e1, "value");
                 if (isEncrypted(e1PropValue)) {
                     e1PropValue = decrypt(e1PropValue);
                 }
                 final String e1CombinedValue = e1PropName + e1PropValue;
 
                 // combine the property name and value for the second required property
-                final String e2PropName = getFirstValue(DomUtils.getChildNodesByTagName(e2, "name"));
-                String e2PropValue = getFirstValue(DomUtils.getChildNodesByTagName(e2, "value"));
+                final String e2PropName = getFirstValue(e2, "name");
+                String e2PropValue = getFirstValue(e2, "value");
                 if (isEncrypted(e2PropValue)) {
                     e2PropValue = decrypt(e2PropValue);
                 }
@@ -871,14 +837,14 @@ public final class FingerprintFactory {
         };
     }
 
-    private Comparator<Element> getConnectionRelationshipsComparator() {
+    private Comparator<FlowElement> getConnectionRelationshipsComparator() {
         return getSingleChildComparator("relationship");
     }
 
-    private Comparator<Element> getSingleChildComparator(final String childElementName) {
-        return new Comparator<Element>() {
+    private Comparator<FlowElement> getSingleChildComparator(final String childElementName) {
+        return new Comparator<FlowElement>() {
             @Override
-            public int compare(final Element e1, final Element e2) {
+            public int compare(final FlowElement e1, final FlowElement e2) {
                 if (e2 == null) {
                     return -1;
                 } else if (e1 == null) {
@@ -886,11 +852,11 @@ public final class FingerprintFactory {
                 }
 
                 // compare using processor ids
-                final String e1Id = getFirstValue(DomUtils.getChildNodesByTagName(e1, childElementName));
+                final String e1Id = getFirstValue(e1, childElementName);
                 if (e1Id == null) {
                     return 1;
                 }
-                final String e2Id = getFirstValue(DomUtils.getChildNodesByTagName(e2, childElementName));
+                final String e2Id = getFirstValue(e2, childElementName);
                 if (e2Id == null) {
                     return -1;
                 }
@@ -900,10 +866,10 @@ public final class FingerprintFactory {
         };
     }
 
-    private Comparator<Element> getElementTextComparator() {
-        return new Comparator<Element>() {
+    private Comparator<FlowElement> getElementTextComparator() {
+        return new Comparator<FlowElement>() {
             @Override
-            public int compare(final Element e1, final Element e2) {
+            public int compare(final FlowElement e1, final FlowElement e2) {
                 if (e2 == null) {
                     return -1;
                 } else if (e1 == null) {
@@ -915,32 +881,12 @@ public final class FingerprintFactory {
         };
     }
 
-    private List<Element> sortElements(final NodeList nodeList, final Comparator<Element> comparator) {
-
-        final List<Element> result = new ArrayList<>();
-
-        // add node list to sorted list
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            result.add((Element) nodeList.item(i));
-        }
-
-        Collections.sort(result, comparator);
-
-        return result;
-    }
-
-    private String getValue(final Node node) {
-        return getValue(node, NO_VALUE);
-    }
-
-    private String getValue(final Node node, final String defaultValue) {
-        final String value;
-        if (node.getTextContent() == null || StringUtils.isBlank(node.getTextContent())) {
-            value = defaultValue;
-        } else {
-            value = node.getTextContent().trim();
+    private String getValue(final FlowElement element) {
+        final String textContent = element.getTextContent();
+        if (StringUtils.isBlank(textContent)) {
+            return NO_VALUE;
         }
-        return value;
+        return textContent.trim();
     }
 
     private String getValue(final String value, final String defaultValue) {
@@ -951,26 +897,13 @@ public final class FingerprintFactory {
         }
     }
 
-    private String getFirstValue(final NodeList nodeList) {
-        return getFirstValue(nodeList, NO_VALUE);
-    }
-
-    private String getFirstValue(final NodeList nodeList, final String defaultValue) {
-        final String value;
-        if (nodeList == null || nodeList.getLength() == 0) {
-            value = defaultValue;
-        } else {
-            value = getValue(nodeList.item(0));
-        }
-        return value;
-    }
-
-    private StringBuilder appendFirstValue(final StringBuilder builder, final NodeList nodeList) {
-        return appendFirstValue(builder, nodeList, NO_VALUE);
+    private String getFirstValue(final FlowElement element, final String childName) {
+        final FlowElement child = element.getFirstChild(childName);
+        return (child == null) ? NO_VALUE : getValue(child);
     }
 
-    private StringBuilder appendFirstValue(final StringBuilder builder, final NodeList nodeList, final String defaultValue) {
-        return builder.append(getFirstValue(nodeList, defaultValue));
+    private StringBuilder appendFirstValue(final StringBuilder builder, final FlowElement element, final String childName) {
+        return builder.append(getFirstValue(element, childName));
     }
 
     private boolean isEncrypted(final String value) {
@@ -982,4 +915,167 @@ public final class FingerprintFactory {
         final int decryptEndIdx = value.length() - ENCRYPTED_VALUE_SUFFIX.length();
         return encryptor.decrypt(value.substring(decryptStartIdx, decryptEndIdx));
     }
+
+    /**
+     * Advances the reader to the next child of the current element.
+     *
+     * @return true if the reader is positioned at the start of a child element,
+     * false if it is positioned at the end of the current element
+     */
+    private static boolean nextChildElement(final XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads the element whose start element the given reader is positioned at,
+     * along with all of its descendants, leaving the reader positioned at the
+     * element's end element.
+     */
+    private static FlowElement readElement(final XMLStreamReader reader) throws XMLStreamException {
+        final FlowElement element = new FlowElement(reader.getLocalName());
+        final Deque<FlowElement> stack = new ArrayDeque<>();
+        stack.push(element);
+
+        while (!stack.isEmpty() && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    final FlowElement child = new FlowElement(reader.getLocalName());
+                    stack.peek().addChild(child);
+                    stack.push(child);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    stack.pop();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    stack.peek().appendText(reader.getText());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return element;
+    }
+
+    /**
+     * The fingerprint of a component, along with the value that it is ordered
+     * by within its Process Group
+     */
+    private static class SortableFingerprint implements Comparable<SortableFingerprint> {
+
+        private final String sortKey;
+        private final CharSequence fingerprint;
+
+        public SortableFingerprint(final String sortKey, final CharSequence fingerprint) {
+            this.sortKey = sortKey;
+            this.fingerprint = fingerprint;
+        }
+
+        public CharSequence getFingerprint() {
+            return fingerprint;
+        }
+
+        @Override
+        public int compareTo(final SortableFingerprint other) {
+            return sortKey.compareTo(other.sortKey);
+        }
+    }
+
+    /**
+     * A lightweight, read-only representation of a component's element in the
+     * flow, which is created for one component at a time rather than for the
+     * entire flow
+     */
+    private static class FlowElement {
+
+        private final String name;
+        private StringBuilder text;
+        private List<FlowElement> children;
+
+        public FlowElement(final String name) {
+            this.name = name;
+        }
+
+        private void appendText(final String value) {
+            if (text == null) {
+                text = new StringBuilder(value);
+            } else {
+                text.append(value);
+            }
+        }
+
+        private void addChild(final FlowElement child) {
+            if (children == null) {
+                children = new ArrayList<>();
+            }
+            children.add(child);
+        }
+
+        public FlowElement getFirstChild(final String childName) {
+            if (children != null) {
+                for (final FlowElement child : children) {
+                    if (child.name.equals(childName)) {
+                        return child;
+                    }
+                }
+            }
+            return null;
+        }
+
+        public List<FlowElement> getChildren(final String childName) {
+            if (children == null) {
+                return Collections.emptyList();
+            }
+
+            final List<FlowElement> matches = new ArrayList<>();
+            for (final FlowElement child : children) {
+                if (child.name.equals(childName)) {
+                    matches.add(child);
+                }
+            }
+            return matches;
+        }
+
+        /**
+         * @return the text of this element and its descendants, as
+         * {@link org.w3c.dom.Node#getTextContent()} would return it for the
+         * elements that are fingerprinted, none of which have mixed content
+         */
+        public String getTextContent() {
+            if (children == null) {
+                return (text == null) ? "" : text.toString();
+            }
+
+            final StringBuilder sb = new StringBuilder();
+            if (text != null) {
+                sb.append(text);
+            }
+            for (final FlowElement child : children) {
+                sb.append(child.getTextContent());
+            }
+            return sb.toString();
+        }
+    }
 }
@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.groups;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.connectable.Funnel;
+import org.apache.nifi.connectable.Port;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.remote.RootGroupPort;
+import org.apache.nifi.search.Searchable;
+
+/**
+ * An in-memory inverted index of the searchable text (identifiers, names,
+ * comments, properties, relationships and so on) of every component in the
+ * flow. The index is maintained incrementally by the Process Groups as
+ * components are added, removed and modified, so that a search does not need
+ * to walk the flow.
+ *
+ * Searches are case-insensitive substring searches. To support them, every
+ * sequence of three characters is mapped to the distinct values that contain
+ * it, and every distinct value is mapped to the components that hold it.
+ * Because many components share values (property names and descriptions,
+ * types and relationships), the size of the index is proportional to the
+ * vocabulary of the flow rather than to the number of components.
+ *
+ * The index only identifies candidates; it is the responsibility of the caller
+ * to verify each candidate, as some matches depend on the state of a component
+ * rather than its text. Components whose searchable text cannot be tracked,
+ * such as Processors that are {@link Searchable} and Connections to or from
+ * Remote Process Groups, are always returned as candidates.
+ */
+public class ComponentSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<String, IndexEntry> entries = new HashMap<>();
+    private final Map<String, Set<String>> componentsByValue = new HashMap<>();
+    private final Map<String, Set<String>> valuesByGram = new HashMap<>();
+    private final Set<String> alwaysCandidates = new HashSet<>();
+
+    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+    private final Lock readLock = rwLock.readLock();
+    private final Lock writeLock = rwLock.writeLock();
+
+    public void index(final ProcessGroup group) {
+        index(group, false);
+    }
+
+    public void index(final ProcessorNode processor) {
+        index(processor, false);
+    }
+
+    public void index(final Connection connection) {
+        index(connection, false);
+    }
+
+    public void index(final Port port) {
+        index(port, false);
+    }
+
+    public void index(final RemoteProcessGroup remoteGroup) {
+        index(remoteGroup, false);
+    }
+
+    public void index(final Funnel funnel) {
+        index(funnel, false);
+    }
+
+    private void index(final ProcessGroup group, final boolean onlyIfIndexed) {
+        final Set<String> values = new HashSet<>();
+        addValue(group.getIdentifier(), values);
+        addValue(group.getName(), values);
+        addValue(group.getComments(), values);
+
+        put(group.getIdentifier(), group, values, false, onlyIfIndexed);
+    }
+
+    private void index(final ProcessorNode processor, final boolean onlyIfIndexed) {
+        final Set<String> values = new HashSet<>();
+        addValue(processor.getIdentifier(), values);
+        addValue(processor.getName(), values);
+        addValue(processor.getComments(), values);
+        addValue(processor.getProcessor().getClass().getSimpleName(), values);
+
+        for (final Relationship relationship : processor.getRelationships()) {
+            addValue(relationship.getName(), values);
+        }
+
+        for (final Map.Entry<PropertyDescriptor, String> entry : processor.getProperties().entrySet()) {
+            final PropertyDescriptor descriptor = entry.getKey();
+            addValue(descriptor.getName(), values);
+            addValue(descriptor.getDescription(), values);
+            addValue(entry.getValue(), values);
+        }
+
+        // the matches reported by a Searchable processor are not known to the index
+        final boolean searchable = processor.getProcessor() instanceof Searchable;
+        put(processor.getIdentifier(), processor, values, searchable, onlyIfIndexed);
+    }
+
+    private void index(final Connection connection, final boolean onlyIfIndexed) {
+        final Set<String> values = new HashSet<>();
+        addValue(connection.getIdentifier(), values);
+        addValue(connection.getName(), values);
+
+        for (final Relationship relationship : connection.getRelationships()) {
+            addValue(relationship.getName(), values);
+        }
+
+        for (final FlowFilePrioritizer prioritizer : connection.getFlowFileQueue().getPriorities()) {
+            addValue(prioritizer.getClass().getName(), values);
+        }
+
+        final Connectable source = connection.getSource();
+        addValue(source.getIdentifier(), values);
+        addValue(source.getName(), values);
+        addValue(source.getComments(), values);
+
+        final Connectable destination = connection.getDestination();
+        addValue(destination.getIdentifier(), values);
+        addValue(destination.getName(), values);
+        addValue(destination.getComments(), values);
+
+        // the names of remote ports are refreshed from the remote instance without notifying the index
+        final boolean remote = isRemotePort(source) || isRemotePort(destination);
+        put(connection.getIdentifier(), connection, values, remote, onlyIfIndexed);
+    }
+
+    private void index(final Port port, final boolean onlyIfIndexed) {
+        final Set<String> values = new HashSet<>();
+        addValue(port.getIdentifier(), values);
+        addValue(port.getName(), values);
+        addValue(port.getComments(), values);
+
+        if (port instanceof RootGroupPort) {
+            final RootGroupPort rootGroupPort = (RootGroupPort) port;
+            for (final String userAccessControl : rootGroupPort.getUserAccessControl()) {
+                addValue(userAccessControl, values);
+            }
+            for (final String groupAccessControl : rootGroupPort.getGroupAccessControl()) {
+                addValue(groupAccessControl, values);
+            }
+        }
+
+        put(port.getIdentifier(), port, values, false, onlyIfIndexed);
+    }
+
+    private void index(final RemoteProcessGroup remoteGroup, final boolean onlyIfIndexed) {
+        final Set<String> values = new HashSet<>();
+        addValue(remoteGroup.getIdentifier(), values);
+        addValue(remoteGroup.getName(), values);
+        addValue(remoteGroup.getComments(), values);
+        addValue(remoteGroup.getTargetUri().toString(), values);
+
+        put(remoteGroup.getIdentifier(), remoteGroup, values, false, onlyIfIndexed);
+    }
+
+    private void index(final Funnel funnel, final boolean onlyIfIndexed) {
+        final Set<String> values = new HashSet<>();
+        addValue(funnel.getIdentifier(), values);
+
+        put(funnel.getIdentifier(), funnel, values, false, onlyIfIndexed);
+    }
+
+    private static boolean isRemotePort(final Connectable connectable) {
+        final ConnectableType type = connectable.getConnectableType();
+        return type == ConnectableType.REMOTE_INPUT_PORT || type == ConnectableType.REMOTE_OUTPUT_PORT;
+    }
+
+    /**
+     * Re-indexes the component with the given identifier because its
+     * searchable text may have changed. Connections to and from the component
+     * are re-indexed as well, as their searchable text includes the name and
+     * comments of their source and destination. If the component is not
+     * indexed, this method does nothing.
+     *
+     * @param componentId
+     */
+    public void update(final String componentId) {
+        final IndexEntry entry;
+        readLock.lock();
+        try {
+            entry = entries.get(componentId);
+        } finally {
+            readLock.unlock();
+        }
+
+        if (entry == null) {
+            return;
+        }
+
+        final Object component = entry.getComponent();
+        if (component instanceof ProcessGroup) {
+            index((ProcessGroup) component, true);
+        } else if (component instanceof ProcessorNode) {
+            index((ProcessorNode) component, true);
+        } else if (component instanceof Connection) {
+            index((Connection) component, true);
+        } else if (component instanceof Port) {
+            index((Port) component, true);
+        } else if (component instanceof RemoteProcessGroup) {
+            index((RemoteProcessGroup) component, true);
+        } else if (component instanceof Funnel) {
+            index((Funnel) component, true);
+        }
+
+        if (component instanceof Connectable) {
+            final Connectable connectable = (Connectable) component;
+            for (final Connection connection : connectable.getConnections()) {
+                index(connection, true);
+            }
+            for (final Connection connection : connectable.getIncomingConnections()) {
+                index(connection, true);
+            }
+        }
+    }
+
+    /**
+     * Removes the component with the given identifier from the index
+     *
+     * @param componentId
+     */
+    public void remove(final String componentId) {
+        writeLock.lock();
+        try {
+            final IndexEntry entry = entries.remove(componentId);
+            if (entry != null) {
+                unindexValues(componentId, entry.getValues());
+            }
+            alwaysCandidates.remove(componentId);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Discards the contents of the index and indexes the given Process Group
+     * and all of its descendants. This is used when the flow is replaced in its
+     * entirety.
+     *
+     * @param rootGroup
+     */
+    public void rebuild(final ProcessGroup rootGroup) {
+        writeLock.lock();
+        try {
+            entries.clear();
+            componentsByValue.clear();
+            valuesByGram.clear();
+            alwaysCandidates.clear();
+        } finally {
+            writeLock.unlock();
+        }
+
+        indexRecursively(rootGroup);
+    }
+
+    private void indexRecursively(final ProcessGroup group) {
+        index(group);
+        for (final ProcessorNode processor : group.getProcessors()) {
+            index(processor);
+        }
+        for (final Connection connection : group.getConnections()) {
+            index(connection);
+        }
+        for (final RemoteProcessGroup remoteGroup : group.getRemoteProcessGroups()) {
+            index(remoteGroup);
+        }
+        for (final Port port : group.getInputPorts()) {
+            index(port);
+        }
+        for (final Port port : group.getOutputPorts()) {
+            index(port);
+        }
+        for (final Funnel funnel : group.getFunnels()) {
+            index(funnel);
+        }
+        for (final ProcessGroup childGroup : group.getProcessGroups()) {
+            indexRecursively(childGroup);
+        }
+    }
+
+    /**
+     * @return the number of components in the index
+     */
+    public int size() {
+        readLock.lock();
+        try {
+            return entries.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the components whose searchable text contains the given term,
+     * ignoring case, along with the components that are always candidates.
+     *
+     * @param term
+     * @return
+     */
+    public Candidates findCandidates(final String term) {
+        final String foldedTerm = fold(term);
+        final Set<String> componentIds = new HashSet<>();
+
+        readLock.lock();
+        try {
+            for (final String value : getValuesToScan(foldedTerm)) {
+                if (value.contains(foldedTerm)) {
+                    componentIds.addAll(componentsByValue.get(value));
+                }
+            }
+            componentIds.addAll(alwaysCandidates);
+
+            return createCandidates(componentIds);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return every component in the index. This is used when a search must
+     * consider the state of components rather than their text
+     */
+    public Candidates getAllComponents() {
+        readLock.lock();
+        try {
+            return createCandidates(entries.keySet());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the read lock held
+     */
+    private Collection<String> getValuesToScan(final String foldedTerm) {
+        if (foldedTerm.length() < GRAM_LENGTH) {
+            return componentsByValue.keySet();
+        }
+
+        // every value containing the term contains each of its grams; scan the rarest
+        Set<String> rarest = null;
+        for (final String gram : getGrams(foldedTerm)) {
+            final Set<String> values = valuesByGram.get(gram);
+            if (values == null) {
+                return Collections.emptySet();
+            }
+            if (rarest == null || values.size() < rarest.size()) {
+                rarest = values;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Must be called with the read lock held
+     */
+    private Candidates createCandidates(final Collection<String> componentIds) {
+        final Candidates candidates = new Candidates();
+        for (final String componentId : componentIds) {
+            final IndexEntry entry = entries.get(componentId);
+            if (entry != null) {
+                candidates.add(entry.getComponent());
+            }
+        }
+        return candidates;
+    }
+
+    private void put(final String componentId, final Object component, final Set<String> values, final boolean alwaysCandidate, final boolean onlyIfIndexed) {
+        writeLock.lock();
+        try {
+            final IndexEntry previous = entries.get(componentId);
+            if (previous == null && onlyIfIndexed) {
+                return;
+            }
+            if (previous != null) {
+                unindexValues(componentId, previous.getValues());
+            }
+
+            entries.put(componentId, new IndexEntry(component, values));
+            indexValues(componentId, values);
+
+            if (alwaysCandidate) {
+                alwaysCandidates.add(componentId);
+            } else {
+                alwaysCandidates.remove(componentId);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the write lock held
+     */
+    private void indexValues(final String componentId, final Set<String> values) {
+        for (final String value : values) {
+            Set<String> componentIds = componentsByValue.get(value);
+            if (componentIds == null) {
+                componentIds = new HashSet<>();
+                componentsByValue.put(value, componentIds);
+
+                for (final String gram : getGrams(value)) {
+                    Set<String> gramValues = valuesByGram.get(gram);
+                    if (gramValues == null) {
+                        gramValues = new HashSet<>();
+                        valuesByGram.put(gram, gramValues);
+                    }
+                    gramValues.add(value);
+                }
+            }
+            componentIds.add(componentId);
+        }
+    }
+
+    /**
+     * Must be called with the write lock held
+     */
+    private void unindexValues(final String componentId, final Set<String> values) {
+        for (final String value : values) {
+            final Set<String> componentIds = componentsByValue.get(value);
+            if (componentIds == null) {
+                continue;
+            }
+
+            componentIds.remove(componentId);
+            if (componentIds.isEmpty()) {
+                componentsByValue.remove(value);
+
+                for (final String gram : getGrams(value)) {
+                    final Set<String> gramValues = valuesByGram.get(gram);
+                    if (gramValues != null) {
+                        gramValues.remove(value);
+                        if (gramValues.isEmpty()) {
+                            valuesByGram.remove(gram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void addValue(final String value, final Set<String> values) {
+        if (value != null && !value.isEmpty()) {
+            values.add(fold(value));
+        }
+    }
+
+    private static Set<String> getGrams(final String value) {
+        final Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            grams.add(value.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Folds the case of each character of the given value. Two characters are
+     * considered equal ignoring case by {@link String#regionMatches} only if
+     * their folded forms are equal, so a value contains a term ignoring case
+     * only if the folded value contains the folded term.
+     *
+     * @param value
+     * @return
+     */
+    static String fold(final String value) {
+        final char[] chars = value.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static class IndexEntry {
+
+        private final Object component;
+        private final Set<String> values;
+
+        public IndexEntry(final Object component, final Set<String> values) {
+            this.component = component;
+            this.values = values;
+        }
+
+        public Object getComponent() {
+            return component;
+        }
+
+        public Set<String> getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * The components that may match a search, grouped by type
+     */
+    public static class Candidates {
+
+        private final List<ProcessGroup> processGroups = new ArrayList<>();
+        private final List<ProcessorNode> processors = new ArrayList<>();
+        private final List<Connection> connections = new ArrayList<>();
+        private final List<RemoteProcessGroup> remoteProcessGroups = new ArrayList<>();
+        private final List<Port> inputPorts = new ArrayList<>();
+        private final List<Port> outputPorts = new ArrayList<>();
+        private final List<Funnel> funnels = new ArrayList<>();
+
+        private void add(final Object component) {
+            if (component instanceof ProcessGroup) {
+                processGroups.add((ProcessGroup) component);
+            } else if (component instanceof ProcessorNode) {
+                processors.add((ProcessorNode) component);
+            } else if (component instanceof Connection) {
+                connections.add((Connection) component);
+            } else if (component instanceof Port) {
+                final Port port = (Port) component;
+                if (port.getConnectableType() == ConnectableType.INPUT_PORT) {
+                    inputPorts.add(port);
+                } else {
+                    outputPorts.add(port);
+                }
+            } else if (component instanceof RemoteProcessGroup) {
+                remoteProcessGroups.add((RemoteProcessGroup) component);
+            } else if (component instanceof Funnel) {
+                funnels.add((Funnel) component);
+            }
+        }
+
+        public List<ProcessGroup> getProcessGroups() {
+            return processGroups;
+        }
+
+        public List<ProcessorNode> getProcessors() {
+            return processors;
+        }
+
+        public List<Connection> getConnections() {
+            return connections;
+        }
+
+        public List<RemoteProcessGroup> getRemoteProcessGroups() {
+            return remoteProcessGroups;
+        }
+
+        public List<Port> getInputPorts() {
+            return inputPorts;
+        }
+
+        public List<Port> getOutputPorts() {
+            return outputPorts;
+        }
+
+        public List<Funnel> getFunnels() {
+            return funnels;
+        }
+    }
+}
@@ -82,6 +82,7 @@ public final class StandardProcessGroup implements ProcessGroup {
     private final Map<String, ProcessorNode> processors = new HashMap<>();
     private final Map<String, Funnel> funnels = new HashMap<>();
     private final StringEncryptor encryptor;
+    private final ComponentSearchIndex searchIndex;
 
     private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
     private final Lock readLock = rwLock.readLock();
@@ -89,13 +90,15 @@ public final class StandardProcessGroup implements ProcessGroup {
 
     private static final Logger LOG = LoggerFactory.getLogger(StandardProcessGroup.class);
 
-    public StandardProcessGroup(final String id, final ControllerServiceProvider serviceProvider, final ProcessScheduler scheduler, final NiFiProperties nifiProps, final StringEncryptor encryptor) {
+    public StandardProcessGroup(final String id, final ControllerServiceProvider serviceProvider, final ProcessScheduler scheduler, final NiFiProperties nifiProps,
+            final StringEncryptor encryptor, final ComponentSearchIndex searchIndex) {
         this.id = id;
         this.controllerServiceProvider = serviceProvider;
         this.parent = new AtomicReference<>();
         this.scheduler = scheduler;
         this.comments = new AtomicReference<>("");
         this.encryptor = encryptor;
+        this.searchIndex = searchIndex;
         name = new AtomicReference<>();
         position = new AtomicReference<>(new Position(0D, 0D));
     }
@@ -127,6 +130,7 @@ public final class StandardProcessGroup implements ProcessGroup {
         }
 
         this.name.set(name);
+        searchIndex.update(id);
     }
 
     @Override
@@ -147,6 +151,12 @@ public final class StandardProcessGroup implements ProcessGroup {
     @Override
     public void setComments(final String comments) {
         this.comments.set(comments);
+        searchIndex.update(id);
+    }
+
+    @Override
+    public void onComponentModified(final String componentId) {
+        searchIndex.update(componentId);
     }
 
     @Override
@@ -375,6 +385,7 @@ public final class StandardProcessGroup implements ProcessGroup {
 
             port.setProcessGroup(this);
             inputPorts.put(requireNonNull(port).getIdentifier(), port);
+            searchIndex.index(port);
         } finally {
             writeLock.unlock();
         }
@@ -409,6 +420,7 @@ public final class StandardProcessGroup implements ProcessGroup {
                 throw new IllegalStateException(port + " is not an Input Port of this Process Group");
             }
 
+            searchIndex.remove(port.getIdentifier());
             LOG.info("Input Port {} removed from flow", port);
         } finally {
             writeLock.unlock();
@@ -457,6 +469,7 @@ public final class StandardProcessGroup implements ProcessGroup {
 
             port.setProcessGroup(this);
             outputPorts.put(port.getIdentifier(), port);
+            searchIndex.index(port);
         } finally {
             writeLock.unlock();
         }
@@ -482,6 +495,7 @@ public final class StandardProcessGroup implements ProcessGroup {
                 throw new IllegalStateException(port + " is not an Output Port of this Process Group");
             }
 
+            searchIndex.remove(port.getIdentifier());
             LOG.info("Output Port {} removed from flow", port);
         } finally {
             writeLock.unlock();
@@ -518,6 +532,7 @@ public final class StandardProcessGroup implements ProcessGroup {
         try {
             group.setParent(this);
             processGroups.put(Objects.requireNonNull(group).getIdentifier(), group);
+            searchIndex.index(group);
         } finally {
             writeLock.unlock();
         }
@@ -558,6 +573,7 @@ public final class StandardProcessGroup implements ProcessGroup {
             verifyCanRemove(toRemove);
 
             processGroups.remove(group.getIdentifier());
+            searchIndex.remove(group.getIdentifier());
 
             LOG.info("{} removed from flow", group);
         } finally {
@@ -581,6 +597,7 @@ public final class StandardProcessGroup implements ProcessGroup {
 
             remoteGroup.setProcessGroup(this);
             remoteGroups.put(Objects.requireNonNull(remoteGroup).getIdentifier(), remoteGroup);
+            searchIndex.index(remoteGroup);
         } finally {
             writeLock.unlock();
         }
@@ -629,6 +646,7 @@ public final class StandardProcessGroup implements ProcessGroup {
             }
 
             remoteGroups.remove(remoteGroupId);
+            searchIndex.remove(remoteGroupId);
             LOG.info("{} removed from flow", remoteProcessGroup);
         } finally {
             writeLock.unlock();
@@ -647,6 +665,7 @@ public final class StandardProcessGroup implements ProcessGroup {
 
             processor.setProcessGroup(this);
             processors.put(processorId, processor);
+            searchIndex.index(processor);
         } finally {
             writeLock.unlock();
         }
@@ -674,6 +693,7 @@ public final class StandardProcessGroup implements ProcessGroup {
             }
 
             processors.remove(id);
+            searchIndex.remove(id);
             LogRepositoryFactory.getRepository(processor.getIdentifier()).removeAllObservers();
 
             // must copy to avoid a concurrent modification
@@ -727,6 +747,7 @@ public final class StandardProcessGroup implements ProcessGroup {
         writeLock.lock();
         try {
             connections.put(connection.getIdentifier(), connection);
+            searchIndex.index(connection);
         } finally {
             writeLock.unlock();
         }
@@ -794,6 +815,7 @@ public final class StandardProcessGroup implements ProcessGroup {
                 destination.addConnection(connection);
             }
             connections.put(connection.getIdentifier(), connection);
+            searchIndex.index(connection);
         } finally {
             writeLock.unlock();
         }
@@ -852,6 +874,7 @@ public final class StandardProcessGroup implements ProcessGroup {
 
             // remove the connection from our map
             connections.remove(connection.getIdentifier());
+            searchIndex.remove(connection.getIdentifier());
             LOG.info("{} removed from flow", connection);
         } finally {
             writeLock.unlock();
@@ -1556,6 +1579,7 @@ public final class StandardProcessGroup implements ProcessGroup {
 
             funnel.setProcessGroup(this);
             funnels.put(funnel.getIdentifier(), funnel);
+            searchIndex.index(funnel);
         } finally {
             writeLock.unlock();
         }
@@ -1594,6 +1618,7 @@ public final class StandardProcessGroup implements ProcessGroup {
             }
 
             funnels.remove(funnel.getIdentifier());
+            searchIndex.remove(funnel.getIdentifier());
             LOG.info("{} removed from flow", funnel);
         } finally {
             writeLock.unlock();
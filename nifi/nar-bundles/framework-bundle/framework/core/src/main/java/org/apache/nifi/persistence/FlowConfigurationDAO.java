@@ -99,6 +99,9 @@ public interface FlowConfigurationDAO {
 
     /**
      * Saves all changes made to the given flow to the given File.
+     * Implementations may persist only the components that have changed since
+     * the last save, as long as {@link #load(OutputStream)} returns the
+     * complete flow.
      *
      * @param flow
      * @param archive if true will also attempt to archive the flow
@@ -0,0 +1,750 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.nifi.util.DomUtils;
+import org.apache.nifi.util.file.FileUtils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Persists the flow configuration as a GZIP'ed snapshot (flow.xml.gz) plus an
+ * append-only journal of the components that have changed since the snapshot
+ * was written. The journal lives alongside the snapshot, with the suffix
+ * <code>.journal</code>.
+ *
+ * When the flow is saved, a digest of each component in the flow is compared
+ * with the digest of the component as it was last persisted, and only the
+ * components that were added, modified, or removed are appended to the
+ * journal. This avoids transforming, compressing, and rewriting the entire
+ * flow for each edit. Once the journal grows larger than the snapshot (and
+ * larger than a minimum size, so that small flows are not rewritten on nearly
+ * every save), it is compacted by writing a new snapshot and deleting the
+ * journal.
+ *
+ * The journal records the length and checksum of the snapshot that it applies
+ * to. If the snapshot is rewritten but the journal could not be deleted, the
+ * journal no longer matches the snapshot and is ignored, since the new snapshot
+ * already contains all of its changes.
+ *
+ * Readers of the flow obtain the snapshot with the journal replayed on top of
+ * it via {@link #read(OutputStream)}.
+ */
+public class FlowConfigurationJournal {
+
+    public static final String JOURNAL_SUFFIX = ".journal";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FlowConfigurationJournal.class);
+
+    private static final String MAGIC_HEADER = "NiFiFlowConfigurationJournal";
+    private static final int ENCODING_VERSION = 1;
+
+    private static final long DEFAULT_MIN_COMPACTION_SIZE = 1024L * 1024L;
+
+    private static final byte UPDATE = 1;
+    private static final byte REMOVE = 2;
+
+    private static final String FLOW_CONTROLLER = "flowController";
+    private static final String ROOT_GROUP = "rootGroup";
+    private static final String PROCESS_GROUP = "processGroup";
+
+    // the order in which the children of a Process Group must appear, as defined by FlowConfiguration.xsd
+    private static final List<String> GROUP_CHILD_ORDER = Arrays.asList("id", "name", "position", "comment",
+            "processor", "inputPort", "outputPort", "label", "funnel", PROCESS_GROUP, "remoteProcessGroup", "connection");
+    private static final int FIRST_COMPONENT_INDEX = GROUP_CHILD_ORDER.indexOf("processor");
+
+    private final Path flowXml;
+    private final Path journalFile;
+    private final long minCompactionSize;
+
+    // the state of each component as it was last persisted, or null if not known
+    private Map<String, ComponentState> persistedComponents;
+    private long snapshotLength;
+    private long snapshotChecksum;
+
+    public FlowConfigurationJournal(final Path flowXml) {
+        this(flowXml, DEFAULT_MIN_COMPACTION_SIZE);
+    }
+
+    FlowConfigurationJournal(final Path flowXml, final long minCompactionSize) {
+        this.flowXml = flowXml;
+        this.journalFile = flowXml.resolveSibling(flowXml.getFileName().toString() + JOURNAL_SUFFIX);
+        this.minCompactionSize = minCompactionSize;
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Writes the uncompressed flow, consisting of the snapshot with all
+     * journaled changes applied, to the given OutputStream. Nothing is written
+     * if no flow has been persisted.
+     *
+     * @param os the stream to write to
+     * @throws IOException if unable to read the flow or journal
+     */
+    public synchronized void read(final OutputStream os) throws IOException {
+        if (!Files.exists(flowXml) || Files.size(flowXml) == 0) {
+            return;
+        }
+
+        if (!Files.exists(journalFile) || Files.size(journalFile) == 0) {
+            copySnapshot(os);
+            return;
+        }
+
+        try (final InputStream in = Files.newInputStream(journalFile, StandardOpenOption.READ);
+                final DataInputStream journalIn = new DataInputStream(new BufferedInputStream(in))) {
+
+            final String header = journalIn.readUTF();
+            final int version = journalIn.readInt();
+            if (!MAGIC_HEADER.equals(header) || version != ENCODING_VERSION) {
+                throw new IOException(journalFile + " is not a valid Flow Configuration Journal");
+            }
+
+            final long expectedLength = journalIn.readLong();
+            final long expectedChecksum = journalIn.readLong();
+
+            if (Files.size(flowXml) != expectedLength || checksum(flowXml) != expectedChecksum) {
+                LOG.info("{} does not apply to the current version of {}; it was superseded by a compaction and will be ignored", journalFile, flowXml);
+                copySnapshot(os);
+                return;
+            }
+
+            final Document document;
+            try (final InputStream snapshotIn = Files.newInputStream(flowXml, StandardOpenOption.READ);
+                    final InputStream gzipIn = new GZIPInputStream(new BufferedInputStream(snapshotIn))) {
+                document = createDocumentBuilder().parse(gzipIn);
+            }
+            removeFormatting(document.getDocumentElement());
+
+            final int entries = replay(journalIn, document);
+            LOG.debug("Replayed {} entries from {}", entries, journalFile);
+            toXml(document, os, true);
+        } catch (final EOFException eof) {
+            throw new IOException(journalFile + " is truncated", eof);
+        } catch (final SAXException | ParserConfigurationException | TransformerException e) {
+            throw new IOException("Unable to replay " + journalFile + " onto " + flowXml, e);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given uncompressed flow and discards the
+     * journal.
+     *
+     * @param flow the flow to write
+     * @throws IOException if unable to write the snapshot
+     */
+    public synchronized void writeSnapshot(final InputStream flow) throws IOException {
+        // the components contained in the given flow are not known, so the next save must be a full snapshot
+        persistedComponents = null;
+
+        final Path tempFile = createTempSnapshotFile();
+        try {
+            final CRC32 crc = new CRC32();
+            try (final OutputStream fileOut = Files.newOutputStream(tempFile);
+                    final OutputStream gzipOut = new GZIPOutputStream(new CheckedOutputStream(fileOut, crc))) {
+                FileUtils.copy(flow, gzipOut);
+            }
+
+            replaceSnapshot(tempFile, crc.getValue());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given flow and discards the journal.
+     *
+     * @param flow the flow to write
+     * @throws IOException if unable to write the snapshot
+     */
+    public synchronized void writeSnapshot(final Document flow) throws IOException {
+        persistedComponents = null;
+
+        final Path tempFile = createTempSnapshotFile();
+        try {
+            final CRC32 crc = new CRC32();
+            try (final OutputStream fileOut = Files.newOutputStream(tempFile);
+                    final OutputStream gzipOut = new GZIPOutputStream(new CheckedOutputStream(fileOut, crc))) {
+                toXml(flow, gzipOut, true);
+            } catch (final TransformerException e) {
+                throw new IOException(e);
+            }
+
+            replaceSnapshot(tempFile, crc.getValue());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        persistedComponents = release(digestComponents(flow));
+    }
+
+    /**
+     * Persists the given flow by appending the components that have changed
+     * since the flow was last persisted to the journal. A full snapshot is
+     * written instead if the persisted state of the components is not known, if
+     * the Root Group has been replaced, or if the journal has grown too large.
+     *
+     * @param flow the flow to write
+     * @throws IOException if unable to write the journal or snapshot
+     */
+    public synchronized void write(final Document flow) throws IOException {
+        if (persistedComponents == null || !Files.exists(flowXml) || Files.size(flowXml) != snapshotLength) {
+            writeSnapshot(flow);
+            return;
+        }
+
+        final Map<String, ComponentState> currentComponents = digestComponents(flow);
+        final ComponentState currentRoot = findRootGroup(currentComponents);
+        final ComponentState persistedRoot = findRootGroup(persistedComponents);
+        if (currentRoot == null || persistedRoot == null || !currentRoot.id.equals(persistedRoot.id)) {
+            writeSnapshot(flow);
+            return;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream entryOut = new DataOutputStream(baos);
+        int entryCount = 0;
+
+        try {
+            final Transformer transformer = createTransformer(false);
+
+            // components are ordered as they appear in the document, so a group is always written before its children
+            for (final ComponentState current : currentComponents.values()) {
+                final ComponentState persisted = persistedComponents.get(current.id);
+                if (persisted != null && persisted.parentId.equals(current.parentId) && Arrays.equals(persisted.digest, current.digest)) {
+                    continue;
+                }
+
+                final ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+                transformer.transform(new DOMSource(current.createFragment()), new StreamResult(fragment));
+
+                entryOut.writeByte(UPDATE);
+                entryOut.writeUTF(current.elementName);
+                entryOut.writeUTF(current.id);
+                entryOut.writeUTF(current.parentId);
+                entryOut.writeInt(fragment.size());
+                fragment.writeTo(entryOut);
+                entryCount++;
+            }
+        } catch (final TransformerException | ParserConfigurationException e) {
+            throw new IOException(e);
+        }
+
+        // removals are written last, so that a component that moved out of a removed group is not removed along with it
+        for (final ComponentState persisted : persistedComponents.values()) {
+            if (!currentComponents.containsKey(persisted.id)) {
+                entryOut.writeByte(REMOVE);
+                entryOut.writeUTF(persisted.elementName);
+                entryOut.writeUTF(persisted.id);
+                entryOut.writeUTF(persisted.parentId);
+                entryCount++;
+            }
+        }
+        entryOut.flush();
+
+        if (entryCount == 0) {
+            LOG.debug("No components have changed since the flow was last saved");
+            persistedComponents = release(currentComponents);
+            return;
+        }
+
+        final long journalLength = Files.exists(journalFile) ? Files.size(journalFile) : 0L;
+        if (journalLength + baos.size() > Math.max(snapshotLength, minCompactionSize)) {
+            LOG.debug("Compacting {} into {}", journalFile, flowXml);
+            writeSnapshot(flow);
+            return;
+        }
+
+        final ByteArrayOutputStream toAppend = new ByteArrayOutputStream(baos.size() + 64);
+        if (journalLength == 0L) {
+            final DataOutputStream headerOut = new DataOutputStream(toAppend);
+            headerOut.writeUTF(MAGIC_HEADER);
+            headerOut.writeInt(ENCODING_VERSION);
+            headerOut.writeLong(snapshotLength);
+            headerOut.writeLong(snapshotChecksum);
+            headerOut.flush();
+        }
+        baos.writeTo(toAppend);
+
+        // if the append fails, truncate the journal so that the next save is not appended after an incomplete entry
+        try (final FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.position(journalLength);
+            try {
+                append(channel, ByteBuffer.wrap(toAppend.toByteArray()));
+            } catch (final IOException ioe) {
+                try {
+                    channel.truncate(journalLength);
+                } catch (final IOException truncateException) {
+                    // the journal may end with an incomplete entry, so the next save must write a new snapshot
+                    persistedComponents = null;
+                    ioe.addSuppressed(truncateException);
+                }
+                throw ioe;
+            }
+        }
+
+        persistedComponents = release(currentComponents);
+        LOG.debug("Appended {} changed components to {}", entryCount, journalFile);
+    }
+
+    /**
+     * Writes the given entries to the journal at the channel's current position
+     *
+     * @param channel the journal
+     * @param entries the entries to write
+     * @throws IOException if unable to write the entries
+     */
+    void append(final FileChannel channel, final ByteBuffer entries) throws IOException {
+        while (entries.hasRemaining()) {
+            channel.write(entries);
+        }
+    }
+
+    private Path createTempSnapshotFile() {
+        return flowXml.resolveSibling(flowXml.getFileName().toString() + ".new.xml.gz");
+    }
+
+    private void replaceSnapshot(final Path tempFile, final long checksum) throws IOException {
+        Files.deleteIfExists(flowXml);
+        FileUtils.renameFile(tempFile.toFile(), flowXml.toFile(), 5, true);
+
+        snapshotLength = Files.size(flowXml);
+        snapshotChecksum = checksum;
+
+        // the journal is now stale; if it cannot be deleted, its checksum no longer matches the snapshot
+        Files.deleteIfExists(journalFile);
+    }
+
+    private static long checksum(final Path file) throws IOException {
+        final CRC32 crc = new CRC32();
+        try (final InputStream in = Files.newInputStream(file, StandardOpenOption.READ);
+                final CheckedInputStream checkedIn = new CheckedInputStream(in, crc)) {
+            final byte[] buffer = new byte[8192];
+            while (checkedIn.read(buffer) != -1) {
+            }
+        }
+        return crc.getValue();
+    }
+
+    private void copySnapshot(final OutputStream os) throws IOException {
+        try (final InputStream in = Files.newInputStream(flowXml, StandardOpenOption.READ);
+                final InputStream gzipIn = new GZIPInputStream(in)) {
+            FileUtils.copy(gzipIn, os);
+        }
+    }
+
+    /**
+     * Removes the whitespace used to indent the snapshot, so that the replayed
+     * flow is not indented twice when it is written back out. Whitespace is
+     * only removed from elements that contain other elements, so property
+     * values are left untouched.
+     */
+    private static void removeFormatting(final Element element) {
+        if (DomUtils.getChildElements(element).isEmpty()) {
+            return;
+        }
+
+        Node child = element.getFirstChild();
+        while (child != null) {
+            final Node next = child.getNextSibling();
+            if (child.getNodeType() == Node.TEXT_NODE && child.getNodeValue().trim().isEmpty()) {
+                element.removeChild(child);
+            } else if (child instanceof Element) {
+                removeFormatting((Element) child);
+            }
+            child = next;
+        }
+    }
+
+    private int replay(final DataInputStream journalIn, final Document document) throws IOException, SAXException, ParserConfigurationException {
+        final DocumentBuilder builder = createDocumentBuilder();
+        final Element flowController = document.getDocumentElement();
+        final Map<String, Element> index = new HashMap<>();
+        final Element rootGroup = DomUtils.getChild(flowController, ROOT_GROUP);
+        if (rootGroup != null) {
+            indexComponents(rootGroup, index);
+        }
+
+        int entries = 0;
+        while (true) {
+            final int operation = journalIn.read();
+            if (operation == -1) {
+                return entries;
+            }
+
+            final String elementName;
+            final String id;
+            final String parentId;
+            final byte[] fragment;
+            try {
+                elementName = journalIn.readUTF();
+                id = journalIn.readUTF();
+                parentId = journalIn.readUTF();
+                if (operation == UPDATE) {
+                    fragment = new byte[journalIn.readInt()];
+                    journalIn.readFully(fragment);
+                } else {
+                    fragment = null;
+                }
+            } catch (final EOFException eof) {
+                LOG.warn("{} ends with an incomplete entry, likely because NiFi was stopped while the flow was being saved; "
+                        + "the changes from that save will be lost", journalFile);
+                return entries;
+            }
+
+            if (operation == REMOVE) {
+                final Element existing = index.get(id);
+                if (existing != null) {
+                    existing.getParentNode().removeChild(existing);
+                    unindexComponents(existing, index);
+                }
+            } else if (operation == UPDATE) {
+                final Element update = (Element) document.importNode(builder.parse(new ByteArrayInputStream(fragment)).getDocumentElement(), true);
+                applyUpdate(flowController, update, elementName, id, parentId, index);
+            } else {
+                throw new IOException(journalFile + " contains an entry with an unknown operation " + operation);
+            }
+
+            entries++;
+        }
+    }
+
+    private void applyUpdate(final Element flowController, final Element update, final String elementName, final String id, final String parentId,
+            final Map<String, Element> index) throws IOException {
+
+        if (FLOW_CONTROLLER.equals(elementName)) {
+            replaceProperties(flowController, update, DomUtils.getChild(flowController, ROOT_GROUP));
+            return;
+        }
+
+        final Element existing = index.get(id);
+        if (ROOT_GROUP.equals(elementName)) {
+            if (existing == null) {
+                throw new IOException(journalFile + " contains an update to Root Group " + id + ", which is not in " + flowXml);
+            }
+            replaceProperties(existing, update, firstComponent(existing));
+            return;
+        }
+
+        final Element parent = index.get(parentId);
+        if (parent == null) {
+            throw new IOException(journalFile + " contains an update to component " + id + ", but its Process Group " + parentId + " does not exist");
+        }
+
+        if (PROCESS_GROUP.equals(elementName)) {
+            // the journal contains only the group's own properties; its components are journaled individually
+            final Element group;
+            if (existing == null) {
+                group = update;
+                insertChild(parent, group);
+                index.put(id, group);
+            } else {
+                group = existing;
+                if (group.getParentNode() != parent) {
+                    group.getParentNode().removeChild(group);
+                    insertChild(parent, group);
+                }
+                replaceProperties(group, update, firstComponent(group));
+            }
+            return;
+        }
+
+        if (existing != null) {
+            existing.getParentNode().removeChild(existing);
+        }
+        insertChild(parent, update);
+        index.put(id, update);
+    }
+
+    /**
+     * Replaces the children of the given element that precede
+     * <code>firstRetained</code> with the children of the update
+     */
+    private static void replaceProperties(final Element element, final Element update, final Node firstRetained) {
+        while (element.getFirstChild() != null && element.getFirstChild() != firstRetained) {
+            element.removeChild(element.getFirstChild());
+        }
+
+        for (final Element property : DomUtils.getChildElements(update)) {
+            element.insertBefore(property, firstRetained);
+        }
+    }
+
+    private static Node firstComponent(final Element group) {
+        for (Node child = group.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && GROUP_CHILD_ORDER.indexOf(child.getNodeName()) >= FIRST_COMPONENT_INDEX) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static void insertChild(final Element group, final Element child) {
+        final int order = GROUP_CHILD_ORDER.indexOf(child.getNodeName());
+        for (Node sibling = group.getFirstChild(); sibling != null; sibling = sibling.getNextSibling()) {
+            if (sibling instanceof Element && GROUP_CHILD_ORDER.indexOf(sibling.getNodeName()) > order) {
+                group.insertBefore(child, sibling);
+                return;
+            }
+        }
+        group.appendChild(child);
+    }
+
+    private static void indexComponents(final Element group, final Map<String, Element> index) {
+        index.put(getId(group), group);
+        for (final Element child : DomUtils.getChildElements(group)) {
+            final String childName = child.getNodeName();
+            if (PROCESS_GROUP.equals(childName)) {
+                indexComponents(child, index);
+            } else if (GROUP_CHILD_ORDER.indexOf(childName) >= FIRST_COMPONENT_INDEX) {
+                index.put(getId(child), child);
+            }
+        }
+    }
+
+    private static void unindexComponents(final Element component, final Map<String, Element> index) {
+        index.remove(getId(component));
+        if (PROCESS_GROUP.equals(component.getNodeName())) {
+            for (final Element child : DomUtils.getChildElements(component)) {
+                if (GROUP_CHILD_ORDER.indexOf(child.getNodeName()) >= FIRST_COMPONENT_INDEX) {
+                    unindexComponents(child, index);
+                }
+            }
+        }
+    }
+
+    private static String getId(final Element component) {
+        final Element idElement = DomUtils.getChild(component, "id");
+        return idElement == null ? "" : idElement.getTextContent().trim();
+    }
+
+    /**
+     * Releases the elements referenced by the given components, so that the
+     * document they belong to is not retained between saves
+     */
+    private static Map<String, ComponentState> release(final Map<String, ComponentState> components) {
+        for (final ComponentState state : components.values()) {
+            state.element = null;
+            state.firstExcluded = null;
+        }
+        return components;
+    }
+
+    private static ComponentState findRootGroup(final Map<String, ComponentState> components) {
+        for (final ComponentState state : components.values()) {
+            if (ROOT_GROUP.equals(state.elementName)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Computes the digest of each component in the flow, in document order.
+     * The flow controller's own settings are keyed by the name of its element.
+     * The digest of a Process Group covers only its own properties, not its
+     * components.
+     */
+    private static Map<String, ComponentState> digestComponents(final Document flow) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final Map<String, ComponentState> components = new LinkedHashMap<>();
+        final Element flowController = flow.getDocumentElement();
+        final Element rootGroup = DomUtils.getChild(flowController, ROOT_GROUP);
+        components.put(FLOW_CONTROLLER, new ComponentState(FLOW_CONTROLLER, FLOW_CONTROLLER, "", flowController, rootGroup, digest));
+        if (rootGroup != null) {
+            digestGroup(rootGroup, "", components, digest);
+        }
+        return components;
+    }
+
+    private static void digestGroup(final Element group, final String parentId, final Map<String, ComponentState> components, final MessageDigest digest) {
+        final String groupId = getId(group);
+        components.put(groupId, new ComponentState(group.getNodeName(), groupId, parentId, group, firstComponent(group), digest));
+
+        for (final Element child : DomUtils.getChildElements(group)) {
+            final String childName = child.getNodeName();
+            if (PROCESS_GROUP.equals(childName)) {
+                digestGroup(child, groupId, components, digest);
+            } else if (GROUP_CHILD_ORDER.indexOf(childName) >= FIRST_COMPONENT_INDEX) {
+                final String childId = getId(child);
+                components.put(childId, new ComponentState(childName, childId, groupId, child, null, digest));
+            }
+        }
+    }
+
+    private static void digestNode(final Node node, final MessageDigest digest) {
+        if (node instanceof Element) {
+            digest.update((byte) '<');
+            digest.update(node.getNodeName().getBytes(StandardCharsets.UTF_8));
+
+            final NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0; i < attributes.getLength(); i++) {
+                final Node attribute = attributes.item(i);
+                digest.update((byte) ' ');
+                digest.update(attribute.getNodeName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '=');
+                digest.update(attribute.getNodeValue().getBytes(StandardCharsets.UTF_8));
+            }
+
+            final NodeList children = node.getChildNodes();
+            for (int i = 0; i < children.getLength(); i++) {
+                digestNode(children.item(i), digest);
+            }
+            digest.update((byte) '>');
+        } else if (node.getNodeType() == Node.TEXT_NODE || node.getNodeType() == Node.CDATA_SECTION_NODE) {
+            digest.update((byte) '#');
+            digest.update(node.getNodeValue().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder();
+    }
+
+    private static Transformer createTransformer(final boolean indent) throws TransformerException {
+        final Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        if (indent) {
+            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        } else {
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        }
+        return transformer;
+    }
+
+    private static void toXml(final Document document, final OutputStream os, final boolean indent) throws TransformerException {
+        final BufferedOutputStream bufferedOut = new BufferedOutputStream(os);
+        createTransformer(indent).transform(new DOMSource(document), new StreamResult(bufferedOut));
+        try {
+            bufferedOut.flush();
+        } catch (final IOException e) {
+            throw new TransformerException(e);
+        }
+    }
+
+    /**
+     * The persisted state of a single component
+     */
+    private static class ComponentState {
+
+        private final String elementName;
+        private final String id;
+        private final String parentId;
+        private final byte[] digest;
+
+        // the component's element and, for containers, the first child that is not one of the container's own properties
+        private Element element;
+        private Node firstExcluded;
+
+        public ComponentState(final String elementName, final String id, final String parentId, final Element element, final Node firstExcluded,
+                final MessageDigest messageDigest) {
+            this.elementName = elementName;
+            this.id = id;
+            this.parentId = parentId;
+            this.element = element;
+            this.firstExcluded = firstExcluded;
+
+            messageDigest.reset();
+            if (isContainer()) {
+                for (Node child = element.getFirstChild(); child != null && child != firstExcluded; child = child.getNextSibling()) {
+                    digestNode(child, messageDigest);
+                }
+            } else {
+                digestNode(element, messageDigest);
+            }
+            this.digest = messageDigest.digest();
+        }
+
+        private boolean isContainer() {
+            return FLOW_CONTROLLER.equals(elementName) || ROOT_GROUP.equals(elementName) || PROCESS_GROUP.equals(elementName);
+        }
+
+        /**
+         * @return a document containing the component or, for containers, only
+         * the container's own properties
+         */
+        public Document createFragment() throws ParserConfigurationException {
+            final Document fragment = createDocumentBuilder().newDocument();
+            if (!isContainer()) {
+                fragment.appendChild(fragment.importNode(element, true));
+                return fragment;
+            }
+
+            final Element shallow = fragment.createElement(elementName);
+            fragment.appendChild(shallow);
+            for (Node child = element.getFirstChild(); child != null && child != firstExcluded; child = child.getNextSibling()) {
+                shallow.appendChild(fragment.importNode(child, true));
+            }
+            return fragment;
+        }
+    }
+}
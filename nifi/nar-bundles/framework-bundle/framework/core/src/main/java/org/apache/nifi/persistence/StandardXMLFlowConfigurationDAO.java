@@ -24,14 +24,11 @@ import java.io.OutputStream;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -57,7 +54,6 @@ import org.apache.nifi.controller.reporting.StandardReportingInitializationConte
 import org.apache.nifi.controller.service.ControllerServiceLoader;
 import org.apache.nifi.controller.service.ControllerServiceNode;
 import org.apache.nifi.encrypt.StringEncryptor;
-import org.apache.nifi.util.file.FileUtils;
 import org.apache.nifi.nar.NarCloseable;
 import org.apache.nifi.reporting.InitializationException;
 import org.apache.nifi.reporting.ReportingInitializationContext;
@@ -80,6 +76,7 @@ public final class StandardXMLFlowConfigurationDAO implements FlowConfigurationD
     public static final String CONFIGURATION_ARCHIVE_DIR_KEY = "nifi.flow.configuration.archive.dir";
 
     private final Path flowXmlPath;
+    private final FlowConfigurationJournal journal;
     private final Path taskConfigXmlPath;
     private final ControllerServiceLoader servicerLoader;
     private final StringEncryptor encryptor;
@@ -102,6 +99,7 @@ public final class StandardXMLFlowConfigurationDAO implements FlowConfigurationD
         }
 
         this.flowXmlPath = flowXml;
+        this.journal = new FlowConfigurationJournal(flowXml);
         this.taskConfigXmlPath = taskConfigXml;
         this.servicerLoader = new ControllerServiceLoader(serviceConfigXml);
         this.encryptor = encryptor;
@@ -118,27 +116,18 @@ public final class StandardXMLFlowConfigurationDAO implements FlowConfigurationD
 
     @Override
     public synchronized void load(final OutputStream os) throws IOException {
-        try (final InputStream inStream = Files.newInputStream(flowXmlPath, StandardOpenOption.READ);
-                final InputStream gzipIn = new GZIPInputStream(inStream)) {
-            FileUtils.copy(gzipIn, os);
-        }
+        journal.read(os);
     }
 
     @Override
     public synchronized void save(final InputStream is) throws IOException {
-        try (final OutputStream outStream = Files.newOutputStream(flowXmlPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
-                final OutputStream gzipOut = new GZIPOutputStream(outStream)) {
-            FileUtils.copy(is, gzipOut);
-        }
+        journal.writeSnapshot(is);
     }
 
     @Override
-    public void save(final FlowController flow) throws IOException {
+    public synchronized void save(final FlowController flow) throws IOException {
         LOG.trace("Saving flow to disk");
-        try (final OutputStream outStream = Files.newOutputStream(flowXmlPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
-                final OutputStream gzipOut = new GZIPOutputStream(outStream)) {
-            save(flow, gzipOut);
-        }
+        journal.writeSnapshot(serialize(flow));
         LOG.debug("Finished saving flow to disk");
     }
 
@@ -158,24 +147,14 @@ public final class StandardXMLFlowConfigurationDAO implements FlowConfigurationD
             throw new NullPointerException();
         }
 
-        Path tempFile;
-        Path configFile;
-
-        configFile = flowXmlPath;
-        tempFile = configFile.getParent().resolve(configFile.toFile().getName() + ".new.xml.gz");
-
-        try (final OutputStream fileOut = Files.newOutputStream(tempFile);
-                final OutputStream outStream = new GZIPOutputStream(fileOut)) {
+        final Path configFile = flowXmlPath;
 
-            final StandardFlowSerializer xmlTransformer = new StandardFlowSerializer(encryptor);
-            controller.serialize(xmlTransformer, outStream);
-
-            Files.deleteIfExists(configFile);
-            FileUtils.renameFile(tempFile.toFile(), configFile.toFile(), 5, true);
-        } catch (final FlowSerializationException fse) {
-            throw new IOException(fse);
-        } finally {
-            Files.deleteIfExists(tempFile);
+        // only the changed components are journaled, unless an archive of the complete flow is needed
+        final Document flow = serialize(controller);
+        if (archive) {
+            journal.writeSnapshot(flow);
+        } else {
+            journal.write(flow);
         }
 
         if (archive) {
@@ -198,6 +177,15 @@ public final class StandardXMLFlowConfigurationDAO implements FlowConfigurationD
         }
     }
 
+    private Document serialize(final FlowController controller) throws IOException {
+        try {
+            final StandardFlowSerializer xmlTransformer = new StandardFlowSerializer(encryptor);
+            return controller.serialize(xmlTransformer);
+        } catch (final FlowSerializationException fse) {
+            throw new IOException(fse);
+        }
+    }
+
     @Override
     public List<ReportingTaskNode> loadReportingTasks(final FlowController controller) {
         final List<ReportingTaskNode> tasks = new ArrayList<>();
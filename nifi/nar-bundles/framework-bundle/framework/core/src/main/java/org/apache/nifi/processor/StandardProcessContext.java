@@ -39,11 +39,18 @@ public class StandardProcessContext implements ProcessContext, ControllerService
     private final ControllerServiceProvider controllerServiceProvider;
     private final Map<PropertyDescriptor, PreparedQuery> preparedQueries;
     private final StringEncryptor encryptor;
+    private final boolean batchingSessions;
 
     public StandardProcessContext(final ProcessorNode processorNode, final ControllerServiceProvider controllerServiceProvider, final StringEncryptor encryptor) {
+        this(processorNode, controllerServiceProvider, encryptor, false);
+    }
+
+    public StandardProcessContext(final ProcessorNode processorNode, final ControllerServiceProvider controllerServiceProvider, final StringEncryptor encryptor,
+            final boolean batchingSessions) {
         this.procNode = processorNode;
         this.controllerServiceProvider = controllerServiceProvider;
         this.encryptor = encryptor;
+        this.batchingSessions = batchingSessions;
 
         preparedQueries = new HashMap<>();
         for (final Map.Entry<PropertyDescriptor, String> entry : procNode.getProperties().entrySet()) {
@@ -170,4 +177,9 @@ public class StandardProcessContext implements ProcessContext, ControllerService
         return set;
     }
     
+
+    @Override
+    public boolean isBatchingSessions() {
+        return batchingSessions;
+    }
 }
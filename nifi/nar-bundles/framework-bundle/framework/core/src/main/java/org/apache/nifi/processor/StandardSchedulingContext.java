@@ -110,4 +110,9 @@ public class StandardSchedulingContext implements SchedulingContext {
     public Set<Relationship> getAvailableRelationships() {
         return processContext.getAvailableRelationships();
     }
+
+    @Override
+    public boolean isBatchingSessions() {
+        return processContext.isBatchingSessions();
+    }
 }
@@ -328,6 +328,7 @@ public class StandardRemoteProcessGroup implements RemoteProcessGroup {
     @Override
     public void setName(final String name) {
         this.name.set(name);
+        notifySearchableConfigurationModified();
     }
 
     @Override
@@ -365,6 +366,14 @@ public class StandardRemoteProcessGroup implements RemoteProcessGroup {
     @Override
     public void setComments(final String comments) {
         this.comments.set(comments);
+        notifySearchableConfigurationModified();
+    }
+
+    private void notifySearchableConfigurationModified() {
+        final ProcessGroup group = getProcessGroup();
+        if (group != null) {
+            group.onComponentModified(getIdentifier());
+        }
     }
 
     @Override
@@ -56,6 +56,19 @@ public class DomUtils {
         return matches;
     }
 
+    public static List<Element> getChildElements(final Element element) {
+        final List<Element> matches = new ArrayList<>();
+        final NodeList nodeList = element.getChildNodes();
+        for (int i = 0; i < nodeList.getLength(); i++) {
+            final Node node = nodeList.item(i);
+            if (node instanceof Element) {
+                matches.add((Element) node);
+            }
+        }
+
+        return matches;
+    }
+
     public static NodeList getChildNodesByTagName(final Element element, final String tagName) {
         final List<Element> elements = getChildElementsByTagName(element, tagName);
 
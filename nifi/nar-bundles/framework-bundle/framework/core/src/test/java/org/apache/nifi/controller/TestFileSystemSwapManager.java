@@ -18,20 +18,36 @@ package org.apache.nifi.controller;
 
 import org.apache.nifi.controller.FileSystemSwapManager;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.EOFException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ContentClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -58,6 +74,133 @@ public class TestFileSystemSwapManager {
         }
     }
 
+    @Test
+    public void testRoundTrip() throws IOException {
+        verifyRoundTrip(false);
+    }
+
+    @Test
+    public void testRoundTripCompressed() throws IOException {
+        verifyRoundTrip(true);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testTruncatedSwapFile() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("queue");
+        final ContentClaimManager claimManager = new StandardContentClaimManager();
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        FileSystemSwapManager.serializeFlowFiles(createFlowFiles(claimManager, 1500), flowFileQueue, baos, false);
+        final byte[] truncated = Arrays.copyOf(baos.toByteArray(), baos.size() - 100);
+
+        FileSystemSwapManager.deserializeFlowFiles(new DataInputStream(new ByteArrayInputStream(truncated)), flowFileQueue, claimManager);
+    }
+
+    @Test
+    public void testSwapFileWithHighestPriorityHeadIsSwappedInFirst() {
+        final FlowFilePrioritizer largestFirst = new FlowFilePrioritizer() {
+            @Override
+            public int compare(final FlowFile o1, final FlowFile o2) {
+                return Long.compare(o2.getSize(), o1.getSize());
+            }
+        };
+
+        final FileSystemSwapManager.QueueLockWrapper wrapper = new FileSystemSwapManager.QueueLockWrapper(new LinkedBlockingQueue<File>());
+        final File oldest = new File("1-oldest.swap");
+        final File largest = new File("2-largest.swap");
+        final File unknown = new File("3-unknown.swap");
+        final File tied = new File("4-tied.swap");
+        wrapper.add(oldest, new StandardFlowFileRecord.Builder().id(1L).size(10L).build());
+        wrapper.add(largest, new StandardFlowFileRecord.Builder().id(2L).size(50L).build());
+        wrapper.add(unknown, null);
+        wrapper.add(tied, new StandardFlowFileRecord.Builder().id(3L).size(50L).build());
+
+        // without prioritizers, Swap Files are swapped in the order they were written
+        assertEquals(oldest, wrapper.peek(Collections.<FlowFilePrioritizer>emptyList()));
+
+        final List<FlowFilePrioritizer> prioritizers = Collections.singletonList(largestFirst);
+        assertEquals(largest, wrapper.poll(prioritizers));
+        wrapper.removeHead(largest);
+        assertEquals(tied, wrapper.poll(prioritizers));
+        wrapper.removeHead(tied);
+        assertEquals(oldest, wrapper.poll(prioritizers));
+        wrapper.removeHead(oldest);
+        assertEquals(unknown, wrapper.poll(prioritizers));
+        assertNull(wrapper.poll(prioritizers));
+    }
+
+    private void verifyRoundTrip(final boolean compress) throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+        final ContentClaimManager claimManager = new StandardContentClaimManager();
+
+        // span several blocks, with the last one partially full
+        final List<FlowFileRecord> flowFiles = createFlowFiles(claimManager, FileSystemSwapManager.RECORDS_PER_BLOCK * 2 + 500);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        assertEquals(flowFiles.size(), FileSystemSwapManager.serializeFlowFiles(flowFiles, flowFileQueue, baos, compress));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<FlowFileRecord> recovered;
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            recovered = FileSystemSwapManager.readFlowFiles(in, flowFileQueue, claimManager, executor).getFlowFiles();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(flowFiles.size(), recovered.size());
+        for (int i = 0; i < flowFiles.size(); i++) {
+            final FlowFileRecord expected = flowFiles.get(i);
+            final FlowFileRecord actual = recovered.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getEntryDate(), actual.getEntryDate());
+            assertEquals(expected.getLineageStartDate(), actual.getLineageStartDate());
+            assertEquals(expected.getLastQueueDate(), actual.getLastQueueDate());
+            assertEquals(expected.getLineageIdentifiers(), actual.getLineageIdentifiers());
+            assertEquals(expected.getSize(), actual.getSize());
+            assertEquals(expected.getAttributes(), actual.getAttributes());
+
+            final ContentClaim expectedClaim = expected.getContentClaim();
+            if (expectedClaim == null) {
+                assertNull(actual.getContentClaim());
+            } else {
+                final ContentClaim actualClaim = actual.getContentClaim();
+                assertEquals(expectedClaim.getId(), actualClaim.getId());
+                assertEquals(expectedClaim.getContainer(), actualClaim.getContainer());
+                assertEquals(expectedClaim.getSection(), actualClaim.getSection());
+                assertEquals(expectedClaim.isLossTolerant(), actualClaim.isLossTolerant());
+                assertEquals(expected.getContentClaimOffset(), actual.getContentClaimOffset());
+            }
+        }
+    }
+
+    private List<FlowFileRecord> createFlowFiles(final ContentClaimManager claimManager, final int count) {
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(count);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < count; i++) {
+            // IDs and dates are not in order, as FlowFiles may have been prioritized
+            final long id = (i % 2 == 0) ? 1000000L + i : 5000000L - i;
+            final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                    .id(id)
+                    .entryDate(now - (i % 7) * 1000L)
+                    .lineageStartDate(now - 60000L - i)
+                    .lastQueueDate(now + i)
+                    .lineageIdentifiers(new HashSet<>(Arrays.asList(UUID.randomUUID().toString(), "shared-lineage-" + (i % 3))))
+                    .size(i * 1024L)
+                    .addAttribute("uuid", UUID.randomUUID().toString())
+                    .addAttribute("filename", "file-" + i + ".txt")
+                    .addAttribute("path", "./")
+                    .addAttribute("multi-byte", "\u00e9\u4e2d " + (i % 5));
+
+            if (i % 10 != 0) {
+                final ContentClaim claim = claimManager.newContentClaim("container-" + (i % 2), String.valueOf(i % 1024), "claim-" + (i / 100), i % 3 == 0);
+                builder.contentClaim(claim).contentClaimOffset(i % 100 * 1024L);
+            }
+            flowFiles.add(builder.build());
+        }
+        return flowFiles;
+    }
+
     public class NopContentClaimManager implements ContentClaimManager {
 
         @Override
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class TestFlowSummary {
+
+    @Test
+    public void testThreadCountsAndNonEmptyRootGroup() throws IOException {
+        final byte[] flow = IOUtils.toByteArray(TestFlowSummary.class.getResourceAsStream("/nifi/fingerprint/flow3.xml"));
+        final FlowSummary summary = FlowSummary.read(flow);
+        assertNull(summary.getMaxThreadCount());
+        assertEquals(10, summary.getMaxTimerDrivenThreadCount());
+        assertEquals(5, summary.getMaxEventDrivenThreadCount());
+        assertFalse(summary.isEmpty());
+    }
+
+    @Test
+    public void testRootGroupWithOnlyInputPortsIsEmpty() {
+        final String flow = "<flowController><maxTimerDrivenThreadCount>12</maxTimerDrivenThreadCount>"
+                + "<maxEventDrivenThreadCount>3</maxEventDrivenThreadCount>"
+                + "<rootGroup><id>root</id><name>NiFi Flow</name><position x=\"0\" y=\"0\"/><comment/>"
+                + "<inputPort><id>in</id><name>In</name><processor><id>nested</id></processor></inputPort></rootGroup>"
+                + "</flowController>";
+        final FlowSummary summary = FlowSummary.read(flow.getBytes(StandardCharsets.UTF_8));
+        assertNull(summary.getMaxThreadCount());
+        assertEquals(12, summary.getMaxTimerDrivenThreadCount());
+        assertEquals(3, summary.getMaxEventDrivenThreadCount());
+        assertTrue(summary.isEmpty());
+    }
+
+    @Test
+    public void testLegacyThreadCount() {
+        final String flow = "<flowController><maxThreadCount>15</maxThreadCount><rootGroup><id>root</id>"
+                + "<processGroup><id>child</id></processGroup></rootGroup></flowController>";
+        final FlowSummary summary = FlowSummary.read(flow.getBytes(StandardCharsets.UTF_8));
+        assertEquals(Integer.valueOf(15), summary.getMaxThreadCount());
+        assertFalse(summary.isEmpty());
+    }
+
+    @Test
+    public void testNoFlowIsEmpty() {
+        assertTrue(FlowSummary.read(null).isEmpty());
+        assertTrue(FlowSummary.read(new byte[0]).isEmpty());
+    }
+}
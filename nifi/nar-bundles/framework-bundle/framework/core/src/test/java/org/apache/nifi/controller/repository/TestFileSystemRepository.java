@@ -204,6 +204,32 @@ public class TestFileSystemRepository {
         assertTrue(Arrays.equals(doubleExpected, Files.readAllBytes(outPath)));
     }
 
+    @Test
+    public void testExportRangeToFile() throws IOException {
+        final ContentClaim claim = repository.create(true);
+        final Path path = getPath(claim);
+
+        Files.createDirectories(path.getParent());
+        Files.copy(helloWorldFile.toPath(), path, StandardCopyOption.REPLACE_EXISTING);
+        final File outFile = new File("target/testExportRangeToFile");
+        final Path outPath = outFile.toPath();
+        Files.deleteIfExists(outPath);
+
+        final byte[] content = Files.readAllBytes(helloWorldFile.toPath());
+        final byte[] expected = Arrays.copyOfRange(content, 1, content.length - 1);
+
+        // write more than the range first, to verify that the destination is replaced rather than overwritten
+        repository.exportTo(claim, outPath, false);
+        assertEquals(expected.length, repository.exportTo(claim, outPath, false, 1, content.length - 2));
+        assertTrue(Arrays.equals(expected, Files.readAllBytes(outPath)));
+
+        repository.exportTo(claim, outPath, true, 1, content.length - 2);
+        final byte[] doubleExpected = new byte[expected.length * 2];
+        System.arraycopy(expected, 0, doubleExpected, 0, expected.length);
+        System.arraycopy(expected, 0, doubleExpected, expected.length, expected.length);
+        assertTrue(Arrays.equals(doubleExpected, Files.readAllBytes(outPath)));
+    }
+
     @Test
     public void testSize() throws IOException {
         final ContentClaim claim = repository.create(true);
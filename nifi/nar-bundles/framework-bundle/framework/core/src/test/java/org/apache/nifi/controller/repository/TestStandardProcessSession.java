@@ -30,10 +30,13 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -58,6 +61,8 @@ import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.ByteChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -510,6 +515,94 @@ public class TestStandardProcessSession {
         }
     }
 
+    @Test
+    public void testReadWithByteChannelCallback() {
+        FlowFile ff1 = session.create();
+        ff1 = session.write(ff1, new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write("hello, world".getBytes("UTF-8"));
+            }
+        });
+
+        final StringBuilder sb = new StringBuilder();
+        session.read(ff1, new ByteChannelCallback() {
+            @Override
+            public void process(final SeekableByteChannel channel) throws IOException {
+                assertEquals(12L, channel.size());
+                channel.position(7L);
+
+                final ByteBuffer buffer = ByteBuffer.allocate(64);
+                while (channel.read(buffer) > 0) {
+                }
+                sb.append(new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+            }
+        });
+
+        assertEquals("world", sb.toString());
+        session.remove(ff1);
+        session.commit();
+    }
+
+    @Test
+    public void testReadWithByteChannelCallbackSeeksBackward() {
+        // the mock Content Repository does not provide channels, so this seeks within a stream read from the repository
+        FlowFile ff1 = session.create();
+        ff1 = session.write(ff1, new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write("hello, world".getBytes("UTF-8"));
+            }
+        });
+
+        final List<String> reads = new ArrayList<>();
+        session.read(ff1, new ByteChannelCallback() {
+            @Override
+            public void process(final SeekableByteChannel channel) throws IOException {
+                for (final long position : new long[] {7L, 0L, 10L}) {
+                    channel.position(position);
+                    final ByteBuffer buffer = ByteBuffer.allocate(5);
+                    while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                    }
+                    reads.add(new String(buffer.array(), 0, buffer.position(), "UTF-8"));
+                }
+
+                channel.position(12L);
+                assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+            }
+        });
+
+        assertEquals(Arrays.asList("world", "hello", "ld"), reads);
+        session.remove(ff1);
+        session.commit();
+    }
+
+    @Test
+    public void testReadWithByteBufferCallback() {
+        FlowFile ff1 = session.create();
+        ff1 = session.write(ff1, new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write("hello, world".getBytes("UTF-8"));
+            }
+        });
+
+        final StringBuilder sb = new StringBuilder();
+        session.read(ff1, new ByteBufferCallback() {
+            @Override
+            public void process(final ByteBuffer buffer) throws IOException {
+                assertTrue(buffer.isReadOnly());
+                final byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                sb.append(new String(bytes, "UTF-8"));
+            }
+        });
+
+        assertEquals("hello, world", sb.toString());
+        session.remove(ff1);
+        session.commit();
+    }
+
     @Test
     public void testMissingFlowFileExceptionThrownWhenUnableToReadData() {
         final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
@@ -18,11 +18,14 @@ package org.apache.nifi.controller.repository;
 
 import org.apache.nifi.controller.repository.VolatileContentRepository;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -48,6 +51,45 @@ public class TestVolatileContentRepository {
         claimManager = new StandardContentClaimManager();
     }
 
+    @Test
+    public void testReadChannelAcrossBlocks() throws IOException {
+        System.setProperty(NiFiProperties.PROPERTIES_FILE_PATH, "src/test/resources/conf/nifi.properties");
+        final NiFiProperties props = NiFiProperties.getInstance();
+        props.setProperty(VolatileContentRepository.MAX_SIZE_PROPERTY, "10 MB");
+        props.setProperty(VolatileContentRepository.BLOCK_SIZE_PROPERTY, "1 KB");
+
+        final VolatileContentRepository contentRepo = new VolatileContentRepository();
+        contentRepo.initialize(claimManager);
+        final ContentClaim claim = contentRepo.create(true);
+
+        final byte[] data = new byte[5000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        try (final OutputStream out = contentRepo.write(claim)) {
+            out.write(data);
+        }
+
+        try (final SeekableByteChannel channel = contentRepo.readChannel(claim)) {
+            assertEquals(5000L, channel.size());
+
+            // read a range that spans the boundary between two blocks
+            channel.position(1000L);
+            final ByteBuffer buffer = ByteBuffer.allocate(100);
+            while (buffer.hasRemaining()) {
+                channel.read(buffer);
+            }
+            assertTrue(Arrays.equals(Arrays.copyOfRange(data, 1000, 1100), buffer.array()));
+
+            channel.position(4990L);
+            buffer.clear();
+            assertEquals(10, channel.read(buffer));
+            assertEquals(-1, channel.read(buffer));
+        } finally {
+            props.remove(VolatileContentRepository.BLOCK_SIZE_PROPERTY);
+        }
+    }
+
     @Test
     public void testRedirects() throws IOException {
         System.setProperty(NiFiProperties.PROPERTIES_FILE_PATH, "src/test/resources/conf/nifi.properties");
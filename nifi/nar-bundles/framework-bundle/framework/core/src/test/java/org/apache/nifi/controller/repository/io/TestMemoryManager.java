@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestMemoryManager {
+
+    @Test
+    public void testCheckOutLimitedToTotalSize() {
+        final MemoryManager memoryManager = new MemoryManager(10 * 1024, 1024);
+
+        final List<ByteBuffer> blocks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final ByteBuffer block = memoryManager.checkOut();
+            assertNotNull(block);
+            assertTrue(block.isDirect());
+            assertEquals(1024, block.capacity());
+            blocks.add(block);
+        }
+        assertNull(memoryManager.checkOut());
+
+        memoryManager.checkIn(blocks.remove(0));
+        assertNotNull(memoryManager.checkOut());
+        assertNull(memoryManager.checkOut());
+    }
+
+    @Test
+    public void testBlocksDoNotOverlap() {
+        final MemoryManager memoryManager = new MemoryManager(4 * 1024, 1024);
+
+        final List<ByteBuffer> blocks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final ByteBuffer block = memoryManager.checkOut();
+            while (block.hasRemaining()) {
+                block.put((byte) i);
+            }
+            blocks.add(block);
+        }
+
+        for (int i = 0; i < 4; i++) {
+            final ByteBuffer block = blocks.get(i);
+            for (int j = 0; j < block.capacity(); j++) {
+                assertEquals((byte) i, block.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestAdaptiveBatchTuner {
+
+    private static final long MAX_NANOS = TimeUnit.MILLISECONDS.toNanos(25L);
+
+    @Test
+    public void testDisabled() {
+        final AdaptiveBatchTuner tuner = new AdaptiveBatchTuner(0L, TimeUnit.MILLISECONDS);
+        assertFalse(tuner.isEnabled());
+
+        tuner.onBatchComplete(1000L, 1, true);
+        assertEquals(0L, tuner.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testGrowsWhileBackloggedAndShrinksWhenIdle() {
+        final AdaptiveBatchTuner tuner = new AdaptiveBatchTuner(25L, TimeUnit.MILLISECONDS);
+        assertTrue(tuner.isEnabled());
+        assertEquals(0L, tuner.getBatchDuration(TimeUnit.NANOSECONDS));
+
+        // cheap invocations with more work queued
+        tuner.onBatchComplete(10000L, 1, true);
+        assertEquals(AdaptiveBatchTuner.MIN_BATCH_NANOS, tuner.getBatchDuration(TimeUnit.NANOSECONDS));
+
+        for (int i = 0; i < 10; i++) {
+            final long batchNanos = tuner.getBatchDuration(TimeUnit.NANOSECONDS);
+            tuner.onBatchComplete(batchNanos, (int) (batchNanos / 10000L), true);
+        }
+        assertEquals(MAX_NANOS, tuner.getBatchDuration(TimeUnit.NANOSECONDS));
+        assertTrue(tuner.getBatchSize() > 100);
+
+        // the queue keeps draining before the batch ends
+        for (int i = 0; i < 10; i++) {
+            tuner.onBatchComplete(100000L, 10, false);
+        }
+        assertEquals(0L, tuner.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    public void testExpensiveInvocationsAreNotBatched() {
+        final AdaptiveBatchTuner tuner = new AdaptiveBatchTuner(25L, TimeUnit.MILLISECONDS);
+        tuner.onBatchComplete(10000L, 1, true);
+        tuner.onBatchComplete(TimeUnit.MILLISECONDS.toNanos(1L), 100, true);
+        assertTrue(tuner.getBatchDuration(TimeUnit.NANOSECONDS) > 0L);
+
+        for (int i = 0; i < 20; i++) {
+            tuner.onBatchComplete(MAX_NANOS, 1, true);
+        }
+        assertEquals(0L, tuner.getBatchDuration(TimeUnit.NANOSECONDS));
+    }
+}
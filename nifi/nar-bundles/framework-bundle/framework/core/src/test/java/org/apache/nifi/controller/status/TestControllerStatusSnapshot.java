@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class TestControllerStatusSnapshot {
+
+    @Test
+    public void testNestedGroupsAreIndexed() {
+        final ProcessGroupStatus root = createGroupStatus("root");
+        final ProcessGroupStatus child = createGroupStatus("child");
+        final ProcessGroupStatus grandchild = createGroupStatus("grandchild");
+        final ProcessGroupStatus sibling = createGroupStatus("sibling");
+
+        root.getProcessGroupStatus().add(child);
+        root.getProcessGroupStatus().add(sibling);
+        child.getProcessGroupStatus().add(grandchild);
+
+        final ControllerStatusSnapshot snapshot = new ControllerStatusSnapshot(3L, 1000L, root);
+        assertEquals(3L, snapshot.getVersion());
+        assertEquals(1000L, snapshot.getTimestamp());
+        assertSame(root, snapshot.getRootGroupStatus());
+        assertSame(root, snapshot.getGroupStatus("root"));
+        assertSame(child, snapshot.getGroupStatus("child"));
+        assertSame(grandchild, snapshot.getGroupStatus("grandchild"));
+        assertSame(sibling, snapshot.getGroupStatus("sibling"));
+        assertNull(snapshot.getGroupStatus("unknown"));
+    }
+
+    @Test
+    public void testGroupWithoutChildStatus() {
+        final ProcessGroupStatus root = new ProcessGroupStatus();
+        root.setId("root");
+
+        final ControllerStatusSnapshot snapshot = new ControllerStatusSnapshot(1L, 1000L, root);
+        assertSame(root, snapshot.getGroupStatus("root"));
+    }
+
+    private ProcessGroupStatus createGroupStatus(final String id) {
+        final ProcessGroupStatus status = new ProcessGroupStatus();
+        status.setId(id);
+        final Collection<ProcessGroupStatus> children = new ArrayList<>();
+        status.setProcessGroupStatus(children);
+        status.setProcessorStatus(Collections.<ProcessorStatus>emptyList());
+        return status;
+    }
+}
@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
@@ -53,6 +54,21 @@ public class FingerprintFactoryTest {
         assertFalse(fp1.equals(fp2));
     }
 
+    @Test
+    public void testFingerprintIsUnchanged() throws IOException {
+        // flow3.fingerprint was generated from flow3.xml by the DOM-based implementation; the
+        // fingerprint is compared across nodes, so it must not change when the parsing does
+        final String fingerprint = fingerprinter.createFingerprint(getResourceBytes("/nifi/fingerprint/flow3.xml"), null);
+        final String expected = new String(getResourceBytes("/nifi/fingerprint/flow3.fingerprint"), StandardCharsets.UTF_8);
+        assertEquals(expected, fingerprint);
+    }
+
+    @Test
+    public void testEmptyFlowHasEmptyFingerprint() {
+        assertEquals("", fingerprinter.createFingerprint(new byte[0], null));
+        assertEquals("", fingerprinter.createFingerprint(null, null));
+    }
+
     private byte[] getResourceBytes(final String resource) throws IOException {
         return IOUtils.toByteArray(FingerprintFactoryTest.class.getResourceAsStream(resource));
     }
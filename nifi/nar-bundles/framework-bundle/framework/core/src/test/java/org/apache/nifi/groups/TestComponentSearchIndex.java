@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.groups;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowFileQueue;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.flowfile.FlowFilePrioritizer;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.search.Searchable;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestComponentSearchIndex {
+
+    private ComponentSearchIndex index;
+
+    @Before
+    public void setup() {
+        index = new ComponentSearchIndex();
+    }
+
+    @Test
+    public void testFindsComponentsBySubstringIgnoringCase() {
+        index.index(createProcessor("1", "Fetch Orders", false));
+        index.index(createProcessor("2", "Route Customers", false));
+
+        assertEquals(1, index.findCandidates("ORDER").getProcessors().size());
+        assertEquals("1", index.findCandidates("ch ord").getProcessors().get(0).getIdentifier());
+        assertEquals(2, index.findCandidates("e").getProcessors().size());
+        assertEquals(1, index.findCandidates("ou").getProcessors().size());
+        assertTrue(index.findCandidates("Invoices").getProcessors().isEmpty());
+    }
+
+    @Test
+    public void testFindsComponentsByProperty() {
+        final ProcessorNode processor = createProcessor("1", "Fetch", false);
+        final Map<PropertyDescriptor, String> properties = new LinkedHashMap<>();
+        properties.put(new PropertyDescriptor.Builder().name("Directory").description("The directory to poll").build(), "/data/incoming");
+        Mockito.when(processor.getProperties()).thenReturn(properties);
+        index.index(processor);
+
+        assertEquals(1, index.findCandidates("directory").getProcessors().size());
+        assertEquals(1, index.findCandidates("to poll").getProcessors().size());
+        assertEquals(1, index.findCandidates("/INCOMING").getProcessors().size());
+    }
+
+    @Test
+    public void testUpdateReflectsModifiedComponent() {
+        final ProcessorNode processor = createProcessor("1", "Fetch Orders", false);
+        index.index(processor);
+
+        Mockito.when(processor.getName()).thenReturn("Fetch Invoices");
+        index.update("1");
+
+        assertTrue(index.findCandidates("orders").getProcessors().isEmpty());
+        assertEquals(1, index.findCandidates("invoices").getProcessors().size());
+    }
+
+    @Test
+    public void testUpdateIgnoresComponentsThatAreNotIndexed() {
+        index.update("1");
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void testRemoveRetainsSharedValues() {
+        index.index(createProcessor("1", "Fetch Orders", false));
+        index.index(createProcessor("2", "Fetch Orders", false));
+        assertEquals(2, index.findCandidates("orders").getProcessors().size());
+
+        index.remove("1");
+        assertEquals(1, index.size());
+        assertEquals("2", index.findCandidates("orders").getProcessors().get(0).getIdentifier());
+
+        index.remove("2");
+        assertEquals(0, index.size());
+        assertTrue(index.findCandidates("orders").getProcessors().isEmpty());
+    }
+
+    @Test
+    public void testSearchableProcessorIsAlwaysCandidate() {
+        index.index(createProcessor("1", "Fetch Orders", false));
+        index.index(createProcessor("2", "Scripted", true));
+
+        assertEquals(1, index.findCandidates("invoices").getProcessors().size());
+        assertEquals("2", index.findCandidates("invoices").getProcessors().get(0).getIdentifier());
+        assertEquals(2, index.getAllComponents().getProcessors().size());
+    }
+
+    @Test
+    public void testConnectionReindexedWhenSourceModified() {
+        final ProcessorNode source = createProcessor("1", "Fetch Orders", false);
+        final ProcessorNode destination = createProcessor("2", "Store Orders", false);
+
+        final FlowFileQueue queue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(queue.getPriorities()).thenReturn(Collections.<FlowFilePrioritizer>emptyList());
+
+        final Connection connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.getIdentifier()).thenReturn("3");
+        Mockito.when(connection.getRelationships()).thenReturn(Collections.singleton(new Relationship.Builder().name("success").build()));
+        Mockito.when(connection.getFlowFileQueue()).thenReturn(queue);
+        Mockito.when(connection.getSource()).thenReturn((Connectable) source);
+        Mockito.when(connection.getDestination()).thenReturn((Connectable) destination);
+        Mockito.when(source.getConnections()).thenReturn(Collections.singleton(connection));
+        Mockito.when(destination.getIncomingConnections()).thenReturn(Collections.singletonList(connection));
+
+        index.index(source);
+        index.index(destination);
+        index.index(connection);
+        assertEquals(1, index.findCandidates("success").getConnections().size());
+        assertEquals(1, index.findCandidates("fetch").getConnections().size());
+
+        Mockito.when(source.getName()).thenReturn("Generate Orders");
+        index.update("1");
+
+        assertTrue(index.findCandidates("fetch").getConnections().isEmpty());
+        assertEquals(1, index.findCandidates("generate").getConnections().size());
+    }
+
+    private ProcessorNode createProcessor(final String id, final String name, final boolean searchable) {
+        final Processor processor = searchable ? Mockito.mock(Processor.class, Mockito.withSettings().extraInterfaces(Searchable.class)) : Mockito.mock(Processor.class);
+
+        final ProcessorNode node = Mockito.mock(ProcessorNode.class);
+        Mockito.when(node.getIdentifier()).thenReturn(id);
+        Mockito.when(node.getName()).thenReturn(name);
+        Mockito.when(node.getProcessor()).thenReturn(processor);
+        Mockito.when(node.getConnectableType()).thenReturn(ConnectableType.PROCESSOR);
+        return node;
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.nifi.util.file.FileUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+public class TestFlowConfigurationJournal {
+
+    private Path flowXml;
+
+    @Before
+    public void setup() throws IOException {
+        final File dir = new File("target/flow-configuration-journal");
+        if (dir.exists()) {
+            FileUtils.deleteFile(dir, true);
+        }
+        Files.createDirectories(dir.toPath());
+        flowXml = dir.toPath().resolve("flow.xml.gz");
+    }
+
+    @Test
+    public void testUnchangedComponentsAreNotJournaled() throws Exception {
+        final FlowConfigurationJournal journal = new FlowConfigurationJournal(flowXml);
+        final String flow = flow(10, group("group-1", "Group 1", processor("proc-1", "Processor 1", "value")));
+        journal.write(parse(flow));
+        final long snapshotLength = Files.size(flowXml);
+
+        journal.write(parse(flow));
+        assertFalse(Files.exists(journal.getJournalFile()));
+
+        final String updated = flow(10, group("group-1", "Group 1", processor("proc-1", "Processor 1", "new value")));
+        journal.write(parse(updated));
+        assertTrue(Files.exists(journal.getJournalFile()));
+        assertEquals(snapshotLength, Files.size(flowXml));
+
+        assertEquivalent(updated, read(journal));
+        assertEquivalent(updated, read(new FlowConfigurationJournal(flowXml)));
+    }
+
+    @Test
+    public void testReplayAddsUpdatesMovesAndRemovesComponents() throws Exception {
+        final FlowConfigurationJournal journal = new FlowConfigurationJournal(flowXml);
+        journal.write(parse(flow(10,
+                processor("proc-0", "Root Processor", "root"),
+                group("group-1", "Group 1",
+                        processor("proc-1", "Processor 1", "a"),
+                        group("group-2", "Group 2", processor("proc-2", "Processor 2", "b"))),
+                group("group-3", "Group 3", processor("proc-3", "Processor 3", "c")),
+                connection("conn-1", "proc-0", "proc-0"))));
+
+        // change the controller settings, rename a group, move a group out of a group that is removed,
+        // move a processor between groups, add a group, and remove a connection
+        final String updated = flow(20,
+                processor("proc-0", "Root Processor", "root"),
+                group("group-2", "Group 2", processor("proc-2", "Processor 2", "b")),
+                group("group-3", "Renamed Group 3",
+                        processor("proc-3", "Processor 3", "c"),
+                        processor("proc-1", "Processor 1", "a")),
+                group("group-4", "Group 4", processor("proc-4", "Processor 4", "d")));
+        journal.write(parse(updated));
+        assertTrue(Files.exists(journal.getJournalFile()));
+
+        assertEquivalent(updated, read(new FlowConfigurationJournal(flowXml)));
+    }
+
+    @Test
+    public void testJournalIsCompactedWhenLargerThanSnapshot() throws Exception {
+        final FlowConfigurationJournal journal = new FlowConfigurationJournal(flowXml, 1L);
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "0"))));
+
+        String flow = null;
+        boolean compacted = false;
+        for (int i = 1; i < 100 && !compacted; i++) {
+            flow = flow(10, processor("proc-1", "Processor 1", String.valueOf(i)));
+            journal.write(parse(flow));
+            compacted = !Files.exists(journal.getJournalFile());
+        }
+
+        assertTrue(compacted);
+        assertEquivalent(flow, read(new FlowConfigurationJournal(flowXml)));
+    }
+
+    @Test
+    public void testJournalForPreviousSnapshotIsIgnored() throws Exception {
+        final FlowConfigurationJournal journal = new FlowConfigurationJournal(flowXml);
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "a"))));
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "b"))));
+
+        final Path staleJournal = flowXml.resolveSibling("stale.journal");
+        Files.copy(journal.getJournalFile(), staleJournal);
+
+        // simulate a compaction that failed to delete the journal
+        final String snapshot = flow(10, processor("proc-1", "Processor 1", "c"), processor("proc-2", "Processor 2", "d"));
+        journal.writeSnapshot(new ByteArrayInputStream(snapshot.getBytes(StandardCharsets.UTF_8)));
+        Files.move(staleJournal, journal.getJournalFile(), StandardCopyOption.REPLACE_EXISTING);
+
+        assertEquivalent(snapshot, read(new FlowConfigurationJournal(flowXml)));
+    }
+
+    @Test
+    public void testIncompleteEntryIsIgnored() throws Exception {
+        final FlowConfigurationJournal journal = new FlowConfigurationJournal(flowXml);
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "a"), processor("proc-2", "Processor 2", "a"))));
+
+        final String updated = flow(10, processor("proc-1", "Processor 1", "b"), processor("proc-2", "Processor 2", "a"));
+        journal.write(parse(updated));
+        final long journalLength = Files.size(journal.getJournalFile());
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "b"), processor("proc-2", "Processor 2", "c"))));
+
+        // simulate NiFi being stopped part way through appending the last save
+        final byte[] journalBytes = Files.readAllBytes(journal.getJournalFile());
+        try (final OutputStream out = Files.newOutputStream(journal.getJournalFile(), StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(journalBytes, 0, (int) journalLength + 10);
+        }
+
+        assertEquivalent(updated, read(new FlowConfigurationJournal(flowXml)));
+    }
+
+    @Test
+    public void testFailedAppendIsDiscarded() throws Exception {
+        final AtomicBoolean failNextAppend = new AtomicBoolean(false);
+        final FlowConfigurationJournal journal = new FlowConfigurationJournal(flowXml) {
+            @Override
+            void append(final FileChannel channel, final ByteBuffer entries) throws IOException {
+                if (failNextAppend.getAndSet(false)) {
+                    // simulate the disk filling up part way through the save
+                    entries.limit(entries.position() + entries.remaining() / 2);
+                    super.append(channel, entries);
+                    throw new IOException("No space left on device");
+                }
+                super.append(channel, entries);
+            }
+        };
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "a"), processor("proc-2", "Processor 2", "a"))));
+        journal.write(parse(flow(10, processor("proc-1", "Processor 1", "b"), processor("proc-2", "Processor 2", "a"))));
+        final long journalLength = Files.size(journal.getJournalFile());
+
+        failNextAppend.set(true);
+        try {
+            journal.write(parse(flow(10, processor("proc-1", "Processor 1", "b"), processor("proc-2", "Processor 2", "c"))));
+            fail("Expected the save to fail");
+        } catch (final IOException expected) {
+        }
+        assertEquals(journalLength, Files.size(journal.getJournalFile()));
+
+        final String updated = flow(10, processor("proc-1", "Processor 1", "d"), processor("proc-2", "Processor 2", "c"));
+        journal.write(parse(updated));
+        assertTrue(Files.exists(journal.getJournalFile()));
+
+        assertEquivalent(updated, read(journal));
+        assertEquivalent(updated, read(new FlowConfigurationJournal(flowXml)));
+    }
+
+    private static String flow(final int maxTimerDrivenThreads, final String... rootComponents) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<flowController>");
+        sb.append("<maxTimerDrivenThreadCount>").append(maxTimerDrivenThreads).append("</maxTimerDrivenThreadCount>");
+        sb.append("<maxEventDrivenThreadCount>5</maxEventDrivenThreadCount>");
+        sb.append(container("rootGroup", "root", "NiFi Flow", rootComponents));
+        sb.append("</flowController>");
+        return sb.toString();
+    }
+
+    private static String group(final String id, final String name, final String... components) {
+        return container("processGroup", id, name, components);
+    }
+
+    private static String container(final String elementName, final String id, final String name, final String... components) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<").append(elementName).append("><id>").append(id).append("</id><name>").append(name).append("</name>");
+        sb.append("<position x=\"0.0\" y=\"0.0\"/><comment/>");
+        for (final String component : components) {
+            sb.append(component);
+        }
+        sb.append("</").append(elementName).append(">");
+        return sb.toString();
+    }
+
+    private static String processor(final String id, final String name, final String propertyValue) {
+        return "<processor><id>" + id + "</id><name>" + name + "</name><position x=\"0.0\" y=\"0.0\"/>"
+                + "<class>org.apache.nifi.processors.Test</class><property><name>Value</name><value>" + propertyValue + "</value></property></processor>";
+    }
+
+    private static String connection(final String id, final String sourceId, final String destinationId) {
+        return "<connection><id>" + id + "</id><name/><sourceId>" + sourceId + "</sourceId><destinationId>" + destinationId + "</destinationId></connection>";
+    }
+
+    private static Document parse(final String xml) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String read(final FlowConfigurationJournal journal) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        journal.read(baos);
+        return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void assertEquivalent(final String expected, final String actual) throws Exception {
+        assertEquals(normalize(parse(expected).getDocumentElement()), normalize(parse(actual).getDocumentElement()));
+    }
+
+    /**
+     * Renders the given element without formatting, ordering the components of
+     * each Process Group by type and then by id, since the order of components
+     * of the same type is not significant
+     */
+    private static String normalize(final Element element) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append('<').append(element.getNodeName());
+        final NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            sb.append(' ').append(attributes.item(i).getNodeName()).append('=').append(attributes.item(i).getNodeValue());
+        }
+        sb.append('>');
+
+        final List<String> children = new ArrayList<>();
+        final NodeList childNodes = element.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+            final Node child = childNodes.item(i);
+            if (child instanceof Element) {
+                children.add(normalize((Element) child));
+            } else if (child.getNodeType() == Node.TEXT_NODE && !child.getNodeValue().trim().isEmpty()) {
+                children.add(child.getNodeValue());
+            }
+        }
+        if (element.getNodeName().endsWith("Group")) {
+            Collections.sort(children.subList(4, children.size()));
+        }
+
+        for (final String child : children) {
+            sb.append(child);
+        }
+        return sb.append("</").append(element.getNodeName()).append('>').toString();
+    }
+}
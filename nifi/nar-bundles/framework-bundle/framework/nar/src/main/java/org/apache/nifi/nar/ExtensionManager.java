@@ -16,12 +16,31 @@
  */
 package org.apache.nifi.nar;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.nifi.authorization.AuthorityProvider;
 import org.apache.nifi.controller.ControllerService;
@@ -55,6 +74,9 @@ public class ExtensionManager {
 
     private static final Map<String, ClassLoader> extensionClassloaderLookup = new HashMap<>();
 
+    // identifies the system class loader in the index of extensions; NAR class loaders are identified by their working directory
+    static final String SYSTEM_CLASS_LOADER_KEY = "system";
+
     static {
         definitionMap.put(Processor.class, new HashSet<Class>());
         definitionMap.put(FlowFilePrioritizer.class, new HashSet<Class>());
@@ -74,42 +96,240 @@ public class ExtensionManager {
      * classloaders for all NARs found within the classpath.
      */
     public static void discoverExtensions() {
-        final ClassLoader systemClassLoader = ClassLoader.getSystemClassLoader();
+        discoverExtensions(null);
+    }
 
-        // get the current context class loader
-        ClassLoader currentContextClassLoader = Thread.currentThread().getContextClassLoader();
+    /**
+     * Loads all FlowFileProcessor, FlowFileComparator, ReportingTask class
+     * types that can be found on the bootstrap classloader and by creating
+     * classloaders for all NARs found within the classpath. If the given index
+     * was written by a previous discovery over the same classpath and NARs, the
+     * extensions are loaded from the index rather than by scanning each
+     * classloader; otherwise, the classloaders are scanned and the index is
+     * rewritten.
+     *
+     * @param extensionIndexFile the index of the extensions that were found by
+     * the previous discovery, or <code>null</code> to always scan
+     */
+    public static void discoverExtensions(final File extensionIndexFile) {
+        final Map<String, ClassLoader> classLoaders = new LinkedHashMap<>();
+        classLoaders.put(SYSTEM_CLASS_LOADER_KEY, ClassLoader.getSystemClassLoader());
+        classLoaders.putAll(NarClassLoaders.getExtensionClassLoadersByDirectory());
 
-        // consider the system class loader
-        loadExtensions(systemClassLoader);
+        // register in the order that the classloaders were scanned, so that the first classloader to provide a class is used
+        for (final DiscoveredExtension extension : findExtensions(extensionIndexFile, classLoaders)) {
+            registerServiceClass(extension.getType(), extensionClassloaderLookup, classLoaders.get(extension.getClassLoaderKey()), definitionMap.get(extension.getDefinition()));
+        }
+    }
 
-        // consider each nar class loader
-        for (final ClassLoader ncl : NarClassLoaders.getExtensionClassLoaders()) {
+    /**
+     * Finds the extensions provided by the given class loaders, from the given
+     * index if it is current, or else by scanning the class loaders and
+     * rewriting the index.
+     *
+     * @param extensionIndexFile the index, or <code>null</code> to always scan
+     * @param classLoaders the class loaders, keyed by the system class loader
+     * key or the working directory of their NAR
+     * @return the extensions, ordered by class loader
+     */
+    static List<DiscoveredExtension> findExtensions(final File extensionIndexFile, final Map<String, ClassLoader> classLoaders) {
+        final String fingerprint = (extensionIndexFile == null) ? null : calculateFingerprint(classLoaders);
 
-            // Must set the context class loader to the nar classloader itself 
-            // so that static initialization techniques that depend on the context class loader will work properly
-            Thread.currentThread().setContextClassLoader(ncl);
-            loadExtensions(ncl);
+        List<DiscoveredExtension> extensions = null;
+        if (fingerprint != null && extensionIndexFile.exists()) {
+            extensions = readIndex(extensionIndexFile, fingerprint, classLoaders);
         }
 
-        // restore the current context class loader if appropriate
-        if (currentContextClassLoader != null) {
-            Thread.currentThread().setContextClassLoader(currentContextClassLoader);
+        if (extensions == null) {
+            extensions = loadExtensions(classLoaders);
+            if (fingerprint != null) {
+                writeIndex(extensionIndexFile, fingerprint, extensions);
+            }
+        } else {
+            logger.info("Loaded {} extensions from {}", extensions.size(), extensionIndexFile);
+        }
+
+        return extensions;
+    }
+
+    /**
+     * Scans each of the given class loaders, in parallel, for extensions.
+     *
+     * @param classLoaders
+     * @return the extensions found, ordered by class loader
+     */
+    private static List<DiscoveredExtension> loadExtensions(final Map<String, ClassLoader> classLoaders) {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(classLoaders.size(), Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "Discover Extensions-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        try {
+            final List<Future<List<DiscoveredExtension>>> futures = new ArrayList<>();
+            for (final Map.Entry<String, ClassLoader> entry : classLoaders.entrySet()) {
+                futures.add(executor.submit(new Callable<List<DiscoveredExtension>>() {
+                    @Override
+                    public List<DiscoveredExtension> call() {
+                        // Must set the context class loader to the nar classloader itself
+                        // so that static initialization techniques that depend on the context class loader will work properly
+                        final Thread thread = Thread.currentThread();
+                        final ClassLoader currentContextClassLoader = thread.getContextClassLoader();
+                        thread.setContextClassLoader(entry.getValue());
+                        try {
+                            return loadExtensions(entry.getKey(), entry.getValue());
+                        } finally {
+                            thread.setContextClassLoader(currentContextClassLoader);
+                        }
+                    }
+                }));
+            }
+
+            final List<DiscoveredExtension> extensions = new ArrayList<>();
+            for (final Future<List<DiscoveredExtension>> future : futures) {
+                try {
+                    extensions.addAll(future.get());
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while discovering extensions", ie);
+                } catch (final ExecutionException ee) {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException("Failed to discover extensions", cause);
+                }
+            }
+            return extensions;
+        } finally {
+            executor.shutdownNow();
         }
     }
 
     /**
      * Loads extensions from the specified class loader.
      *
+     * @param classLoaderKey
      * @param classLoader
+     * @return
      */
-    @SuppressWarnings("unchecked")
-    private static void loadExtensions(final ClassLoader classLoader) {
-        for (final Map.Entry<Class, Set<Class>> entry : definitionMap.entrySet()) {
-            final ServiceLoader<?> serviceLoader = ServiceLoader.load(entry.getKey(), classLoader);
+    private static List<DiscoveredExtension> loadExtensions(final String classLoaderKey, final ClassLoader classLoader) {
+        final List<DiscoveredExtension> extensions = new ArrayList<>();
+        for (final Class definition : definitionMap.keySet()) {
+            final ServiceLoader<?> serviceLoader = ServiceLoader.load(definition, classLoader);
 
             for (final Object o : serviceLoader) {
-                registerServiceClass(o.getClass(), extensionClassloaderLookup, classLoader, entry.getValue());
+                extensions.add(new DiscoveredExtension(definition, o.getClass(), classLoaderKey));
+            }
+        }
+        return extensions;
+    }
+
+    /**
+     * Calculates a fingerprint of the system classpath and of each NAR, which
+     * changes if any of them change.
+     *
+     * @param classLoaders
+     * @return the fingerprint, or <code>null</code> if a NAR's checksum is not
+     * known
+     */
+    private static String calculateFingerprint(final Map<String, ClassLoader> classLoaders) {
+        try {
+            final MessageDigest md5 = MessageDigest.getInstance("md5");
+            final String classpath = System.getProperty("java.class.path", "");
+            for (final String classpathEntry : classpath.split(File.pathSeparator)) {
+                final File file = new File(classpathEntry);
+                md5.update((classpathEntry + ":" + file.length() + ":" + file.lastModified() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+
+            for (final String narDirectory : classLoaders.keySet()) {
+                if (SYSTEM_CLASS_LOADER_KEY.equals(narDirectory)) {
+                    continue;
+                }
+
+                final File hashFile = new File(narDirectory, NarUnpacker.HASH_FILENAME);
+                if (!hashFile.exists()) {
+                    return null;
+                }
+                md5.update((narDirectory + "\n").getBytes(StandardCharsets.UTF_8));
+                md5.update(Files.readAllBytes(hashFile.toPath()));
+            }
+
+            final StringBuilder sb = new StringBuilder();
+            for (final byte b : md5.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (final NoSuchAlgorithmException | IOException e) {
+            logger.warn("Unable to calculate fingerprint of NARs due to {}; will scan all NARs for extensions", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the extensions from the given index.
+     *
+     * @param indexFile
+     * @param fingerprint
+     * @param classLoaders
+     * @return the extensions, or <code>null</code> if the index does not match
+     * the given fingerprint or refers to a class that cannot be loaded
+     */
+    private static List<DiscoveredExtension> readIndex(final File indexFile, final String fingerprint, final Map<String, ClassLoader> classLoaders) {
+        final Map<String, Class> definitions = new HashMap<>();
+        for (final Class definition : definitionMap.keySet()) {
+            definitions.put(definition.getName(), definition);
+        }
+
+        final List<DiscoveredExtension> extensions = new ArrayList<>();
+        try (final BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+            if (!fingerprint.equals(reader.readLine())) {
+                logger.info("NARs have changed since {} was written; will scan all NARs for extensions", indexFile);
+                return null;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] fields = line.split("\t");
+                final Class definition = (fields.length == 3) ? definitions.get(fields[0]) : null;
+                final ClassLoader classLoader = (fields.length == 3) ? classLoaders.get(fields[1]) : null;
+                if (definition == null || classLoader == null) {
+                    logger.warn("{} is invalid; will scan all NARs for extensions", indexFile);
+                    return null;
+                }
+
+                extensions.add(new DiscoveredExtension(definition, Class.forName(fields[2], false, classLoader), fields[1]));
+            }
+        } catch (final IOException | ClassNotFoundException | LinkageError e) {
+            logger.warn("Unable to load extensions from {} due to {}; will scan all NARs for extensions", indexFile, e.toString());
+            return null;
+        }
+
+        return extensions;
+    }
+
+    private static void writeIndex(final File indexFile, final String fingerprint, final List<DiscoveredExtension> extensions) {
+        final File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try {
+            try (final BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+                writer.write(fingerprint);
+                writer.newLine();
+                for (final DiscoveredExtension extension : extensions) {
+                    writer.write(extension.getDefinition().getName() + "\t" + extension.getClassLoaderKey() + "\t" + extension.getType().getName());
+                    writer.newLine();
+                }
             }
+
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException ioe) {
+            logger.warn("Unable to write index of extensions to {} due to {}; NARs will be scanned for extensions on the next start", indexFile, ioe.toString());
         }
     }
 
@@ -169,6 +389,34 @@ public class ExtensionManager {
         return (extensions == null) ? Collections.<Class>emptySet() : extensions;
     }
 
+    /**
+     * An extension, and the class loader that it was discovered by.
+     */
+    static class DiscoveredExtension {
+
+        private final Class definition;
+        private final Class type;
+        private final String classLoaderKey;
+
+        public DiscoveredExtension(final Class definition, final Class type, final String classLoaderKey) {
+            this.definition = definition;
+            this.type = type;
+            this.classLoaderKey = classLoaderKey;
+        }
+
+        public Class getDefinition() {
+            return definition;
+        }
+
+        public Class getType() {
+            return type;
+        }
+
+        public String getClassLoaderKey() {
+            return classLoaderKey;
+        }
+    }
+
     public static void logClassLoaderMapping() {
         final StringBuilder builder = new StringBuilder();
 
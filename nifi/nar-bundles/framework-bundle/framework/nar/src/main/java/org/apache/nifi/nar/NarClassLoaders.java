@@ -265,6 +265,22 @@ public final class NarClassLoaders {
         return new LinkedHashSet<>(extensionClassLoaders.get().values());
     }
 
+    /**
+     * Gets the extension class loaders, keyed by the canonical path of the
+     * working directory of their NAR.
+     *
+     * @return
+     *
+     * @throws IllegalStateException if the class loaders have not been loaded
+     */
+    static Map<String, ClassLoader> getExtensionClassLoadersByDirectory() {
+        if (!initialized.get()) {
+            throw new IllegalStateException("Extensions class loaders have not been loaded.");
+        }
+
+        return new LinkedHashMap<>(extensionClassLoaders.get());
+    }
+
     private static class NarDetails {
 
         private String narId;
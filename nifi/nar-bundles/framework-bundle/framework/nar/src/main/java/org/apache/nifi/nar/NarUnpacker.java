@@ -24,6 +24,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -31,8 +32,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -51,7 +61,8 @@ import org.slf4j.LoggerFactory;
 public final class NarUnpacker {
 
     private static final Logger logger = LoggerFactory.getLogger(NarUnpacker.class);
-    private static String HASH_FILENAME = "nar-md5sum";
+    static final String HASH_FILENAME = "nar-md5sum";
+    static final String ATTRIBUTES_FILENAME = "nar-attributes";
     private static final FileFilter NAR_FILTER = new FileFilter() {
         @Override
         public boolean accept(File pathname) {
@@ -77,28 +88,59 @@ public final class NarUnpacker {
             final Set<File> unpackedExtensions = new HashSet<>();
             final File[] narFiles = narLibraryDir.listFiles(NAR_FILTER);
             if (narFiles != null) {
-                for (File narFile : narFiles) {
-                    logger.debug("Expanding NAR file: " + narFile.getAbsolutePath());
-
-                    // get the manifest for this nar
-                    try (final JarFile nar = new JarFile(narFile)) {
-                        final Manifest manifest = nar.getManifest();
+                // verify and expand the nars in parallel, as hashing and expanding each nar is independent of the others
+                final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(narFiles.length, Runtime.getRuntime().availableProcessors())), new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                    @Override
+                    public Thread newThread(final Runnable r) {
+                        final Thread t = new Thread(r, "Unpack NARs-" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+
+                final Map<File, Future<UnpackedNar>> futures = new LinkedHashMap<>();
+                try {
+                    for (final File narFile : narFiles) {
+                        futures.put(narFile, executor.submit(new Callable<UnpackedNar>() {
+                            @Override
+                            public UnpackedNar call() throws IOException {
+                                return unpackNar(narFile, frameworkWorkingDir, extensionsWorkingDir);
+                            }
+                        }));
+                    }
 
-                        // lookup the nar id
-                        final Attributes attributes = manifest.getMainAttributes();
-                        final String narId = attributes.getValue("Nar-Id");
+                    for (final Map.Entry<File, Future<UnpackedNar>> entry : futures.entrySet()) {
+                        final UnpackedNar unpackedNar;
+                        try {
+                            unpackedNar = entry.getValue().get();
+                        } catch (final InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException("Interrupted while expanding NAR file " + entry.getKey().getAbsolutePath(), ie);
+                        } catch (final ExecutionException ee) {
+                            final Throwable cause = ee.getCause();
+                            if (cause instanceof IOException) {
+                                throw (IOException) cause;
+                            } else if (cause instanceof RuntimeException) {
+                                throw (RuntimeException) cause;
+                            }
+                            throw new IOException("Failed to expand NAR file " + entry.getKey().getAbsolutePath(), cause);
+                        }
 
                         // determine if this is the framework
-                        if (NarClassLoaders.FRAMEWORK_NAR_ID.equals(narId)) {
+                        if (unpackedNar.isFramework()) {
                             if (unpackedFramework != null) {
                                 throw new IllegalStateException("Multiple framework NARs discovered. Only one framework is permitted.");
                             }
 
-                            unpackedFramework = unpackNar(narFile, frameworkWorkingDir);
+                            unpackedFramework = unpackedNar.getWorkingDirectory();
                         } else {
-                            unpackedExtensions.add(unpackNar(narFile, extensionsWorkingDir));
+                            unpackedExtensions.add(unpackedNar.getWorkingDirectory());
                         }
                     }
+                } finally {
+                    executor.shutdownNow();
                 }
 
                 // ensure we've found the framework nar
@@ -166,6 +208,36 @@ public final class NarUnpacker {
         }
     }
 
+    /**
+     * Unpacks the specified nar into the framework working directory if it is
+     * the framework nar, or the extensions working directory otherwise.
+     *
+     * @param narFile
+     * @param frameworkWorkingDir
+     * @param extensionsWorkingDir
+     * @return
+     * @throws IOException
+     */
+    private static UnpackedNar unpackNar(final File narFile, final File frameworkWorkingDir, final File extensionsWorkingDir) throws IOException {
+        logger.debug("Expanding NAR file: " + narFile.getAbsolutePath());
+
+        // get the manifest for this nar
+        final String narId;
+        try (final JarFile nar = new JarFile(narFile)) {
+            final Manifest manifest = nar.getManifest();
+
+            // lookup the nar id
+            final Attributes attributes = manifest.getMainAttributes();
+            narId = attributes.getValue("Nar-Id");
+        }
+
+        if (NarClassLoaders.FRAMEWORK_NAR_ID.equals(narId)) {
+            return new UnpackedNar(unpackNar(narFile, frameworkWorkingDir), true);
+        } else {
+            return new UnpackedNar(unpackNar(narFile, extensionsWorkingDir), false);
+        }
+    }
+
     /**
      * Unpacks the specified nar into the specified base working directory.
      *
@@ -174,16 +246,24 @@ public final class NarUnpacker {
      * @return
      * @throws IOException
      */
-    private static File unpackNar(final File nar, final File baseWorkingDirectory) throws IOException {
+    static File unpackNar(final File nar, final File baseWorkingDirectory) throws IOException {
         final File narWorkingDirectory = new File(baseWorkingDirectory, nar.getName() + "-unpacked");
 
         // if the working directory doesn't exist, unpack the nar
         if (!narWorkingDirectory.exists()) {
             unpack(nar, narWorkingDirectory, calculateMd5sum(nar));
         } else {
-            // the working directory does exist. Run MD5 sum against the nar file and check if the nar has changed since it was deployed.
-            final byte[] narMd5 = calculateMd5sum(nar);
             final File workingHashFile = new File(narWorkingDirectory, HASH_FILENAME);
+            final File workingAttributesFile = new File(narWorkingDirectory, ATTRIBUTES_FILENAME);
+
+            // if the nar has the same size and modification time as when it was deployed, assume that it has not changed
+            if (workingHashFile.exists() && workingAttributesFile.exists()
+                    && Arrays.equals(Files.readAllBytes(workingAttributesFile.toPath()), getFileAttributes(nar))) {
+                return narWorkingDirectory;
+            }
+
+            // otherwise, run MD5 sum against the nar file and check if the nar has changed since it was deployed.
+            final byte[] narMd5 = calculateMd5sum(nar);
             if (!workingHashFile.exists()) {
                 FileUtils.deleteFile(narWorkingDirectory, true);
                 unpack(nar, narWorkingDirectory, narMd5);
@@ -193,6 +273,9 @@ public final class NarUnpacker {
                     logger.info("Contents of nar {} have changed. Reloading.", new Object[]{nar.getAbsolutePath()});
                     FileUtils.deleteFile(narWorkingDirectory, true);
                     unpack(nar, narWorkingDirectory, narMd5);
+                } else {
+                    // the nar was touched but is unchanged, so it need not be hashed again
+                    writeFileAttributes(nar, narWorkingDirectory);
                 }
             }
         }
@@ -228,6 +311,27 @@ public final class NarUnpacker {
         try (final FileOutputStream fos = new FileOutputStream(hashFile)) {
             fos.write(hash);
         }
+        writeFileAttributes(nar, workingDirectory);
+    }
+
+    /**
+     * Records the size and modification time of the NAR in its working
+     * directory, so that the NAR need not be hashed on the next start if
+     * neither has changed.
+     *
+     * @param nar
+     * @param workingDirectory
+     * @throws IOException
+     */
+    private static void writeFileAttributes(final File nar, final File workingDirectory) throws IOException {
+        final File attributesFile = new File(workingDirectory, ATTRIBUTES_FILENAME);
+        try (final FileOutputStream fos = new FileOutputStream(attributesFile)) {
+            fos.write(getFileAttributes(nar));
+        }
+    }
+
+    private static byte[] getFileAttributes(final File nar) {
+        return (nar.length() + ":" + nar.lastModified()).getBytes(StandardCharsets.UTF_8);
     }
 
     private static void unpackDocumentation(final File jar, final File docsDirectory, final ExtensionMapping extensionMapping) throws IOException {
@@ -332,7 +436,7 @@ public final class NarUnpacker {
         try (final FileInputStream inputStream = new FileInputStream(file)) {
             final MessageDigest md5 = MessageDigest.getInstance("md5");
 
-            final byte[] buffer = new byte[1024];
+            final byte[] buffer = new byte[65536];
             int read = inputStream.read(buffer);
 
             while (read > -1) {
@@ -346,6 +450,25 @@ public final class NarUnpacker {
         }
     }
 
+    private static class UnpackedNar {
+
+        private final File workingDirectory;
+        private final boolean framework;
+
+        public UnpackedNar(final File workingDirectory, final boolean framework) {
+            this.workingDirectory = workingDirectory;
+            this.framework = framework;
+        }
+
+        public File getWorkingDirectory() {
+            return workingDirectory;
+        }
+
+        public boolean isFramework() {
+            return framework;
+        }
+    }
+
     private NarUnpacker() {
     }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.nar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.Processor;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.util.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ExtensionManagerTest {
+
+    private static final File BASE_DIRECTORY = new File("target/extension-manager");
+
+    private File narWorkingDirectory;
+    private File indexFile;
+    private URLClassLoader narClassLoader;
+    private Map<String, ClassLoader> classLoaders;
+
+    @Before
+    public void setup() throws IOException {
+        if (BASE_DIRECTORY.exists()) {
+            FileUtils.deleteFile(BASE_DIRECTORY, true);
+        }
+
+        narWorkingDirectory = new File(BASE_DIRECTORY, "test.nar-unpacked").getAbsoluteFile();
+        Assert.assertTrue(narWorkingDirectory.mkdirs());
+        write(new File(narWorkingDirectory, NarUnpacker.HASH_FILENAME), "first");
+
+        // a jar that declares the processor as a service, so it is only found through the nar's class loader
+        final File jar = new File(narWorkingDirectory, "processors.jar");
+        try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("META-INF/services/" + Processor.class.getName()));
+            out.write((NoOpProcessor.class.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        narClassLoader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, getClass().getClassLoader());
+        classLoaders = new LinkedHashMap<>();
+        classLoaders.put(narWorkingDirectory.getPath(), narClassLoader);
+
+        indexFile = new File(BASE_DIRECTORY, "extensions.index");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        narClassLoader.close();
+    }
+
+    /**
+     * Ensures the extensions found by scanning are indexed, and that the index
+     * is used while the NARs are unchanged.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIndexIsUsed() throws Exception {
+        assertScanned(ExtensionManager.findExtensions(indexFile, classLoaders));
+        Assert.assertTrue(indexFile.exists());
+
+        // point the index at a different class, so that its use is observable
+        final List<String> lines = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+        Files.write(indexFile.toPath(), replace(lines, NoOpProcessor.class.getName(), OtherProcessor.class.getName()), StandardCharsets.UTF_8);
+
+        final List<ExtensionManager.DiscoveredExtension> extensions = ExtensionManager.findExtensions(indexFile, classLoaders);
+        Assert.assertEquals(1, extensions.size());
+        Assert.assertEquals(Processor.class, extensions.get(0).getDefinition());
+        Assert.assertEquals(OtherProcessor.class, extensions.get(0).getType());
+        Assert.assertEquals(narWorkingDirectory.getPath(), extensions.get(0).getClassLoaderKey());
+    }
+
+    /**
+     * Ensures the index is not used, and is rewritten, once a NAR has changed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFingerprintMismatch() throws Exception {
+        ExtensionManager.findExtensions(indexFile, classLoaders);
+        final List<String> lines = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+        Files.write(indexFile.toPath(), replace(lines, NoOpProcessor.class.getName(), OtherProcessor.class.getName()), StandardCharsets.UTF_8);
+
+        write(new File(narWorkingDirectory, NarUnpacker.HASH_FILENAME), "second");
+        assertScanned(ExtensionManager.findExtensions(indexFile, classLoaders));
+
+        final List<String> rewritten = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertNotEquals(lines.get(0), rewritten.get(0));
+        assertIndexed(rewritten);
+    }
+
+    /**
+     * Ensures an index with a malformed entry is not used, and is rewritten.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCorruptIndex() throws Exception {
+        ExtensionManager.findExtensions(indexFile, classLoaders);
+        final String fingerprint = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8).get(0);
+        write(indexFile, fingerprint + "\nnot an entry\n");
+
+        assertScanned(ExtensionManager.findExtensions(indexFile, classLoaders));
+        assertIndexed(Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ensures an index that refers to a class loader that no longer exists is
+     * not used, and is rewritten.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStaleIndex() throws Exception {
+        ExtensionManager.findExtensions(indexFile, classLoaders);
+        final List<String> lines = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+        final File removedNarDirectory = new File(BASE_DIRECTORY, "removed.nar-unpacked").getAbsoluteFile();
+        Files.write(indexFile.toPath(), replace(lines, narWorkingDirectory.getPath(), removedNarDirectory.getPath()), StandardCharsets.UTF_8);
+
+        assertScanned(ExtensionManager.findExtensions(indexFile, classLoaders));
+        assertIndexed(Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ensures an index that refers to a class that cannot be loaded is not
+     * used, and is rewritten.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnloadableClass() throws Exception {
+        ExtensionManager.findExtensions(indexFile, classLoaders);
+        final List<String> lines = Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8);
+        Files.write(indexFile.toPath(), replace(lines, NoOpProcessor.class.getName(), "org.apache.nifi.nar.MissingProcessor"), StandardCharsets.UTF_8);
+
+        assertScanned(ExtensionManager.findExtensions(indexFile, classLoaders));
+        assertIndexed(Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ensures no index is written when a NAR's checksum is not known.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnknownChecksum() throws Exception {
+        Assert.assertTrue(new File(narWorkingDirectory, NarUnpacker.HASH_FILENAME).delete());
+
+        assertScanned(ExtensionManager.findExtensions(indexFile, classLoaders));
+        Assert.assertFalse(indexFile.exists());
+    }
+
+    private void assertScanned(final List<ExtensionManager.DiscoveredExtension> extensions) {
+        final List<Class> types = new ArrayList<>();
+        for (final ExtensionManager.DiscoveredExtension extension : extensions) {
+            if (narWorkingDirectory.getPath().equals(extension.getClassLoaderKey())) {
+                types.add(extension.getType());
+            }
+        }
+
+        Assert.assertTrue(types.contains(NoOpProcessor.class));
+        Assert.assertFalse(types.contains(OtherProcessor.class));
+    }
+
+    private void assertIndexed(final List<String> lines) {
+        Assert.assertTrue(lines.contains(Processor.class.getName() + "\t" + narWorkingDirectory.getPath() + "\t" + NoOpProcessor.class.getName()));
+        for (final String line : lines) {
+            Assert.assertFalse(line.contains("MissingProcessor"));
+            Assert.assertFalse(line.contains("removed.nar-unpacked"));
+        }
+    }
+
+    private static List<String> replace(final List<String> lines, final String target, final String replacement) {
+        final List<String> replaced = new ArrayList<>();
+        for (final String line : lines) {
+            replaced.add(line.replace(target, replacement));
+        }
+        return replaced;
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static class NoOpProcessor extends AbstractProcessor {
+
+        @Override
+        public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
+        }
+    }
+
+    public static class OtherProcessor extends NoOpProcessor {
+    }
+}
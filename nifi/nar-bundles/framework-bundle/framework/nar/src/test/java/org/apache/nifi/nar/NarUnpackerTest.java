@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.nar;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.apache.nifi.util.FileUtils;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ */
+public class NarUnpackerTest {
+
+    private static final File BASE_DIRECTORY = new File("target/nar-unpacker");
+
+    private File narLibraryDirectory;
+    private File workingDirectory;
+
+    @Before
+    public void setup() throws IOException {
+        if (BASE_DIRECTORY.exists()) {
+            FileUtils.deleteFile(BASE_DIRECTORY, true);
+        }
+
+        narLibraryDirectory = new File(BASE_DIRECTORY, "lib");
+        workingDirectory = new File(BASE_DIRECTORY, "work");
+        Assert.assertTrue(narLibraryDirectory.mkdirs());
+        Assert.assertTrue(workingDirectory.mkdirs());
+    }
+
+    /**
+     * Ensures an unchanged NAR is not hashed again, by corrupting the recorded
+     * hash and checking that it is left alone.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnchangedNarIsNotHashed() throws Exception {
+        final File nar = createNar("test.nar", "nar-a", "first");
+        final File narWorkingDirectory = NarUnpacker.unpackNar(nar, workingDirectory);
+
+        final File hashFile = new File(narWorkingDirectory, NarUnpacker.HASH_FILENAME);
+        final File attributesFile = new File(narWorkingDirectory, NarUnpacker.ATTRIBUTES_FILENAME);
+        Assert.assertTrue(hashFile.exists());
+        Assert.assertEquals(nar.length() + ":" + nar.lastModified(), read(attributesFile));
+        Assert.assertEquals("first", read(new File(narWorkingDirectory, "content.txt")));
+
+        write(hashFile, "corrupt");
+        Assert.assertEquals(narWorkingDirectory, NarUnpacker.unpackNar(nar, workingDirectory));
+        Assert.assertEquals("corrupt", read(hashFile));
+    }
+
+    /**
+     * Ensures a NAR that was touched, but whose contents are unchanged, is not
+     * unpacked again, and that its new attributes are recorded so that it is
+     * not hashed on the next start.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTouchedNarIsNotUnpacked() throws Exception {
+        final File nar = createNar("test.nar", "nar-a", "first");
+        final File narWorkingDirectory = NarUnpacker.unpackNar(nar, workingDirectory);
+
+        final File marker = new File(narWorkingDirectory, "marker");
+        write(marker, "marker");
+
+        final File attributesFile = new File(narWorkingDirectory, NarUnpacker.ATTRIBUTES_FILENAME);
+        final long lastModified = nar.lastModified() - 60000L;
+        Assert.assertTrue(nar.setLastModified(lastModified));
+        Assert.assertNotEquals(nar.length() + ":" + nar.lastModified(), read(attributesFile));
+
+        NarUnpacker.unpackNar(nar, workingDirectory);
+        Assert.assertTrue(marker.exists());
+        Assert.assertEquals(nar.length() + ":" + lastModified, read(attributesFile));
+    }
+
+    /**
+     * Ensures a NAR whose contents have changed is unpacked again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChangedNarIsUnpacked() throws Exception {
+        final File nar = createNar("test.nar", "nar-a", "first");
+        final File narWorkingDirectory = NarUnpacker.unpackNar(nar, workingDirectory);
+
+        final File marker = new File(narWorkingDirectory, "marker");
+        write(marker, "marker");
+
+        createNar("test.nar", "nar-a", "second, which is longer than the first");
+        NarUnpacker.unpackNar(nar, workingDirectory);
+        Assert.assertFalse(marker.exists());
+        Assert.assertEquals("second, which is longer than the first", read(new File(narWorkingDirectory, "content.txt")));
+        Assert.assertEquals(nar.length() + ":" + nar.lastModified(), read(new File(narWorkingDirectory, NarUnpacker.ATTRIBUTES_FILENAME)));
+    }
+
+    /**
+     * Ensures that the framework NAR is unpacked to the framework working
+     * directory and that only one framework NAR is permitted, even though the
+     * NARs are unpacked in parallel.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultipleFrameworkNars() throws Exception {
+        createNar("framework.nar", NarClassLoaders.FRAMEWORK_NAR_ID, "framework");
+        createNar("extension.nar", "nar-a", "extension");
+
+        final NiFiProperties properties = createProperties();
+        Assert.assertNotNull(NarUnpacker.unpackNars(properties));
+        Assert.assertTrue(new File(properties.getFrameworkWorkingDirectory(), "framework.nar-unpacked").isDirectory());
+        Assert.assertTrue(new File(properties.getExtensionsWorkingDirectory(), "extension.nar-unpacked").isDirectory());
+
+        createNar("other-framework.nar", NarClassLoaders.FRAMEWORK_NAR_ID, "other framework");
+        try {
+            NarUnpacker.unpackNars(properties);
+            Assert.fail("Expected multiple framework NARs to be rejected");
+        } catch (final IllegalStateException ise) {
+            Assert.assertTrue(ise.getMessage().startsWith("Multiple framework NARs discovered"));
+        }
+    }
+
+    private NiFiProperties createProperties() {
+        final NiFiProperties properties = Mockito.mock(NiFiProperties.class);
+        Mockito.when(properties.getNarLibraryDirectory()).thenReturn(narLibraryDirectory);
+        Mockito.when(properties.getFrameworkWorkingDirectory()).thenReturn(new File(workingDirectory, "framework"));
+        Mockito.when(properties.getExtensionsWorkingDirectory()).thenReturn(new File(workingDirectory, "extensions"));
+        Mockito.when(properties.getComponentDocumentationWorkingDirectory()).thenReturn(new File(BASE_DIRECTORY, "docs"));
+        return properties;
+    }
+
+    private File createNar(final String name, final String narId, final String content) throws IOException {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Nar-Id", narId);
+
+        final File nar = new File(narLibraryDirectory, name);
+        try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(nar))) {
+            // like a packaged nar, list the directory ahead of the manifest so that it is created when unpacking
+            out.putNextEntry(new JarEntry("META-INF/"));
+            out.closeEntry();
+            out.putNextEntry(new JarEntry(JarFile.MANIFEST_NAME));
+            manifest.write(out);
+            out.closeEntry();
+            out.putNextEntry(new JarEntry("content.txt"));
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        return nar;
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
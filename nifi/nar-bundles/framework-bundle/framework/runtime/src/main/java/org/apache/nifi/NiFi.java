@@ -48,6 +48,7 @@ public class NiFi {
     private final BootstrapListener bootstrapListener;
     
     public static final String BOOTSTRAP_PORT_PROPERTY = "nifi.bootstrap.listen.port";
+    private static final String EXTENSION_INDEX_FILENAME = "extension-index";
     private volatile boolean shutdown = false;
 
     public NiFi(final NiFiProperties properties) throws ClassNotFoundException, IOException, NoSuchMethodException, InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
@@ -103,10 +104,14 @@ public class NiFi {
         SLF4JBridgeHandler.install();
 
         // expand the nars
+        long phaseStart = System.nanoTime();
         final ExtensionMapping extensionMapping = NarUnpacker.unpackNars(properties);
+        logger.info("Verifying and expanding NARs took {} millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart));
 
         // load the extensions classloaders
+        phaseStart = System.nanoTime();
         NarClassLoaders.load(properties);
+        logger.info("Creating NAR class loaders took {} millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart));
 
         // load the framework classloader
         final ClassLoader frameworkClassLoader = NarClassLoaders.getFrameworkClassLoader();
@@ -115,7 +120,9 @@ public class NiFi {
         }
 
         // discover the extensions
-        ExtensionManager.discoverExtensions();
+        phaseStart = System.nanoTime();
+        ExtensionManager.discoverExtensions(new File(properties.getNarWorkingDirectory(), EXTENSION_INDEX_FILENAME));
+        logger.info("Discovering extensions took {} millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - phaseStart));
         ExtensionManager.logClassLoaderMapping();
 
         // load the server from the framework classloader
@@ -23,14 +23,28 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.ssl.SSLContext;
@@ -44,283 +58,300 @@ import org.apache.nifi.remote.io.socket.ssl.SSLSocketChannelCommunicationsSessio
 import org.apache.nifi.remote.protocol.CommunicationsSession;
 import org.apache.nifi.remote.protocol.RequestType;
 import org.apache.nifi.remote.protocol.ServerProtocol;
+import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Listens for Site-to-Site connections using a single selector thread. A
+ * connected peer occupies a worker thread only while it is being serviced:
+ * the handshake is performed once the peer has sent data, and between requests
+ * the connection is handed back to the selector until the next request
+ * arrives. Handshakes and short requests, such as a request for the peer list,
+ * are serviced by a bounded pool of worker threads. Transactions wait for the
+ * Root Group Port to process them, which may take as long as the request
+ * expiration if the port is stopped or its connections are full, so they are
+ * serviced by a separate bounded pool of transaction threads, and a port that
+ * is not processing its requests cannot starve handshakes and peer list
+ * requests. Transactions that arrive while every transaction thread is busy
+ * wait in a bounded queue; if the queue is also full, the transaction is
+ * rejected by closing the connection, and the peer will retry it. The number
+ * of threads is therefore bounded by configuration rather than by the number
+ * of connected peers.
+ */
 public class SocketRemoteSiteListener implements RemoteSiteListener {
     public static final String DEFAULT_FLOWFILE_PATH = "./";
 
+    private static final long SELECT_TIMEOUT_MILLIS = 1000L;
+    private static final long PORT_CHECK_INTERVAL_MILLIS = 2000L;
+    private static final long CONNECT_TIMEOUT_MILLIS = 30000L;
+    private static final long TRANSACTION_THREAD_KEEP_ALIVE_SECONDS = 60L;
+
     private final int socketPort;
     private final SSLContext sslContext;
     private final NodeInformant nodeInformant;
+    private final int workerThreadCount;
+    private final int transactionThreadCount;
+    private final int transactionQueueSize;
     private final AtomicReference<ProcessGroup> rootGroup = new AtomicReference<>();
-    
+
     private final AtomicBoolean stopped = new AtomicBoolean(false);
-    
+
+    // sessions that are waiting for their next request; registered with the selector by the listener thread
+    private final Queue<PeerSession> sessionsToPark = new ConcurrentLinkedQueue<>();
+    private volatile Selector selector;
+    private volatile ExecutorService workerPool;
+    private volatile ExecutorService transactionPool;
+
     private static final Logger LOG = LoggerFactory.getLogger(SocketRemoteSiteListener.class);
 
     public SocketRemoteSiteListener(final int socketPort, final SSLContext sslContext) {
         this(socketPort, sslContext, null);
     }
-    
+
     public SocketRemoteSiteListener(final int socketPort, final SSLContext sslContext, final NodeInformant nodeInformant) {
+        this(socketPort, sslContext, nodeInformant, NiFiProperties.DEFAULT_SITE_TO_SITE_THREADS);
+    }
+
+    public SocketRemoteSiteListener(final int socketPort, final SSLContext sslContext, final NodeInformant nodeInformant, final int workerThreadCount) {
+        this(socketPort, sslContext, nodeInformant, workerThreadCount, NiFiProperties.DEFAULT_SITE_TO_SITE_TRANSACTION_THREADS, NiFiProperties.DEFAULT_SITE_TO_SITE_TRANSACTION_QUEUE_SIZE);
+    }
+
+    public SocketRemoteSiteListener(final int socketPort, final SSLContext sslContext, final NodeInformant nodeInformant, final int workerThreadCount,
+            final int transactionThreadCount, final int transactionQueueSize) {
+        if (workerThreadCount < 1) {
+            throw new IllegalArgumentException("Must use at least one worker thread");
+        }
+        if (transactionThreadCount < 1) {
+            throw new IllegalArgumentException("Must use at least one transaction thread");
+        }
+        if (transactionQueueSize < 1) {
+            throw new IllegalArgumentException("Transaction queue size must be at least 1");
+        }
+
         this.socketPort = socketPort;
         this.sslContext = sslContext;
         this.nodeInformant = nodeInformant;
+        this.workerThreadCount = workerThreadCount;
+        this.transactionThreadCount = transactionThreadCount;
+        this.transactionQueueSize = transactionQueueSize;
     }
 
-    
+
     @Override
     public void setRootGroup(final ProcessGroup rootGroup) {
         this.rootGroup.set(rootGroup);
     }
 
-    
+
     @Override
     public void start() throws IOException {
-        final boolean secure = (sslContext != null);
-        
         final ServerSocketChannel serverSocketChannel = ServerSocketChannel.open();
-        serverSocketChannel.configureBlocking(true);
+        serverSocketChannel.configureBlocking(false);
         serverSocketChannel.bind(new InetSocketAddress(socketPort));
+
+        final Selector selector = Selector.open();
+        final SelectionKey serverKey = serverSocketChannel.register(selector, 0);
         stopped.set(false);
-        
-        final Thread listenerThread = new Thread(new Runnable() {
-            private int threadCount = 0;
 
+        this.selector = selector;
+        this.workerPool = Executors.newFixedThreadPool(workerThreadCount, new NamedThreadFactory("Site-to-Site Worker Thread-"));
+        this.transactionPool = createTransactionPool();
+
+        final Thread listenerThread = new Thread(new Runnable() {
             @Override
             public void run() {
-                while (!stopped.get()) {
-                    final ProcessGroup processGroup = rootGroup.get();
-                    // If nodeInformant is not null, we are in clustered mode, which means that we don't care about
-                    // the processGroup.
-                    if ( (nodeInformant == null) && (processGroup == null || (processGroup.getInputPorts().isEmpty() && processGroup.getOutputPorts().isEmpty())) ) {
-                        try { Thread.sleep(2000L); } catch (final Exception e) {}
-                        continue;
-                    }
-                    
-                    
-                    LOG.trace("Accepting Connection...");
-                    Socket acceptedSocket = null;
-                    try {
-                        serverSocketChannel.configureBlocking(false);
-                        final ServerSocket serverSocket = serverSocketChannel.socket();
-                        serverSocket.setSoTimeout(2000);
-                        while ( !stopped.get() && acceptedSocket == null ) {
-                            try {
-                                acceptedSocket = serverSocket.accept();
-                            } catch (final SocketTimeoutException ste) {
-                                continue;
-                            }
-                        }
-                    } catch (final IOException e) {
-                        LOG.error("RemoteSiteListener Unable to accept connection due to {}", e.toString());
-                        if ( LOG.isDebugEnabled() ) {
-                            LOG.error("", e);
-                        }
-                        continue;
-                    }
-                    LOG.trace("Got connection");
-                    
-                    final Socket socket = acceptedSocket;
-                    final SocketChannel socketChannel = socket.getChannel();
-                    final Thread thread = new Thread(new Runnable() {
-                        @Override
-                        public void run() {
-                            String hostname = socket.getInetAddress().getHostName();
-                            final int slashIndex = hostname.indexOf("/");
-                            if ( slashIndex == 0 ) {
-                                hostname = hostname.substring(1);
-                            } else if ( slashIndex > 0 ) {
-                                hostname = hostname.substring(0, slashIndex);
-                            }
-
-                            final int port = socket.getPort();
-                            final String peerUri = "nifi://" + hostname + ":" + port;
-                            
-                            final CommunicationsSession commsSession;
-                            final String dn;
-                            try {
-                                if ( secure ) {
-                                    final SSLSocketChannel sslSocketChannel = new SSLSocketChannel(sslContext, socketChannel, false);
-                                    LOG.trace("Channel is secure; connecting...");
-                                    sslSocketChannel.connect();
-                                    LOG.trace("Channel connected");
-                                    
-                                    commsSession = new SSLSocketChannelCommunicationsSession(sslSocketChannel, peerUri);
-                                    dn = sslSocketChannel.getDn();
-                                    commsSession.setUserDn(dn);
-                                } else {
-                                    commsSession = new SocketChannelCommunicationsSession(socketChannel, peerUri);
-                                    dn = null;
-                                }
-                            } catch (final Exception e) {
-                                LOG.error("RemoteSiteListener Unable to accept connection from {} due to {}", socket, e.toString());
-                                if ( LOG.isDebugEnabled() ) {
-                                    LOG.error("", e);
-                                }
-                                try {
-                                    socketChannel.close();
-                                } catch (IOException swallow) {
-                                }
-                                return;
-                            }
-                            
-                            LOG.info("Received connection from {}, User DN: {}", socket.getInetAddress(), dn);
-                            
-                            final InputStream socketIn;
-                            final OutputStream socketOut;
-                            
-                            try {
-                                socketIn = commsSession.getInput().getInputStream();
-                                socketOut = commsSession.getOutput().getOutputStream();
-                            } catch (final IOException e) {
-                            	LOG.error("Connection dropped from {} before any data was transmitted", peerUri);
-                            	try {
-                            		commsSession.close();
-                            	} catch (final IOException ioe) {}
-                            	
-                            	return;
-                            }
-                            
-                            final DataInputStream dis = new DataInputStream(socketIn);
-                        	final DataOutputStream dos = new DataOutputStream(socketOut);
-                        	
-                        	ServerProtocol protocol = null;
-                        	Peer peer = null;
-                            try {
-                            	// ensure that we are communicating with another NiFi
-                                LOG.debug("Verifying magic bytes...");
-                            	verifyMagicBytes(dis, peerUri);
-
-                            	LOG.debug("Receiving Server Protocol Negotiation");
-                            	protocol = RemoteResourceFactory.receiveServerProtocolNegotiation(dis, dos);
-                            	protocol.setRootProcessGroup(rootGroup.get());
-                          	    protocol.setNodeInformant(nodeInformant);
-                            	
-                            	peer = new Peer(commsSession, peerUri);
-                            	LOG.debug("Handshaking....");
-                            	protocol.handshake(peer);
-                            	
-                            	if (!protocol.isHandshakeSuccessful()) {
-                            	    LOG.error("Handshake failed with {}; closing connection", peer);
-                            	    try {
-                            	        peer.close();
-                            	    } catch (final IOException e) {
-                            	        LOG.warn("Failed to close {} due to {}", peer, e);
-                            	    }
-                            	    
-                            	    // no need to shutdown protocol because we failed to perform handshake
-                            	    return;
-                            	}
-                            	
-                            	commsSession.setTimeout((int) protocol.getRequestExpiration());
-                            	
-                            	LOG.info("Successfully negotiated ServerProtocol {} Version {} with {}", new Object[] {
-                            	    protocol.getResourceName(), protocol.getVersionNegotiator().getVersion(), peer});
-                            	
-                        	    try {
-                        	        while (!protocol.isShutdown()) {
-                        	            LOG.trace("Getting Protocol Request Type...");
-                        	            
-                                        int timeoutCount = 0;
-                                        RequestType requestType = null;
-                                        
-                                        while ( requestType == null ) {
-                                            try {
-                                                requestType = protocol.getRequestType(peer);
-                                            } catch (final SocketTimeoutException e) {
-                                                // Give the timeout a bit longer (twice as long) to receive the Request Type,
-                                                // in order to attempt to receive more data without shutting down the socket if we don't
-                                                // have to.
-                                                LOG.debug("{} Timed out waiting to receive RequestType using {} with {}", new Object[] {this, protocol, peer});
-                                                timeoutCount++;
-                                                requestType = null;
-                                                
-                                                if ( timeoutCount >= 2 ) {
-                                                    throw e;
-                                                }
-                                            }
-                                        }
-                                        
-                                        LOG.debug("Request type from {} is {}", protocol, requestType);
-                                	    switch (requestType) {
-                                	        case NEGOTIATE_FLOWFILE_CODEC:
-                                	            protocol.negotiateCodec(peer);
-                                	            break;
-                                	        case RECEIVE_FLOWFILES:
-                                	            // peer wants to receive FlowFiles, so we will transfer FlowFiles.
-                                	            protocol.getPort().transferFlowFiles(peer, protocol, new HashMap<String, String>());
-                                	            break;
-                                	        case SEND_FLOWFILES:
-                                	            // Peer wants to send FlowFiles, so we will receive.
-                                                protocol.getPort().receiveFlowFiles(peer, protocol, new HashMap<String, String>());
-                                	            break;
-                                	        case REQUEST_PEER_LIST:
-                                	            protocol.sendPeerList(peer);
-                                	            break;
-                                	        case SHUTDOWN:
-                                	            protocol.shutdown(peer);
-                                	            break;
-                                	    }
-                        	        }
-                        	        LOG.debug("Finished communicating with {} ({})", peer, protocol);
-                        	    } catch (final Exception e) {
-                        	        LOG.error("Unable to communicate with remote instance {} ({}) due to {}; closing connection", peer, protocol, e.toString());
-                        	        if ( LOG.isDebugEnabled() ) {
-                        	            LOG.error("", e);
-                        	        }
-                        	    }
-                            } catch (final IOException e) {
-                                LOG.error("Unable to communicate with remote instance {} due to {}; closing connection", peer, e.toString());
-                                if ( LOG.isDebugEnabled() ) {
-                                    LOG.error("", e);
-                                }
-                            } catch (final Throwable t) {
-                                LOG.error("Handshake failed when communicating with {}; closing connection. Reason for failure: {}", peerUri, t.toString());
-                                if ( LOG.isDebugEnabled() ) {
-                                    LOG.error("", t);
-                                }
-                            } finally {
-                                LOG.trace("Cleaning up");
-                                try {
-                                    if ( protocol != null && peer != null ) {
-                                        protocol.shutdown(peer);
-                                    }
-                                } catch (final Exception protocolException) {
-                                    LOG.warn("Failed to shutdown protocol due to {}", protocolException.toString());
-                                }
-                                
-                                try {
-                                    if ( peer != null ) {
-                                        peer.close();
-                                    }
-                                } catch (final Exception peerException) {
-                                    LOG.warn("Failed to close peer due to {}; some resources may not be appropriately cleaned up", peerException.toString());
-                                }
-                                LOG.trace("Finished cleaning up");
-                            }
-                        }
-                    });
-                    thread.setName("Site-to-Site Worker Thread-" + (threadCount++));
-                    thread.start();
+                try {
+                    listen(selector, serverSocketChannel, serverKey);
+                } finally {
+                    closeAll(selector, serverSocketChannel);
                 }
             }
         });
         listenerThread.setName("Site-to-Site Listener");
         listenerThread.start();
     }
-    
+
+    /**
+     * Creates the pool that services transactions. Its threads are only
+     * created while there are transactions to service, and a transaction that
+     * can neither be given a thread nor be queued is rejected.
+     *
+     * @return the pool
+     */
+    private ExecutorService createTransactionPool() {
+        final ThreadPoolExecutor pool = new ThreadPoolExecutor(transactionThreadCount, transactionThreadCount,
+                TRANSACTION_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(transactionQueueSize),
+                new NamedThreadFactory("Site-to-Site Transaction Thread-"), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private void listen(final Selector selector, final ServerSocketChannel serverSocketChannel, final SelectionKey serverKey) {
+        long nextPortCheck = 0L;
+        while (!stopped.get()) {
+            final long now = System.currentTimeMillis();
+            if (now >= nextPortCheck) {
+                final ProcessGroup processGroup = rootGroup.get();
+                // If nodeInformant is not null, we are in clustered mode, which means that we don't care about
+                // the processGroup.
+                final boolean accepting = (nodeInformant != null) || (processGroup != null && (!processGroup.getInputPorts().isEmpty() || !processGroup.getOutputPorts().isEmpty()));
+                serverKey.interestOps(accepting ? SelectionKey.OP_ACCEPT : 0);
+                nextPortCheck = now + PORT_CHECK_INTERVAL_MILLIS;
+            }
+
+            registerParkedSessions(selector);
+
+            try {
+                selector.select(SELECT_TIMEOUT_MILLIS);
+            } catch (final IOException e) {
+                LOG.error("RemoteSiteListener Unable to select connections due to {}", e.toString());
+                if ( LOG.isDebugEnabled() ) {
+                    LOG.error("", e);
+                }
+                continue;
+            }
+
+            final Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+            while (selectedKeys.hasNext()) {
+                final SelectionKey key = selectedKeys.next();
+                selectedKeys.remove();
+
+                try {
+                    if (key == serverKey) {
+                        if (key.isAcceptable()) {
+                            accept(selector, serverSocketChannel);
+                        }
+                    } else if (key.isReadable()) {
+                        // the session will be serviced by a worker; stop selecting it until it is parked again
+                        key.interestOps(0);
+                        final PeerSession session = (PeerSession) key.attachment();
+                        dispatch(session, session.isEstablished() ? session.getRequestTask() : session.getEstablishTask(), workerPool);
+                    }
+                } catch (final CancelledKeyException cke) {
+                    // channel was closed; nothing to do
+                }
+            }
+
+            expireIdleSessions(selector);
+        }
+    }
+
+    private void accept(final Selector selector, final ServerSocketChannel serverSocketChannel) {
+        SocketChannel socketChannel;
+        try {
+            while ((socketChannel = serverSocketChannel.accept()) != null) {
+                LOG.trace("Got connection");
+                final PeerSession session = new PeerSession(socketChannel);
+                try {
+                    socketChannel.configureBlocking(false);
+                    session.setSelectionKey(socketChannel.register(selector, SelectionKey.OP_READ, session));
+                } catch (final IOException e) {
+                    LOG.error("RemoteSiteListener Unable to accept connection from {} due to {}", socketChannel, e.toString());
+                    closeQuietly(socketChannel);
+                }
+            }
+        } catch (final IOException e) {
+            LOG.error("RemoteSiteListener Unable to accept connection due to {}", e.toString());
+            if ( LOG.isDebugEnabled() ) {
+                LOG.error("", e);
+            }
+        }
+    }
+
+    private void registerParkedSessions(final Selector selector) {
+        PeerSession session;
+        while ((session = sessionsToPark.poll()) != null) {
+            try {
+                final SelectionKey key = session.getSelectionKey();
+                if (key.isValid()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                } else {
+                    session.setSelectionKey(session.getChannel().register(selector, SelectionKey.OP_READ, session));
+                }
+            } catch (final CancelledKeyException | ClosedChannelException e) {
+                dispatch(session, session.getCloseTask(), workerPool);
+            }
+        }
+    }
+
+    private void expireIdleSessions(final Selector selector) {
+        final long now = System.currentTimeMillis();
+        for (final SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof PeerSession)) {
+                continue;
+            }
+
+            final PeerSession session = (PeerSession) key.attachment();
+            try {
+                if (key.isValid() && key.interestOps() == SelectionKey.OP_READ && session.isIdleExpired(now)) {
+                    LOG.debug("{} Timed out waiting to receive RequestType from {}; closing connection", this, session);
+                    key.cancel();
+                    dispatch(session, session.getCloseTask(), workerPool);
+                }
+            } catch (final CancelledKeyException cke) {
+                // channel was closed; nothing to do
+            }
+        }
+    }
+
+    private void dispatch(final PeerSession session, final Runnable task, final ExecutorService executor) {
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException ree) {
+            // either the listener has been stopped or every thread is busy and the queue is full
+            if (!stopped.get()) {
+                LOG.warn("{} Unable to service request from {} because all threads are busy; closing connection", this, session);
+            }
+            session.close();
+        }
+    }
+
+    private void closeAll(final Selector selector, final ServerSocketChannel serverSocketChannel) {
+        workerPool.shutdown();
+        transactionPool.shutdown();
+
+        for (final SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof PeerSession) {
+                ((PeerSession) key.attachment()).close();
+            }
+        }
+
+        PeerSession session;
+        while ((session = sessionsToPark.poll()) != null) {
+            session.close();
+        }
+
+        try {
+            selector.close();
+        } catch (final IOException e) {
+            LOG.warn("Failed to close selector due to {}", e.toString());
+        }
+        closeQuietly(serverSocketChannel);
+    }
+
+    private static void closeQuietly(final java.io.Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException swallow) {
+        }
+    }
+
     @Override
     public int getPort() {
         return socketPort;
     }
-    
+
     @Override
     public void stop() {
         stopped.set(true);
+
+        final Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
     }
-    
+
     private void verifyMagicBytes(final InputStream in, final String peerDescription) throws IOException, HandshakeException {
         final byte[] receivedMagicBytes = new byte[CommunicationsSession.MAGIC_BYTES.length];
 
@@ -332,9 +363,396 @@ public class SocketRemoteSiteListener implements RemoteSiteListener {
         } catch (final EOFException e) {
             throw new HandshakeException("Handshake failed (not enough bytes) when communicating with " + peerDescription);
         }
-        
+
         if ( !Arrays.equals(CommunicationsSession.MAGIC_BYTES, receivedMagicBytes) ) {
             throw new HandshakeException("Handshake with " + peerDescription + " failed because the Magic Header was not present");
         }
     }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        public NamedThreadFactory(final String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r);
+            thread.setName(namePrefix + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * The state of a single connected peer. A session is serviced by at most
+     * one worker thread at a time; while it is waiting for the peer's next
+     * request it is registered with the selector.
+     */
+    private class PeerSession {
+        private final SocketChannel socketChannel;
+        // identified by address until the handshake resolves the peer's hostname on a worker thread
+        private volatile String peerUri;
+
+        private CommunicationsSession commsSession;
+        private ServerProtocol protocol;
+        private Peer peer;
+        private volatile boolean established = false;
+        // peers that connect but never send any data are disconnected after a while
+        private volatile long idleExpiration = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        // only accessed by the listener thread
+        private SelectionKey selectionKey;
+
+        public PeerSession(final SocketChannel socketChannel) {
+            this.socketChannel = socketChannel;
+
+            // sessions are created on the listener thread, which must not block on a reverse DNS lookup
+            final Socket socket = socketChannel.socket();
+            this.peerUri = "nifi://" + socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+        }
+
+        private String resolvePeerUri() {
+            final Socket socket = socketChannel.socket();
+            String hostname = socket.getInetAddress().getHostName();
+            final int slashIndex = hostname.indexOf("/");
+            if ( slashIndex == 0 ) {
+                hostname = hostname.substring(1);
+            } else if ( slashIndex > 0 ) {
+                hostname = hostname.substring(0, slashIndex);
+            }
+
+            return "nifi://" + hostname + ":" + socket.getPort();
+        }
+
+        public SocketChannel getChannel() {
+            return socketChannel;
+        }
+
+        public SelectionKey getSelectionKey() {
+            return selectionKey;
+        }
+
+        public void setSelectionKey(final SelectionKey selectionKey) {
+            this.selectionKey = selectionKey;
+        }
+
+        public boolean isEstablished() {
+            return established;
+        }
+
+        public boolean isIdleExpired(final long now) {
+            return now > idleExpiration;
+        }
+
+        public Runnable getEstablishTask() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    // the session may have been closed while this task was waiting for a thread
+                    if (!closed.get() && establish()) {
+                        park();
+                    }
+                }
+            };
+        }
+
+        public Runnable getRequestTask() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    if (closed.get()) {
+                        return;
+                    }
+
+                    final RequestType requestType = receiveRequestType();
+                    if (requestType == null) {
+                        return;
+                    }
+
+                    switch (requestType) {
+                        case RECEIVE_FLOWFILES:
+                        case SEND_FLOWFILES:
+                            // the port may take a long time to service the transaction; don't hold a worker thread while it does.
+                            // if the transaction pool is saturated, the connection is closed and the peer will retry
+                            dispatch(PeerSession.this, getTransactionTask(requestType), transactionPool);
+                            break;
+                        default:
+                            if (serviceRequest(requestType)) {
+                                park();
+                            }
+                            break;
+                    }
+                }
+            };
+        }
+
+        public Runnable getTransactionTask(final RequestType requestType) {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    if (!closed.get() && serviceRequest(requestType)) {
+                        park();
+                    }
+                }
+            };
+        }
+
+        public Runnable getCloseTask() {
+            return new Runnable() {
+                @Override
+                public void run() {
+                    close();
+                }
+            };
+        }
+
+        /**
+         * Performs the handshake with the peer
+         *
+         * @return <code>true</code> if the handshake was successful,
+         * <code>false</code> if the session was closed
+         */
+        private boolean establish() {
+            final Socket socket = socketChannel.socket();
+            peerUri = resolvePeerUri();
+
+            final String dn;
+            try {
+                if ( sslContext != null ) {
+                    final SSLSocketChannel sslSocketChannel = new SSLSocketChannel(sslContext, socketChannel, false);
+                    LOG.trace("Channel is secure; connecting...");
+                    sslSocketChannel.connect();
+                    LOG.trace("Channel connected");
+
+                    commsSession = new SSLSocketChannelCommunicationsSession(sslSocketChannel, peerUri);
+                    dn = sslSocketChannel.getDn();
+                    commsSession.setUserDn(dn);
+                } else {
+                    commsSession = new SocketChannelCommunicationsSession(socketChannel, peerUri);
+                    dn = null;
+                }
+            } catch (final Exception e) {
+                LOG.error("RemoteSiteListener Unable to accept connection from {} due to {}", socket, e.toString());
+                if ( LOG.isDebugEnabled() ) {
+                    LOG.error("", e);
+                }
+                close();
+                return false;
+            }
+
+            LOG.info("Received connection from {}, User DN: {}", socket.getInetAddress(), dn);
+
+            final InputStream socketIn;
+            final OutputStream socketOut;
+
+            try {
+                socketIn = commsSession.getInput().getInputStream();
+                socketOut = commsSession.getOutput().getOutputStream();
+            } catch (final IOException e) {
+                LOG.error("Connection dropped from {} before any data was transmitted", peerUri);
+                close();
+                return false;
+            }
+
+            final DataInputStream dis = new DataInputStream(socketIn);
+            final DataOutputStream dos = new DataOutputStream(socketOut);
+
+            try {
+                // ensure that we are communicating with another NiFi
+                LOG.debug("Verifying magic bytes...");
+                verifyMagicBytes(dis, peerUri);
+
+                LOG.debug("Receiving Server Protocol Negotiation");
+                protocol = RemoteResourceFactory.receiveServerProtocolNegotiation(dis, dos);
+                protocol.setRootProcessGroup(rootGroup.get());
+                protocol.setNodeInformant(nodeInformant);
+
+                peer = new Peer(commsSession, peerUri);
+                LOG.debug("Handshaking....");
+                protocol.handshake(peer);
+
+                if (!protocol.isHandshakeSuccessful()) {
+                    LOG.error("Handshake failed with {}; closing connection", peer);
+
+                    // no need to shutdown protocol because we failed to perform handshake
+                    protocol = null;
+                    close();
+                    return false;
+                }
+
+                commsSession.setTimeout((int) protocol.getRequestExpiration());
+
+                LOG.info("Successfully negotiated ServerProtocol {} Version {} with {}", new Object[] {
+                    protocol.getResourceName(), protocol.getVersionNegotiator().getVersion(), peer});
+            } catch (final IOException e) {
+                LOG.error("Unable to communicate with remote instance {} due to {}; closing connection", peer, e.toString());
+                if ( LOG.isDebugEnabled() ) {
+                    LOG.error("", e);
+                }
+                close();
+                return false;
+            } catch (final Throwable t) {
+                LOG.error("Handshake failed when communicating with {}; closing connection. Reason for failure: {}", peerUri, t.toString());
+                if ( LOG.isDebugEnabled() ) {
+                    LOG.error("", t);
+                }
+                close();
+                return false;
+            }
+
+            established = true;
+            return true;
+        }
+
+        /**
+         * Receives the type of the peer's next request
+         *
+         * @return the type of the request, or <code>null</code> if the session
+         * was closed
+         */
+        private RequestType receiveRequestType() {
+            try {
+                LOG.trace("Getting Protocol Request Type...");
+
+                int timeoutCount = 0;
+                RequestType requestType = null;
+
+                while ( requestType == null ) {
+                    try {
+                        requestType = protocol.getRequestType(peer);
+                    } catch (final SocketTimeoutException e) {
+                        // Give the timeout a bit longer (twice as long) to receive the Request Type,
+                        // in order to attempt to receive more data without shutting down the socket if we don't
+                        // have to.
+                        LOG.debug("{} Timed out waiting to receive RequestType using {} with {}", new Object[] {this, protocol, peer});
+                        timeoutCount++;
+                        requestType = null;
+
+                        if ( timeoutCount >= 2 ) {
+                            throw e;
+                        }
+                    }
+                }
+
+                LOG.debug("Request type from {} is {}", protocol, requestType);
+                return requestType;
+            } catch (final Exception e) {
+                LOG.error("Unable to communicate with remote instance {} ({}) due to {}; closing connection", peer, protocol, e.toString());
+                if ( LOG.isDebugEnabled() ) {
+                    LOG.error("", e);
+                }
+                close();
+                return null;
+            }
+        }
+
+        /**
+         * Services a single request from the peer
+         *
+         * @param requestType the type of the request
+         * @return <code>true</code> if the peer may send further requests,
+         * <code>false</code> if the session was closed
+         */
+        private boolean serviceRequest(final RequestType requestType) {
+            try {
+                switch (requestType) {
+                    case NEGOTIATE_FLOWFILE_CODEC:
+                        protocol.negotiateCodec(peer);
+                        break;
+                    case RECEIVE_FLOWFILES:
+                        // peer wants to receive FlowFiles, so we will transfer FlowFiles.
+                        protocol.getPort().transferFlowFiles(peer, protocol, new HashMap<String, String>());
+                        break;
+                    case SEND_FLOWFILES:
+                        // Peer wants to send FlowFiles, so we will receive.
+                        protocol.getPort().receiveFlowFiles(peer, protocol, new HashMap<String, String>());
+                        break;
+                    case REQUEST_PEER_LIST:
+                        protocol.sendPeerList(peer);
+                        break;
+                    case SHUTDOWN:
+                        protocol.shutdown(peer);
+                        break;
+                }
+            } catch (final Exception e) {
+                LOG.error("Unable to communicate with remote instance {} ({}) due to {}; closing connection", peer, protocol, e.toString());
+                if ( LOG.isDebugEnabled() ) {
+                    LOG.error("", e);
+                }
+                close();
+                return false;
+            }
+
+            if (protocol.isShutdown()) {
+                LOG.debug("Finished communicating with {} ({})", peer, protocol);
+                close();
+                return false;
+            }
+
+            return true;
+        }
+
+        /**
+         * Waits for the next request from the peer without occupying a thread
+         */
+        private void park() {
+            if (stopped.get()) {
+                close();
+                return;
+            }
+
+            // data may already have been read from the socket into the session's buffers, in which case
+            // the selector would not report the channel as readable
+            if (commsSession.isDataAvailable()) {
+                dispatch(this, getRequestTask(), workerPool);
+                return;
+            }
+
+            // as in the blocking implementation, give the peer twice the request expiration to send its next request
+            idleExpiration = System.currentTimeMillis() + 2 * protocol.getRequestExpiration();
+
+            sessionsToPark.add(this);
+            final Selector currentSelector = selector;
+            if (currentSelector != null) {
+                currentSelector.wakeup();
+            }
+        }
+
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+
+            LOG.trace("Cleaning up");
+            try {
+                if ( protocol != null && peer != null ) {
+                    protocol.shutdown(peer);
+                }
+            } catch (final Exception protocolException) {
+                LOG.warn("Failed to shutdown protocol due to {}", protocolException.toString());
+            }
+
+            try {
+                if ( peer != null ) {
+                    peer.close();
+                } else if ( commsSession != null ) {
+                    commsSession.close();
+                }
+            } catch (final Exception peerException) {
+                LOG.warn("Failed to close peer due to {}; some resources may not be appropriately cleaned up", peerException.toString());
+            }
+
+            closeQuietly(socketChannel);
+            LOG.trace("Finished cleaning up");
+        }
+
+        @Override
+        public String toString() {
+            return "PeerSession[" + peerUri + "]";
+        }
+    }
 }
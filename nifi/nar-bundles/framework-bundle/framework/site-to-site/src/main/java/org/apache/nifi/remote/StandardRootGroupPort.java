@@ -291,6 +291,7 @@ public class StandardRootGroupPort extends AbstractPort implements RootGroupPort
     @Override
     public void setGroupAccessControl(Set<String> groups) {
         groupAccessControl.set(new HashSet<>(requireNonNull(groups)));
+        notifySearchableConfigurationModified();
     }
 
     @Override
@@ -301,6 +302,7 @@ public class StandardRootGroupPort extends AbstractPort implements RootGroupPort
     @Override
     public void setUserAccessControl(Set<String> users) {
         userAccessControl.set(new HashSet<>(requireNonNull(users)));
+        notifySearchableConfigurationModified();
     }
 
     @Override
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.remote;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.nifi.cluster.NodeInformant;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestSocketRemoteSiteListener {
+
+    private SocketRemoteSiteListener listener;
+    private int port;
+
+    @Before
+    public void setup() throws IOException {
+        try (final ServerSocket serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+
+        // a NodeInformant indicates clustered mode, so connections are accepted regardless of the root group's ports
+        listener = new SocketRemoteSiteListener(port, null, Mockito.mock(NodeInformant.class), 2);
+        listener.start();
+    }
+
+    @After
+    public void cleanup() {
+        listener.stop();
+    }
+
+    @Test(timeout = 20000)
+    public void testIdleConnectionsDoNotConsumeThreads() throws IOException, InterruptedException {
+        final List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 25; i++) {
+                final Socket socket = new Socket();
+                socket.connect(new InetSocketAddress("localhost", port), 5000);
+                sockets.add(socket);
+            }
+
+            Thread.sleep(500L);
+            assertEquals(0, countWorkerThreads());
+        } finally {
+            for (final Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testConnectionClosedOnInvalidMagicBytes() throws IOException {
+        try (final Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 5000);
+            socket.setSoTimeout(10000);
+            socket.getOutputStream().write(new byte[] {'N', 'O', 'T', 'N', 'I', 'F', 'I'});
+            socket.getOutputStream().flush();
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    private int countWorkerThreads() {
+        int count = 0;
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("Site-to-Site Worker Thread")) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
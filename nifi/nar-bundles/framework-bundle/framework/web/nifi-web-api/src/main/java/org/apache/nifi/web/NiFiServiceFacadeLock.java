@@ -16,162 +16,191 @@
  */
 package org.apache.nifi.web;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.web.ProcessGroupLockManager.ProcessGroupLock;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
 
 /**
- * Aspect to limit access into the core.
+ * Aspect to limit access into the core. Requests that identify a Process Group
+ * lock only that group (and intentions on its ancestors); all other requests
+ * lock the root group. Status, diagnostic, and bulletin requests are served by
+ * the core without locking.
  */
 @Aspect
 public class NiFiServiceFacadeLock {
 
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
-    private final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+    private static final List<String> ROOT_PATH = Collections.singletonList(ProcessGroupLockManager.ROOT);
+
+    private FlowController flowController;
+    private ProcessGroupLockManager lockManager;
 
     /* delegate methods through the wrapped view model */
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* create*(..))")
     public Object createLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* delete*(..))")
     public Object deleteLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* remove*(..))")
     public Object removeLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* update*(..))")
     public Object updateLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* set*(..))")
     public Object setLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* copy*(..))")
     public Object copyLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* import*(..))")
     public Object importLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* export*(..))")
     public Object exportLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* submit*(..))")
     public Object submitLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        writeLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            writeLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, true);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
-            + "execution(* get*(..))")
+            + "execution(* get*(..)) && "
+            + "!execution(* get*Status*(..)) && "
+            + "!execution(* get*Diagnostics(..)) && "
+            + "!execution(* getBulletinBoard(..))")
     public Object getLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        readLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            readLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, false);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* is*(..))")
     public Object isLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        readLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            readLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, false);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* search*(..))")
     public Object searchLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        readLock.lock();
-        try {
-            return proceedingJoinPoint.proceed();
-        } finally {
-            readLock.unlock();
-        }
+        return proceedWithLock(proceedingJoinPoint, false);
     }
 
     @Around("within(org.apache.nifi.web.NiFiServiceFacade+) && "
             + "execution(* verify*(..))")
     public Object verifyLock(ProceedingJoinPoint proceedingJoinPoint) throws Throwable {
-        readLock.lock();
+        return proceedWithLock(proceedingJoinPoint, false);
+    }
+
+    private Object proceedWithLock(final ProceedingJoinPoint proceedingJoinPoint, final boolean write) throws Throwable {
+        final String groupId = getGroupId(proceedingJoinPoint);
+
+        ProcessGroupLock lock;
+        while (true) {
+            final List<String> path = getPath(groupId);
+            lock = write ? lockManager.lockForWrite(path) : lockManager.lockForRead(path);
+
+            // the group may have been moved or removed while waiting for the lock
+            if (path.equals(getPath(groupId))) {
+                break;
+            }
+            lock.unlock();
+        }
+
         try {
             return proceedingJoinPoint.proceed();
         } finally {
-            readLock.unlock();
+            lock.unlock();
         }
     }
+
+    /**
+     * Gets the id of the Process Group that the request is scoped to, if any.
+     *
+     * @param proceedingJoinPoint
+     * @return
+     */
+    private String getGroupId(final ProceedingJoinPoint proceedingJoinPoint) {
+        if (flowController == null || !(proceedingJoinPoint.getSignature() instanceof MethodSignature)) {
+            return null;
+        }
+
+        final String[] parameterNames = ((MethodSignature) proceedingJoinPoint.getSignature()).getParameterNames();
+        if (parameterNames == null) {
+            return null;
+        }
+
+        final Object[] args = proceedingJoinPoint.getArgs();
+        for (int i = 0; i < parameterNames.length && i < args.length; i++) {
+            if (("groupId".equals(parameterNames[i]) || "parentGroupId".equals(parameterNames[i])) && args[i] instanceof String) {
+                return (String) args[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the ids of the Process Groups from the root to the specified group.
+     * When the group is not known, the path to the root is returned.
+     *
+     * @param groupId
+     * @return
+     */
+    private List<String> getPath(final String groupId) {
+        if (groupId == null) {
+            return ROOT_PATH;
+        }
+
+        final ProcessGroup group = flowController.getGroup(groupId);
+        if (group == null) {
+            return ROOT_PATH;
+        }
+
+        final LinkedList<String> path = new LinkedList<>();
+        for (ProcessGroup ancestor = group; ancestor.getParent() != null; ancestor = ancestor.getParent()) {
+            path.addFirst(ancestor.getIdentifier());
+        }
+        path.addFirst(ProcessGroupLockManager.ROOT);
+        return path;
+    }
+
+    /* setters */
+    public void setFlowController(FlowController flowController) {
+        this.flowController = flowController;
+    }
+
+    public void setLockManager(ProcessGroupLockManager lockManager) {
+        this.lockManager = lockManager;
+    }
 }
@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical lock over the Process Groups of the flow. A lock is requested
+ * for a path of Process Group identifiers, from the root group down to the
+ * group that is the target of the request. The target is locked SHARED (for
+ * reads) or EXCLUSIVE (for writes) and every ancestor is locked with the
+ * corresponding intention mode, so a write to one group never blocks a read
+ * of a group outside of its subtree or ancestry.
+ *
+ * Writes are additionally serialized with one another, since every write
+ * checks and increments the single revision of the flow. The locks are
+ * reentrant: locks already held by the requesting thread never block it.
+ */
+public class ProcessGroupLockManager {
+
+    /**
+     * The identifier used for the root of every path, regardless of the
+     * identifier of the root Process Group.
+     */
+    public static final String ROOT = "root";
+
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    private final Map<String, LockNode> nodes = new HashMap<>();
+    private final LinkedList<LockRequest> waiting = new LinkedList<>();
+    private final Map<Thread, Integer> heldCounts = new HashMap<>();
+
+    private long readLockCount;
+    private long readLockWaitNanos;
+    private long maxReadLockWaitNanos;
+    private long writeLockCount;
+    private long writeLockWaitNanos;
+    private long maxWriteLockWaitNanos;
+
+    /**
+     * Acquires a shared lock on the last group of the given path, waiting for
+     * any conflicting write to complete.
+     *
+     * @param path the identifiers of the groups from the root to the target
+     * @return the lock, which must be released
+     */
+    public ProcessGroupLock lockForRead(final List<String> path) {
+        final long start = System.nanoTime();
+        final LockRequest request = new LockRequest(path, LockMode.SHARED);
+        acquire(request);
+
+        final long waitNanos = System.nanoTime() - start;
+        synchronized (this) {
+            readLockCount++;
+            readLockWaitNanos += waitNanos;
+            maxReadLockWaitNanos = Math.max(maxReadLockWaitNanos, waitNanos);
+        }
+
+        return new ProcessGroupLock(request, false);
+    }
+
+    /**
+     * Acquires an exclusive lock on the last group of the given path, waiting
+     * for any other write and any conflicting read to complete.
+     *
+     * @param path the identifiers of the groups from the root to the target
+     * @return the lock, which must be released
+     */
+    public ProcessGroupLock lockForWrite(final List<String> path) {
+        final long start = System.nanoTime();
+        writeLock.lock();
+
+        final LockRequest request = new LockRequest(path, LockMode.EXCLUSIVE);
+        try {
+            acquire(request);
+        } catch (final RuntimeException | Error e) {
+            writeLock.unlock();
+            throw e;
+        }
+
+        final long waitNanos = System.nanoTime() - start;
+        synchronized (this) {
+            writeLockCount++;
+            writeLockWaitNanos += waitNanos;
+            maxWriteLockWaitNanos = Math.max(maxWriteLockWaitNanos, waitNanos);
+        }
+
+        return new ProcessGroupLock(request, true);
+    }
+
+    /**
+     * @return a snapshot of the number of locks granted and the time spent
+     * waiting for them
+     */
+    public synchronized LockStatistics getStatistics() {
+        return new LockStatistics(readLockCount, readLockWaitNanos, maxReadLockWaitNanos,
+                writeLockCount, writeLockWaitNanos, maxWriteLockWaitNanos, waiting.size());
+    }
+
+    private synchronized void acquire(final LockRequest request) {
+        // a thread that already holds locks never queues behind other waiters, as
+        // they may be waiting on the locks it holds
+        final boolean reentrant = heldCounts.containsKey(request.thread);
+
+        boolean interrupted = false;
+        waiting.add(request);
+        try {
+            while (!isGrantable(request, reentrant)) {
+                try {
+                    wait();
+                } catch (final InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            waiting.remove(request);
+            notifyAll();
+        }
+
+        for (int i = 0; i < request.ids.size(); i++) {
+            LockNode node = nodes.get(request.ids.get(i));
+            if (node == null) {
+                node = new LockNode();
+                nodes.put(request.ids.get(i), node);
+            }
+            node.add(request.thread, request.modes.get(i));
+        }
+
+        final Integer held = heldCounts.get(request.thread);
+        heldCounts.put(request.thread, held == null ? 1 : held + 1);
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void release(final LockRequest request) {
+        for (int i = 0; i < request.ids.size(); i++) {
+            final LockNode node = nodes.get(request.ids.get(i));
+            node.remove(request.thread, request.modes.get(i));
+            if (node.isEmpty()) {
+                nodes.remove(request.ids.get(i));
+            }
+        }
+
+        final int held = heldCounts.get(request.thread);
+        if (held == 1) {
+            heldCounts.remove(request.thread);
+        } else {
+            heldCounts.put(request.thread, held - 1);
+        }
+
+        notifyAll();
+    }
+
+    private boolean isGrantable(final LockRequest request, final boolean reentrant) {
+        for (int i = 0; i < request.ids.size(); i++) {
+            final LockNode node = nodes.get(request.ids.get(i));
+            if (node != null && node.conflicts(request.thread, request.modes.get(i))) {
+                return false;
+            }
+        }
+
+        if (reentrant) {
+            return true;
+        }
+
+        // requests are granted in order, so a steady stream of reads cannot starve a write
+        for (final LockRequest earlier : waiting) {
+            if (earlier == request) {
+                break;
+            }
+            if (earlier.conflicts(request)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The modes in which a group can be locked.
+     */
+    public static enum LockMode {
+
+        INTENTION_SHARED,
+        INTENTION_EXCLUSIVE,
+        SHARED,
+        EXCLUSIVE;
+
+        /**
+         * @param other another mode
+         * @return whether two different threads can lock the same group in this
+         * mode and the given mode at the same time
+         */
+        public boolean isCompatibleWith(final LockMode other) {
+            switch (this) {
+                case INTENTION_SHARED:
+                    return other != EXCLUSIVE;
+                case INTENTION_EXCLUSIVE:
+                    return other == INTENTION_SHARED || other == INTENTION_EXCLUSIVE;
+                case SHARED:
+                    return other == INTENTION_SHARED || other == SHARED;
+                default:
+                    return false;
+            }
+        }
+
+        private LockMode getIntention() {
+            return (this == SHARED || this == INTENTION_SHARED) ? INTENTION_SHARED : INTENTION_EXCLUSIVE;
+        }
+    }
+
+    /**
+     * A lock that has been granted by this manager.
+     */
+    public class ProcessGroupLock {
+
+        private final LockRequest request;
+        private final boolean write;
+        private boolean released = false;
+
+        private ProcessGroupLock(final LockRequest request, final boolean write) {
+            this.request = request;
+            this.write = write;
+        }
+
+        /**
+         * @return the identifiers of the groups from the root to the locked group
+         */
+        public List<String> getPath() {
+            return request.ids;
+        }
+
+        /**
+         * Releases this lock. Must be called by the thread that acquired it.
+         */
+        public void unlock() {
+            if (released) {
+                return;
+            }
+
+            released = true;
+            release(request);
+            if (write) {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The number of locks granted and time spent waiting for them.
+     */
+    public static class LockStatistics {
+
+        private final long readLockCount;
+        private final long readLockWaitNanos;
+        private final long maxReadLockWaitNanos;
+        private final long writeLockCount;
+        private final long writeLockWaitNanos;
+        private final long maxWriteLockWaitNanos;
+        private final int waitingCount;
+
+        private LockStatistics(final long readLockCount, final long readLockWaitNanos, final long maxReadLockWaitNanos,
+                final long writeLockCount, final long writeLockWaitNanos, final long maxWriteLockWaitNanos, final int waitingCount) {
+            this.readLockCount = readLockCount;
+            this.readLockWaitNanos = readLockWaitNanos;
+            this.maxReadLockWaitNanos = maxReadLockWaitNanos;
+            this.writeLockCount = writeLockCount;
+            this.writeLockWaitNanos = writeLockWaitNanos;
+            this.maxWriteLockWaitNanos = maxWriteLockWaitNanos;
+            this.waitingCount = waitingCount;
+        }
+
+        public long getReadLockCount() {
+            return readLockCount;
+        }
+
+        public long getReadLockWaitNanos() {
+            return readLockWaitNanos;
+        }
+
+        public long getMaxReadLockWaitNanos() {
+            return maxReadLockWaitNanos;
+        }
+
+        public long getWriteLockCount() {
+            return writeLockCount;
+        }
+
+        public long getWriteLockWaitNanos() {
+            return writeLockWaitNanos;
+        }
+
+        public long getMaxWriteLockWaitNanos() {
+            return maxWriteLockWaitNanos;
+        }
+
+        /**
+         * @return the number of requests that were waiting for the hierarchical
+         * lock when these statistics were taken. Writes waiting behind another
+         * write are not included
+         */
+        public int getWaitingCount() {
+            return waitingCount;
+        }
+    }
+
+    /**
+     * A request for a path of groups, with the mode for each group.
+     */
+    private static class LockRequest {
+
+        private final Thread thread = Thread.currentThread();
+        private final List<String> ids;
+        private final List<LockMode> modes;
+
+        private LockRequest(final List<String> path, final LockMode targetMode) {
+            if (path == null || path.isEmpty()) {
+                throw new IllegalArgumentException("The path of the Process Group to lock must be specified");
+            }
+
+            ids = new ArrayList<>(path);
+            modes = new ArrayList<>(path.size());
+            for (int i = 0; i < path.size() - 1; i++) {
+                modes.add(targetMode.getIntention());
+            }
+            modes.add(targetMode);
+        }
+
+        private boolean conflicts(final LockRequest other) {
+            if (thread == other.thread) {
+                return false;
+            }
+
+            final int depth = Math.min(ids.size(), other.ids.size());
+            for (int i = 0; i < depth && ids.get(i).equals(other.ids.get(i)); i++) {
+                if (!modes.get(i).isCompatibleWith(other.modes.get(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The locks currently held on a single group, by thread.
+     */
+    private static class LockNode {
+
+        private final Map<Thread, int[]> holders = new HashMap<>();
+
+        private void add(final Thread thread, final LockMode mode) {
+            int[] counts = holders.get(thread);
+            if (counts == null) {
+                counts = new int[LockMode.values().length];
+                holders.put(thread, counts);
+            }
+            counts[mode.ordinal()]++;
+        }
+
+        private void remove(final Thread thread, final LockMode mode) {
+            final int[] counts = holders.get(thread);
+            counts[mode.ordinal()]--;
+            for (final int count : counts) {
+                if (count > 0) {
+                    return;
+                }
+            }
+            holders.remove(thread);
+        }
+
+        private boolean isEmpty() {
+            return holders.isEmpty();
+        }
+
+        private boolean conflicts(final Thread thread, final LockMode mode) {
+            for (final Map.Entry<Thread, int[]> entry : holders.entrySet()) {
+                if (entry.getKey() == thread) {
+                    continue;
+                }
+
+                final int[] counts = entry.getValue();
+                for (final LockMode held : LockMode.values()) {
+                    if (counts[held.ordinal()] > 0 && !mode.isCompatibleWith(held)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
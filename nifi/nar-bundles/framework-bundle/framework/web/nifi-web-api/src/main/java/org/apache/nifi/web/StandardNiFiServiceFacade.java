@@ -197,6 +197,7 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
     // properties
     private NiFiProperties properties;
     private DtoFactory dtoFactory;
+    private ProcessGroupLockManager processGroupLockManager;
 
     /**
      * Checks the specified revision against the current revision.
@@ -1701,6 +1702,7 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
             final SystemDiagnostics sysDiagnostics = controllerFacade.getSystemDiagnostics();
             dto = dtoFactory.createSystemDiagnosticsDto(sysDiagnostics);
         }
+        dto.setProcessGroupLockStatistics(dtoFactory.createLockStatisticsDto(processGroupLockManager.getStatistics()));
         return dto;
     }
 
@@ -1954,6 +1956,7 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         historyQuery.setCount(historyQueryDto.getCount());
         historyQuery.setSortColumn(historyQueryDto.getSortColumn());
         historyQuery.setSortOrder(historyQueryDto.getSortOrder());
+        historyQuery.setAfterActionId(historyQueryDto.getAfterActionId());
 
         // perform the query
         History history = auditService.getActions(historyQuery);
@@ -2709,6 +2712,10 @@ public class StandardNiFiServiceFacade implements NiFiServiceFacade {
         this.dtoFactory = dtoFactory;
     }
 
+    public void setProcessGroupLockManager(ProcessGroupLockManager processGroupLockManager) {
+        this.processGroupLockManager = processGroupLockManager;
+    }
+
     public void setInputPortDAO(PortDAO inputPortDAO) {
         this.inputPortDAO = inputPortDAO;
     }
@@ -199,7 +199,7 @@ public class StandardNiFiWebContext implements NiFiWebContext {
             }
 
             // return processor
-            final ProcessorEntity entity = nodeResponse.getClientResponse().getEntity(ProcessorEntity.class);
+            final ProcessorEntity entity = nodeResponse.getClientEntity(ProcessorEntity.class);
             processor = entity.getProcessor();
         } else {
             processor = serviceFacade.getProcessor(processorId);
@@ -74,6 +74,10 @@ public class HistoryResource extends ApplicationResource {
      * queried. This parameter is optional.
      * @param sourceId The id of the source being queried (usually a processor
      * id). This parameter is optional.
+     * @param afterActionId The id of the last action of the previous page. This
+     * parameter is optional. When specified and the results are sorted by
+     * timestamp, the page starts after this action and the offset is ignored,
+     * which is considerably faster than a large offset.
      * @return A historyEntity.
      */
     @GET
@@ -84,7 +88,8 @@ public class HistoryResource extends ApplicationResource {
             @QueryParam("offset") IntegerParameter offset, @QueryParam("count") IntegerParameter count,
             @QueryParam("sortColumn") String sortColumn, @QueryParam("sortOrder") String sortOrder,
             @QueryParam("startDate") DateTimeParameter startDate, @QueryParam("endDate") DateTimeParameter endDate,
-            @QueryParam("userName") String userName, @QueryParam("sourceId") String sourceId) {
+            @QueryParam("userName") String userName, @QueryParam("sourceId") String sourceId,
+            @QueryParam("afterActionId") IntegerParameter afterActionId) {
 
         // ensure the page is specified
         if (offset == null) {
@@ -141,6 +146,11 @@ public class HistoryResource extends ApplicationResource {
             query.setSourceId(sourceId);
         }
 
+        // optionally continue from the previous page
+        if (afterActionId != null) {
+            query.setAfterActionId(afterActionId.getInteger());
+        }
+
         // perform the query
         final HistoryDTO history = serviceFacade.getActions(query);
 
@@ -98,6 +98,7 @@ import org.apache.nifi.user.NiFiUser;
 import org.apache.nifi.user.NiFiUserGroup;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.web.ProcessGroupLockManager;
 import org.apache.nifi.web.Revision;
 import org.apache.nifi.web.api.dto.ProcessorConfigDTO.AllowableValueDTO;
 import org.apache.nifi.web.api.dto.ProcessorConfigDTO.PropertyDescriptorDTO;
@@ -709,6 +710,8 @@ public final class DtoFactory {
         dto.setRunStatus(procStatus.getRunStatus().toString());
 
         dto.setActiveThreadCount(procStatus.getActiveThreadCount());
+        dto.setBatchDurationMillis(TimeUnit.NANOSECONDS.toMillis(procStatus.getBatchDurationNanos()));
+        dto.setBatchSize(procStatus.getBatchSize());
         dto.setType(procStatus.getType());
 
         return dto;
@@ -1476,6 +1479,24 @@ public final class DtoFactory {
         return dto;
     }
 
+    /**
+     * Creates a LockStatisticsDTO from the specified LockStatistics.
+     *
+     * @param lockStatistics
+     * @return
+     */
+    public SystemDiagnosticsDTO.LockStatisticsDTO createLockStatisticsDto(final ProcessGroupLockManager.LockStatistics lockStatistics) {
+        final SystemDiagnosticsDTO.LockStatisticsDTO dto = new SystemDiagnosticsDTO.LockStatisticsDTO();
+        dto.setReadLockCount(lockStatistics.getReadLockCount());
+        dto.setReadLockWaitMillis(TimeUnit.NANOSECONDS.toMillis(lockStatistics.getReadLockWaitNanos()));
+        dto.setMaxReadLockWaitMillis(TimeUnit.NANOSECONDS.toMillis(lockStatistics.getMaxReadLockWaitNanos()));
+        dto.setWriteLockCount(lockStatistics.getWriteLockCount());
+        dto.setWriteLockWaitMillis(TimeUnit.NANOSECONDS.toMillis(lockStatistics.getWriteLockWaitNanos()));
+        dto.setMaxWriteLockWaitMillis(TimeUnit.NANOSECONDS.toMillis(lockStatistics.getMaxWriteLockWaitNanos()));
+        dto.setWaitingCount(lockStatistics.getWaitingCount());
+        return dto;
+    }
+
     /**
      * Creates a ProcessorConfigDTO from the specified ProcessorNode.
      *
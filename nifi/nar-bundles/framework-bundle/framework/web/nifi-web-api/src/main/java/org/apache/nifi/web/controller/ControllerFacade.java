@@ -58,13 +58,13 @@ import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.diagnostics.SystemDiagnostics;
 import org.apache.nifi.flowfile.FlowFilePrioritizer;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.groups.ComponentSearchIndex;
 import org.apache.nifi.groups.ProcessGroup;
 import org.apache.nifi.groups.ProcessGroupCounts;
 import org.apache.nifi.groups.RemoteProcessGroup;
 import org.apache.nifi.nar.ExtensionManager;
 import org.apache.nifi.nar.NarCloseable;
 import org.apache.nifi.processor.Processor;
-import org.apache.nifi.processor.QueueSize;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventRepository;
@@ -125,6 +125,10 @@ public class ControllerFacade implements ControllerServiceProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(ControllerFacade.class);
 
+    // terms that match the state of a component rather than its searchable text
+    private static final String[] COMPONENT_STATE_KEYWORDS = {"disabled", "invalid", "running", "stopped", "event", "timer", "primary",
+        "expires", "expiration", "back pressure", "transmitting", "transmission enabled", "not transmitting", "transmission disabled"};
+
     // nifi components
     private FlowController flowController;
     private FlowService flowService;
@@ -416,10 +420,10 @@ public class ControllerFacade implements ControllerServiceProvider {
     public ControllerStatusDTO getControllerStatus() {
         final ProcessGroup rootGroup = flowController.getGroup(flowController.getRootGroupId());
 
-        final QueueSize controllerQueueSize = flowController.getTotalFlowFileCount(rootGroup);
+        final ProcessGroupStatus rootGroupStatus = flowController.getControllerStatus();
         final ControllerStatusDTO controllerStatus = new ControllerStatusDTO();
-        controllerStatus.setActiveThreadCount(flowController.getActiveThreadCount());
-        controllerStatus.setQueued(FormatUtils.formatCount(controllerQueueSize.getObjectCount()) + " / " + FormatUtils.formatDataSize(controllerQueueSize.getByteCount()));
+        controllerStatus.setActiveThreadCount(rootGroupStatus.getActiveThreadCount());
+        controllerStatus.setQueued(FormatUtils.formatCount(rootGroupStatus.getQueuedCount()) + " / " + FormatUtils.formatDataSize(rootGroupStatus.getQueuedContentSize()));
 
         final BulletinRepository bulletinRepository = getBulletinRepository();
         final List<Bulletin> results = bulletinRepository.findBulletinsForController();
@@ -1016,76 +1020,127 @@ public class ControllerFacade implements ControllerServiceProvider {
     }
 
     /**
-     * Searches this controller for the specified term.
+     * Searches this controller for the specified term. Candidate components
+     * are located using the flow's search index and then verified, so that
+     * the flow does not need to be walked for every search. The results of
+     * each type are ranked so that components whose name matches the term are
+     * listed first.
      *
      * @param search
      * @return
      */
     public SearchResultsDTO search(final String search) {
-        final ProcessGroup rootGroup = flowController.getGroup(flowController.getRootGroupId());
-
-        final SearchResultsDTO results = new SearchResultsDTO();
-        search(results, search, rootGroup);
+        final ComponentSearchIndex searchIndex = flowController.getSearchIndex();
 
-        return results;
-    }
+        // run status, scheduling strategy, etc. are not indexed so every component must be considered
+        final ComponentSearchIndex.Candidates candidates = isComponentStateSearch(search) ? searchIndex.getAllComponents() : searchIndex.findCandidates(search);
 
-    private void search(final SearchResultsDTO results, final String search, final ProcessGroup group) {
-        final ComponentSearchResultDTO groupMatch = search(search, group);
-        if (groupMatch != null) {
-            results.getProcessGroupResults().add(groupMatch);
+        final SearchResultsDTO results = new SearchResultsDTO();
+        for (final ProcessGroup group : candidates.getProcessGroups()) {
+            final ComponentSearchResultDTO match = search(search, group);
+            if (match != null) {
+                results.getProcessGroupResults().add(match);
+            }
         }
 
-        for (final ProcessorNode procNode : group.getProcessors()) {
+        for (final ProcessorNode procNode : candidates.getProcessors()) {
             final ComponentSearchResultDTO match = search(search, procNode);
-            if (match != null) {
-                match.setGroupId(group.getIdentifier());
-                results.getProcessorResults().add(match);
-            }
+            addIfMember(match, procNode.getProcessGroup(), results.getProcessorResults());
         }
 
-        for (final Connection connection : group.getConnections()) {
+        for (final Connection connection : candidates.getConnections()) {
             final ComponentSearchResultDTO match = search(search, connection);
-            if (match != null) {
-                match.setGroupId(group.getIdentifier());
-                results.getConnectionResults().add(match);
-            }
+            addIfMember(match, connection.getProcessGroup(), results.getConnectionResults());
         }
 
-        for (final RemoteProcessGroup remoteGroup : group.getRemoteProcessGroups()) {
+        for (final RemoteProcessGroup remoteGroup : candidates.getRemoteProcessGroups()) {
             final ComponentSearchResultDTO match = search(search, remoteGroup);
-            if (match != null) {
-                match.setGroupId(group.getIdentifier());
-                results.getRemoteProcessGroupResults().add(match);
-            }
+            addIfMember(match, remoteGroup.getProcessGroup(), results.getRemoteProcessGroupResults());
         }
 
-        for (final Port port : group.getInputPorts()) {
+        for (final Port port : candidates.getInputPorts()) {
             final ComponentSearchResultDTO match = search(search, port);
-            if (match != null) {
-                match.setGroupId(group.getIdentifier());
-                results.getInputPortResults().add(match);
-            }
+            addIfMember(match, port.getProcessGroup(), results.getInputPortResults());
         }
 
-        for (final Port port : group.getOutputPorts()) {
+        for (final Port port : candidates.getOutputPorts()) {
             final ComponentSearchResultDTO match = search(search, port);
-            if (match != null) {
-                match.setGroupId(group.getIdentifier());
-                results.getOutputPortResults().add(match);
-            }
+            addIfMember(match, port.getProcessGroup(), results.getOutputPortResults());
         }
 
-        for (final Funnel funnel : group.getFunnels()) {
+        for (final Funnel funnel : candidates.getFunnels()) {
             final ComponentSearchResultDTO match = search(search, funnel);
-            if (match != null) {
-                match.setGroupId(group.getIdentifier());
-                results.getFunnelResults().add(match);
+            addIfMember(match, funnel.getProcessGroup(), results.getFunnelResults());
+        }
+
+        rank(search, results.getProcessGroupResults());
+        rank(search, results.getProcessorResults());
+        rank(search, results.getConnectionResults());
+        rank(search, results.getRemoteProcessGroupResults());
+        rank(search, results.getInputPortResults());
+        rank(search, results.getOutputPortResults());
+        rank(search, results.getFunnelResults());
+
+        return results;
+    }
+
+    /**
+     * Determines whether the specified term could match the state of a
+     * component (such as its run status or scheduling strategy) rather than its
+     * searchable text.
+     *
+     * @param search
+     * @return
+     */
+    private boolean isComponentStateSearch(final String search) {
+        for (final String keyword : COMPONENT_STATE_KEYWORDS) {
+            if (StringUtils.containsIgnoreCase(keyword, search)) {
+                return true;
             }
         }
+        return false;
+    }
+
+    private void addIfMember(final ComponentSearchResultDTO match, final ProcessGroup group, final List<ComponentSearchResultDTO> results) {
+        // the component may have been removed from the flow since the candidates were identified
+        if (match != null && group != null) {
+            match.setGroupId(group.getIdentifier());
+            results.add(match);
+        }
+    }
 
-        for (final ProcessGroup processGroup : group.getProcessGroups()) {
-            search(results, search, processGroup);
+    /**
+     * Orders the specified results so that components whose name equals the
+     * term come first, followed by those whose name starts with the term,
+     * those whose name contains the term and finally all other matches. Ties
+     * are ordered by name.
+     *
+     * @param search
+     * @param results
+     */
+    private void rank(final String search, final List<ComponentSearchResultDTO> results) {
+        final Collator collator = Collator.getInstance(Locale.US);
+        Collections.sort(results, new Comparator<ComponentSearchResultDTO>() {
+            @Override
+            public int compare(final ComponentSearchResultDTO a, final ComponentSearchResultDTO b) {
+                final int rankComparison = Integer.compare(getRank(search, a.getName()), getRank(search, b.getName()));
+                if (rankComparison != 0) {
+                    return rankComparison;
+                }
+                return collator.compare(StringUtils.defaultString(a.getName()), StringUtils.defaultString(b.getName()));
+            }
+        });
+    }
+
+    private int getRank(final String search, final String name) {
+        if (StringUtils.equalsIgnoreCase(name, search)) {
+            return 0;
+        } else if (StringUtils.startsWithIgnoreCase(name, search)) {
+            return 1;
+        } else if (StringUtils.containsIgnoreCase(name, search)) {
+            return 2;
+        } else {
+            return 3;
         }
     }
 
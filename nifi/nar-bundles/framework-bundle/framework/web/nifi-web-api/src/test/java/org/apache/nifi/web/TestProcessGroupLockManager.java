@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.web.ProcessGroupLockManager.LockStatistics;
+import org.apache.nifi.web.ProcessGroupLockManager.ProcessGroupLock;
+
+import org.junit.Test;
+
+public class TestProcessGroupLockManager {
+
+    private static final List<String> ROOT = Collections.singletonList(ProcessGroupLockManager.ROOT);
+    private static final List<String> GROUP_A = Arrays.asList(ProcessGroupLockManager.ROOT, "a");
+    private static final List<String> GROUP_A_CHILD = Arrays.asList(ProcessGroupLockManager.ROOT, "a", "a-child");
+    private static final List<String> GROUP_B = Arrays.asList(ProcessGroupLockManager.ROOT, "b");
+
+    private final ProcessGroupLockManager lockManager = new ProcessGroupLockManager();
+
+    @Test(timeout = 10000)
+    public void testReadOfUnrelatedGroupDoesNotWaitForWrite() throws Exception {
+        final ProcessGroupLock write = lockManager.lockForWrite(GROUP_A);
+        try {
+            assertTrue(readCompletes(GROUP_B));
+            assertFalse(readCompletes(GROUP_A));
+            assertFalse(readCompletes(GROUP_A_CHILD));
+            assertFalse(readCompletes(ROOT));
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWriteWaitsForReadOfAncestor() throws Exception {
+        final ProcessGroupLock read = lockManager.lockForRead(ROOT);
+        try {
+            assertFalse(writeCompletes(GROUP_A_CHILD));
+        } finally {
+            read.unlock();
+        }
+        assertTrue(writeCompletes(GROUP_A_CHILD));
+    }
+
+    @Test(timeout = 10000)
+    public void testWritesAreSerialized() throws Exception {
+        final ProcessGroupLock write = lockManager.lockForWrite(GROUP_A);
+        try {
+            assertFalse(writeCompletes(GROUP_B));
+        } finally {
+            write.unlock();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testLocksAreReentrant() throws Exception {
+        final ProcessGroupLock write = lockManager.lockForWrite(GROUP_A);
+        final ProcessGroupLock read = lockManager.lockForRead(ROOT);
+        final ProcessGroupLock nestedWrite = lockManager.lockForWrite(GROUP_A_CHILD);
+        nestedWrite.unlock();
+        read.unlock();
+        write.unlock();
+
+        assertTrue(writeCompletes(GROUP_B));
+    }
+
+    @Test(timeout = 10000)
+    public void testWaitingWriteIsNotStarvedByReads() throws Exception {
+        final ProcessGroupLock read = lockManager.lockForRead(GROUP_A);
+
+        final CountDownLatch writeAcquired = new CountDownLatch(1);
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lockManager.lockForWrite(GROUP_A).unlock();
+                writeAcquired.countDown();
+            }
+        });
+        writer.start();
+        while (lockManager.getStatistics().getWaitingCount() == 0) {
+            Thread.sleep(10L);
+        }
+
+        // a new read of the group queues behind the waiting write
+        assertFalse(readCompletes(GROUP_A));
+        assertTrue(readCompletes(GROUP_B));
+
+        read.unlock();
+        assertTrue(writeAcquired.await(5, TimeUnit.SECONDS));
+        writer.join();
+    }
+
+    @Test(timeout = 10000)
+    public void testStatistics() throws Exception {
+        lockManager.lockForRead(GROUP_A).unlock();
+        lockManager.lockForRead(GROUP_B).unlock();
+
+        final ProcessGroupLock read = lockManager.lockForRead(GROUP_A);
+        final Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                lockManager.lockForWrite(GROUP_A).unlock();
+            }
+        });
+        writer.start();
+        Thread.sleep(100L);
+        read.unlock();
+        writer.join();
+
+        final LockStatistics statistics = lockManager.getStatistics();
+        assertEquals(3L, statistics.getReadLockCount());
+        assertEquals(1L, statistics.getWriteLockCount());
+        assertTrue(statistics.getMaxWriteLockWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(100L));
+        assertEquals(statistics.getMaxWriteLockWaitNanos(), statistics.getWriteLockWaitNanos());
+        assertEquals(0, statistics.getWaitingCount());
+    }
+
+    private boolean readCompletes(final List<String> path) throws InterruptedException {
+        return completes(path, false);
+    }
+
+    private boolean writeCompletes(final List<String> path) throws InterruptedException {
+        return completes(path, true);
+    }
+
+    /**
+     * Attempts to lock and unlock the given path from another thread, waiting a
+     * short time for it to complete.
+     */
+    private boolean completes(final List<String> path, final boolean write) throws InterruptedException {
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final ProcessGroupLock lock = write ? lockManager.lockForWrite(path) : lockManager.lockForRead(path);
+                lock.unlock();
+                acquired.countDown();
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return acquired.await(200L, TimeUnit.MILLISECONDS);
+    }
+}
@@ -23,9 +23,10 @@ package org.apache.nifi.web;
  */
 public class StandardOptimisticLockingManager implements OptimisticLockingManager {
 
-    private Revision currentRevision = new Revision(0L, "");
+    // reads of unrelated Process Groups may run concurrently with a write
+    private volatile Revision currentRevision = new Revision(0L, "");
 
-    private String lastModifier = "unknown";
+    private volatile String lastModifier = "unknown";
 
     @Override
     public Revision checkRevision(Revision revision) throws InvalidRevisionException {
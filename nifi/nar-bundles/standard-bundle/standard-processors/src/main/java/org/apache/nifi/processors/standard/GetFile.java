@@ -17,8 +17,8 @@
 package org.apache.nifi.processors.standard;
 
 import java.io.File;
-import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -41,10 +41,14 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
@@ -61,6 +65,7 @@ import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.annotation.CapabilityDescription;
 import org.apache.nifi.processor.annotation.OnScheduled;
+import org.apache.nifi.processor.annotation.OnStopped;
 import org.apache.nifi.processor.annotation.Tags;
 import org.apache.nifi.processor.annotation.TriggerWhenEmpty;
 import org.apache.nifi.processor.exception.ProcessException;
@@ -164,18 +169,25 @@ public class GetFile extends AbstractProcessor {
     public static final String FILE_PERMISSIONS_ATTRIBUTE = "file.permissions";
     public static final String FILE_MODIFY_DATE_ATTR_FORMAT = "yyyy-MM-dd'T'HH:mm:ssZ";
 
+    // the number of files that a directory scan collects before adding them to the queue
+    private static final int LISTING_CHUNK_SIZE = 1000;
+    private static final long LISTING_WAIT_MILLIS = 1000L;
+
     public static final Relationship REL_SUCCESS = new Relationship.Builder().name("success").description("All files are routed to success").build();
 
     private List<PropertyDescriptor> properties;
     private Set<Relationship> relationships;
-    private final AtomicReference<FileFilter> fileFilterRef = new AtomicReference<>();
+    private final AtomicReference<PathFilter> fileFilterRef = new AtomicReference<>();
 
     private final BlockingQueue<File> fileQueue = new LinkedBlockingQueue<>();
+    private final Set<File> queued = new HashSet<>();    // guarded by queueLock
     private final Set<File> inProcess = new HashSet<>();    // guarded by queueLock
     private final Set<File> recentlyProcessed = new HashSet<>();    // guarded by queueLock
     private final Lock queueLock = new ReentrantLock();
+    private final Condition queueUpdated = queueLock.newCondition();
 
-    private final Lock listingLock = new ReentrantLock();
+    private final AtomicBoolean listingInProgress = new AtomicBoolean(false);
+    private volatile ForkJoinPool listingPool;
 
     private final AtomicLong queueLastUpdated = new AtomicLong(0L);
 
@@ -214,10 +226,28 @@ public class GetFile extends AbstractProcessor {
     @OnScheduled
     public void onScheduled(final ProcessContext context) {
         fileFilterRef.set(createFileFilter(context));
-        fileQueue.clear();
+        listingPool = new ForkJoinPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+        listingInProgress.set(false);
+
+        queueLock.lock();
+        try {
+            fileQueue.clear();
+            queued.clear();
+        } finally {
+            queueLock.unlock();
+        }
     }
 
-    private FileFilter createFileFilter(final ProcessContext context) {
+    @OnStopped
+    public void onStopped() {
+        final ForkJoinPool pool = listingPool;
+        if (pool != null) {
+            pool.shutdownNow();
+            listingPool = null;
+        }
+    }
+
+    private PathFilter createFileFilter(final ProcessContext context) {
         final long minSize = context.getProperty(MIN_SIZE).asDataSize(DataUnit.B).longValue();
         final Double maxSize = context.getProperty(MAX_SIZE).asDataSize(DataUnit.B);
         final long minAge = context.getProperty(MIN_AGE).asTimePeriod(TimeUnit.MILLISECONDS);
@@ -230,27 +260,36 @@ public class GetFile extends AbstractProcessor {
         final Pattern pathPattern = (!recurseDirs || pathPatternStr == null) ? null : Pattern.compile(pathPatternStr);
         final boolean keepOriginal = context.getProperty(KEEP_SOURCE_FILE).asBoolean();
 
-        return new FileFilter() {
+        final Path indirPath = Paths.get(indir);
+
+        return new PathFilter() {
             @Override
-            public boolean accept(final File file) {
-                if (minSize > file.length()) {
+            public boolean accept(final Path file, final BasicFileAttributes attributes) {
+                if (minSize > attributes.size()) {
                     return false;
                 }
-                if (maxSize != null && maxSize < file.length()) {
+                if (maxSize != null && maxSize < attributes.size()) {
                     return false;
                 }
-                final long fileAge = System.currentTimeMillis() - file.lastModified();
+                final long fileAge = System.currentTimeMillis() - attributes.lastModifiedTime().toMillis();
                 if (minAge > fileAge) {
                     return false;
                 }
                 if (maxAge != null && maxAge < fileAge) {
                     return false;
                 }
-                if (ignoreHidden && file.isHidden()) {
+                if (!filePattern.matcher(file.getFileName().toString()).matches()) {
+                    return false;
+                }
+                try {
+                    if (ignoreHidden && Files.isHidden(file)) {
+                        return false;
+                    }
+                } catch (final IOException ioe) {
                     return false;
                 }
                 if (pathPattern != null) {
-                    Path reldir = Paths.get(indir).relativize(file.toPath()).getParent();
+                    Path reldir = indirPath.relativize(file).getParent();
                     if (reldir != null && !reldir.toString().isEmpty()) {
                         if (!pathPattern.matcher(reldir.toString()).matches()) {
                             return false;
@@ -258,45 +297,91 @@ public class GetFile extends AbstractProcessor {
                     }
                 }
                 //Verify that we have at least read permissions on the file we're considering grabbing
-                if(!Files.isReadable(file.toPath())){
+                if(!Files.isReadable(file)){
                     return false;
                 }
                 
                 //Verify that if we're not keeping original that we have write permissions on the directory the file is in
-                if(keepOriginal == false && !Files.isWritable(file.toPath().getParent())){
+                if(keepOriginal == false && !Files.isWritable(file.getParent())){
                     return false;
                 }
-                return filePattern.matcher(file.getName()).matches();
+                return true;
             }
         };
     }
 
-    private Set<File> performListing(final File directory, final FileFilter filter, final boolean recurseSubdirectories) {
-        final Set<File> queue = new HashSet<>();
-        if (!directory.exists()) {
-            return queue;
-        }
-        // this check doesn't work on Windows
-        if (!directory.canRead()) {
-            getLogger().warn("No read permission on directory {}", new Object[]{directory.toString()});
+    /**
+     * Starts listing the given directory in the background. Files that are
+     * accepted by the filter are added to the queue as they are found, rather
+     * than once the whole directory has been listed, and subdirectories are
+     * listed in parallel.
+     *
+     * @param directory the directory to list
+     * @param filter the filter that the files must be accepted by
+     * @param recurseSubdirectories whether or not to list subdirectories
+     * @param keepingSourceFile whether or not files are kept once processed,
+     * in which case they may be queued again
+     */
+    private void startListing(final File directory, final PathFilter filter, final boolean recurseSubdirectories, final boolean keepingSourceFile) {
+        queueLock.lock();
+        try {
+            // files that were processed before the listing started cannot be found by it, unless they were kept
+            recentlyProcessed.clear();
+        } finally {
+            queueLock.unlock();
         }
 
-        final File[] children = directory.listFiles();
-        if (children == null) {
-            return queue;
-        }
+        final AtomicLong filesFound = new AtomicLong(0L);
+        listingPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!directory.exists()) {
+                        return;
+                    }
+                    // this check doesn't work on Windows
+                    if (!directory.canRead()) {
+                        getLogger().warn("No read permission on directory {}", new Object[]{directory.toString()});
+                    }
 
-        for (final File child : children) {
-            if (child.isDirectory()) {
-                if (recurseSubdirectories) {
-                    queue.addAll(performListing(child, filter, recurseSubdirectories));
+                    new DirectoryScan(directory.toPath(), filter, recurseSubdirectories, keepingSourceFile, filesFound).invoke();
+                } catch (final Exception e) {
+                    getLogger().error("Failed to list directory {} due to {}", new Object[]{directory, e});
+                } finally {
+                    queueLock.lock();
+                    try {
+                        queueLastUpdated.set(System.currentTimeMillis());
+                        listingInProgress.set(false);
+                        queueUpdated.signalAll();
+                    } finally {
+                        queueLock.unlock();
+                    }
+
+                    getLogger().debug("Found {} files in {}", new Object[]{filesFound.get(), directory});
                 }
-            } else if (filter.accept(child)) {
-                queue.add(child);
             }
+        });
+    }
+
+    private void enqueue(final List<File> files, final boolean keepingSourceFile) {
+        if (files.isEmpty()) {
+            return;
         }
 
-        return queue;
+        queueLock.lock();
+        try {
+            for (final File file : files) {
+                if (inProcess.contains(file) || (!keepingSourceFile && recentlyProcessed.contains(file))) {
+                    continue;
+                }
+                if (queued.add(file)) {
+                    fileQueue.add(file);
+                }
+            }
+            queueUpdated.signalAll();
+        } finally {
+            queueLock.unlock();
+        }
     }
 
     protected Map<String, String> getAttributesFromFile(final Path file) {
@@ -344,33 +429,8 @@ public class GetFile extends AbstractProcessor {
 
         if (fileQueue.size() < 100) {
             final long pollingMillis = context.getProperty(POLLING_INTERVAL).asTimePeriod(TimeUnit.MILLISECONDS);
-            if ((queueLastUpdated.get() < System.currentTimeMillis() - pollingMillis) && listingLock.tryLock()) {
-                try {
-                    final Set<File> listing = performListing(directory, fileFilterRef.get(),
-                            context.getProperty(RECURSE).asBoolean().booleanValue());
-
-                    queueLock.lock();
-                    try {
-                        listing.removeAll(inProcess);
-                        if (!keepingSourceFile) {
-                            listing.removeAll(recentlyProcessed);
-                        }
-
-                        fileQueue.clear();
-                        fileQueue.addAll(listing);
-
-                        queueLastUpdated.set(System.currentTimeMillis());
-                        recentlyProcessed.clear();
-
-                        if (listing.isEmpty()) {
-                            context.yield();
-                        }
-                    } finally {
-                        queueLock.unlock();
-                    }
-                } finally {
-                    listingLock.unlock();
-                }
+            if ((queueLastUpdated.get() < System.currentTimeMillis() - pollingMillis) && listingInProgress.compareAndSet(false, true)) {
+                startListing(directory, fileFilterRef.get(), context.getProperty(RECURSE).asBoolean().booleanValue(), keepingSourceFile);
             }
         }
 
@@ -378,12 +438,29 @@ public class GetFile extends AbstractProcessor {
         final List<File> files = new ArrayList<>(batchSize);
         queueLock.lock();
         try {
+            // wait for the listing to find files, rather than triggering repeatedly until it does
+            final long waitDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LISTING_WAIT_MILLIS);
+            while (fileQueue.isEmpty() && listingInProgress.get()) {
+                final long remainingNanos = waitDeadline - System.nanoTime();
+                if (remainingNanos <= 0L) {
+                    break;
+                }
+                queueUpdated.awaitNanos(remainingNanos);
+            }
+
             fileQueue.drainTo(files, batchSize);
             if (files.isEmpty()) {
+                if (!listingInProgress.get()) {
+                    context.yield();
+                }
                 return;
             } else {
+                queued.removeAll(files);
                 inProcess.addAll(files);
             }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
         } finally {
             queueLock.unlock();
         }
@@ -395,6 +472,11 @@ public class GetFile extends AbstractProcessor {
             while (itr.hasNext()) {
                 final File file = itr.next();
                 final Path filePath = file.toPath();
+                if (!Files.exists(filePath)) {
+                    // the file was removed after it was queued
+                    continue;
+                }
+
                 final Path relativePath = directoryPath.relativize(filePath.getParent());
                 String relativePathString = relativePath.toString() + "/";
                 if (relativePathString.isEmpty()) {
@@ -426,7 +508,9 @@ public class GetFile extends AbstractProcessor {
                     try {
                         while (itr.hasNext()) {
                             final File nextFile = itr.next();
-                            fileQueue.add(nextFile);
+                            if (queued.add(nextFile)) {
+                                fileQueue.add(nextFile);
+                            }
                             inProcess.remove(nextFile);
                         }
                     } finally {
@@ -453,4 +537,78 @@ public class GetFile extends AbstractProcessor {
         }
     }
 
+    /**
+     * Determines whether or not a file should be picked up, based on the
+     * attributes that were read when the file was listed.
+     */
+    private static interface PathFilter {
+
+        boolean accept(Path file, BasicFileAttributes attributes);
+    }
+
+    /**
+     * Lists a directory, adding the files that are accepted by the filter to
+     * the queue and listing its subdirectories in parallel.
+     */
+    private class DirectoryScan extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path directory;
+        private final PathFilter filter;
+        private final boolean recurseSubdirectories;
+        private final boolean keepingSourceFile;
+        private final AtomicLong filesFound;
+
+        private DirectoryScan(final Path directory, final PathFilter filter, final boolean recurseSubdirectories,
+                final boolean keepingSourceFile, final AtomicLong filesFound) {
+            this.directory = directory;
+            this.filter = filter;
+            this.recurseSubdirectories = recurseSubdirectories;
+            this.keepingSourceFile = keepingSourceFile;
+            this.filesFound = filesFound;
+        }
+
+        @Override
+        protected void compute() {
+            final List<DirectoryScan> subdirectoryScans = new ArrayList<>();
+            final List<File> accepted = new ArrayList<>();
+
+            try (final DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (final Path child : children) {
+                    final BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                    } catch (final IOException ioe) {
+                        // the file was removed, or cannot be read
+                        continue;
+                    }
+
+                    if (attributes.isDirectory()) {
+                        if (recurseSubdirectories) {
+                            final DirectoryScan scan = new DirectoryScan(child, filter, recurseSubdirectories, keepingSourceFile, filesFound);
+                            scan.fork();
+                            subdirectoryScans.add(scan);
+                        }
+                    } else if (filter.accept(child, attributes)) {
+                        accepted.add(child.toFile());
+                        if (accepted.size() >= LISTING_CHUNK_SIZE) {
+                            filesFound.addAndGet(accepted.size());
+                            enqueue(accepted, keepingSourceFile);
+                            accepted.clear();
+                        }
+                    }
+                }
+            } catch (final IOException ioe) {
+                getLogger().warn("Failed to list directory {} due to {}", new Object[]{directory, ioe});
+            }
+
+            filesFound.addAndGet(accepted.size());
+            enqueue(accepted, keepingSourceFile);
+
+            for (final DirectoryScan scan : subdirectoryScans) {
+                scan.join();
+            }
+        }
+    }
 }
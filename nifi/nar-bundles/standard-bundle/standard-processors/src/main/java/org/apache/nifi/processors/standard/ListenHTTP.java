@@ -59,6 +59,7 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
 import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 
@@ -112,6 +113,25 @@ public class ListenHTTP extends AbstractSessionFactoryProcessor {
 		    .addValidator(StandardValidators.REGULAR_EXPRESSION_VALIDATOR)
 		    .required(false)
 		    .build();
+    public static final PropertyDescriptor ACCEPTOR_THREADS = new PropertyDescriptor.Builder()
+            .name("Acceptor Threads")
+            .description("The number of threads that accept incoming connections; if not specified, the number is based on the number of available processors")
+            .required(false)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+    public static final PropertyDescriptor SELECTOR_THREADS = new PropertyDescriptor.Builder()
+            .name("Selector Threads")
+            .description("The number of threads that wait for data to be available on the open connections; if not specified, the number is based on the number of available processors")
+            .required(false)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+    public static final PropertyDescriptor MAX_THREAD_POOL_SIZE = new PropertyDescriptor.Builder()
+            .name("Max Thread Pool Size")
+            .description("The maximum number of threads used by the HTTP Server, including the acceptor and selector threads")
+            .required(true)
+            .defaultValue("200")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
 
     public static final String URI = "/contentListener";
     public static final String CONTEXT_ATTRIBUTE_PROCESSOR = "processor";
@@ -140,6 +160,9 @@ public class ListenHTTP extends AbstractSessionFactoryProcessor {
         descriptors.add(AUTHORIZED_DN_PATTERN);
         descriptors.add(MAX_UNCONFIRMED_TIME);
         descriptors.add(HEADERS_AS_ATTRIBUTES_REGEX);
+        descriptors.add(ACCEPTOR_THREADS);
+        descriptors.add(SELECTOR_THREADS);
+        descriptors.add(MAX_THREAD_POOL_SIZE);
         this.properties = Collections.unmodifiableList(descriptors);
     }
 
@@ -197,7 +220,7 @@ public class ListenHTTP extends AbstractSessionFactoryProcessor {
         }
 
         // thread pool for the jetty instance
-        final QueuedThreadPool threadPool = new QueuedThreadPool();
+        final QueuedThreadPool threadPool = new QueuedThreadPool(context.getProperty(MAX_THREAD_POOL_SIZE).asInteger());
         threadPool.setName(String.format("%s (%s) Web Server", getClass().getSimpleName(), getIdentifier()));
 
         // create the server instance
@@ -206,11 +229,15 @@ public class ListenHTTP extends AbstractSessionFactoryProcessor {
         // get the configured port
         final int port = context.getProperty(PORT).asInteger();
 
+        // the number of acceptor and selector threads, -1 letting jetty choose based on the available processors
+        final int acceptors = context.getProperty(ACCEPTOR_THREADS).isSet() ? context.getProperty(ACCEPTOR_THREADS).asInteger() : -1;
+        final int selectors = context.getProperty(SELECTOR_THREADS).isSet() ? context.getProperty(SELECTOR_THREADS).asInteger() : -1;
+
         final ServerConnector connector;
         final HttpConfiguration httpConfiguration = new HttpConfiguration();
         if (keystorePath == null) {
             // create the connector
-            connector = new ServerConnector(server, new HttpConnectionFactory(httpConfiguration));
+            connector = new ServerConnector(server, acceptors, selectors, new HttpConnectionFactory(httpConfiguration));
         } else {
             // configure the ssl connector
             httpConfiguration.setSecureScheme("https");
@@ -218,7 +245,7 @@ public class ListenHTTP extends AbstractSessionFactoryProcessor {
             httpConfiguration.addCustomizer(new SecureRequestCustomizer());
 
             // build the connector
-            connector = new ServerConnector(server,
+            connector = new ServerConnector(server, acceptors, selectors,
                     new SslConnectionFactory(contextFactory, "http/1.1"),
                     new HttpConnectionFactory(httpConfiguration));
         }
@@ -232,11 +259,15 @@ public class ListenHTTP extends AbstractSessionFactoryProcessor {
         final ServletContextHandler contextHandler = new ServletContextHandler(server, "/", true, (keystorePath != null));
         for (final Class<? extends Servlet> cls : getServerClasses()) {
             final Path path = cls.getAnnotation(Path.class);
+            final ServletHolder holder;
             if (path == null) {
-                contextHandler.addServlet(cls, "/*");
+                holder = contextHandler.addServlet(cls, "/*");
             } else {
-                contextHandler.addServlet(cls, path.value());
+                holder = contextHandler.addServlet(cls, path.value());
             }
+
+            // allow the servlets to receive request content without blocking a thread
+            holder.setAsyncSupported(true);
         }
         contextHandler.setAttribute(CONTEXT_ATTRIBUTE_PROCESSOR, this);
         contextHandler.setAttribute(CONTEXT_ATTRIBUTE_LOGGER, getLogger());
@@ -39,7 +39,12 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
@@ -67,6 +72,7 @@ import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.conn.ManagedHttpClientConnection;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLContexts;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
@@ -85,10 +91,11 @@ import org.apache.nifi.components.ValidationResult;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.logging.ProcessorLog;
-import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.AbstractSessionFactoryProcessor;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.ProcessContext;
 import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessSessionFactory;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.annotation.CapabilityDescription;
@@ -119,7 +126,7 @@ import com.sun.jersey.api.client.ClientResponse.Status;
 @SupportsBatching
 @Tags({"http", "https", "remote", "copy", "archive"})
 @CapabilityDescription("Performs an HTTP Post with the content of the FlowFile")
-public class PostHTTP extends AbstractProcessor {
+public class PostHTTP extends AbstractSessionFactoryProcessor {
 
     public static final String CONTENT_TYPE = "Content-Type";
     public static final String ACCEPT = "Accept";
@@ -138,6 +145,11 @@ public class PostHTTP extends AbstractProcessor {
     public static final String TRANSACTION_ID_HEADER = "x-nifi-transaction-id";
     public static final String PROTOCOL_VERSION = "3";
 
+    // when transactions are pipelined, batches are sized to take about this long to send at the measured data rate
+    private static final long TARGET_TRANSACTION_NANOS = TimeUnit.SECONDS.toNanos(1L);
+    private static final long INITIAL_TARGET_BATCH_BYTES = 1024L * 1024L;
+    private static final long PERMIT_WAIT_MILLIS = 100L;
+
     public static final PropertyDescriptor URL = new PropertyDescriptor.Builder()
             .name("URL")
             .description("The URL to POST to. The first part of the URL must be static. However, the path of the URL may be defined using the Attribute Expression Language. For example, https://${hostname} is not valid, but https://1.1.1.1:8080/files/${nf.file.name} is valid.")
@@ -219,6 +231,17 @@ public class PostHTTP extends AbstractProcessor {
             .defaultValue("true")
             .build();
 
+    public static final PropertyDescriptor MAX_OUTSTANDING_TRANSACTIONS = new PropertyDescriptor.Builder()
+            .name("Max Outstanding Transactions")
+            .description("The maximum number of POSTs that may be waiting for the destination to receive and acknowledge their FlowFiles at once. "
+                    + "If greater than 1, FlowFiles are sent in the background and the size of each batch is adjusted to the measured data rate, "
+                    + "bounded by the Max Batch Size, so that the time taken by each round trip to the destination overlaps with the others. "
+                    + "Transactions are not kept outstanding while invocations are batched by a Run Duration")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .defaultValue("1")
+            .build();
+
     public static final PropertyDescriptor SSL_CONTEXT_SERVICE = new PropertyDescriptor.Builder()
             .name("SSL Context Service")
             .description("The Controller Service to use in order to obtain an SSL Context")
@@ -236,6 +259,9 @@ public class PostHTTP extends AbstractProcessor {
     private final AtomicReference<StreamThrottler> throttlerRef = new AtomicReference<>();
     private final ConcurrentMap<String, Config> configMap = new ConcurrentHashMap<>();
 
+    private volatile ExecutorService transactionExecutor;
+    private volatile Semaphore outstandingTransactions;
+
     @Override
     protected void init(final ProcessorInitializationContext context) {
         final Set<Relationship> relationships = new HashSet<>();
@@ -246,6 +272,7 @@ public class PostHTTP extends AbstractProcessor {
         final List<PropertyDescriptor> properties = new ArrayList<>();
         properties.add(URL);
         properties.add(MAX_BATCH_SIZE);
+        properties.add(MAX_OUTSTANDING_TRANSACTIONS);
         properties.add(MAX_DATA_RATE);
         properties.add(SSL_CONTEXT_SERVICE);
         properties.add(USERNAME);
@@ -289,6 +316,20 @@ public class PostHTTP extends AbstractProcessor {
     public void onStopped() {
         this.acceptsRef.set(null);
 
+        // wait for the outstanding transactions to be acknowledged, or to fail, before closing their connections
+        final ExecutorService executor = this.transactionExecutor;
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    getLogger().debug("Waiting for outstanding transactions to complete");
+                }
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            this.transactionExecutor = null;
+        }
+
         for (final Map.Entry<String, Config> entry : configMap.entrySet()) {
             final Config config = entry.getValue();
             config.getConnectionManager().shutdown();
@@ -301,6 +342,22 @@ public class PostHTTP extends AbstractProcessor {
     public void onScheduled(final ProcessContext context) {
         final Double bytesPerSecond = context.getProperty(MAX_DATA_RATE).asDataSize(DataUnit.B);
         this.throttlerRef.set(bytesPerSecond == null ? null : new LeakyBucketStreamThrottler(bytesPerSecond.intValue()));
+
+        final int maxOutstanding = context.getProperty(MAX_OUTSTANDING_TRANSACTIONS).asInteger();
+        if (maxOutstanding > 1) {
+            final String threadNamePrefix = String.format("%s (%s) Transaction-", getClass().getSimpleName(), getIdentifier());
+            this.outstandingTransactions = new Semaphore(maxOutstanding);
+            this.transactionExecutor = Executors.newFixedThreadPool(maxOutstanding, new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, threadNamePrefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
     }
 
     private String getBaseUrl(final String url) {
@@ -319,23 +376,30 @@ public class PostHTTP extends AbstractProcessor {
             return config;
         }
 
+        final RegistryBuilder<ConnectionSocketFactory> registryBuilder = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory());
+
         final SSLContextService sslContextService = context.getProperty(SSL_CONTEXT_SERVICE).asControllerService(SSLContextService.class);
-        final SSLContext sslContext;
-        try {
-            sslContext = createSSLContext(sslContextService);
-        } catch (final Exception e) {
-            throw new ProcessException(e);
+        if (sslContextService != null) {
+            final SSLContext sslContext;
+            try {
+                sslContext = createSSLContext(sslContextService);
+            } catch (final Exception e) {
+                throw new ProcessException(e);
+            }
+
+            final SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslContext, new String[] { "TLSv1" }, null,
+                    SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+            registryBuilder.register("https", sslsf);
         }
-        
-        final SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslContext, new String[] { "TLSv1" }, null,
-                SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
 
-        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory>create()
-                .register("https", sslsf).build();
-        
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = registryBuilder.build();
+
         final PoolingHttpClientConnectionManager conMan = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-        conMan.setDefaultMaxPerRoute(context.getMaxConcurrentTasks());
-        conMan.setMaxTotal(context.getMaxConcurrentTasks());
+        // each concurrent task, or each outstanding transaction, keeps its own connection alive
+        final int maxConnections = Math.max(context.getMaxConcurrentTasks(), context.getProperty(MAX_OUTSTANDING_TRANSACTIONS).asInteger());
+        conMan.setDefaultMaxPerRoute(maxConnections);
+        conMan.setMaxTotal(maxConnections);
         config = new Config(conMan);
         final Config existingConfig = configMap.putIfAbsent(baseUrl, config);
 
@@ -365,7 +429,57 @@ public class PostHTTP extends AbstractProcessor {
     }
 
     @Override
-    public void onTrigger(final ProcessContext context, final ProcessSession session) {
+    public void onTrigger(final ProcessContext context, final ProcessSessionFactory sessionFactory) {
+        final ExecutorService executor = this.transactionExecutor;
+
+        // When the framework batches invocations, it commits the session once the batch is complete;
+        // a transaction cannot outlive the invocation, so send it here.
+        if (executor == null || context.isBatchingSessions()) {
+            final ProcessSession session = sessionFactory.createSession();
+            try {
+                send(context, session);
+                session.commit();
+            } catch (final Throwable t) {
+                session.rollback(true);
+                throw t;
+            }
+            return;
+        }
+
+        // send the next batch in the background, once fewer than the maximum number of transactions are outstanding
+        final Semaphore permits = this.outstandingTransactions;
+        try {
+            if (!permits.tryAcquire(PERMIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            final ProcessSession session = sessionFactory.createSession();
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        send(context, session);
+                        session.commit();
+                    } catch (final Throwable t) {
+                        getLogger().error("{} failed to send FlowFiles due to {}; rolling back session", new Object[]{PostHTTP.this, t});
+                        session.rollback(true);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (final RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private void send(final ProcessContext context, final ProcessSession session) {
         final boolean sendAsFlowFile = context.getProperty(SEND_AS_FLOWFILE).asBoolean();
         final int compressionLevel = context.getProperty(COMPRESSION_LEVEL).asInteger();
         final String userAgent = context.getProperty(USER_AGENT).getValue();
@@ -387,6 +501,7 @@ public class PostHTTP extends AbstractProcessor {
         final List<FlowFile> toSend = new ArrayList<>();
         DestinationAccepts destinationAccepts = null;
         CloseableHttpClient client = null;
+        Config config = null;
         final String transactionId = UUID.randomUUID().toString();
 
         final ObjectHolder<String> dnHolder = new ObjectHolder<>("none");
@@ -417,7 +532,7 @@ public class PostHTTP extends AbstractProcessor {
             toSend.add(flowFile);
 
             if (client == null || destinationAccepts == null) {
-                final Config config = getConfig(url, context);
+                config = getConfig(url, context);
                 final HttpClientConnectionManager conMan = config.getConnectionManager();
                 
                 final HttpClientBuilder clientBuilder = HttpClientBuilder.create();
@@ -428,6 +543,11 @@ public class PostHTTP extends AbstractProcessor {
                     public void process(final HttpResponse response, final HttpContext httpContext) throws HttpException, IOException {
                         HttpCoreContext coreContext = HttpCoreContext.adapt(httpContext);
                         ManagedHttpClientConnection conn = coreContext.getConnection(ManagedHttpClientConnection.class);
+                        if (conn == null || !conn.isOpen()) {
+                            // the connection has already been released, e.g. for a response without content
+                            return;
+                        }
+
                         SSLSession sslSession = conn.getSSLSession();
                         
                         if ( sslSession != null ) {
@@ -487,7 +607,7 @@ public class PostHTTP extends AbstractProcessor {
             }
 
             bytesToSend += flowFile.getSize();
-            if (bytesToSend > maxBatchBytes.longValue()) {
+            if (bytesToSend > getTargetBatchBytes(config, maxBatchBytes.longValue())) {
                 break;
             }
         }
@@ -497,6 +617,7 @@ public class PostHTTP extends AbstractProcessor {
         }
 
         final String url = lastUrl;
+        final Config destinationConfig = config;
         final HttpPost post = new HttpPost(url);
         final List<FlowFile> flowFileList = toSend;
         final DestinationAccepts accepts = destinationAccepts;
@@ -607,6 +728,7 @@ public class PostHTTP extends AbstractProcessor {
 
         final String uploadDataRate;
         final long uploadMillis;
+        final long uploadNanos;
         CloseableHttpResponse response = null;
         try {
             final StopWatch stopWatch = new StopWatch(true);
@@ -618,6 +740,7 @@ public class PostHTTP extends AbstractProcessor {
             stopWatch.stop();
             uploadDataRate = stopWatch.calculateDataRate(bytesToSend);
             uploadMillis = stopWatch.getDuration(TimeUnit.MILLISECONDS);
+            uploadNanos = stopWatch.getDuration(TimeUnit.NANOSECONDS);
         } catch (final IOException e) {
             logger.error("Failed to Post {} due to {}; transferring to failure", new Object[]{flowFileDescription, e});
             context.yield();
@@ -691,6 +814,7 @@ public class PostHTTP extends AbstractProcessor {
                 session.getProvenanceReporter().send(flowFile, url, "Remote DN=" + dnHolder.get(), uploadMillis, true);
                 session.transfer(flowFile, REL_SUCCESS);
             }
+            destinationConfig.recordTransaction(bytesToSend, uploadNanos, 0L);
             return;
         }
 
@@ -725,8 +849,10 @@ public class PostHTTP extends AbstractProcessor {
 
         while (true) {
             try {
+                final long acknowledgmentStart = System.nanoTime();
                 final HttpResponse holdResponse = client.execute(delete);
                 EntityUtils.consume(holdResponse.getEntity());
+                final long acknowledgmentNanos = System.nanoTime() - acknowledgmentStart;
                 final int holdStatusCode = holdResponse.getStatusLine().getStatusCode();
                 final String holdReason = holdResponse.getStatusLine().getReasonPhrase();
                 if (holdStatusCode >= 300) {
@@ -747,6 +873,7 @@ public class PostHTTP extends AbstractProcessor {
                     session.getProvenanceReporter().send(flowFile, url);
                     session.transfer(flowFile, REL_SUCCESS);
                 }
+                destinationConfig.recordTransaction(bytesToSend, uploadNanos, acknowledgmentNanos);
                 return;
             } catch (final IOException e) {
                 logger.warn("Failed to delete Hold that destination placed on {} due to {}", new Object[]{flowFileDescription, e});
@@ -765,6 +892,24 @@ public class PostHTTP extends AbstractProcessor {
     }
 
 
+    /**
+     * Determines the number of bytes to send in a single POST. When
+     * transactions are pipelined, batches are sized to the data rate that has
+     * been measured for the destination, so that several smaller batches are
+     * outstanding rather than a single large one.
+     *
+     * @param config the configuration of the destination
+     * @param maxBatchBytes the configured max batch size
+     * @return the target number of bytes
+     */
+    private long getTargetBatchBytes(final Config config, final long maxBatchBytes) {
+        if (transactionExecutor == null) {
+            return maxBatchBytes;
+        }
+
+        return Math.min(maxBatchBytes, config.getTargetBatchBytes());
+    }
+
     private DestinationAccepts getDestinationAcceptance(final HttpClient client, final String uri, final ProcessorLog logger, final String transactionId) throws IOException {
         final HttpHead head = new HttpHead(uri);
         head.addHeader(TRANSACTION_ID_HEADER, transactionId);
@@ -885,6 +1030,11 @@ public class PostHTTP extends AbstractProcessor {
         private volatile DestinationAccepts destinationAccepts;
         private final HttpClientConnectionManager conMan;
 
+        // exponentially weighted moving averages of the upload rate of each transaction, and of the time taken
+        // to acknowledge it
+        private double uploadBytesPerSecond = -1D;
+        private double acknowledgmentNanos = 0D;
+
         public Config(final HttpClientConnectionManager conMan) {
             this.conMan = conMan;
         }
@@ -900,5 +1050,44 @@ public class PostHTTP extends AbstractProcessor {
         public HttpClientConnectionManager getConnectionManager() {
             return conMan;
         }
+
+        /**
+         * @param bytes the number of bytes that were sent
+         * @param uploadNanos the time taken to POST the bytes and receive the
+         * response
+         * @param acknowledgmentNanos the time taken to delete the hold that the
+         * destination placed on the bytes, or 0 if there was no hold
+         */
+        public synchronized void recordTransaction(final long bytes, final long uploadNanos, final long acknowledgmentNanos) {
+            if (bytes <= 0L || uploadNanos <= 0L) {
+                return;
+            }
+
+            final double rate = bytes * 1000000000D / uploadNanos;
+            if (uploadBytesPerSecond < 0D) {
+                uploadBytesPerSecond = rate;
+                this.acknowledgmentNanos = acknowledgmentNanos;
+            } else {
+                uploadBytesPerSecond = 0.8D * uploadBytesPerSecond + 0.2D * rate;
+                this.acknowledgmentNanos = 0.8D * this.acknowledgmentNanos + 0.2D * acknowledgmentNanos;
+            }
+        }
+
+        /**
+         * The upload rate includes the round trip of the POST's response, so
+         * it falls as latency grows. Sizing batches to the target duration plus
+         * a round trip, as measured by the acknowledgment, offsets that, so
+         * that batches carry about the target duration's worth of data at the
+         * link's bandwidth, regardless of its latency.
+         *
+         * @return the number of bytes to send in a transaction
+         */
+        public synchronized long getTargetBatchBytes() {
+            if (uploadBytesPerSecond < 0D) {
+                return INITIAL_TARGET_BATCH_BYTES;
+            }
+
+            return Math.max(1L, (long) (uploadBytesPerSecond * (TARGET_TRANSACTION_NANOS + acknowledgmentNanos) / 1000000000D));
+        }
     }
 }
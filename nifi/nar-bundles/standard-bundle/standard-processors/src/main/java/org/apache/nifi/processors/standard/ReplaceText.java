@@ -28,10 +28,10 @@ import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.components.Validator;
 import org.apache.nifi.expression.AttributeValueDecorator;
 import org.apache.nifi.flowfile.FlowFile;
-import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.logging.ProcessorLog;
 import org.apache.nifi.processor.annotation.CapabilityDescription;
 import org.apache.nifi.processor.annotation.EventDriven;
+import org.apache.nifi.processor.annotation.OnStopped;
 import org.apache.nifi.processor.annotation.SideEffectFree;
 import org.apache.nifi.processor.annotation.SupportsBatching;
 import org.apache.nifi.processor.annotation.Tags;
@@ -41,6 +41,7 @@ import org.apache.nifi.processor.io.StreamCallback;
 import org.apache.nifi.processor.util.FlowFileFilters;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.processors.standard.util.NLKBufferedReader;
+import org.apache.nifi.processors.standard.util.StreamingRegexReplacer;
 import org.apache.nifi.util.StopWatch;
 
 import java.io.IOException;
@@ -50,6 +51,8 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -65,7 +68,6 @@ public class ReplaceText extends AbstractProcessor {
     public static final String LINE_BY_LINE = "Line-by-Line";
     public static final String ENTIRE_TEXT = "Entire text";
     private final Pattern backReferencePattern = Pattern.compile("\\$(\\d+)");
-    private static final byte[] ZERO_BYTE_BUFFER = new byte[0];
     // Properties
     public static final PropertyDescriptor REGEX = new PropertyDescriptor.Builder()
             .name("Regular Expression")
@@ -92,7 +94,8 @@ public class ReplaceText extends AbstractProcessor {
             .build();
     public static final PropertyDescriptor MAX_BUFFER_SIZE = new PropertyDescriptor.Builder()
             .name("Maximum Buffer Size")
-            .description("Specifies the maximum amount of data to buffer (per file or per line, depending on the Evaluation Mode) in order to apply the regular expressions. If 'Entire Text' (in Evaluation Mode) is selected and the FlowFile is larger than this value, the FlowFile will be routed to 'failure'. "
+            .description("Specifies the maximum amount of text to buffer in order to apply the regular expressions. The content is streamed through a buffer of this size, so FlowFiles larger than this value can be processed. "
+                    + "If 'Entire Text' (in Evaluation Mode) is selected, a single match of the Regular Expression should be no larger than half of this value; if a match cannot be resolved within the buffer, the FlowFile will be routed to 'failure'. "
                     + "In 'Line-by-Line' Mode, if a single line is larger than this value, the FlowFile will be routed to 'failure'. A default value of 1 MB is provided, primarily for 'Entire Text' mode. In 'Line-by-Line' Mode, a value such as 8 KB or 16 KB is suggested. This value is ignored and the buffer is not used if 'Regular Expression' is set to '.*'")
             .required(true)
             .addValidator(StandardValidators.DATA_SIZE_VALIDATOR)
@@ -100,7 +103,7 @@ public class ReplaceText extends AbstractProcessor {
             .build();
     public static final PropertyDescriptor EVALUATION_MODE = new PropertyDescriptor.Builder()
             .name("Evaluation Mode")
-            .description("Evaluate the 'Regular Expression' against each line (Line-by-Line) or buffer the entire file into memory (Entire Text) and then evaluate the 'Regular Expression'.")
+            .description("Evaluate the 'Regular Expression' against each line (Line-by-Line) or against the entire text of the file (Entire Text). In either mode, the content is streamed through a buffer whose size is given by 'Maximum Buffer Size'.")
             .allowableValues(LINE_BY_LINE, ENTIRE_TEXT)
             .defaultValue(ENTIRE_TEXT)
             .required(true)
@@ -111,6 +114,7 @@ public class ReplaceText extends AbstractProcessor {
     //
     private List<PropertyDescriptor> properties;
     private Set<Relationship> relationships;
+    private final BlockingQueue<StreamingRegexReplacer> replacerPool = new LinkedBlockingQueue<>();
 
     @Override
     protected void init(final ProcessorInitializationContext context) {
@@ -177,113 +181,129 @@ public class ReplaceText extends AbstractProcessor {
         final Charset charset = Charset.forName(context.getProperty(CHARACTER_SET).getValue());
         final int maxBufferSize = context.getProperty(MAX_BUFFER_SIZE).asDataSize(DataUnit.B).intValue();
 
-        final byte[] buffer = skipBuffer ? ZERO_BYTE_BUFFER : new byte[maxBufferSize];
-
         final String evaluateMode = context.getProperty(EVALUATION_MODE).getValue();
 
-        for (FlowFile flowFile : flowFiles) {
-            if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
-                if (flowFile.getSize() > maxBufferSize && !skipBuffer) {
-                    session.transfer(flowFile, REL_FAILURE);
-                    continue;
-                }
-            }
+        final StreamingRegexReplacer replacer = skipBuffer ? null : borrowReplacer(charset, maxBufferSize);
+        Pattern pattern = null;
 
-            String replacement = context.getProperty(REPLACEMENT_VALUE).evaluateAttributeExpressions(flowFile, escapeBackRefDecorator).getValue();
-            final Matcher backRefMatcher = backReferencePattern.matcher(replacement);
-            while (backRefMatcher.find()) {
-                final String backRefNum = backRefMatcher.group(1);
-                if (backRefNum.startsWith("0")) {
-                    continue;
-                }
-                final int originalBackRefIndex = Integer.parseInt(backRefNum);
-                int backRefIndex = originalBackRefIndex;
+        try {
+            for (FlowFile flowFile : flowFiles) {
+                String replacement = context.getProperty(REPLACEMENT_VALUE).evaluateAttributeExpressions(flowFile, escapeBackRefDecorator).getValue();
+                final Matcher backRefMatcher = backReferencePattern.matcher(replacement);
+                while (backRefMatcher.find()) {
+                    final String backRefNum = backRefMatcher.group(1);
+                    if (backRefNum.startsWith("0")) {
+                        continue;
+                    }
+                    final int originalBackRefIndex = Integer.parseInt(backRefNum);
+                    int backRefIndex = originalBackRefIndex;
 
-                // if we have a replacement value like $123, and we have less than 123 capturing groups, then 
-                // we want to truncate the 3 and use capturing group 12; if we have less than 12 capturing groups,
-                // then we want to truncate the 2 and use capturing group 1; if we don't have a capturing group then
-                // we want to truncate the 1 and get 0.
-                while (backRefIndex > numCapturingGroups && backRefIndex >= 10) {
-                    backRefIndex /= 10;
-                }
+                    // if we have a replacement value like $123, and we have less than 123 capturing groups, then 
+                    // we want to truncate the 3 and use capturing group 12; if we have less than 12 capturing groups,
+                    // then we want to truncate the 2 and use capturing group 1; if we don't have a capturing group then
+                    // we want to truncate the 1 and get 0.
+                    while (backRefIndex > numCapturingGroups && backRefIndex >= 10) {
+                        backRefIndex /= 10;
+                    }
 
-                if (backRefIndex > numCapturingGroups) {
-                    final StringBuilder sb = new StringBuilder(replacement.length() + 1);
-                    final int groupStart = backRefMatcher.start(1);
+                    if (backRefIndex > numCapturingGroups) {
+                        final StringBuilder sb = new StringBuilder(replacement.length() + 1);
+                        final int groupStart = backRefMatcher.start(1);
 
-                    sb.append(replacement.substring(0, groupStart - 1));
-                    sb.append("\\");
-                    sb.append(replacement.substring(groupStart - 1));
-                    replacement = sb.toString();
+                        sb.append(replacement.substring(0, groupStart - 1));
+                        sb.append("\\");
+                        sb.append(replacement.substring(groupStart - 1));
+                        replacement = sb.toString();
+                    }
                 }
-            }
 
-            replacement = replacement.replaceAll("(\\$\\D)", "\\\\$1");
+                replacement = replacement.replaceAll("(\\$\\D)", "\\\\$1");
+
+                // always match; just overwrite value with the replacement value; this optimization prevents us
+                // from reading the file at all.
+                final String replacementValue = replacement;
+                if (skipBuffer) {
+                    final StopWatch stopWatch = new StopWatch(true);
+                    if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
+                        flowFile = session.write(flowFile, new OutputStreamCallback() {
+                            @Override
+                            public void process(final OutputStream out) throws IOException {
+                                out.write(replacementValue.getBytes(charset));
+                            }
+                        });
+                    } else {
+                        flowFile = session.write(flowFile, new StreamCallback() {
+                            @Override
+                            public void process(final InputStream in, final OutputStream out) throws IOException {
+                                try (NLKBufferedReader br = new NLKBufferedReader(new InputStreamReader(in, charset), maxBufferSize);
+                                        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, charset));) {
+                                    while (null != br.readLine()) {
+                                        bw.write(replacementValue);
+                                    }
+                                }
+                            }
+                        });
+                    }
+                    session.getProvenanceReporter().modifyContent(flowFile, stopWatch.getElapsed(TimeUnit.MILLISECONDS));
+                    session.transfer(flowFile, REL_SUCCESS);
+                    logger.info("Transferred {} to 'success'", new Object[]{flowFile});
+                    continue;
+                }
 
-            // always match; just overwrite value with the replacement value; this optimization prevents us
-            // from reading the file at all.
-            final String replacementValue = replacement;
-            if (skipBuffer) {
                 final StopWatch stopWatch = new StopWatch(true);
-                if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
-                    flowFile = session.write(flowFile, new OutputStreamCallback() {
-                        @Override
-                        public void process(final OutputStream out) throws IOException {
-                            out.write(replacementValue.getBytes(charset));
-                        }
-                    });
-                } else {
+                final String regex = context.getProperty(REGEX).evaluateAttributeExpressions(flowFile, quotedAttributeDecorator).getValue();
+                if (pattern == null || !regex.equals(pattern.pattern())) {
+                    pattern = Pattern.compile(regex);
+                }
+
+                final Pattern searchPattern = pattern;
+                final boolean lineByLine = evaluateMode.equalsIgnoreCase(LINE_BY_LINE);
+                try {
                     flowFile = session.write(flowFile, new StreamCallback() {
                         @Override
                         public void process(final InputStream in, final OutputStream out) throws IOException {
-                            try (NLKBufferedReader br = new NLKBufferedReader(new InputStreamReader(in, charset), maxBufferSize);
-                                    BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, charset));) {
-                                while (null != br.readLine()) {
-                                    bw.write(replacementValue);
-                                }
-                            }
+                            replacer.replace(in, out, searchPattern, replacementValue, lineByLine);
                         }
                     });
+                } catch (final ProcessException pe) {
+                    if (!(pe.getCause() instanceof StreamingRegexReplacer.BufferOverflowException)) {
+                        throw pe;
+                    }
+
+                    logger.error("Unable to replace text in {} because {}; routing to failure", new Object[]{flowFile, pe.getCause().getMessage()});
+                    session.transfer(flowFile, REL_FAILURE);
+                    continue;
                 }
+
+                logger.info("Transferred {} to 'success'", new Object[]{flowFile});
                 session.getProvenanceReporter().modifyContent(flowFile, stopWatch.getElapsed(TimeUnit.MILLISECONDS));
                 session.transfer(flowFile, REL_SUCCESS);
-                logger.info("Transferred {} to 'success'", new Object[]{flowFile});
-                continue;
             }
-
-            final StopWatch stopWatch = new StopWatch(true);
-            final String regex = context.getProperty(REGEX).evaluateAttributeExpressions(flowFile, quotedAttributeDecorator).getValue();
-
-            if (evaluateMode.equalsIgnoreCase(ENTIRE_TEXT)) {
-                final int flowFileSize = (int) flowFile.getSize();
-                flowFile = session.write(flowFile, new StreamCallback() {
-                    @Override
-                    public void process(final InputStream in, final OutputStream out) throws IOException {
-                        StreamUtils.fillBuffer(in, buffer, false);
-                        final String contentString = new String(buffer, 0, flowFileSize, charset);
-                        final String updatedValue = contentString.replaceAll(regex, replacementValue);
-                        out.write(updatedValue.getBytes(charset));
-                    }
-                });
-            } else {
-                flowFile = session.write(flowFile, new StreamCallback() {
-                    @Override
-                    public void process(final InputStream in, final OutputStream out) throws IOException {
-                        try (NLKBufferedReader br = new NLKBufferedReader(new InputStreamReader(in, charset), maxBufferSize);
-                                BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, charset));) {
-                            String oneLine;
-                            while (null != (oneLine = br.readLine())) {
-                                final String updatedValue = oneLine.replaceAll(regex, replacementValue);
-                                bw.write(updatedValue);
-                            }
-                        }
-                    }
-                });
+        } finally {
+            if (replacer != null) {
+                replacerPool.offer(replacer);
             }
+        }
+    }
 
-            logger.info("Transferred {} to 'success'", new Object[]{flowFile});
-            session.getProvenanceReporter().modifyContent(flowFile, stopWatch.getElapsed(TimeUnit.MILLISECONDS));
-            session.transfer(flowFile, REL_SUCCESS);
+    /**
+     * Obtains a StreamingRegexReplacer from the pool, creating one if none is
+     * available. Replacers are pooled so that their buffers, decoder and
+     * encoder can be reused across invocations rather than allocated for each.
+     */
+    private StreamingRegexReplacer borrowReplacer(final Charset charset, final int bufferSize) {
+        StreamingRegexReplacer replacer;
+        while ((replacer = replacerPool.poll()) != null) {
+            if (replacer.getCharset().equals(charset) && replacer.getWindowSize() == bufferSize) {
+                return replacer;
+            }
         }
+
+        return new StreamingRegexReplacer(charset, bufferSize);
+    }
+
+    @OnStopped
+    public void clearReplacerPool() {
+        replacerPool.clear();
     }
 }
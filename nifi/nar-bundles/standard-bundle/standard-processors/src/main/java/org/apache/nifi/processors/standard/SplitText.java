@@ -19,10 +19,8 @@ package org.apache.nifi.processors.standard;
 import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
-import org.apache.nifi.stream.io.BufferedInputStream;
 import org.apache.nifi.stream.io.BufferedOutputStream;
 import org.apache.nifi.stream.io.ByteArrayOutputStream;
-import org.apache.nifi.stream.io.ByteCountingInputStream;
 import org.apache.nifi.logging.ProcessorLog;
 import org.apache.nifi.processor.AbstractProcessor;
 import org.apache.nifi.processor.ProcessContext;
@@ -125,16 +123,16 @@ public class SplitText extends AbstractProcessor {
     /**
      * Reads up to the given maximum number of lines, copying them to out
      *
-     * @param in
+     * @param scanner
      * @param maxNumLines
      * @param out
      * @return the number of lines actually copied
      * @throws IOException
      */
-    private int readLines(final InputStream in, final int maxNumLines, final OutputStream out, final boolean keepAllNewLines) throws IOException {
+    private int readLines(final LineScanner scanner, final int maxNumLines, final OutputStream out, final boolean keepAllNewLines) throws IOException {
         int numLines = 0;
         for (int i = 0; i < maxNumLines; i++) {
-            final long bytes = countBytesToSplitPoint(in, out, keepAllNewLines || (i != maxNumLines - 1));
+            final long bytes = scanner.nextLine(out, keepAllNewLines || (i != maxNumLines - 1));
             if (bytes <= 0) {
                 return numLines;
             }
@@ -145,58 +143,11 @@ public class SplitText extends AbstractProcessor {
         return numLines;
     }
 
-    private long countBytesToSplitPoint(final InputStream in, final OutputStream out, final boolean includeLineDelimiter) throws IOException {
-        int lastByte = -1;
-        long bytesRead = 0L;
-
-        while (true) {
-            in.mark(1);
-            final int nextByte = in.read();
-
-            // if we hit end of stream or new line we're done
-            if (nextByte == -1) {
-                if (lastByte == '\r') {
-                    return includeLineDelimiter ? bytesRead : bytesRead - 1;
-                } else {
-                    return bytesRead;
-                }
-            }
-
-            // if there's an OutputStream to copy the data to, copy it, if appropriate.
-            // "if appropriate" means that it's not a line delimiter or that we want to copy line delimiters
-            bytesRead++;
-            if (out != null && (includeLineDelimiter || (nextByte != '\n' && nextByte != '\r'))) {
-                out.write(nextByte);
-            }
-
-            // if we have a new line, then we're done
-            if (nextByte == '\n') {
-                if (includeLineDelimiter) {
-                    return bytesRead;
-                } else {
-                    return (lastByte == '\r') ? bytesRead - 2 : bytesRead - 1;
-                }
-            }
-
-            // we didn't get a new line but if last byte was carriage return we've reached a new-line.
-            // so we roll back the last byte that we read and return
-            if (lastByte == '\r') {
-                in.reset();
-                bytesRead--;    // we reset the stream by 1 byte so decrement the number of bytes read by 1
-                return includeLineDelimiter ? bytesRead : bytesRead - 1;
-            }
-
-            // keep track of what the last byte was that we read so that we can detect \r followed by some other
-            // character.
-            lastByte = nextByte;
-        }
-    }
-
-    private SplitInfo countBytesToSplitPoint(final InputStream in, final int numLines, final boolean keepAllNewLines) throws IOException {
+    private SplitInfo countBytesToSplitPoint(final LineScanner scanner, final int numLines, final boolean keepAllNewLines) throws IOException {
         SplitInfo info = new SplitInfo();
 
         while (info.lengthLines < numLines) {
-            final long bytesTillNext = countBytesToSplitPoint(in, null, keepAllNewLines || (info.lengthLines != numLines - 1));
+            final long bytesTillNext = scanner.nextLine(null, keepAllNewLines || (info.lengthLines != numLines - 1));
             if (bytesTillNext <= 0L) {
                 break;
             }
@@ -228,64 +179,63 @@ public class SplitText extends AbstractProcessor {
         session.read(flowFile, new InputStreamCallback() {
             @Override
             public void process(final InputStream rawIn) throws IOException {
-                try (final BufferedInputStream bufferedIn = new BufferedInputStream(rawIn);
-                        final ByteCountingInputStream in = new ByteCountingInputStream(bufferedIn)) {
-
-                    // if we have header lines, copy them into a ByteArrayOutputStream
-                    final ByteArrayOutputStream headerStream = new ByteArrayOutputStream();
-                    final int headerLinesCopied = readLines(in, headerCount, headerStream, true);
-                    if (headerLinesCopied < headerCount) {
-                        errorMessage.set("Header Line Count is set to " + headerCount + " but file had only " + headerLinesCopied + " lines");
-                        return;
-                    }
+                final LineScanner in = new LineScanner(rawIn);
+
+                // if we have header lines, copy them into a ByteArrayOutputStream
+                final ByteArrayOutputStream headerStream = new ByteArrayOutputStream();
+                final int headerLinesCopied = readLines(in, headerCount, headerStream, true);
+                if (headerLinesCopied < headerCount) {
+                    errorMessage.set("Header Line Count is set to " + headerCount + " but file had only " + headerLinesCopied + " lines");
+                    return;
+                }
 
-                    while (true) {
-                        if (headerCount > 0) {
-                            // if we have header lines, create a new FlowFile, copy the header lines to that file,
-                            // and then start copying lines
-                            final IntegerHolder linesCopied = new IntegerHolder(0);
-                            FlowFile splitFile = session.create(flowFile);
-                            try {
-                                splitFile = session.write(splitFile, new OutputStreamCallback() {
-                                    @Override
-                                    public void process(final OutputStream rawOut) throws IOException {
-                                        try (final BufferedOutputStream out = new BufferedOutputStream(rawOut)) {
-                                            headerStream.writeTo(out);
-                                            linesCopied.set(readLines(in, splitCount, out, !removeTrailingNewlines));
-                                        }
+                while (true) {
+                    if (headerCount > 0) {
+                        // if we have header lines, create a new FlowFile, copy the header lines to that file,
+                        // and then start copying lines
+                        final IntegerHolder linesCopied = new IntegerHolder(0);
+                        FlowFile splitFile = session.create(flowFile);
+                        try {
+                            splitFile = session.write(splitFile, new OutputStreamCallback() {
+                                @Override
+                                public void process(final OutputStream rawOut) throws IOException {
+                                    try (final BufferedOutputStream out = new BufferedOutputStream(rawOut)) {
+                                        headerStream.writeTo(out);
+                                        linesCopied.set(readLines(in, splitCount, out, !removeTrailingNewlines));
                                     }
-                                });
-                                splitFile = session.putAttribute(splitFile, SPLIT_LINE_COUNT, String.valueOf(linesCopied.get()));
-                                logger.debug("Created Split File {} with {} lines", new Object[]{splitFile, linesCopied.get()});
-                            } finally {
-                                if (linesCopied.get() > 0) {
-                                    splits.add(splitFile);
-                                } else {
-                                    // if the number of content lines is a multiple of the SPLIT_LINE_COUNT, 
-                                    // the last flow file will contain just a header; don't forward that one
-                                    session.remove(splitFile);
                                 }
+                            });
+                            splitFile = session.putAttribute(splitFile, SPLIT_LINE_COUNT, String.valueOf(linesCopied.get()));
+                            logger.debug("Created Split File {} with {} lines", new Object[]{splitFile, linesCopied.get()});
+                        } finally {
+                            if (linesCopied.get() > 0) {
+                                splits.add(splitFile);
+                            } else {
+                                // if the number of content lines is a multiple of the SPLIT_LINE_COUNT, 
+                                // the last flow file will contain just a header; don't forward that one
+                                session.remove(splitFile);
                             }
+                        }
 
-                            // If we copied fewer lines than what we want, then we're done copying data (we've hit EOF).
-                            if (linesCopied.get() < splitCount) {
-                                break;
-                            }
+                        // If we copied fewer lines than what we want, then we're done copying data (we've hit EOF).
+                        if (linesCopied.get() < splitCount) {
+                            break;
+                        }
+                    } else {
+                        // We have no header lines, so we can simply demarcate the original File via the
+                        // ProcessSession#clone method. No content is copied; each split simply references
+                        // a range of the original content claim.
+                        long beforeReadingLines = in.getBytesConsumed();
+                        final SplitInfo info = countBytesToSplitPoint(in, splitCount, !removeTrailingNewlines);
+                        if (info.lengthBytes == 0) {
+                            // stream is out of data
+                            break;
                         } else {
-                            // We have no header lines, so we can simply demarcate the original File via the
-                            // ProcessSession#clone method.
-                            long beforeReadingLines = in.getBytesConsumed();
-                            final SplitInfo info = countBytesToSplitPoint(in, splitCount, !removeTrailingNewlines);
-                            if (info.lengthBytes == 0) {
-                                // stream is out of data
-                                break;
-                            } else {
-                                info.offsetBytes = beforeReadingLines;
-                                splitInfos.add(info);
-                                final long procNanos = System.nanoTime() - startNanos;
-                                final long procMillis = TimeUnit.MILLISECONDS.convert(procNanos, TimeUnit.NANOSECONDS);
-                                logger.debug("Detected start of Split File in {} at byte offset {} with a length of {} bytes; total splits = {}; total processing time = {} ms", new Object[]{flowFile, beforeReadingLines, info.lengthBytes, splitInfos.size(), procMillis});
-                            }
+                            info.offsetBytes = beforeReadingLines;
+                            splitInfos.add(info);
+                            final long procNanos = System.nanoTime() - startNanos;
+                            final long procMillis = TimeUnit.MILLISECONDS.convert(procNanos, TimeUnit.NANOSECONDS);
+                            logger.debug("Detected start of Split File in {} at byte offset {} with a length of {} bytes; total splits = {}; total processing time = {} ms", new Object[]{flowFile, beforeReadingLines, info.lengthBytes, splitInfos.size(), procMillis});
                         }
                     }
                 }
@@ -367,4 +317,122 @@ public class SplitText extends AbstractProcessor {
             this.lengthLines = lengthLines;
         }
     }
+
+    /**
+     * Scans an InputStream for line boundaries. Rather than reading a single
+     * byte at a time, data is pulled into a buffer and each line is located by
+     * searching that buffer for a line delimiter, so that any line content that
+     * needs to be copied is written in bulk rather than byte by byte.
+     */
+    private static class LineScanner {
+
+        private static final int BUFFER_SIZE = 65536;
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int index = 0;
+        private int limit = 0;
+        private long bytesConsumed = 0L;
+
+        public LineScanner(final InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * @return the number of bytes of the underlying stream that have been
+         * consumed, including any line delimiters that were not copied or
+         * counted
+         */
+        public long getBytesConsumed() {
+            return bytesConsumed;
+        }
+
+        /**
+         * Consumes the next line from the stream, copying it to the given
+         * OutputStream, if not null
+         *
+         * @param out
+         * @param includeLineDelimiter whether or not the line delimiter should
+         * be copied to <code>out</code> and included in the returned count
+         * @return the number of bytes in the line, or 0 if the end of the stream
+         * has been reached
+         * @throws IOException
+         */
+        public long nextLine(final OutputStream out, final boolean includeLineDelimiter) throws IOException {
+            long contentLength = 0L;
+
+            while (true) {
+                if (index >= limit && !fill()) {
+                    return contentLength;
+                }
+
+                int i = index;
+                while (i < limit) {
+                    final byte b = buffer[i];
+                    if (b == '\n' || b == '\r') {
+                        break;
+                    }
+                    i++;
+                }
+
+                final int length = i - index;
+                if (out != null && length > 0) {
+                    out.write(buffer, index, length);
+                }
+                contentLength += length;
+                consume(length);
+
+                if (i < limit) {
+                    // we found a line delimiter
+                    final int delimiterLength = consumeDelimiter(out, includeLineDelimiter);
+                    return includeLineDelimiter ? contentLength + delimiterLength : contentLength;
+                }
+            }
+        }
+
+        /**
+         * Consumes the delimiter at the current position, which is either \n,
+         * \r, or \r\n
+         *
+         * @return the number of bytes in the delimiter
+         */
+        private int consumeDelimiter(final OutputStream out, final boolean copy) throws IOException {
+            final byte first = buffer[index];
+            consume(1);
+            if (out != null && copy) {
+                out.write(first);
+            }
+
+            if (first == '\r' && (index < limit || fill()) && buffer[index] == '\n') {
+                consume(1);
+                if (out != null && copy) {
+                    out.write('\n');
+                }
+                return 2;
+            }
+
+            return 1;
+        }
+
+        private void consume(final int numBytes) {
+            index += numBytes;
+            bytesConsumed += numBytes;
+        }
+
+        private boolean fill() throws IOException {
+            int read;
+            do {
+                read = in.read(buffer);
+            } while (read == 0);
+
+            if (read < 0) {
+                index = limit = 0;
+                return false;
+            }
+
+            index = 0;
+            limit = read;
+            return true;
+        }
+    }
 }
@@ -16,16 +16,23 @@
  */
 package org.apache.nifi.processors.standard.servlets;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -34,9 +41,12 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -46,6 +56,7 @@ import javax.ws.rs.core.MediaType;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.stream.io.BufferedOutputStream;
+import org.apache.nifi.stream.io.ByteArrayOutputStream;
 import org.apache.nifi.stream.io.StreamThrottler;
 import org.apache.nifi.logging.ProcessorLog;
 import org.apache.nifi.processor.ProcessContext;
@@ -83,8 +94,14 @@ public class ListenHTTPServlet extends HttpServlet {
     public static final String PROTOCOL_VERSION_HEADER = "x-nifi-transfer-protocol-version";
     public static final String PROTOCOL_VERSION = "3";
 
+    // requests up to this size that do not ask for a hold are read asynchronously and committed in batches
+    public static final int MAX_BUFFERED_CONTENT_LENGTH = 65536;
+    public static final int MAX_REQUESTS_PER_COMMIT = 1000;
+
     private final AtomicLong filesReceived = new AtomicLong(0L);
     private final AtomicBoolean spaceAvailable = new AtomicBoolean(true);
+    private final Queue<PendingRequest> pendingRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean committing = new AtomicBoolean(false);
 
     private ProcessorLog logger;
     private AtomicReference<ProcessSessionFactory> sessionFactoryHolder;
@@ -134,9 +151,6 @@ public class ListenHTTPServlet extends HttpServlet {
             }
         } while (sessionFactory == null);
 
-        final ProcessSession session = sessionFactory.createSession();
-        FlowFile flowFile = null;
-        String holdUuid = null;
         String foundSubject = null;
         try {
             final long n = filesReceived.getAndIncrement() % FILES_BEFORE_CHECKING_DESTINATION_SPACE;
@@ -154,8 +168,6 @@ public class ListenHTTPServlet extends HttpServlet {
             }
             response.setHeader("Content-Type", MediaType.TEXT_PLAIN);
 
-            final boolean contentGzipped = Boolean.parseBoolean(request.getHeader(GZIPPED_HEADER));
-
             final X509Certificate[] certs = (X509Certificate[]) request.getAttribute("javax.servlet.request.X509Certificate");
             foundSubject = DEFAULT_FOUND_SUBJECT;
             if (certs != null && certs.length > 0) {
@@ -170,116 +182,33 @@ public class ListenHTTPServlet extends HttpServlet {
                     }
                 }
             }
+        } catch (final Throwable t) {
+            logger.error("Unable to receive file from Remote Host: [{}] SubjectDN [{}] due to {}", new Object[]{request.getRemoteHost(), foundSubject, t});
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t.toString());
+            return;
+        }
 
-            final String destinationVersion = request.getHeader(PROTOCOL_VERSION_HEADER);
-            Integer protocolVersion = null;
-            if (destinationVersion != null) {
-                try {
-                    protocolVersion = Integer.valueOf(destinationVersion);
-                } catch (final NumberFormatException e) {
-                    // Value was invalid. Treat as if the header were missing.
-                }
-            }
-
-            final boolean destinationIsLegacyNiFi = (protocolVersion == null);
-            final boolean createHold = Boolean.parseBoolean(request.getHeader(FLOWFILE_CONFIRMATION_HEADER));
-            final String contentType = request.getContentType();
+        final boolean createHold = Boolean.parseBoolean(request.getHeader(FLOWFILE_CONFIRMATION_HEADER));
+        final long contentLength = request.getContentLengthLong();
+        if (!createHold && streamThrottler == null && contentLength >= 0 && contentLength <= MAX_BUFFERED_CONTENT_LENGTH && request.isAsyncSupported()) {
+            receiveAsynchronously(request, foundSubject, sessionFactory);
+            return;
+        }
 
+        final ProcessSession session = sessionFactory.createSession();
+        try {
+            final boolean contentGzipped = Boolean.parseBoolean(request.getHeader(GZIPPED_HEADER));
             final InputStream unthrottled = contentGzipped ? new GZIPInputStream(request.getInputStream()) : request.getInputStream();
-
             final InputStream in = (streamThrottler == null) ? unthrottled : streamThrottler.newThrottledInputStream(unthrottled);
 
             if (logger.isDebugEnabled()) {
-                logger.debug("Received request from " + request.getRemoteHost() + ", createHold=" + createHold + ", content-type=" + contentType + ", gzip=" + contentGzipped);
-            }
-
-            final AtomicBoolean hasMoreData = new AtomicBoolean(false);
-            final FlowFileUnpackager unpackager;
-            if (APPLICATION_FLOW_FILE_V3.equals(contentType)) {
-                unpackager = new FlowFileUnpackagerV3();
-            } else if (APPLICATION_FLOW_FILE_V2.equals(contentType)) {
-                unpackager = new FlowFileUnpackagerV2();
-            } else if (APPLICATION_FLOW_FILE_V1.equals(contentType)) {
-                unpackager = new FlowFileUnpackagerV1();
-            } else {
-                unpackager = null;
+                logger.debug("Received request from " + request.getRemoteHost() + ", createHold=" + createHold + ", content-type=" + request.getContentType() + ", gzip=" + contentGzipped);
             }
 
-            final Set<FlowFile> flowFileSet = new HashSet<>();
-
-            do {
-                final long startNanos = System.nanoTime();
-                final Map<String, String> attributes = new HashMap<>();
-                flowFile = session.create();
-                flowFile = session.write(flowFile, new OutputStreamCallback() {
-                    @Override
-                    public void process(final OutputStream rawOut) throws IOException {
-                        try (final BufferedOutputStream bos = new BufferedOutputStream(rawOut, 65536)) {
-                            if (unpackager == null) {
-                                IOUtils.copy(in, bos);
-                                hasMoreData.set(false);
-                            } else {
-                                attributes.putAll(unpackager.unpackageFlowFile(in, bos));
-
-                                if (destinationIsLegacyNiFi) {
-                                    if (attributes.containsKey("nf.file.name")) {
-                                        // for backward compatibility with old nifi...
-                                        attributes.put(CoreAttributes.FILENAME.key(), attributes.remove("nf.file.name"));
-                                    }
-
-                                    if (attributes.containsKey("nf.file.path")) {
-                                        attributes.put(CoreAttributes.PATH.key(), attributes.remove("nf.file.path"));
-                                    }
-                                }
-
-                                // remove deprecated FlowFile attribute that was used in older versions of NiFi
-                                attributes.remove("parent.uuid");
-
-                                hasMoreData.set(unpackager.hasMoreData());
-                            }
-                        }
-                    }
-                });
-
-                final long transferNanos = System.nanoTime() - startNanos;
-                final long transferMillis = TimeUnit.MILLISECONDS.convert(transferNanos, TimeUnit.NANOSECONDS);
-
-                // put metadata on flowfile
-                final String nameVal = request.getHeader(CoreAttributes.FILENAME.key());
-                if (StringUtils.isNotBlank(nameVal)) {
-                    attributes.put(CoreAttributes.FILENAME.key(), nameVal);
-                }
-                
-                // put arbitrary headers on flow file
-                for(Enumeration<String> headerEnum = request.getHeaderNames(); 
-                		headerEnum.hasMoreElements(); ) {
-                	String headerName = headerEnum.nextElement();
-                	if (headerPattern != null && headerPattern.matcher(headerName).matches()) {
-	                	String headerValue = request.getHeader(headerName);
-	                	attributes.put(headerName, headerValue);
-	                }
-                }
-
-                String sourceSystemFlowFileIdentifier = attributes.get(CoreAttributes.UUID.key());
-                if (sourceSystemFlowFileIdentifier != null) {
-                    sourceSystemFlowFileIdentifier = "urn:nifi:" + sourceSystemFlowFileIdentifier;
-
-                    // If we receveied a UUID, we want to give the FlowFile a new UUID and register the sending system's
-                    // identifier as the SourceSystemFlowFileIdentifier field in the Provenance RECEIVE event
-                    attributes.put(CoreAttributes.UUID.key(), UUID.randomUUID().toString());
-                }
-
-                flowFile = session.putAllAttributes(flowFile, attributes);
-                session.getProvenanceReporter().receive(flowFile, request.getRequestURL().toString(), sourceSystemFlowFileIdentifier, "Remote DN=" + foundSubject, transferMillis);
-                flowFile = session.putAttribute(flowFile, "restlistener.remote.user.dn", foundSubject);
-                flowFileSet.add(flowFile);
-
-                if (holdUuid == null) {
-                    holdUuid = flowFile.getAttribute(CoreAttributes.UUID.key());
-                }
-            } while (hasMoreData.get());
+            final Set<FlowFile> flowFileSet = receiveFlowFiles(session, request, in, foundSubject, 0L);
 
             if (createHold) {
+                final String holdUuid = flowFileSet.iterator().next().getAttribute(CoreAttributes.UUID.key());
                 String uuid = (holdUuid == null) ? UUID.randomUUID().toString() : holdUuid;
 
                 if (flowFileMap.containsKey(uuid)) {
@@ -307,19 +236,275 @@ public class ListenHTTPServlet extends HttpServlet {
             } else {
                 response.setStatus(HttpServletResponse.SC_OK);
                 logger.info("Received from Remote Host: [{}] Port [{}] SubjectDN [{}]; transferring to 'success' {}",
-                        new Object[]{request.getRemoteHost(), request.getRemotePort(), foundSubject, flowFile});
+                        new Object[]{request.getRemoteHost(), request.getRemotePort(), foundSubject, flowFileSet});
 
                 session.transfer(flowFileSet, ListenHTTP.RELATIONSHIP_SUCCESS);
                 session.commit();
             }
         } catch (final Throwable t) {
             session.rollback();
-            if (flowFile == null) {
+            logger.error("Unable to receive file from Remote Host: [{}] SubjectDN [{}] due to {}", new Object[]{request.getRemoteHost(), foundSubject, t});
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t.toString());
+        }
+    }
+
+    /**
+     * Reads the content of the given request without blocking the calling
+     * thread. Once the content has been read, the request is committed along
+     * with any other requests that have been read in the meantime.
+     *
+     * @param request the request
+     * @param foundSubject the DN of the remote host
+     * @param sessionFactory the factory of the sessions to commit the request
+     * with
+     * @throws IOException if the content of the request cannot be read
+     */
+    private void receiveAsynchronously(final HttpServletRequest request, final String foundSubject, final ProcessSessionFactory sessionFactory) throws IOException {
+        final AsyncContext asyncContext = request.startAsync();
+        // rely on the idle timeout of the connection rather than bounding the time a request waits to be committed
+        asyncContext.setTimeout(0L);
+
+        final PendingRequest pendingRequest = new PendingRequest(asyncContext, foundSubject, (int) request.getContentLengthLong());
+        final ServletInputStream in = request.getInputStream();
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                final byte[] buffer = new byte[8192];
+                while (in.isReady() && !in.isFinished()) {
+                    final int len = in.read(buffer);
+                    if (len < 0) {
+                        return;
+                    }
+                    pendingRequest.content.write(buffer, 0, len);
+                }
+            }
+
+            @Override
+            public void onAllDataRead() throws IOException {
+                pendingRequest.transferNanos = System.nanoTime() - pendingRequest.startNanos;
+                pendingRequests.add(pendingRequest);
+                commitPendingRequests(sessionFactory);
+            }
+
+            @Override
+            public void onError(final Throwable t) {
                 logger.error("Unable to receive file from Remote Host: [{}] SubjectDN [{}] due to {}", new Object[]{request.getRemoteHost(), foundSubject, t});
+                pendingRequest.complete(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t.toString());
+            }
+        });
+    }
+
+    /**
+     * Commits the requests whose content has been read. Only one thread commits
+     * at a time; requests that are read while it does so are committed by it
+     * in the next batch, rather than waiting for the lock.
+     *
+     * @param sessionFactory the factory of the sessions to commit the requests
+     * with
+     */
+    private void commitPendingRequests(final ProcessSessionFactory sessionFactory) {
+        while (!pendingRequests.isEmpty() && committing.compareAndSet(false, true)) {
+            try {
+                final List<PendingRequest> batch = new ArrayList<>();
+                PendingRequest pendingRequest;
+                while (batch.size() < MAX_REQUESTS_PER_COMMIT && (pendingRequest = pendingRequests.poll()) != null) {
+                    batch.add(pendingRequest);
+                }
+
+                commit(batch, sessionFactory);
+            } finally {
+                committing.set(false);
+            }
+        }
+    }
+
+    private void commit(final List<PendingRequest> batch, final ProcessSessionFactory sessionFactory) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final ProcessSession session = sessionFactory.createSession();
+        try {
+            final Set<FlowFile> flowFileSet = new HashSet<>();
+            for (final PendingRequest pendingRequest : batch) {
+                final HttpServletRequest request = (HttpServletRequest) pendingRequest.asyncContext.getRequest();
+                final boolean contentGzipped = Boolean.parseBoolean(request.getHeader(GZIPPED_HEADER));
+                final InputStream buffered = new ByteArrayInputStream(pendingRequest.content.getUnderlyingBuffer(), 0, pendingRequest.content.size());
+                final InputStream in = contentGzipped ? new GZIPInputStream(buffered) : buffered;
+
+                final Set<FlowFile> received = receiveFlowFiles(session, request, in, pendingRequest.foundSubject, pendingRequest.transferNanos);
+                flowFileSet.addAll(received);
+                logger.info("Received from Remote Host: [{}] Port [{}] SubjectDN [{}]; transferring to 'success' {}",
+                        new Object[]{request.getRemoteHost(), request.getRemotePort(), pendingRequest.foundSubject, received});
+            }
+
+            session.transfer(flowFileSet, ListenHTTP.RELATIONSHIP_SUCCESS);
+            session.commit();
+        } catch (final Throwable t) {
+            session.rollback();
+
+            if (batch.size() > 1) {
+                // commit the requests individually so that a single bad request does not fail the others
+                for (final PendingRequest pendingRequest : batch) {
+                    commit(Collections.singletonList(pendingRequest), sessionFactory);
+                }
             } else {
-                logger.error("Unable to receive file {} from Remote Host: [{}] SubjectDN [{}] due to {}", new Object[]{flowFile, request.getRemoteHost(), foundSubject, t});
+                final PendingRequest pendingRequest = batch.get(0);
+                logger.error("Unable to receive file from Remote Host: [{}] SubjectDN [{}] due to {}",
+                        new Object[]{pendingRequest.asyncContext.getRequest().getRemoteHost(), pendingRequest.foundSubject, t});
+                pendingRequest.complete(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t.toString());
+            }
+            return;
+        }
+
+        for (final PendingRequest pendingRequest : batch) {
+            pendingRequest.complete(HttpServletResponse.SC_OK, null);
+        }
+    }
+
+    /**
+     * Creates the FlowFiles of the given content, unpackaging it if the request
+     * contains FlowFiles.
+     *
+     * @param session the session to create the FlowFiles with
+     * @param request the request
+     * @param in the content of the request
+     * @param foundSubject the DN of the remote host
+     * @param readNanos the time taken to read the content before it is written
+     * to the FlowFiles
+     * @return the FlowFiles, in the order they were received
+     */
+    private Set<FlowFile> receiveFlowFiles(final ProcessSession session, final HttpServletRequest request, final InputStream in,
+            final String foundSubject, final long readNanos) {
+
+        final String destinationVersion = request.getHeader(PROTOCOL_VERSION_HEADER);
+        Integer protocolVersion = null;
+        if (destinationVersion != null) {
+            try {
+                protocolVersion = Integer.valueOf(destinationVersion);
+            } catch (final NumberFormatException e) {
+                // Value was invalid. Treat as if the header were missing.
+            }
+        }
+
+        final boolean destinationIsLegacyNiFi = (protocolVersion == null);
+        final String contentType = request.getContentType();
+
+        final AtomicBoolean hasMoreData = new AtomicBoolean(false);
+        final FlowFileUnpackager unpackager;
+        if (APPLICATION_FLOW_FILE_V3.equals(contentType)) {
+            unpackager = new FlowFileUnpackagerV3();
+        } else if (APPLICATION_FLOW_FILE_V2.equals(contentType)) {
+            unpackager = new FlowFileUnpackagerV2();
+        } else if (APPLICATION_FLOW_FILE_V1.equals(contentType)) {
+            unpackager = new FlowFileUnpackagerV1();
+        } else {
+            unpackager = null;
+        }
+
+        final Set<FlowFile> flowFileSet = new LinkedHashSet<>();
+
+        do {
+            final long startNanos = System.nanoTime();
+            final Map<String, String> attributes = new HashMap<>();
+            FlowFile flowFile = session.create();
+            flowFile = session.write(flowFile, new OutputStreamCallback() {
+                @Override
+                public void process(final OutputStream rawOut) throws IOException {
+                    try (final BufferedOutputStream bos = new BufferedOutputStream(rawOut, 65536)) {
+                        if (unpackager == null) {
+                            IOUtils.copy(in, bos);
+                            hasMoreData.set(false);
+                        } else {
+                            attributes.putAll(unpackager.unpackageFlowFile(in, bos));
+
+                            if (destinationIsLegacyNiFi) {
+                                if (attributes.containsKey("nf.file.name")) {
+                                    // for backward compatibility with old nifi...
+                                    attributes.put(CoreAttributes.FILENAME.key(), attributes.remove("nf.file.name"));
+                                }
+
+                                if (attributes.containsKey("nf.file.path")) {
+                                    attributes.put(CoreAttributes.PATH.key(), attributes.remove("nf.file.path"));
+                                }
+                            }
+
+                            // remove deprecated FlowFile attribute that was used in older versions of NiFi
+                            attributes.remove("parent.uuid");
+
+                            hasMoreData.set(unpackager.hasMoreData());
+                        }
+                    }
+                }
+            });
+
+            final long transferNanos = readNanos + System.nanoTime() - startNanos;
+            final long transferMillis = TimeUnit.MILLISECONDS.convert(transferNanos, TimeUnit.NANOSECONDS);
+
+            // put metadata on flowfile
+            final String nameVal = request.getHeader(CoreAttributes.FILENAME.key());
+            if (StringUtils.isNotBlank(nameVal)) {
+                attributes.put(CoreAttributes.FILENAME.key(), nameVal);
+            }
+            
+            // put arbitrary headers on flow file
+            for(Enumeration<String> headerEnum = request.getHeaderNames(); 
+            		headerEnum.hasMoreElements(); ) {
+            	String headerName = headerEnum.nextElement();
+            	if (headerPattern != null && headerPattern.matcher(headerName).matches()) {
+	            	String headerValue = request.getHeader(headerName);
+	            	attributes.put(headerName, headerValue);
+	            }
+            }
+
+            String sourceSystemFlowFileIdentifier = attributes.get(CoreAttributes.UUID.key());
+            if (sourceSystemFlowFileIdentifier != null) {
+                sourceSystemFlowFileIdentifier = "urn:nifi:" + sourceSystemFlowFileIdentifier;
+
+                // If we receveied a UUID, we want to give the FlowFile a new UUID and register the sending system's
+                // identifier as the SourceSystemFlowFileIdentifier field in the Provenance RECEIVE event
+                attributes.put(CoreAttributes.UUID.key(), UUID.randomUUID().toString());
+            }
+
+            flowFile = session.putAllAttributes(flowFile, attributes);
+            session.getProvenanceReporter().receive(flowFile, request.getRequestURL().toString(), sourceSystemFlowFileIdentifier, "Remote DN=" + foundSubject, transferMillis);
+            flowFile = session.putAttribute(flowFile, "restlistener.remote.user.dn", foundSubject);
+            flowFileSet.add(flowFile);
+        } while (hasMoreData.get());
+
+        return flowFileSet;
+    }
+
+    /**
+     * A request whose content is being read, or is waiting to be committed.
+     */
+    private static class PendingRequest {
+
+        private final AsyncContext asyncContext;
+        private final String foundSubject;
+        private final ByteArrayOutputStream content;
+        private final long startNanos = System.nanoTime();
+        private volatile long transferNanos;
+
+        private PendingRequest(final AsyncContext asyncContext, final String foundSubject, final int contentLength) {
+            this.asyncContext = asyncContext;
+            this.foundSubject = foundSubject;
+            this.content = new ByteArrayOutputStream(Math.max(contentLength, 1));
+        }
+
+        private void complete(final int status, final String message) {
+            final HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            try {
+                if (message == null) {
+                    response.setStatus(status);
+                } else {
+                    response.sendError(status, message);
+                }
+            } catch (final IOException ioe) {
+                // the client is no longer waiting for the response
+            } finally {
+                asyncContext.complete();
             }
-            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t.toString());
         }
     }
 }
@@ -0,0 +1,610 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * Applies a Regular Expression replacement to a stream of text without
+ * buffering the entire stream. Text is decoded into a fixed-size window of
+ * characters, and the window slides over the content as matches are resolved
+ * and written out. When the window is full and no match has been found, all
+ * but the last half of the window is written out, so a match should be no
+ * longer than half of the window in order to be found. If a match that has
+ * been found cannot be resolved within the window, a
+ * {@link BufferOverflowException} is thrown.
+ * </p>
+ *
+ * <p>
+ * When operating in line-by-line mode, the Regular Expression is evaluated
+ * against each line independently, exactly as if each line (including its
+ * line terminator) were a separate input. Lines are terminated by '\n', '\r',
+ * or '\r\n'. Any line longer than the window causes a
+ * {@link BufferOverflowException}.
+ * </p>
+ *
+ * <p>
+ * The results are the same as those of {@link Matcher#replaceAll(String)}
+ * for any content whose matches are no longer than half of the window. The
+ * replacement value supports the same syntax as
+ * {@link Matcher#appendReplacement}.
+ * </p>
+ *
+ * <p>
+ * All of the buffers, as well as the CharsetDecoder and CharsetEncoder, are
+ * allocated when the replacer is created and are reused for every stream that
+ * is processed, so that a single instance can be used for any number of
+ * FlowFiles without generating garbage proportional to the size of the
+ * content. This class is not thread-safe.
+ * </p>
+ */
+public class StreamingRegexReplacer {
+
+    private static final int BYTE_BUFFER_SIZE = 8192;
+    private static final int MAX_CONTEXT_SIZE = 1024;
+    private static final String MATCH_OVERFLOW_MESSAGE = "Unable to resolve a match of the Regular Expression within";
+    private static final String LINE_OVERFLOW_MESSAGE = "Encountered a line longer than";
+
+    private final Charset charset;
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+
+    private final byte[] inBytes = new byte[BYTE_BUFFER_SIZE];
+    private final ByteBuffer inBuffer = ByteBuffer.wrap(inBytes);
+    private final byte[] outBytes = new byte[BYTE_BUFFER_SIZE];
+    private final ByteBuffer outBuffer = ByteBuffer.wrap(outBytes);
+    private final char[] outChars = new char[BYTE_BUFFER_SIZE];
+    private final CharBuffer outCharBuffer = CharBuffer.wrap(outChars);
+
+    private final char[] window;
+    private final CharBuffer windowBuffer;
+    private final CharSequence windowSequence;
+    private final int contextSize;
+    private final int lookaheadSize;
+
+    // state for the stream currently being processed
+    private InputStream in;
+    private OutputStream out;
+    private int length;         // number of chars in the window
+    private int position;       // index of the first char in the window that has not yet been written out
+    private int searchFrom;     // index in the window at which the next search should begin
+    private boolean inputExhausted;
+    private boolean endOfText;
+
+    /**
+     * Creates a replacer whose window holds the given number of characters
+     *
+     * @param charset
+     * @param windowSize
+     */
+    public StreamingRegexReplacer(final Charset charset, final int windowSize) {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+
+        this.charset = charset;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        this.window = new char[windowSize];
+        this.windowBuffer = CharBuffer.wrap(window);
+        this.windowSequence = new WindowSequence();
+        this.contextSize = Math.max(1, Math.min(MAX_CONTEXT_SIZE, windowSize / 4));
+        this.lookaheadSize = windowSize / 2;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public int getWindowSize() {
+        return window.length;
+    }
+
+    /**
+     * Reads all text from the given InputStream, replacing each match of the
+     * given Pattern with the given replacement value and writing the result
+     * to the given OutputStream
+     *
+     * @param in the stream to read from
+     * @param out the stream to write the result to
+     * @param pattern the pattern to match
+     * @param replacement the replacement value
+     * @param lineByLine whether the pattern should be applied to each line
+     * independently
+     * @throws IOException if unable to read from or write to the streams
+     * @throws BufferOverflowException if a match or a line cannot be contained
+     * within the window
+     * @throws IllegalArgumentException if the replacement value references a
+     * group that does not exist or is otherwise invalid
+     */
+    public void replace(final InputStream in, final OutputStream out, final Pattern pattern, final String replacement, final boolean lineByLine) throws IOException {
+        final Object[] replacementParts = compileReplacement(pattern, replacement);
+
+        reset(in, out);
+        try {
+            fill();
+            final Matcher matcher = pattern.matcher(windowSequence);
+            if (lineByLine) {
+                replaceLines(matcher, replacementParts);
+            } else {
+                replaceText(matcher, replacementParts);
+            }
+
+            finish();
+        } finally {
+            this.in = null;
+            this.out = null;
+        }
+    }
+
+    private void reset(final InputStream in, final OutputStream out) {
+        this.in = in;
+        this.out = out;
+        this.length = 0;
+        this.position = 0;
+        this.searchFrom = 0;
+        this.inputExhausted = false;
+        this.endOfText = false;
+
+        decoder.reset();
+        encoder.reset();
+        inBuffer.clear();
+        inBuffer.flip();
+        outBuffer.clear();
+        outCharBuffer.clear();
+    }
+
+    private void replaceText(final Matcher matcher, final Object[] replacementParts) throws IOException {
+        matcher.useTransparentBounds(true);
+        matcher.useAnchoringBounds(false);
+
+        while (true) {
+            matcher.reset(windowSequence);
+            if (searchFrom > length) {
+                // the previous match was empty and at the very end of the window.
+                if (endOfText) {
+                    writeWindow(length);
+                    return;
+                }
+                slide(contextSize, MATCH_OVERFLOW_MESSAGE);
+                continue;
+            }
+            matcher.region(searchFrom, length);
+
+            boolean refill = false;
+            while (!refill) {
+                if (!matcher.find()) {
+                    if (endOfText || !matcher.hitEnd()) {
+                        // no more matches can begin within the window, even if more text is read
+                        writeWindow(length);
+                        searchFrom = length;
+                        if (endOfText) {
+                            return;
+                        }
+                    } else if (length == window.length) {
+                        // a match could still begin near the end of the window; keep only the lookahead
+                        writeWindow(length - lookaheadSize);
+                        searchFrom = Math.max(searchFrom, position);
+                    }
+
+                    refill = true;
+                    continue;
+                }
+
+                final int start = matcher.start();
+                final int end = matcher.end();
+                if (!endOfText && matcher.hitEnd()) {
+                    // more text could change this match, so we cannot resolve it yet
+                    if (length == window.length) {
+                        writeWindow(Math.min(start, length - lookaheadSize));
+                        searchFrom = Math.max(start, position);
+                    }
+
+                    refill = true;
+                    continue;
+                }
+
+                writeWindow(start);
+                appendReplacement(matcher, replacementParts);
+                position = end;
+                searchFrom = (start == end) ? end + 1 : end;
+            }
+
+            slide(contextSize, MATCH_OVERFLOW_MESSAGE);
+        }
+    }
+
+    private void replaceLines(final Matcher matcher, final Object[] replacementParts) throws IOException {
+        matcher.useTransparentBounds(false);
+        matcher.useAnchoringBounds(true);
+
+        while (true) {
+            final int lineEnd = findLineEnd();
+            if (lineEnd < 0) {
+                if (endOfText) {
+                    if (position < length) {
+                        // final line has no line terminator
+                        replaceLine(matcher, replacementParts, length);
+                    }
+                    return;
+                }
+
+                slide(0, LINE_OVERFLOW_MESSAGE);
+                continue;
+            }
+
+            replaceLine(matcher, replacementParts, lineEnd);
+        }
+    }
+
+    private void replaceLine(final Matcher matcher, final Object[] replacementParts, final int lineEnd) throws IOException {
+        matcher.reset(windowSequence);
+        matcher.region(position, lineEnd);
+        while (matcher.find()) {
+            writeWindow(matcher.start());
+            appendReplacement(matcher, replacementParts);
+            position = matcher.end();
+        }
+
+        writeWindow(lineEnd);
+    }
+
+    /**
+     * @return the index just past the line terminator of the line that starts
+     * at the current position, or -1 if the window does not contain the entire
+     * line
+     */
+    private int findLineEnd() {
+        for (int i = position; i < length; i++) {
+            final char c = window[i];
+            if (c == '\n') {
+                return i + 1;
+            }
+            if (c == '\r') {
+                if (i + 1 < length) {
+                    return window[i + 1] == '\n' ? i + 2 : i + 1;
+                }
+
+                // we cannot yet know whether the \r is followed by \n
+                return endOfText ? i + 1 : -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Discards text from the start of the window that has already been written
+     * out, retaining the given amount of context so that look-behind and
+     * boundary constructs continue to evaluate correctly, and then reads more
+     * text into the window
+     *
+     * @throws BufferOverflowException if the window is full and none of it can
+     * be discarded
+     */
+    private void slide(final int context, final String overflowMessage) throws IOException {
+        final int discard = Math.max(0, position - context);
+        if (discard == 0 && length == window.length) {
+            throw new BufferOverflowException(overflowMessage + " " + window.length + " characters");
+        }
+
+        if (discard > 0) {
+            System.arraycopy(window, discard, window, 0, length - discard);
+            length -= discard;
+            position -= discard;
+            searchFrom -= discard;
+        }
+
+        fill();
+    }
+
+    /**
+     * Decodes as much text as will fit into the window
+     */
+    private void fill() throws IOException {
+        windowBuffer.limit(window.length);
+        windowBuffer.position(length);
+
+        while (windowBuffer.hasRemaining() && !endOfText) {
+            final CoderResult result = decoder.decode(inBuffer, windowBuffer, inputExhausted);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+
+            if (inputExhausted) {
+                if (decoder.flush(windowBuffer).isOverflow()) {
+                    break;
+                }
+                endOfText = true;
+                break;
+            }
+
+            inBuffer.compact();
+            final int bytesRead = in.read(inBytes, inBuffer.position(), inBuffer.remaining());
+            if (bytesRead < 0) {
+                inputExhausted = true;
+            } else {
+                inBuffer.position(inBuffer.position() + bytesRead);
+            }
+            inBuffer.flip();
+        }
+
+        length = windowBuffer.position();
+    }
+
+    /**
+     * Writes out the text in the window from the current position up to the
+     * given index and advances the position to that index
+     */
+    private void writeWindow(final int toIndex) throws IOException {
+        if (toIndex > position) {
+            write(window, position, toIndex - position);
+            position = toIndex;
+        }
+    }
+
+    private void write(final char[] chars, final int offset, final int count) throws IOException {
+        int index = offset;
+        int remaining = count;
+        while (remaining > 0) {
+            final int toCopy = Math.min(remaining, outCharBuffer.remaining());
+            outCharBuffer.put(chars, index, toCopy);
+            index += toCopy;
+            remaining -= toCopy;
+
+            if (!outCharBuffer.hasRemaining()) {
+                encode(false);
+            }
+        }
+    }
+
+    private void write(final String value) throws IOException {
+        int index = 0;
+        while (index < value.length()) {
+            final int toCopy = Math.min(value.length() - index, outCharBuffer.remaining());
+            final int bufferPosition = outCharBuffer.position();
+            value.getChars(index, index + toCopy, outChars, bufferPosition);
+            outCharBuffer.position(bufferPosition + toCopy);
+            index += toCopy;
+
+            if (!outCharBuffer.hasRemaining()) {
+                encode(false);
+            }
+        }
+    }
+
+    private void encode(final boolean endOfInput) throws IOException {
+        outCharBuffer.flip();
+        while (true) {
+            final CoderResult result = encoder.encode(outCharBuffer, outBuffer, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+                continue;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            break;
+        }
+        outCharBuffer.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        out.write(outBytes, 0, outBuffer.position());
+        outBuffer.clear();
+    }
+
+    private void finish() throws IOException {
+        writeWindow(length);
+        encode(true);
+        while (encoder.flush(outBuffer).isOverflow()) {
+            writeBytes();
+        }
+        writeBytes();
+    }
+
+    private void appendReplacement(final Matcher matcher, final Object[] replacementParts) throws IOException {
+        for (final Object part : replacementParts) {
+            if (part instanceof String) {
+                write((String) part);
+                continue;
+            }
+
+            if (part instanceof Integer) {
+                final int group = (Integer) part;
+                final int groupStart = matcher.start(group);
+                final int groupEnd = matcher.end(group);
+                if (groupStart >= 0 && groupEnd >= 0) {
+                    write(window, groupStart, groupEnd - groupStart);
+                }
+            } else {
+                final String groupValue = matcher.group(((GroupName) part).name);
+                if (groupValue != null) {
+                    write(groupValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the given replacement value into literal text (Strings), numbered
+     * group references (Integers) and named group references (GroupNames),
+     * using the same rules as {@link Matcher#appendReplacement}
+     */
+    private static Object[] compileReplacement(final Pattern pattern, final String replacement) {
+        final int groupCount = pattern.matcher("").groupCount();
+        final List<Object> parts = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+
+        int cursor = 0;
+        while (cursor < replacement.length()) {
+            char nextChar = replacement.charAt(cursor);
+            if (nextChar == '\\') {
+                cursor++;
+                if (cursor == replacement.length()) {
+                    throw new IllegalArgumentException("character to be escaped is missing");
+                }
+                literal.append(replacement.charAt(cursor));
+                cursor++;
+            } else if (nextChar == '$') {
+                cursor++;
+                if (cursor == replacement.length()) {
+                    throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                }
+
+                final Object reference;
+                nextChar = replacement.charAt(cursor);
+                if (nextChar == '{') {
+                    cursor++;
+                    final StringBuilder name = new StringBuilder();
+                    while (cursor < replacement.length()) {
+                        nextChar = replacement.charAt(cursor);
+                        if ((nextChar >= 'a' && nextChar <= 'z') || (nextChar >= 'A' && nextChar <= 'Z') || (nextChar >= '0' && nextChar <= '9')) {
+                            name.append(nextChar);
+                            cursor++;
+                        } else {
+                            break;
+                        }
+                    }
+                    if (name.length() == 0) {
+                        throw new IllegalArgumentException("named capturing group has 0 length name");
+                    }
+                    if (nextChar != '}') {
+                        throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    }
+                    if (Character.isDigit(name.charAt(0))) {
+                        throw new IllegalArgumentException("capturing group name {" + name + "} starts with digit character");
+                    }
+                    cursor++;
+                    reference = new GroupName(name.toString());
+                } else {
+                    int refNum = nextChar - '0';
+                    if (refNum < 0 || refNum > 9) {
+                        throw new IllegalArgumentException("Illegal group reference");
+                    }
+                    cursor++;
+
+                    // capture the largest legal group reference
+                    while (cursor < replacement.length()) {
+                        final int nextDigit = replacement.charAt(cursor) - '0';
+                        if (nextDigit < 0 || nextDigit > 9) {
+                            break;
+                        }
+                        final int newRefNum = (refNum * 10) + nextDigit;
+                        if (groupCount < newRefNum) {
+                            break;
+                        }
+                        refNum = newRefNum;
+                        cursor++;
+                    }
+                    if (refNum > groupCount) {
+                        throw new IndexOutOfBoundsException("No group " + refNum);
+                    }
+                    reference = refNum;
+                }
+
+                if (literal.length() > 0) {
+                    parts.add(literal.toString());
+                    literal.setLength(0);
+                }
+                parts.add(reference);
+            } else {
+                literal.append(nextChar);
+                cursor++;
+            }
+        }
+
+        if (literal.length() > 0) {
+            parts.add(literal.toString());
+        }
+        return parts.toArray();
+    }
+
+    private static class GroupName {
+
+        private final String name;
+
+        public GroupName(final String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Exposes the populated portion of the window as a CharSequence, without
+     * copying, so that the Matcher can operate directly on the window
+     */
+    private class WindowSequence implements CharSequence {
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(final int index) {
+            if (index >= length) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            return window[index];
+        }
+
+        @Override
+        public CharSequence subSequence(final int start, final int end) {
+            return new String(window, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(window, 0, length);
+        }
+    }
+
+    /**
+     * Indicates that a match of the Regular Expression, or a line, could not
+     * be contained within the window
+     */
+    public static class BufferOverflowException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        public BufferOverflowException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -31,8 +31,10 @@ import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.util.MockFlowFile;
@@ -183,4 +185,40 @@ public class TestGetFile {
             successFiles.get(0).assertAttributeEquals("file.permissions", "r--r-----");
         }
     }
+
+    @Test
+    public void testFilesInSubdirectoriesPickedUp() throws IOException {
+        final File directory = new File("target/test/data/recurse");
+        deleteDirectory(directory);
+
+        final Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            final File subdirectory = new File(directory, "dir" + i + "/nested");
+            assertTrue("Unable to create test data directory " + subdirectory.getAbsolutePath(), subdirectory.exists() || subdirectory.mkdirs());
+            for (int j = 0; j < 20; j++) {
+                final String filename = "file-" + i + "-" + j + ".txt";
+                Files.write(new File(subdirectory, filename).toPath(), filename.getBytes("UTF-8"));
+                expected.add(filename);
+            }
+        }
+        Files.write(new File(directory, ".hidden").toPath(), "hidden".getBytes("UTF-8"));
+
+        final TestRunner runner = TestRunners.newTestRunner(new GetFile());
+        runner.setProperty(GetFile.DIRECTORY, directory.getAbsolutePath());
+        runner.setProperty(GetFile.KEEP_SOURCE_FILE, "true");
+        runner.setProperty(GetFile.BATCH_SIZE, "1000");
+
+        // the listing adds files to the queue as it finds them, so it may take several iterations to pick them all up;
+        // once the runner has unscheduled the processor, each iteration picks up a single file
+        final Set<String> pickedUp = new HashSet<>();
+        for (int i = 0; i < 500 && !pickedUp.containsAll(expected); i++) {
+            runner.run(1, false, i == 0);
+            for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship(GetFile.REL_SUCCESS)) {
+                pickedUp.add(flowFile.getAttribute(CoreAttributes.FILENAME.key()));
+                flowFile.assertContentEquals(flowFile.getAttribute(CoreAttributes.FILENAME.key()).getBytes("UTF-8"));
+            }
+        }
+
+        assertEquals(expected, pickedUp);
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.nifi.processors.standard.servlets.ListenHTTPServlet;
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author unattributed
+ */
+public class TestListenHTTP {
+
+    private ListenHTTP processor;
+    private TestRunner runner;
+    private int port;
+
+    @Before
+    public void setup() throws IOException {
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        processor = new ListenHTTP();
+        runner = TestRunners.newTestRunner(processor);
+        runner.setProperty(ListenHTTP.PORT, String.valueOf(port));
+        runner.setProperty(ListenHTTP.SELECTOR_THREADS, "1");
+        runner.setProperty(ListenHTTP.ACCEPTOR_THREADS, "1");
+        runner.setProperty(ListenHTTP.MAX_THREAD_POOL_SIZE, "8");
+
+        // start the server and provide it with a session factory
+        runner.run(1, false);
+    }
+
+    @After
+    public void teardown() {
+        processor.shutdownHttpServer();
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentRequests() throws Exception {
+        final int requestCount = 100;
+        final ExecutorService executor = Executors.newFixedThreadPool(20);
+        try {
+            final List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < requestCount; i++) {
+                final String content = "content " + i;
+                futures.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        return post(content, false).getResponseCode();
+                    }
+                }));
+            }
+
+            for (final Future<Integer> future : futures) {
+                assertEquals(Integer.valueOf(HttpURLConnection.HTTP_OK), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        runner.assertAllFlowFilesTransferred(ListenHTTP.RELATIONSHIP_SUCCESS, requestCount);
+        final Set<String> contents = new HashSet<>();
+        for (final MockFlowFile flowFile : runner.getFlowFilesForRelationship(ListenHTTP.RELATIONSHIP_SUCCESS)) {
+            contents.add(new String(flowFile.toByteArray(), StandardCharsets.UTF_8));
+        }
+        for (int i = 0; i < requestCount; i++) {
+            assertEquals(true, contents.contains("content " + i));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testHoldIsReleasedOnAcknowledgment() throws Exception {
+        final HttpURLConnection connection = post("held content", true);
+        assertEquals(HttpURLConnection.HTTP_SEE_OTHER, connection.getResponseCode());
+        runner.assertAllFlowFilesTransferred(ListenHTTP.RELATIONSHIP_SUCCESS, 0);
+
+        final String location = connection.getHeaderField(ListenHTTPServlet.LOCATION_HEADER_NAME);
+        final HttpURLConnection acknowledgment = (HttpURLConnection) new URL("http://localhost:" + port + location).openConnection();
+        acknowledgment.setRequestMethod("DELETE");
+        assertEquals(HttpURLConnection.HTTP_OK, acknowledgment.getResponseCode());
+
+        runner.assertAllFlowFilesTransferred(ListenHTTP.RELATIONSHIP_SUCCESS, 1);
+        runner.getFlowFilesForRelationship(ListenHTTP.RELATIONSHIP_SUCCESS).get(0).assertContentEquals("held content");
+    }
+
+    private HttpURLConnection post(final String content, final boolean createHold) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + ListenHTTP.URI).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setInstanceFollowRedirects(false);
+        if (createHold) {
+            connection.setRequestProperty(ListenHTTPServlet.FLOWFILE_CONFIRMATION_HEADER, "true");
+        }
+
+        final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        connection.setFixedLengthStreamingMode(bytes.length);
+        try (final OutputStream out = connection.getOutputStream()) {
+            out.write(bytes);
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processors.standard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.MockProcessContext;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author unattributed
+ */
+public class TestPostHTTP {
+
+    private ListenHTTP listener;
+    private TestRunner listenerRunner;
+    private int port;
+
+    @Before
+    public void setup() throws IOException {
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        listener = new ListenHTTP();
+        listenerRunner = TestRunners.newTestRunner(listener);
+        listenerRunner.setProperty(ListenHTTP.PORT, String.valueOf(port));
+        listenerRunner.run(1, false);
+    }
+
+    @After
+    public void teardown() {
+        listener.shutdownHttpServer();
+    }
+
+    @Test(timeout = 30000)
+    public void testSendBatch() {
+        final TestRunner runner = createRunner("1", "100 MB");
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(PostHTTP.REL_SUCCESS, 20);
+        assertReceived(20);
+    }
+
+    @Test(timeout = 30000)
+    public void testOutstandingTransactions() {
+        final TestRunner runner = createRunner("4", "64 B");
+
+        // each trigger sends a batch in the background; the processor waits for them when it is stopped
+        runner.run(20);
+
+        runner.assertAllFlowFilesTransferred(PostHTTP.REL_SUCCESS, 20);
+        assertReceived(20);
+    }
+
+    @Test(timeout = 30000)
+    public void testBatchedInvocationsSendSynchronously() {
+        final PostHTTP processor = new PostHTTP();
+        final TestRunner runner = createRunner(processor, "4", "100 MB");
+        processor.onScheduled(runner.getProcessContext());
+
+        // the framework commits a batched session once the batch completes, so the transaction must be sent within the invocation
+        ((MockProcessContext) runner.getProcessContext()).setBatchingSessions(true);
+
+        try {
+            processor.onTrigger(runner.getProcessContext(), runner.getProcessSessionFactory());
+            runner.assertAllFlowFilesTransferred(PostHTTP.REL_SUCCESS, 20);
+            assertReceived(20);
+        } finally {
+            processor.onStopped();
+        }
+    }
+
+    private TestRunner createRunner(final String maxOutstandingTransactions, final String maxBatchSize) {
+        return createRunner(new PostHTTP(), maxOutstandingTransactions, maxBatchSize);
+    }
+
+    private TestRunner createRunner(final PostHTTP processor, final String maxOutstandingTransactions, final String maxBatchSize) {
+        final TestRunner runner = TestRunners.newTestRunner(processor);
+        runner.setProperty(PostHTTP.URL, "http://localhost:" + port + ListenHTTP.URI);
+        runner.setProperty(PostHTTP.SEND_AS_FLOWFILE, "true");
+        runner.setProperty(PostHTTP.MAX_BATCH_SIZE, maxBatchSize);
+        runner.setProperty(PostHTTP.MAX_OUTSTANDING_TRANSACTIONS, maxOutstandingTransactions);
+
+        for (int i = 0; i < 20; i++) {
+            runner.enqueue(("content " + i).getBytes(StandardCharsets.UTF_8));
+        }
+        return runner;
+    }
+
+    private void assertReceived(final int count) {
+        listenerRunner.assertAllFlowFilesTransferred(ListenHTTP.RELATIONSHIP_SUCCESS, count);
+
+        final Set<String> contents = new HashSet<>();
+        for (final MockFlowFile flowFile : listenerRunner.getFlowFilesForRelationship(ListenHTTP.RELATIONSHIP_SUCCESS)) {
+            contents.add(new String(flowFile.toByteArray(), StandardCharsets.UTF_8));
+        }
+        assertEquals(count, contents.size());
+        for (final String content : contents) {
+            assertTrue(content.startsWith("content "));
+        }
+    }
+}
@@ -295,8 +295,8 @@ public class TestReplaceText {
     public void testRoutesToFailureIfTooLarge() throws IOException {
         final TestRunner runner = TestRunners.newTestRunner(new ReplaceText());
         runner.setValidateExpressionUsage(false);
-        runner.setProperty(ReplaceText.REGEX, "[123]");
-        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "1 b");
+        runner.setProperty(ReplaceText.REGEX, "H.*");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "4 b");
         runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "${abc}");
 
         final Map<String, String> attributes = new HashMap<>();
@@ -368,4 +368,46 @@ public class TestReplaceText {
         System.out.println(outContent);
     }
 
+
+    @Test
+    public void testFlowFileLargerThanBuffer() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(new ReplaceText());
+        runner.setValidateExpressionUsage(false);
+        runner.setProperty(ReplaceText.REGEX, "(\\d+)\\s+(\\w+)");
+        runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "$2=$1");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "64 B");
+
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append(i % 3 == 0 ? "\n" : " ").append("value").append(i).append(i % 7 == 0 ? "\r\n" : ", ");
+        }
+        final String content = sb.toString();
+        final String expected = content.replaceAll("(\\d+)\\s+(\\w+)", "$2=$1");
+
+        runner.enqueue(content.getBytes(StandardCharsets.UTF_8));
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+        out.assertContentEquals(expected);
+    }
+
+    @Test
+    public void testAnchorsAndEmptyMatchesWithSmallBuffer() throws IOException {
+        final String content = "abc\ndef\nxyz";
+        for (final String regex : new String[]{"^", "$", "x*", "(?m)^", "(?m)$", "(?<=c)\\s"}) {
+            final TestRunner runner = TestRunners.newTestRunner(new ReplaceText());
+            runner.setValidateExpressionUsage(false);
+            runner.setProperty(ReplaceText.REGEX, regex);
+            runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "-");
+            runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "8 B");
+
+            runner.enqueue(content.getBytes(StandardCharsets.UTF_8));
+            runner.run();
+
+            runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+            final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+            out.assertContentEquals(content.replaceAll(regex, "-"));
+        }
+    }
 }
@@ -334,4 +334,44 @@ public class TestReplaceTextLineByLine {
         final String translated = pattern.matcher(text).replaceAll(lineSeparator);
         return translated;
     }
+
+    @Test
+    public void testRoutesToFailureIfLineTooLarge() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(new ReplaceText());
+        runner.setValidateExpressionUsage(false);
+        runner.setProperty(ReplaceText.EVALUATION_MODE, ReplaceText.LINE_BY_LINE);
+        runner.setProperty(ReplaceText.REGEX, "o");
+        runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "0");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "8 B");
+
+        runner.enqueue("short\nthis line is too long\n".getBytes(StandardCharsets.UTF_8));
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ReplaceText.REL_FAILURE, 1);
+    }
+
+    @Test
+    public void testLinesSpanningBuffer() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(new ReplaceText());
+        runner.setValidateExpressionUsage(false);
+        runner.setProperty(ReplaceText.EVALUATION_MODE, ReplaceText.LINE_BY_LINE);
+        runner.setProperty(ReplaceText.REGEX, "^(\\w+)(.*)$");
+        runner.setProperty(ReplaceText.REPLACEMENT_VALUE, "$2 $1");
+        runner.setProperty(ReplaceText.MAX_BUFFER_SIZE, "32 B");
+
+        final StringBuilder content = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            final String terminator = (i % 2 == 0) ? "\r\n" : "\n";
+            content.append("line").append(i).append(" of text").append(terminator);
+            expected.append(" of text line").append(i).append(terminator);
+        }
+
+        runner.enqueue(content.toString().getBytes(StandardCharsets.UTF_8));
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ReplaceText.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(ReplaceText.REL_SUCCESS).get(0);
+        out.assertContentEquals(expected.toString());
+    }
 }
@@ -25,6 +25,7 @@ import org.apache.nifi.util.TestRunners;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -170,4 +171,35 @@ public class TestSplitText {
         assertEquals(Files.size(dataPath.resolve(originalFilename)), flowFile.getSize());
         flowFile.assertContentEquals(file);
     }
+
+    @Test
+    public void testSplitWithCarriageReturnsAcrossBufferBoundaries() throws IOException {
+        final TestRunner runner = TestRunners.newTestRunner(new SplitText());
+        runner.setProperty(SplitText.LINE_SPLIT_COUNT, "1");
+        runner.setProperty(SplitText.REMOVE_TRAILING_NEWLINES, "false");
+
+        // lines are long enough that line delimiters will straddle the boundaries of the scanner's buffer
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 1000 + i; j++) {
+                sb.append((char) ('a' + (j % 26)));
+            }
+            sb.append(i % 2 == 0 ? "\r\n" : "\r");
+        }
+        final String text = sb.toString();
+
+        runner.enqueue(text.getBytes(StandardCharsets.UTF_8));
+        runner.run();
+
+        runner.assertTransferCount(SplitText.REL_SPLITS, 100);
+        runner.assertTransferCount(SplitText.REL_ORIGINAL, 1);
+
+        final List<MockFlowFile> splits = runner.getFlowFilesForRelationship(SplitText.REL_SPLITS);
+        final StringBuilder merged = new StringBuilder();
+        for (final MockFlowFile split : splits) {
+            split.assertAttributeEquals(SplitText.SPLIT_LINE_COUNT, "1");
+            merged.append(new String(split.toByteArray(), StandardCharsets.UTF_8));
+        }
+        assertEquals(text, merged.toString());
+    }
 }
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.nifi.provenance.search.SearchableField;
+import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
+import org.apache.nifi.util.RingBuffer.IterationDirection;
+
+/**
+ * <p>
+ * A fixed-capacity ring of Provenance Events in which each event is stored in
+ * the slot given by its Event ID modulo the capacity, so that an event can be
+ * retrieved by ID without searching. Events are published into their slots
+ * with compare-and-set, so neither writers nor readers ever block; when an
+ * event is added, it replaces the event whose ID is <code>capacity</code>
+ * smaller.
+ * </p>
+ *
+ * <p>
+ * Optionally, the IDs of the events are also indexed by FlowFile UUID
+ * (including parent and child UUIDs), Component ID, and Event Type, so that
+ * events with a given value for one of these fields can be found without
+ * scanning the entire ring. The IDs indexed under each key are kept sorted, so
+ * that an evicted event can be removed from the index without scanning the IDs
+ * of every other event with the same key. Index keys are case-insensitive. An
+ * index may briefly lag behind the ring, so callers must still verify that the events
+ * returned match their criteria.
+ * </p>
+ */
+public class IndexedEventRing {
+
+    private final int capacity;
+    private final AtomicReferenceArray<ProvenanceEventRecord> slots;
+    private final AtomicLong maxEventId = new AtomicLong(-1L);
+
+    private final ConcurrentMap<String, NavigableSet<Long>> flowFileUuidIndex;
+    private final ConcurrentMap<String, NavigableSet<Long>> componentIdIndex;
+    private final ConcurrentMap<String, NavigableSet<Long>> eventTypeIndex;
+
+    public IndexedEventRing(final int capacity, final List<SearchableField> indexedFields) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+
+        this.flowFileUuidIndex = indexedFields.contains(SearchableFields.FlowFileUUID) ? new ConcurrentHashMap<String, NavigableSet<Long>>() : null;
+        this.componentIdIndex = indexedFields.contains(SearchableFields.ComponentID) ? new ConcurrentHashMap<String, NavigableSet<Long>>() : null;
+        this.eventTypeIndex = indexedFields.contains(SearchableFields.EventType) ? new ConcurrentHashMap<String, NavigableSet<Long>>() : null;
+    }
+
+    private int slot(final long eventId) {
+        return (int) (eventId % capacity);
+    }
+
+    /**
+     * Adds the given event to the ring. The ID of the event must not be
+     * negative and must not be shared with any other event added to the ring.
+     *
+     * @param event
+     */
+    public void add(final ProvenanceEventRecord event) {
+        final long eventId = event.getEventId();
+        final int slot = slot(eventId);
+
+        // Index the event before publishing it so that, by the time another thread is able to evict it,
+        // its index entries exist and will be removed.
+        updateIndices(event, true);
+
+        ProvenanceEventRecord evicted;
+        while (true) {
+            evicted = slots.get(slot);
+            if (evicted != null && evicted.getEventId() > eventId) {
+                // a newer event already occupies the slot, so this event has already aged out of the ring
+                updateIndices(event, false);
+                return;
+            }
+
+            if (slots.compareAndSet(slot, evicted, event)) {
+                break;
+            }
+        }
+
+        if (evicted != null) {
+            updateIndices(evicted, false);
+        }
+
+        long max;
+        while ((max = maxEventId.get()) < eventId) {
+            if (maxEventId.compareAndSet(max, eventId)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @param eventId
+     * @return the event with the given ID, or <code>null</code> if no event
+     * with that ID is held by the ring
+     */
+    public ProvenanceEventRecord getEvent(final long eventId) {
+        if (eventId < 0) {
+            return null;
+        }
+
+        final ProvenanceEventRecord event = slots.get(slot(eventId));
+        return (event != null && event.getEventId() == eventId) ? event : null;
+    }
+
+    /**
+     * @return the largest Event ID that has been added to the ring, or
+     * <code>null</code> if no events have been added
+     */
+    public Long getMaxEventId() {
+        final long max = maxEventId.get();
+        return (max < 0) ? null : max;
+    }
+
+    /**
+     * @param firstEventId
+     * @param maxEvents
+     * @return up to <code>maxEvents</code> events whose IDs are at least
+     * <code>firstEventId</code>, in ascending order of ID
+     */
+    public List<ProvenanceEventRecord> getEvents(final long firstEventId, final int maxEvents) {
+        final long max = maxEventId.get();
+        final List<ProvenanceEventRecord> events = new ArrayList<>(Math.max(0, Math.min(maxEvents, capacity)));
+        for (long id = Math.max(firstEventId, max - capacity + 1); id <= max && events.size() < maxEvents; id++) {
+            final ProvenanceEventRecord event = getEvent(id);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+
+        return events;
+    }
+
+    /**
+     * Evaluates each event held by the ring, in order of Event ID, until the
+     * evaluator returns <code>false</code>
+     *
+     * @param evaluator
+     * @param direction
+     */
+    public void forEach(final ForEachEvaluator<ProvenanceEventRecord> evaluator, final IterationDirection direction) {
+        final long max = maxEventId.get();
+        final long min = Math.max(0L, max - capacity + 1);
+
+        if (direction == IterationDirection.FORWARD) {
+            for (long id = min; id <= max; id++) {
+                final ProvenanceEventRecord event = getEvent(id);
+                if (event != null && !evaluator.evaluate(event)) {
+                    return;
+                }
+            }
+        } else {
+            for (long id = max; id >= min; id--) {
+                final ProvenanceEventRecord event = getEvent(id);
+                if (event != null && !evaluator.evaluate(event)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param field
+     * @return <code>true</code> if events are indexed by the given field
+     */
+    public boolean isIndexed(final SearchableField field) {
+        return getIndex(field) != null;
+    }
+
+    /**
+     * Returns the events that are indexed under the given value of the given
+     * field, in ascending order of Event ID. For the FlowFile UUID field, this
+     * includes events for which the value is a parent or child UUID.
+     *
+     * @param field
+     * @param value
+     * @return the events indexed under the given value, or <code>null</code>
+     * if the given field is not indexed
+     */
+    public List<ProvenanceEventRecord> getIndexedEvents(final SearchableField field, final String value) {
+        final ConcurrentMap<String, NavigableSet<Long>> index = getIndex(field);
+        if (index == null) {
+            return null;
+        }
+
+        final NavigableSet<Long> eventIds = index.get(normalize(value));
+        if (eventIds == null) {
+            return Collections.emptyList();
+        }
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (final Long eventId : eventIds) {
+            final ProvenanceEventRecord event = getEvent(eventId);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+
+        return events;
+    }
+
+    private ConcurrentMap<String, NavigableSet<Long>> getIndex(final SearchableField field) {
+        if (SearchableFields.FlowFileUUID.equals(field)) {
+            return flowFileUuidIndex;
+        }
+        if (SearchableFields.ComponentID.equals(field)) {
+            return componentIdIndex;
+        }
+        if (SearchableFields.EventType.equals(field)) {
+            return eventTypeIndex;
+        }
+        return null;
+    }
+
+    private static String normalize(final String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private void updateIndices(final ProvenanceEventRecord event, final boolean add) {
+        final Long eventId = event.getEventId();
+
+        if (flowFileUuidIndex != null) {
+            updateIndex(flowFileUuidIndex, event.getFlowFileUuid(), eventId, add);
+            for (final String parentUuid : event.getParentUuids()) {
+                updateIndex(flowFileUuidIndex, parentUuid, eventId, add);
+            }
+            for (final String childUuid : event.getChildUuids()) {
+                updateIndex(flowFileUuidIndex, childUuid, eventId, add);
+            }
+        }
+
+        if (componentIdIndex != null) {
+            updateIndex(componentIdIndex, event.getComponentId(), eventId, add);
+        }
+
+        if (eventTypeIndex != null && event.getEventType() != null) {
+            updateIndex(eventTypeIndex, event.getEventType().name(), eventId, add);
+        }
+    }
+
+    private void updateIndex(final ConcurrentMap<String, NavigableSet<Long>> index, final String value, final Long eventId, final boolean add) {
+        if (value == null) {
+            return;
+        }
+
+        final String key = normalize(value);
+        if (add) {
+            addToIndex(index, key, eventId);
+        } else {
+            removeFromIndex(index, key, eventId);
+        }
+    }
+
+    private void addToIndex(final ConcurrentMap<String, NavigableSet<Long>> index, final String key, final Long eventId) {
+        while (true) {
+            NavigableSet<Long> eventIds = index.get(key);
+            if (eventIds == null) {
+                final NavigableSet<Long> newIds = new ConcurrentSkipListSet<>();
+                final NavigableSet<Long> existing = index.putIfAbsent(key, newIds);
+                eventIds = (existing == null) ? newIds : existing;
+            }
+
+            eventIds.add(eventId);
+
+            // If the set was removed from the index while we were adding to it, add to its replacement instead.
+            if (index.get(key) == eventIds) {
+                return;
+            }
+        }
+    }
+
+    private void removeFromIndex(final ConcurrentMap<String, NavigableSet<Long>> index, final String key, final Long eventId) {
+        final NavigableSet<Long> eventIds = index.get(key);
+        if (eventIds == null) {
+            return;
+        }
+
+        eventIds.remove(eventId);
+
+        if (eventIds.isEmpty() && index.remove(key, eventIds)) {
+            // IDs may have been added after we determined that the set was empty; keep them indexed
+            for (final Long addedId : eventIds) {
+                addToIndex(index, key, addedId);
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -51,7 +52,6 @@ import org.apache.nifi.provenance.search.SearchTerm;
 import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.util.IntegerHolder;
 import org.apache.nifi.util.NiFiProperties;
-import org.apache.nifi.util.RingBuffer;
 import org.apache.nifi.util.RingBuffer.Filter;
 import org.apache.nifi.util.RingBuffer.ForEachEvaluator;
 import org.apache.nifi.util.RingBuffer.IterationDirection;
@@ -64,7 +64,7 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
     // default property values
     public static final int DEFAULT_BUFFER_SIZE = 10000;
 
-    private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+    private final IndexedEventRing ringBuffer;
     private final List<SearchableField> searchableFields;
     private final List<SearchableField> searchableAttributes;
     private final ExecutorService queryExecService;
@@ -78,15 +78,17 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
     public VolatileProvenanceRepository() {
         final NiFiProperties properties = NiFiProperties.getInstance();
 
-        final int bufferSize = properties.getIntegerProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
-        ringBuffer = new RingBuffer<>(bufferSize);
-
         final String indexedFieldString = properties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = properties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
         searchableFields = Collections.unmodifiableList(SearchableFieldParser.extractSearchableFields(indexedFieldString, true));
         searchableAttributes = Collections.unmodifiableList(SearchableFieldParser.extractSearchableFields(indexedAttrString, false));
 
+        // events are additionally indexed in memory by those of the FlowFile UUID, Component ID, and Event Type fields
+        // that are configured to be indexed
+        final int bufferSize = properties.getIntegerProperty(BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+        ringBuffer = new IndexedEventRing(bufferSize, searchableFields);
+
         final ThreadFactory defaultThreadFactory = Executors.defaultThreadFactory();
         queryExecService = Executors.newFixedThreadPool(2, new ThreadFactory() {
             private final AtomicInteger counter = new AtomicInteger(0);
@@ -131,40 +133,105 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
     @Override
     public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords) throws IOException {
-        return ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
-            @Override
-            public boolean select(final ProvenanceEventRecord value) {
-                return value.getEventId() >= firstRecordId;
-            }
-        }, maxRecords);
+        return ringBuffer.getEvents(firstRecordId, maxRecords);
     }
 
     @Override
     public Long getMaxEventId() {
-        final ProvenanceEventRecord newest = ringBuffer.getNewestElement();
-        return (newest == null) ? null : newest.getEventId();
+        return ringBuffer.getMaxEventId();
     }
 
     public ProvenanceEventRecord getEvent(final String identifier) throws IOException {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+        final Filter<ProvenanceEventRecord> filter = new Filter<ProvenanceEventRecord>() {
             @Override
             public boolean select(final ProvenanceEventRecord event) {
                 return identifier.equals(event.getFlowFileUuid());
             }
-        }, 1);
+        };
+
+        final List<ProvenanceEventRecord> records = getSelectedEvents(getIndexedEvents(SearchableFields.FlowFileUUID, Collections.singleton(identifier)), filter, 1);
         return records.isEmpty() ? null : records.get(0);
     }
 
     @Override
     public ProvenanceEventRecord getEvent(final long id) {
-        final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(new Filter<ProvenanceEventRecord>() {
+        return ringBuffer.getEvent(id);
+    }
+
+    /**
+     * Returns the events that are indexed under any of the given values of the
+     * given field, in ascending order of Event ID, or <code>null</code> if the
+     * field is not indexed
+     */
+    private List<ProvenanceEventRecord> getIndexedEvents(final SearchableField field, final Collection<String> values) {
+        if (!ringBuffer.isIndexed(field)) {
+            return null;
+        }
+
+        if (values.size() == 1) {
+            return ringBuffer.getIndexedEvents(field, values.iterator().next());
+        }
+
+        final Map<Long, ProvenanceEventRecord> events = new TreeMap<>();
+        for (final String value : values) {
+            for (final ProvenanceEventRecord event : ringBuffer.getIndexedEvents(field, value)) {
+                events.put(event.getEventId(), event);
+            }
+        }
+        return new ArrayList<>(events.values());
+    }
+
+    /**
+     * Returns up to <code>maxEvents</code> of the given candidate events that
+     * match the filter, in ascending order of Event ID. If no candidates are
+     * given, every event in the ring is considered.
+     */
+    private List<ProvenanceEventRecord> getSelectedEvents(final List<ProvenanceEventRecord> candidates, final Filter<ProvenanceEventRecord> filter, final int maxEvents) {
+        final List<ProvenanceEventRecord> selected = new ArrayList<>();
+        if (candidates != null) {
+            for (final ProvenanceEventRecord event : candidates) {
+                if (selected.size() >= maxEvents) {
+                    break;
+                }
+                if (filter.select(event)) {
+                    selected.add(event);
+                }
+            }
+            return selected;
+        }
+
+        ringBuffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
             @Override
-            public boolean select(final ProvenanceEventRecord event) {
-                return event.getEventId() == id;
+            public boolean evaluate(final ProvenanceEventRecord event) {
+                if (filter.select(event)) {
+                    selected.add(event);
+                }
+                return selected.size() < maxEvents;
             }
-        }, 1);
+        }, IterationDirection.FORWARD);
+        return selected;
+    }
 
-        return records.isEmpty() ? null : records.get(0);
+    /**
+     * Chooses the smallest set of candidate events for the given query that
+     * can be obtained from an index, or <code>null</code> if none of the
+     * query's search terms can be answered from an index
+     */
+    private List<ProvenanceEventRecord> getCandidates(final Query query) {
+        List<ProvenanceEventRecord> candidates = null;
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            final String searchValue = searchTerm.getValue();
+            if (searchValue.contains("?") || searchValue.contains("*")) {
+                continue;
+            }
+
+            final List<ProvenanceEventRecord> indexed = getIndexedEvents(searchTerm.getSearchableField(), Collections.singleton(searchValue));
+            if (indexed != null && (candidates == null || indexed.size() < candidates.size())) {
+                candidates = indexed;
+            }
+        }
+
+        return candidates;
     }
 
     @Override
@@ -355,14 +422,14 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
 
         if (query.getSearchTerms().isEmpty() && query.getStartDate() == null && query.getEndDate() == null) {
             final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1);
-            queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query), query.getMaxResults(), result));
+            queryExecService.submit(new QueryRunnable(ringBuffer, null, createFilter(query), query.getMaxResults(), result));
             querySubmissionMap.put(query.getIdentifier(), result);
             return result;
         }
 
         final AsyncQuerySubmission result = new AsyncQuerySubmission(query, 1);
         querySubmissionMap.put(query.getIdentifier(), result);
-        queryExecService.submit(new QueryRunnable(ringBuffer, createFilter(query), query.getMaxResults(), result));
+        queryExecService.submit(new QueryRunnable(ringBuffer, getCandidates(query), createFilter(query), query.getMaxResults(), result));
 
         return result;
     }
@@ -488,20 +555,23 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
             }
         };
 
-        queryExecService.submit(new ComputeLineageRunnable(ringBuffer, filter, result));
+        queryExecService.submit(new ComputeLineageRunnable(getIndexedEvents(SearchableFields.FlowFileUUID, flowFileUuids), filter, result));
 
         return result;
     }
 
     private static class QueryRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final IndexedEventRing ringBuffer;
+        private final List<ProvenanceEventRecord> candidates;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncQuerySubmission submission;
         private final int maxRecords;
 
-        public QueryRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final int maxRecords, final AsyncQuerySubmission submission) {
+        public QueryRunnable(final IndexedEventRing ringBuffer, final List<ProvenanceEventRecord> candidates, final Filter<ProvenanceEventRecord> filter,
+                final int maxRecords, final AsyncQuerySubmission submission) {
             this.ringBuffer = ringBuffer;
+            this.candidates = candidates;
             this.filter = filter;
             this.submission = submission;
             this.maxRecords = maxRecords;
@@ -512,7 +582,7 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
             // Retrieve the most recent results and count the total number of matches
             final IntegerHolder matchingCount = new IntegerHolder(0);
             final List<ProvenanceEventRecord> matchingRecords = new ArrayList<>(maxRecords);
-            ringBuffer.forEach(new ForEachEvaluator<ProvenanceEventRecord>() {
+            final ForEachEvaluator<ProvenanceEventRecord> evaluator = new ForEachEvaluator<ProvenanceEventRecord>() {
                 @Override
                 public boolean evaluate(final ProvenanceEventRecord record) {
                     if (filter.select(record)) {
@@ -524,27 +594,35 @@ public class VolatileProvenanceRepository implements ProvenanceEventRepository {
                     return true;
                 }
 
-            }, IterationDirection.BACKWARD);
+            };
+
+            if (candidates == null) {
+                ringBuffer.forEach(evaluator, IterationDirection.BACKWARD);
+            } else {
+                for (int i = candidates.size() - 1; i >= 0; i--) {
+                    evaluator.evaluate(candidates.get(i));
+                }
+            }
 
             submission.getResult().update(matchingRecords, matchingCount.get());
         }
     }
 
-    private static class ComputeLineageRunnable implements Runnable {
+    private class ComputeLineageRunnable implements Runnable {
 
-        private final RingBuffer<ProvenanceEventRecord> ringBuffer;
+        private final List<ProvenanceEventRecord> candidates;
         private final Filter<ProvenanceEventRecord> filter;
         private final AsyncLineageSubmission submission;
 
-        public ComputeLineageRunnable(final RingBuffer<ProvenanceEventRecord> ringBuffer, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
-            this.ringBuffer = ringBuffer;
+        public ComputeLineageRunnable(final List<ProvenanceEventRecord> candidates, final Filter<ProvenanceEventRecord> filter, final AsyncLineageSubmission submission) {
+            this.candidates = candidates;
             this.filter = filter;
             this.submission = submission;
         }
 
         @Override
         public void run() {
-            final List<ProvenanceEventRecord> records = ringBuffer.getSelectedElements(filter);
+            final List<ProvenanceEventRecord> records = getSelectedEvents(candidates, filter, Integer.MAX_VALUE);
             submission.getResult().update(records);
         }
     }
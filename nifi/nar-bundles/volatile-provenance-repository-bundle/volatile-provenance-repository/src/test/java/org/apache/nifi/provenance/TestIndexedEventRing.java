@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.nifi.provenance.search.SearchableField;
+import org.junit.Test;
+
+public class TestIndexedEventRing {
+
+    private static final List<SearchableField> INDEXED_FIELDS = Arrays.asList(SearchableFields.FlowFileUUID, SearchableFields.ComponentID, SearchableFields.EventType);
+
+    @Test
+    public void testGetEventById() {
+        final IndexedEventRing ring = new IndexedEventRing(5, INDEXED_FIELDS);
+        assertNull(ring.getMaxEventId());
+
+        for (int i = 0; i < 8; i++) {
+            ring.add(createEvent(i, "uuid-" + i, "component-" + (i % 2), ProvenanceEventType.RECEIVE));
+        }
+
+        assertEquals(Long.valueOf(7L), ring.getMaxEventId());
+        assertNull(ring.getEvent(2L));
+        for (long i = 3; i < 8; i++) {
+            assertEquals(i, ring.getEvent(i).getEventId());
+        }
+        assertNull(ring.getEvent(8L));
+
+        final List<ProvenanceEventRecord> events = ring.getEvents(0L, 3);
+        assertEquals(3, events.size());
+        assertEquals(3L, events.get(0).getEventId());
+        assertEquals(5L, events.get(2).getEventId());
+    }
+
+    @Test
+    public void testIndexedEventsRemovedWhenEvicted() {
+        final IndexedEventRing ring = new IndexedEventRing(4, INDEXED_FIELDS);
+        for (int i = 0; i < 6; i++) {
+            ring.add(createEvent(i, "uuid-" + i, "component-" + (i % 2), (i == 5) ? ProvenanceEventType.DROP : ProvenanceEventType.RECEIVE));
+        }
+
+        assertTrue(ring.getIndexedEvents(SearchableFields.FlowFileUUID, "uuid-1").isEmpty());
+        assertEquals(1, ring.getIndexedEvents(SearchableFields.FlowFileUUID, "UUID-2").size());
+
+        final List<ProvenanceEventRecord> componentEvents = ring.getIndexedEvents(SearchableFields.ComponentID, "component-1");
+        assertEquals(2, componentEvents.size());
+        assertEquals(3L, componentEvents.get(0).getEventId());
+        assertEquals(5L, componentEvents.get(1).getEventId());
+
+        assertEquals(3, ring.getIndexedEvents(SearchableFields.EventType, "receive").size());
+        assertEquals(1, ring.getIndexedEvents(SearchableFields.EventType, "DROP").size());
+    }
+
+    @Test
+    public void testFieldsNotIndexedUnlessConfigured() {
+        final IndexedEventRing ring = new IndexedEventRing(4, Collections.<SearchableField>singletonList(SearchableFields.ComponentID));
+        ring.add(createEvent(0, "uuid-0", "component-0", ProvenanceEventType.RECEIVE));
+
+        assertNull(ring.getIndexedEvents(SearchableFields.FlowFileUUID, "uuid-0"));
+        assertEquals(1, ring.getIndexedEvents(SearchableFields.ComponentID, "component-0").size());
+    }
+
+    private ProvenanceEventRecord createEvent(final long id, final String uuid, final String componentId, final ProvenanceEventType type) {
+        final StandardProvenanceEventRecord event = new StandardProvenanceEventRecord.Builder()
+                .setEventTime(System.currentTimeMillis())
+                .setEventType(type)
+                .setFlowFileUUID(uuid)
+                .setComponentId(componentId)
+                .setComponentType("dummy processor")
+                .setTransitUri("nifi://unit-test")
+                .setCurrentContentClaim("container", "section", "1", 0L, 0L)
+                .build();
+        event.setEventId(id);
+        return event;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+
+/**
+ * A Content Repository that is able to provide random access to the content of
+ * its claims. Implementing this interface is optional; for repositories that
+ * do not, the framework provides random access by reading the content through
+ * {@link ContentRepository#read(ContentClaim)}, which requires re-reading the
+ * content from the start of the claim in order to seek backward.
+ */
+public interface SeekableContentRepository extends ContentRepository {
+
+    /**
+     * Provides read-only, random access to the content for the given claim.
+     * Position 0 of the returned channel is the first byte of the claim's
+     * content. Repositories that store content in files should return a
+     * {@link java.nio.channels.FileChannel} so that callers are able to
+     * memory-map the content.
+     *
+     * @param claim
+     * @return a SeekableByteChannel over the content of the given claim
+     * @throws IOException
+     */
+    SeekableByteChannel readChannel(ContentClaim claim) throws IOException;
+
+}
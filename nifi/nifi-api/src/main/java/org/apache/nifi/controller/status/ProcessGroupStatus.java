@@ -421,6 +421,10 @@ public class ProcessGroupStatus implements Cloneable {
             merged.setOutputCount(merged.getOutputCount() + statusToMerge.getOutputCount());
             merged.setProcessingNanos(merged.getProcessingNanos() + statusToMerge.getProcessingNanos());
 
+            // each node chooses its own Run Duration, so report the largest
+            merged.setBatchDurationNanos(Math.max(merged.getBatchDurationNanos(), statusToMerge.getBatchDurationNanos()));
+            merged.setBatchSize(Math.max(merged.getBatchSize(), statusToMerge.getBatchSize()));
+
             // if the status to merge is invalid allow it to take precedence. whether the
             // processor run status is disabled/stopped/running is part of the flow configuration
             // and should not differ amongst nodes. however, whether a processor is invalid
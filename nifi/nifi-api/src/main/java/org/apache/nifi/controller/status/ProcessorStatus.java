@@ -43,6 +43,8 @@ public class ProcessorStatus implements Cloneable {
     private long bytesReceived;
     private int flowFilesSent;
     private long bytesSent;
+    private long batchDurationNanos;
+    private int batchSize;
 
     public String getId() {
         return id;
@@ -212,6 +214,30 @@ public class ProcessorStatus implements Cloneable {
         this.bytesSent = bytesSent;
     }
 
+    /**
+     * @return the Run Duration in effect for the Processor, whether configured
+     * or chosen by the framework
+     */
+    public long getBatchDurationNanos() {
+        return batchDurationNanos;
+    }
+
+    public void setBatchDurationNanos(long batchDurationNanos) {
+        this.batchDurationNanos = batchDurationNanos;
+    }
+
+    /**
+     * @return the average number of invocations committed together when the
+     * framework chooses the Processor's Run Duration; 0 otherwise
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     @Override
     public ProcessorStatus clone() {
         final ProcessorStatus clonedObj = new ProcessorStatus();
@@ -222,6 +248,8 @@ public class ProcessorStatus implements Cloneable {
         clonedObj.bytesReceived = bytesReceived;
         clonedObj.flowFilesSent = flowFilesSent;
         clonedObj.bytesSent = bytesSent;
+        clonedObj.batchDurationNanos = batchDurationNanos;
+        clonedObj.batchSize = batchSize;
         clonedObj.groupId = groupId;
         clonedObj.id = id;
         clonedObj.inputBytes = inputBytes;
@@ -129,4 +129,16 @@ public interface ProcessContext {
      */
     Set<Relationship> getAvailableRelationships();
 
+    /**
+     * Indicates whether the framework is batching this invocation of the
+     * Processor together with others. When it is, every session created by
+     * the {@link ProcessSessionFactory} is the same session, and that session
+     * is not committed until the batch is complete, so the session must not be
+     * used once <code>onTrigger</code> returns.
+     *
+     * @return <code>true</code> if sessions are being batched for this
+     * invocation
+     */
+    boolean isBatchingSessions();
+
 }
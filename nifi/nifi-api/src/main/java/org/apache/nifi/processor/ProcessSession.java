@@ -30,6 +30,8 @@ import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.MissingFlowFileException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.ByteChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
@@ -502,6 +504,57 @@ public interface ProcessSession {
      */
     void read(FlowFile source, InputStreamCallback reader);
 
+    /**
+     * Executes the given callback against a read-only, seekable channel over
+     * the contents corresponding to the given FlowFile. This allows the
+     * callback to access the content at arbitrary offsets without reading all
+     * of the content that precedes it.
+     *
+     * @param source
+     * @param reader
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session and for
+     * the given FlowFile(s)
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     * transferred or removed or doesn't belong to this session. Automatic
+     * rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     * found. The FlowFile should no longer be reference, will be internally
+     * destroyed, and the session is automatically rolled back and what is left
+     * of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing
+     * FlowFile content
+     */
+    void read(FlowFile source, ByteChannelCallback reader);
+
+    /**
+     * Executes the given callback against a read-only buffer containing the
+     * contents corresponding to the given FlowFile. If the Content Repository
+     * stores the content in a file, the buffer may be a memory-mapped view of
+     * that file; otherwise, the content is copied into the buffer. A mapped
+     * file remains mapped until the buffer is garbage collected, so the buffer
+     * must not be retained after the callback returns. Because a buffer is
+     * limited to {@link Integer#MAX_VALUE} bytes, this method cannot be used for
+     * larger FlowFiles.
+     *
+     * @param source
+     * @param reader
+     * @throws IllegalStateException if detected that this method is being
+     * called from within a callback of another method in this session and for
+     * the given FlowFile(s)
+     * @throws FlowFileHandlingException if the given FlowFile is already
+     * transferred or removed or doesn't belong to this session. Automatic
+     * rollback will occur.
+     * @throws MissingFlowFileException if the given FlowFile content cannot be
+     * found. The FlowFile should no longer be reference, will be internally
+     * destroyed, and the session is automatically rolled back and what is left
+     * of the FlowFile is destroyed.
+     * @throws FlowFileAccessException if some IO problem occurs accessing
+     * FlowFile content, or if the FlowFile is larger than
+     * {@link Integer#MAX_VALUE} bytes
+     */
+    void read(FlowFile source, ByteBufferCallback reader);
+
     /**
      * Combines the content of all given source FlowFiles into a single given
      * destination FlowFile.
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A callback that is given the content of a FlowFile as a single buffer.
+ */
+public interface ByteBufferCallback {
+
+    /**
+     * Provides a read-only buffer whose position is 0 and whose limit is the
+     * size of the FlowFile's content. Where the Content Repository allows, large
+     * content is memory-mapped rather than copied onto the heap. The buffer must
+     * not be used or retained after this method returns, as a mapping is only
+     * released once its buffer is garbage collected.
+     *
+     * @param buffer
+     * @throws IOException
+     */
+    void process(ByteBuffer buffer) throws IOException;
+
+}
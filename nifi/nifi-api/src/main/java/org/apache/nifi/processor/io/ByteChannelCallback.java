@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.processor.io;
+
+import java.io.IOException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A callback that is given random access to the content of a FlowFile.
+ */
+public interface ByteChannelCallback {
+
+    /**
+     * Provides a managed, read-only channel over the content of a FlowFile.
+     * Position 0 of the channel is the first byte of the FlowFile's content
+     * and the size of the channel is the size of the FlowFile. The channel is
+     * automatically opened and closed and must not be used after this method
+     * returns. Any attempt to write to the channel will result in a
+     * {@link java.nio.channels.NonWritableChannelException}.
+     *
+     * @param channel
+     * @throws IOException
+     */
+    void process(SeekableByteChannel channel) throws IOException;
+
+}
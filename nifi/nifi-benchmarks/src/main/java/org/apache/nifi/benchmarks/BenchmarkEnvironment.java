@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.apache.nifi.controller.repository.VolatileContentRepository;
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.util.file.FileUtils;
+
+/**
+ * Provides the NiFi properties and scratch directories used by the
+ * benchmarks. The repositories obtain their configuration from
+ * {@link NiFiProperties#getInstance()}, so each benchmark JVM writes a
+ * properties file into a temporary directory, points the
+ * {@link NiFiProperties#PROPERTIES_FILE_PATH} system property at it, and
+ * removes the directory when the JVM exits.
+ *
+ * The properties configure the same repository implementations as a default
+ * installation, so that a {@link org.apache.nifi.controller.FlowController}
+ * booted within the benchmark JVM behaves as it would in production.
+ */
+final class BenchmarkEnvironment {
+
+    private static Path baseDirectory;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Initializes the environment if it has not already been initialized for
+     * this JVM.
+     *
+     * @return the directory that holds all of the benchmark's repositories
+     * @throws IOException if the directory or properties file cannot be
+     * created
+     */
+    public static synchronized Path initialize() throws IOException {
+        if (baseDirectory != null) {
+            return baseDirectory;
+        }
+
+        final Path directory = Files.createTempDirectory("nifi-benchmarks");
+
+        final Properties properties = new Properties();
+        properties.setProperty(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", directory.resolve("content_repository").toString());
+        properties.setProperty(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false");
+        properties.setProperty(NiFiProperties.MAX_APPENDABLE_CLAIM_SIZE, "10 MB");
+        properties.setProperty(NiFiProperties.MAX_FLOWFILES_PER_CLAIM, "100");
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_DIRECTORY, directory.resolve("flowfile_repository").toString());
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_PARTITIONS, "256");
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL, "10 secs");
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_ALWAYS_SYNC, "false");
+        properties.setProperty(VolatileContentRepository.MAX_SIZE_PROPERTY, "512 MB");
+        properties.setProperty(NiFiProperties.PROVENANCE_REPO_IMPLEMENTATION_CLASS, "org.apache.nifi.provenance.PersistentProvenanceRepository");
+        properties.setProperty(NiFiProperties.PROVENANCE_REPO_DIRECTORY_PREFIX + "default", directory.resolve("provenance_repository").toString());
+        properties.setProperty(NiFiProperties.PROVENANCE_ROLLOVER_TIME, "30 secs");
+        properties.setProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS, "EventType, FlowFileUUID, Filename, ProcessorID");
+        properties.setProperty(NiFiProperties.FLOW_CONFIGURATION_FILE, directory.resolve("flow.xml.gz").toString());
+        properties.setProperty(NiFiProperties.TEMPLATE_DIRECTORY, directory.resolve("templates").toString());
+        properties.setProperty(NiFiProperties.TASK_CONFIGURATION_FILE, writeFile(directory.resolve("reporting-tasks.xml"), "<tasks/>"));
+        properties.setProperty(NiFiProperties.SERVICE_CONFIGURATION_FILE, writeFile(directory.resolve("controller-services.xml"), "<services/>"));
+        properties.setProperty(NiFiProperties.FLOW_CONTROLLER_GRACEFUL_SHUTDOWN_PERIOD, "10 sec");
+        properties.setProperty(NiFiProperties.SENSITIVE_PROPS_ALGORITHM, "PBEWITHMD5AND256BITAES-CBC-OPENSSL");
+        properties.setProperty(NiFiProperties.SENSITIVE_PROPS_PROVIDER, "BC");
+
+        final File propertiesFile = directory.resolve("nifi.properties").toFile();
+        try (final OutputStream out = new FileOutputStream(propertiesFile)) {
+            properties.store(out, "Generated by the NiFi benchmarks");
+        }
+
+        System.setProperty(NiFiProperties.PROPERTIES_FILE_PATH, propertiesFile.getAbsolutePath());
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    FileUtils.deleteFile(directory.toFile(), true);
+                } catch (final IOException ioe) {
+                    System.err.println("Failed to delete benchmark directory " + directory + " due to " + ioe);
+                }
+            }
+        }));
+
+        baseDirectory = directory;
+        return baseDirectory;
+    }
+
+    private static String writeFile(final Path file, final String contents) throws IOException {
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    /**
+     * Creates a new, empty directory within the benchmark's base directory
+     *
+     * @param prefix the prefix of the directory's name
+     * @return the directory
+     * @throws IOException if the directory cannot be created
+     */
+    public static Path createDirectory(final String prefix) throws IOException {
+        return Files.createTempDirectory(initialize(), prefix);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once for each of a list of thread counts, writing the
+ * results of each run as JSON so that they can be compared across releases.
+ * Any arguments are interpreted as standard JMH command-line options, which
+ * allows the benchmarks to be selected by regular expression and the
+ * iteration and fork counts to be overridden.
+ *
+ * The following system properties are honored:
+ * <ul>
+ * <li><code>nifi.benchmark.threads</code> - a comma-separated list of thread
+ * counts; defaults to <code>1</code></li>
+ * <li><code>nifi.benchmark.results.directory</code> - the directory to write
+ * results to; defaults to <code>benchmark-results</code></li>
+ * <li><code>nifi.benchmark.results.prefix</code> - the prefix of each results
+ * file's name; defaults to <code>nifi-benchmarks</code></li>
+ * </ul>
+ */
+public class BenchmarkRunner {
+
+    public static final String THREADS_PROPERTY = "nifi.benchmark.threads";
+    public static final String RESULTS_DIRECTORY_PROPERTY = "nifi.benchmark.results.directory";
+    public static final String RESULTS_PREFIX_PROPERTY = "nifi.benchmark.results.prefix";
+
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final List<Integer> threadCounts = parseThreadCounts(System.getProperty(THREADS_PROPERTY, "1"));
+
+        final File resultsDirectory = new File(System.getProperty(RESULTS_DIRECTORY_PROPERTY, "benchmark-results"));
+        if (!resultsDirectory.exists() && !resultsDirectory.mkdirs()) {
+            throw new IOException("Could not create directory " + resultsDirectory.getAbsolutePath());
+        }
+        final String prefix = System.getProperty(RESULTS_PREFIX_PROPERTY, "nifi-benchmarks");
+
+        for (final Integer threadCount : threadCounts) {
+            final File resultsFile = new File(resultsDirectory, prefix + "-" + threadCount + "-threads.json");
+            final Options options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(threadCount)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultsFile.getAbsolutePath())
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+
+    static List<Integer> parseThreadCounts(final String value) {
+        final List<Integer> threadCounts = new ArrayList<>();
+        for (final String token : value.split(",")) {
+            final String trimmed = token.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            final int threadCount;
+            try {
+                threadCount = Integer.parseInt(trimmed);
+            } catch (final NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid value for " + THREADS_PROPERTY + ": " + value);
+            }
+
+            if (threadCount < 1) {
+                throw new IllegalArgumentException("Invalid value for " + THREADS_PROPERTY + ": " + value);
+            }
+            threadCounts.add(threadCount);
+        }
+
+        if (threadCounts.isEmpty()) {
+            throw new IllegalArgumentException("No thread counts specified by " + THREADS_PROPERTY);
+        }
+        return threadCounts;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardContentClaimManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of writing content to and reading content from the
+ * {@link FileSystemRepository}. Archiving is disabled, so claims that are
+ * written and then removed are deleted rather than accumulating on disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class FileSystemRepositoryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RepositoryState {
+
+        @Param({"0", "1024", "1048576"})
+        public int flowFileSize;
+
+        private FileSystemRepository repository;
+
+        @Setup
+        public void setup() throws IOException {
+            BenchmarkEnvironment.initialize();
+
+            repository = new FileSystemRepository();
+            repository.initialize(new StandardContentClaimManager());
+        }
+
+        @TearDown
+        public void shutdown() {
+            repository.shutdown();
+        }
+    }
+
+    private byte[] content;
+    private byte[] buffer;
+    private ContentClaim existingClaim;
+
+    @Setup
+    public void setup(final RepositoryState repositoryState) throws IOException {
+        content = new byte[repositoryState.flowFileSize];
+        buffer = new byte[8192];
+
+        existingClaim = repositoryState.repository.create(false);
+        try (final OutputStream out = repositoryState.repository.write(existingClaim)) {
+            out.write(content);
+        }
+    }
+
+    @Benchmark
+    public void write(final RepositoryState repositoryState) throws IOException {
+        final FileSystemRepository repository = repositoryState.repository;
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write(content);
+        }
+
+        repository.decrementClaimantCount(claim);
+        repository.remove(claim);
+    }
+
+    @Benchmark
+    public long read(final RepositoryState repositoryState) throws IOException {
+        long total = 0L;
+        try (final InputStream in = repositoryState.repository.read(existingClaim)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                total += len;
+            }
+        }
+
+        return total;
+    }
+}
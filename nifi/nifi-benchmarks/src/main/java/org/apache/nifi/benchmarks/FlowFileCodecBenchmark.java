@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.controller.repository.StandardProcessSession;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.io.OutputStreamCallback;
+import org.apache.nifi.remote.codec.StandardFlowFileCodec;
+import org.apache.nifi.remote.exception.ProtocolException;
+import org.apache.nifi.stream.io.ByteArrayInputStream;
+import org.apache.nifi.stream.io.ByteArrayOutputStream;
+import org.apache.nifi.stream.io.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of encoding FlowFiles with the
+ * {@link StandardFlowFileCodec} that Site-to-Site uses to transfer them, and
+ * of decoding them into a session on the receiving side. Decoded FlowFiles
+ * are rolled back, so decoding also includes the cost of releasing the
+ * content that was written for them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class FlowFileCodecBenchmark {
+
+    @Param({"0", "1024", "1048576"})
+    public int flowFileSize;
+
+    @Param({"5", "50"})
+    public int attributeCount;
+
+    private final StandardFlowFileCodec codec = new StandardFlowFileCodec();
+    private StandardProcessSession encodeSession;
+    private StandardProcessSession decodeSession;
+    private FlowFile flowFile;
+    private byte[] encoded;
+
+    @Setup
+    public void setup(final VolatileRepositoriesState repositories) throws IOException {
+        final byte[] content = new byte[flowFileSize];
+
+        // the FlowFile to encode is never committed, as a session can only read FlowFiles that it holds
+        encodeSession = repositories.createSession();
+        flowFile = encodeSession.create();
+        for (int i = 0; i < attributeCount; i++) {
+            flowFile = encodeSession.putAttribute(flowFile, "attribute." + i, "value of attribute " + i);
+        }
+        flowFile = encodeSession.write(flowFile, new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write(content);
+            }
+        });
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        codec.encode(flowFile, encodeSession, baos);
+        encoded = baos.toByteArray();
+
+        decodeSession = repositories.createSession();
+    }
+
+    @TearDown
+    public void cleanup() {
+        encodeSession.rollback();
+        decodeSession.rollback();
+    }
+
+    @Benchmark
+    public FlowFile encode() throws IOException {
+        return codec.encode(flowFile, encodeSession, new NullOutputStream());
+    }
+
+    @Benchmark
+    public FlowFile decode() throws IOException, ProtocolException {
+        final FlowFile decoded = codec.decode(new ByteArrayInputStream(encoded), decodeSession);
+        decodeSession.rollback();
+        return decoded;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.scheduling.SchedulingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the cost of putting FlowFiles onto a {@link StandardFlowFileQueue}
+ * and polling and acknowledging them again. Every thread shares the same
+ * queue, which holds a standing backlog of FlowFiles so that the cost of
+ * ordering the active queue is included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class FlowFileQueueBenchmark {
+
+    private static final AtomicLong idGenerator = new AtomicLong(0L);
+
+    @State(Scope.Benchmark)
+    public static class QueueState {
+
+        @Param({"0", "10000"})
+        public int backlog;
+
+        @Param({"1", "100"})
+        public int batchSize;
+
+        private StandardFlowFileQueue queue;
+
+        @Setup
+        public void setup() {
+            final Connectable connectable = Stubs.create(Connectable.class, Collections.singletonMap("getSchedulingStrategy", SchedulingStrategy.TIMER_DRIVEN));
+
+            final Map<String, Object> connectionValues = new HashMap<>();
+            connectionValues.put("getIdentifier", "benchmark-connection");
+            connectionValues.put("getSource", connectable);
+            connectionValues.put("getDestination", connectable);
+            final Connection connection = Stubs.create(Connection.class, connectionValues);
+            final ProcessScheduler scheduler = Stubs.create(ProcessScheduler.class, Collections.<String, Object>emptyMap());
+
+            // the swap threshold is never reached, as each thread only ever adds a single batch beyond the backlog
+            queue = new StandardFlowFileQueue("benchmark-queue", connection, scheduler, Integer.MAX_VALUE);
+            for (int i = 0; i < backlog; i++) {
+                queue.put(createFlowFile());
+            }
+        }
+    }
+
+    private final Set<FlowFileRecord> expired = new HashSet<>();
+    private List<FlowFileRecord> batch;
+
+    @Setup
+    public void setup(final QueueState queueState) {
+        batch = new ArrayList<>(queueState.batchSize);
+        for (int i = 0; i < queueState.batchSize; i++) {
+            batch.add(createFlowFile());
+        }
+    }
+
+    private static FlowFileRecord createFlowFile() {
+        return new StandardFlowFileRecord.Builder()
+                .id(idGenerator.getAndIncrement())
+                .entryDate(System.currentTimeMillis())
+                .addAttribute("filename", "benchmark")
+                .size(1024L)
+                .build();
+    }
+
+    @Benchmark
+    public void putAndPoll(final QueueState queueState, final Blackhole blackhole) {
+        // the FlowFiles that are polled are not necessarily the ones that were put, so the next
+        // invocation puts back whatever this one polled in order to keep the queue's size steady.
+        // While other threads are polling, fewer FlowFiles than were put may be returned, in which
+        // case new FlowFiles are created to make up the batch.
+        final StandardFlowFileQueue queue = queueState.queue;
+        if (queueState.batchSize == 1) {
+            queue.put(batch.get(0));
+
+            final FlowFileRecord polled = queue.poll(expired);
+            if (polled == null) {
+                batch.set(0, createFlowFile());
+            } else {
+                queue.acknowledge(polled);
+                batch.set(0, polled);
+            }
+            blackhole.consume(polled);
+        } else {
+            queue.putAll(batch);
+
+            final List<FlowFileRecord> polled = queue.poll(queueState.batchSize, expired);
+            queue.acknowledge(polled);
+            blackhole.consume(polled);
+
+            batch = polled;
+            while (batch.size() < queueState.batchSize) {
+                batch.add(createFlowFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.apache.nifi.fingerprint.FingerprintFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Measures the cost of fingerprinting a synthetic flow, as every node does
+ * when it connects to the cluster, against the cost of only parsing the same
+ * flow into a DOM, which is the lower bound for any DOM-based fingerprint.
+ *
+ * The flow is made up of Process Groups that each contain ten Processors
+ * chained together by Connections, so that {@link #components} counts the
+ * Processors, Connections and Process Groups. Run with '-prof gc' to compare
+ * the memory allocated by each approach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 5, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class FlowFingerprintBenchmark {
+
+    private static final int PROCESSORS_PER_GROUP = 10;
+
+    @Param({"1000", "50000"})
+    public int components;
+
+    private final FingerprintFactory fingerprintFactory = new FingerprintFactory(null);
+    private byte[] flow;
+
+    @Setup
+    public void setup() {
+        // each group holds its processors, the connections between them, and itself
+        final int groups = Math.max(1, components / (2 * PROCESSORS_PER_GROUP));
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n<flowController>\n");
+        sb.append("  <maxTimerDrivenThreadCount>10</maxTimerDrivenThreadCount>\n");
+        sb.append("  <maxEventDrivenThreadCount>5</maxEventDrivenThreadCount>\n");
+        sb.append("  <rootGroup>\n    <id>root</id>\n    <name>NiFi Flow</name>\n    <position x=\"0.0\" y=\"0.0\"/>\n    <comment/>\n");
+        for (int group = 0; group < groups; group++) {
+            appendGroup(sb, group);
+        }
+        sb.append("  </rootGroup>\n</flowController>\n");
+
+        flow = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendGroup(final StringBuilder sb, final int group) {
+        final String groupId = "group-" + group;
+        sb.append("    <processGroup>\n      <id>").append(groupId).append("</id>\n      <name>Group ").append(group).append("</name>\n");
+        sb.append("      <position x=\"").append(group * 10).append(".0\" y=\"0.0\"/>\n      <comment/>\n");
+        for (int i = 0; i < PROCESSORS_PER_GROUP; i++) {
+            final String id = groupId + "-processor-" + i;
+            sb.append("      <processor>\n        <id>").append(id).append("</id>\n        <name>Processor ").append(i).append("</name>\n");
+            sb.append("        <position x=\"").append(i * 100).append(".0\" y=\"0.0\"/>\n        <styles/>\n        <comment/>\n");
+            sb.append("        <class>org.apache.nifi.processors.standard.UpdateAttribute</class>\n");
+            sb.append("        <maxConcurrentTasks>1</maxConcurrentTasks>\n        <schedulingPeriod>0 sec</schedulingPeriod>\n");
+            sb.append("        <penalizationPeriod>30 sec</penalizationPeriod>\n        <yieldPeriod>1 sec</yieldPeriod>\n");
+            sb.append("        <bulletinLevel>WARN</bulletinLevel>\n        <lossTolerant>false</lossTolerant>\n");
+            sb.append("        <scheduledState>STOPPED</scheduledState>\n        <schedulingStrategy>TIMER_DRIVEN</schedulingStrategy>\n");
+            sb.append("        <runDurationNanos>0</runDurationNanos>\n");
+            sb.append("        <property>\n          <name>attribute.").append(i).append("</name>\n          <value>${filename}-").append(i).append("</value>\n        </property>\n");
+            if (i == PROCESSORS_PER_GROUP - 1) {
+                sb.append("        <autoTerminatedRelationship>success</autoTerminatedRelationship>\n");
+            }
+            sb.append("      </processor>\n");
+        }
+        for (int i = 0; i < PROCESSORS_PER_GROUP - 1; i++) {
+            sb.append("      <connection>\n        <id>").append(groupId).append("-connection-").append(i).append("</id>\n        <name/>\n");
+            sb.append("        <bendPoints/>\n        <labelIndex>1</labelIndex>\n        <zIndex>0</zIndex>\n");
+            sb.append("        <sourceId>").append(groupId).append("-processor-").append(i).append("</sourceId>\n");
+            sb.append("        <sourceGroupId>").append(groupId).append("</sourceGroupId>\n        <sourceType>PROCESSOR</sourceType>\n");
+            sb.append("        <destinationId>").append(groupId).append("-processor-").append(i + 1).append("</destinationId>\n");
+            sb.append("        <destinationGroupId>").append(groupId).append("</destinationGroupId>\n        <destinationType>PROCESSOR</destinationType>\n");
+            sb.append("        <relationship>success</relationship>\n        <maxWorkQueueSize>0</maxWorkQueueSize>\n");
+            sb.append("        <maxWorkQueueDataSize>0 MB</maxWorkQueueDataSize>\n        <flowFileExpiration>0 sec</flowFileExpiration>\n");
+            sb.append("      </connection>\n");
+        }
+        sb.append("    </processGroup>\n");
+    }
+
+    @Benchmark
+    public String streamingFingerprint() {
+        return fingerprintFactory.createFingerprint(flow, null);
+    }
+
+    @Benchmark
+    public Document domParse() throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(flow));
+    }
+}
@@ -0,0 +1,419 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.cluster.protocol.StandardDataFlow;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.controller.ProcessorNode;
+import org.apache.nifi.controller.StandardFlowService;
+import org.apache.nifi.controller.repository.FlowFileEvent;
+import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.apache.nifi.controller.repository.RingBufferEventRepository;
+import org.apache.nifi.encrypt.StringEncryptor;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.util.FormatUtils;
+import org.apache.nifi.util.NiFiProperties;
+
+/**
+ * Measures the end-to-end throughput and latency of a dataflow. The harness
+ * boots a {@link FlowController} with the given flow.xml, using the persistent
+ * FlowFile, content and provenance repositories on temporary directories,
+ * starts every component that the flow marks as running, and lets the flow run
+ * for a warm-up period followed by a measurement period.
+ *
+ * A FlowFile is considered to have made it through the flow when it is dropped
+ * by a processor that has no outgoing connections, such as a PutFile whose
+ * relationships are auto-terminated. For each such FlowFile, the latency is the
+ * time between the start of its lineage and the time at which it was dropped,
+ * as recorded by the Provenance Repository. The report also includes the time
+ * that the JVM spent collecting garbage and, for each component, the
+ * processing time and number of FlowFiles and bytes handled during the
+ * measurement period.
+ *
+ * Usage: <code>FlowThroughputHarness &lt;flow.xml&gt; [duration] [warm-up]</code>,
+ * where the durations are given as time periods such as <code>60 secs</code>
+ * and default to 60 and 15 seconds, respectively. The report is written to
+ * standard out and, as JSON, to the directory named by the
+ * <code>nifi.benchmark.results.directory</code> system property, if set.
+ */
+public class FlowThroughputHarness {
+
+    /**
+     * The system property that holds the directory to which the flow should
+     * write any data that it exports
+     */
+    public static final String OUTPUT_DIRECTORY_PROPERTY = "nifi.benchmark.flow.output.directory";
+
+    private static final String MARKER_COMPONENT_ID = "flow-throughput-harness";
+    private static final String DEFAULT_DURATION = "60 secs";
+    private static final String DEFAULT_WARMUP = "15 secs";
+    private static final int PROVENANCE_BATCH_SIZE = 10000;
+    private static final long PROVENANCE_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(2L);
+
+    private final Path flowFile;
+    private final long warmupMillis;
+    private final long durationMillis;
+
+    public FlowThroughputHarness(final Path flowFile, final long warmupMillis, final long durationMillis) {
+        this.flowFile = flowFile;
+        this.warmupMillis = warmupMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: " + FlowThroughputHarness.class.getName() + " <flow.xml> [duration] [warm-up]");
+            System.exit(1);
+        }
+
+        final Path flowFile = Paths.get(args[0]);
+        final long durationMillis = FormatUtils.getTimeDuration(args.length > 1 ? args[1] : DEFAULT_DURATION, TimeUnit.MILLISECONDS);
+        final long warmupMillis = FormatUtils.getTimeDuration(args.length > 2 ? args[2] : DEFAULT_WARMUP, TimeUnit.MILLISECONDS);
+
+        // the components of the flow may have started non-daemon threads of their own, so the JVM must be
+        // explicitly exited whether or not the run succeeds
+        int exitCode = 1;
+        try {
+            final Report report = new FlowThroughputHarness(flowFile, warmupMillis, durationMillis).run();
+            System.out.println(report.toText());
+
+            final String resultsDirectoryName = System.getProperty(BenchmarkRunner.RESULTS_DIRECTORY_PROPERTY);
+            if (resultsDirectoryName != null) {
+                final File resultsDirectory = new File(resultsDirectoryName);
+                if (!resultsDirectory.exists() && !resultsDirectory.mkdirs()) {
+                    throw new IOException("Could not create directory " + resultsDirectory.getAbsolutePath());
+                }
+
+                final String prefix = System.getProperty(BenchmarkRunner.RESULTS_PREFIX_PROPERTY, "nifi-benchmarks");
+                final String flowName = flowFile.getFileName().toString().replaceFirst("\\.xml$", "");
+                final File resultsFile = new File(resultsDirectory, prefix + "-" + flowName + ".json");
+                try (final OutputStream out = new FileOutputStream(resultsFile)) {
+                    out.write(report.toJson().getBytes(StandardCharsets.UTF_8));
+                }
+                System.out.println("Results written to " + resultsFile.getAbsolutePath());
+            }
+            exitCode = 0;
+        } catch (final Exception e) {
+            e.printStackTrace();
+        } finally {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Boots the flow, runs it for the warm-up and measurement periods, and
+     * shuts it down.
+     *
+     * @return the results of the measurement period
+     * @throws Exception if the flow cannot be loaded or the results cannot be
+     * gathered
+     */
+    public Report run() throws Exception {
+        BenchmarkEnvironment.initialize();
+        System.setProperty(OUTPUT_DIRECTORY_PROPERTY, BenchmarkEnvironment.createDirectory("flow-output").toString());
+
+        final NiFiProperties properties = NiFiProperties.getInstance();
+        final StringEncryptor encryptor = StringEncryptor.createEncryptor();
+
+        // the event repository must retain every event of the run so that the per-component figures can be reported
+        final int eventMinutes = (int) TimeUnit.MILLISECONDS.toMinutes(warmupMillis + durationMillis) + 2;
+        final RingBufferEventRepository flowFileEventRepository = new RingBufferEventRepository(Math.max(5, eventMinutes));
+
+        final FlowController controller = FlowController.createStandaloneInstance(flowFileEventRepository, properties, null, encryptor);
+        final StandardFlowService flowService = StandardFlowService.createStandaloneInstance(controller, properties, encryptor);
+        try {
+            flowService.start();
+            flowService.load(new StandardDataFlow(Files.readAllBytes(flowFile), null, null));
+            controller.startDelayed();
+
+            Thread.sleep(warmupMillis);
+
+            final long startGcMillis = getGarbageCollectionMillis();
+            final long startGcCount = getGarbageCollectionCount();
+            final long startMillis = System.currentTimeMillis();
+
+            Thread.sleep(durationMillis);
+
+            final long endMillis = System.currentTimeMillis();
+            final long gcMillis = getGarbageCollectionMillis() - startGcMillis;
+            final long gcCount = getGarbageCollectionCount() - startGcCount;
+            final RepositoryStatusReport statusReport = flowFileEventRepository.reportTransferEvents(startMillis);
+
+            // stop the flow so that the Provenance Repository can catch up before its events are read
+            controller.stopAllProcessors();
+            waitForActiveThreads(controller);
+
+            final ProcessGroup rootGroup = controller.getGroup(controller.getRootGroupId());
+            final Report report = new Report(flowFile.getFileName().toString(), endMillis - startMillis, gcCount, gcMillis);
+            addComponents(report, rootGroup, statusReport);
+            addExitEvents(report, controller.getProvenanceRepository(), getSinkIdentifiers(rootGroup), startMillis, endMillis);
+            return report;
+        } finally {
+            flowService.stop(false);
+        }
+    }
+
+    private static Set<String> getSinkIdentifiers(final ProcessGroup rootGroup) {
+        final Set<String> sinkIds = new HashSet<>();
+        for (final ProcessorNode procNode : rootGroup.findAllProcessors()) {
+            if (procNode.getConnections().isEmpty()) {
+                sinkIds.add(procNode.getIdentifier());
+            }
+        }
+        return sinkIds;
+    }
+
+    private static void addComponents(final Report report, final ProcessGroup rootGroup, final RepositoryStatusReport statusReport) {
+        for (final Map.Entry<String, FlowFileEvent> entry : statusReport.getReportEntries().entrySet()) {
+            // the repository also holds the figures for each Connection, which are not of interest here
+            final Connectable connectable = rootGroup.findConnectable(entry.getKey());
+            if (connectable != null) {
+                report.components.add(new ComponentResult(connectable.getName(), entry.getValue()));
+            }
+        }
+
+        Collections.sort(report.components, new Comparator<ComponentResult>() {
+            @Override
+            public int compare(final ComponentResult o1, final ComponentResult o2) {
+                return Long.compare(o2.processingNanos, o1.processingNanos);
+            }
+        });
+    }
+
+    private void addExitEvents(final Report report, final ProvenanceEventRepository provenanceRepository, final Set<String> sinkIds,
+            final long startMillis, final long endMillis) throws IOException, InterruptedException {
+        // Events become available to readers only once the repository has rolled them over, and the repository does not
+        // expose the ID of the last event that it was given, so a marker event is registered after the flow has stopped
+        // and the events are read until the marker is found.
+        final String markerUuid = UUID.randomUUID().toString();
+        final long now = System.currentTimeMillis();
+        provenanceRepository.registerEvent(provenanceRepository.eventBuilder()
+                .setEventType(ProvenanceEventType.DROP)
+                .setComponentId(MARKER_COMPONENT_ID)
+                .setComponentType(FlowThroughputHarness.class.getSimpleName())
+                .setFlowFileUUID(markerUuid)
+                .setLineageIdentifiers(Collections.singleton(markerUuid))
+                .setAttributes(Collections.<String, String>emptyMap(), Collections.<String, String>emptyMap())
+                .setCurrentContentClaim(null, null, null, null, 0L)
+                .setEventTime(now)
+                .setLineageStartDate(now)
+                .build());
+
+        final long waitUntil = System.currentTimeMillis() + PROVENANCE_WAIT_MILLIS;
+        long nextEventId = 0L;
+        long[] latencies = new long[1024];
+        int latencyCount = 0;
+        boolean markerFound = false;
+        while (!markerFound) {
+            final List<ProvenanceEventRecord> events = provenanceRepository.getEvents(nextEventId, PROVENANCE_BATCH_SIZE);
+            if (events.isEmpty()) {
+                if (System.currentTimeMillis() > waitUntil) {
+                    throw new IOException("Timed out waiting for Provenance Event " + nextEventId + " to become available");
+                }
+                Thread.sleep(1000L);
+                continue;
+            }
+
+            for (final ProvenanceEventRecord event : events) {
+                nextEventId = event.getEventId() + 1;
+                if (MARKER_COMPONENT_ID.equals(event.getComponentId())) {
+                    markerFound = true;
+                    break;
+                }
+
+                if (event.getEventType() != ProvenanceEventType.DROP || !sinkIds.contains(event.getComponentId())
+                        || event.getEventTime() < startMillis || event.getEventTime() >= endMillis) {
+                    continue;
+                }
+
+                report.flowFilesOut++;
+                report.bytesOut += event.getFileSize();
+                if (latencyCount == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, latencies.length * 2);
+                }
+                latencies[latencyCount++] = event.getEventTime() - event.getLineageStartDate();
+            }
+        }
+
+        Arrays.sort(latencies, 0, latencyCount);
+        report.p50LatencyMillis = percentile(latencies, latencyCount, 50);
+        report.p99LatencyMillis = percentile(latencies, latencyCount, 99);
+        report.maxLatencyMillis = (latencyCount == 0) ? 0L : latencies[latencyCount - 1];
+    }
+
+    private static long percentile(final long[] sorted, final int count, final int percentile) {
+        if (count == 0) {
+            return 0L;
+        }
+        final int rank = (int) Math.ceil(percentile / 100D * count);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static void waitForActiveThreads(final FlowController controller) throws InterruptedException {
+        while (controller.getActiveThreadCount() > 0) {
+            Thread.sleep(100L);
+        }
+    }
+
+    private static long getGarbageCollectionMillis() {
+        long millis = 0L;
+        for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0L, bean.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static long getGarbageCollectionCount() {
+        long count = 0L;
+        for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0L, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * The results of a single run of a flow
+     */
+    public static class Report {
+
+        private final String flowName;
+        private final long durationMillis;
+        private final long gcCount;
+        private final long gcMillis;
+        private final List<ComponentResult> components = new ArrayList<>();
+        private long flowFilesOut;
+        private long bytesOut;
+        private long p50LatencyMillis;
+        private long p99LatencyMillis;
+        private long maxLatencyMillis;
+
+        private Report(final String flowName, final long durationMillis, final long gcCount, final long gcMillis) {
+            this.flowName = flowName;
+            this.durationMillis = durationMillis;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        public double getFlowFilesPerSecond() {
+            return flowFilesOut * 1000D / durationMillis;
+        }
+
+        public double getBytesPerSecond() {
+            return bytesOut * 1000D / durationMillis;
+        }
+
+        public String toText() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("Flow: ").append(flowName).append("\n");
+            sb.append(String.format("Measured for %d ms%n", durationMillis));
+            sb.append(String.format("FlowFiles out: %d (%.1f/sec)%n", flowFilesOut, getFlowFilesPerSecond()));
+            sb.append(String.format("Bytes out: %d (%.1f/sec)%n", bytesOut, getBytesPerSecond()));
+            sb.append(String.format("Latency: p50 = %d ms, p99 = %d ms, max = %d ms%n", p50LatencyMillis, p99LatencyMillis, maxLatencyMillis));
+            sb.append(String.format("Garbage Collection: %d collections, %d ms (%.1f%% of wall time)%n",
+                    gcCount, gcMillis, gcMillis * 100D / durationMillis));
+            sb.append(String.format("%-40s %12s %12s %12s %14s %14s %14s%n",
+                    "Component", "Invocations", "FlowFiles In", "FlowFiles Out", "Bytes Read", "Bytes Written", "Processing ms"));
+            for (final ComponentResult component : components) {
+                sb.append(String.format("%-40s %12d %12d %12d %14d %14d %14d%n", component.name, component.invocations,
+                        component.flowFilesIn, component.flowFilesOut, component.bytesRead, component.bytesWritten,
+                        TimeUnit.NANOSECONDS.toMillis(component.processingNanos)));
+            }
+            return sb.toString();
+        }
+
+        public String toJson() {
+            final StringBuilder sb = new StringBuilder();
+            sb.append("{\n");
+            sb.append("  \"flow\" : \"").append(escape(flowName)).append("\",\n");
+            sb.append("  \"durationMillis\" : ").append(durationMillis).append(",\n");
+            sb.append("  \"flowFilesOut\" : ").append(flowFilesOut).append(",\n");
+            sb.append("  \"flowFilesPerSecond\" : ").append(getFlowFilesPerSecond()).append(",\n");
+            sb.append("  \"bytesOut\" : ").append(bytesOut).append(",\n");
+            sb.append("  \"bytesPerSecond\" : ").append(getBytesPerSecond()).append(",\n");
+            sb.append("  \"p50LatencyMillis\" : ").append(p50LatencyMillis).append(",\n");
+            sb.append("  \"p99LatencyMillis\" : ").append(p99LatencyMillis).append(",\n");
+            sb.append("  \"maxLatencyMillis\" : ").append(maxLatencyMillis).append(",\n");
+            sb.append("  \"gcCount\" : ").append(gcCount).append(",\n");
+            sb.append("  \"gcMillis\" : ").append(gcMillis).append(",\n");
+            sb.append("  \"components\" : [");
+            for (int i = 0; i < components.size(); i++) {
+                final ComponentResult component = components.get(i);
+                sb.append(i == 0 ? "\n" : ",\n");
+                sb.append("    { \"name\" : \"").append(escape(component.name)).append("\"");
+                sb.append(", \"invocations\" : ").append(component.invocations);
+                sb.append(", \"flowFilesIn\" : ").append(component.flowFilesIn);
+                sb.append(", \"flowFilesOut\" : ").append(component.flowFilesOut);
+                sb.append(", \"bytesRead\" : ").append(component.bytesRead);
+                sb.append(", \"bytesWritten\" : ").append(component.bytesWritten);
+                sb.append(", \"processingNanos\" : ").append(component.processingNanos);
+                sb.append(" }");
+            }
+            sb.append("\n  ]\n}\n");
+            return sb.toString();
+        }
+
+        private static String escape(final String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"");
+        }
+    }
+
+    private static class ComponentResult {
+
+        private final String name;
+        private final long invocations;
+        private final long flowFilesIn;
+        private final long flowFilesOut;
+        private final long bytesRead;
+        private final long bytesWritten;
+        private final long processingNanos;
+
+        public ComponentResult(final String name, final FlowFileEvent event) {
+            this.name = name;
+            this.invocations = event.getInvocations();
+            this.flowFilesIn = event.getFlowFilesIn();
+            this.flowFilesOut = event.getFlowFilesOut();
+            this.bytesRead = event.getBytesRead();
+            this.bytesWritten = event.getBytesWritten();
+            this.processingNanos = event.getProcessingNanoseconds();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.controller.repository.StandardProcessSession;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.io.OutputStreamCallback;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of creating FlowFiles in a {@link StandardProcessSession},
+ * writing their content, and committing the session.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ProcessSessionBenchmark {
+
+    @Param({"0", "1024", "1048576"})
+    public int flowFileSize;
+
+    @Param({"1", "100"})
+    public int flowFilesPerCommit;
+
+    private StandardProcessSession session;
+    private OutputStreamCallback writeCallback;
+
+    @Setup
+    public void setup(final VolatileRepositoriesState repositories) {
+        session = repositories.createSession();
+
+        final byte[] content = new byte[flowFileSize];
+        writeCallback = new OutputStreamCallback() {
+            @Override
+            public void process(final OutputStream out) throws IOException {
+                out.write(content);
+            }
+        };
+    }
+
+    @TearDown
+    public void cleanup() {
+        session.rollback();
+    }
+
+    @Benchmark
+    public void createAndCommit() {
+        for (int i = 0; i < flowFilesPerCommit; i++) {
+            FlowFile flowFile = session.create();
+            flowFile = session.putAttribute(flowFile, "benchmark.index", String.valueOf(i));
+            flowFile = session.write(flowFile, writeCallback);
+            session.transfer(flowFile, VolatileRepositoriesState.REL_SUCCESS);
+        }
+
+        session.commit();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.StandardRecordWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link StandardRecordWriter#writeRecord}. Each thread
+ * writes to its own journal, as the Persistent Provenance Repository's
+ * writers are each used by a single thread at a time, and the journal is
+ * rolled over after every iteration so that the disk is not filled. The size
+ * of the record is driven by the number of FlowFile attributes, as content
+ * is not written to the journal.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ProvenanceRecordWriterBenchmark {
+
+    @Param({"5", "50"})
+    public int attributeCount;
+
+    private Path journalDirectory;
+    private ProvenanceEventRecord event;
+    private StandardRecordWriter writer;
+    private File journal;
+    private long recordId = 0L;
+
+    @Setup
+    public void setup() throws IOException {
+        journalDirectory = BenchmarkEnvironment.createDirectory("provenance");
+
+        final String uuid = UUID.randomUUID().toString();
+        final StandardFlowFileRecord.Builder flowFileBuilder = new StandardFlowFileRecord.Builder()
+                .id(1L)
+                .entryDate(System.currentTimeMillis())
+                .lineageStartDate(System.currentTimeMillis())
+                .lineageIdentifiers(Collections.singleton(uuid))
+                .size(1024L)
+                .addAttribute(CoreAttributes.UUID.key(), uuid)
+                .addAttribute(CoreAttributes.FILENAME.key(), "benchmark.dat")
+                .addAttribute(CoreAttributes.PATH.key(), "./");
+        for (int i = 0; i < attributeCount; i++) {
+            flowFileBuilder.addAttribute("attribute." + i, "value of attribute " + i);
+        }
+        final FlowFile flowFile = flowFileBuilder.build();
+
+        final StandardProvenanceEventRecord.Builder eventBuilder = new StandardProvenanceEventRecord.Builder();
+        eventBuilder.fromFlowFile(flowFile);
+        eventBuilder.setEventTime(System.currentTimeMillis());
+        eventBuilder.setEventType(ProvenanceEventType.RECEIVE);
+        eventBuilder.setTransitUri("nifi://benchmark");
+        eventBuilder.setComponentId("benchmark-processor");
+        eventBuilder.setComponentType("Benchmark Processor");
+        eventBuilder.setCurrentContentClaim("default", "1", UUID.randomUUID().toString(), 0L, 1024L);
+        event = eventBuilder.build();
+    }
+
+    @Setup(Level.Iteration)
+    public void openJournal() throws IOException {
+        journal = Files.createTempFile(journalDirectory, "journal", ".prov").toFile();
+        writer = new StandardRecordWriter(journal);
+        writer.writeHeader();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        writer.close();
+        Files.delete(journal.toPath());
+    }
+
+    @Benchmark
+    public long writeRecord() throws IOException {
+        return writer.writeRecord(event, recordId++);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Creates stand-ins for the flow components, such as Connections and
+ * Connectables, that own the objects being benchmarked. A stub returns the
+ * configured value for each method name, or an empty/default value for any
+ * other method.
+ *
+ * These are used rather than a mocking framework because the stubs are
+ * invoked on the hot paths being measured, and mocking frameworks record a
+ * stack trace for every invocation, which would dominate the results.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    public static <T> T create(final Class<T> type, final Map<String, ?> returnValues) {
+        final InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                final String methodName = method.getName();
+                if (method.getDeclaringClass() == Object.class) {
+                    switch (methodName) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            return type.getSimpleName() + " Stub";
+                    }
+                }
+
+                if (returnValues.containsKey(methodName)) {
+                    return returnValues.get(methodName);
+                }
+                return defaultValue(method.getReturnType());
+            }
+        };
+
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object defaultValue(final Class<?> returnType) {
+        if (returnType == boolean.class) {
+            return Boolean.FALSE;
+        } else if (returnType == int.class) {
+            return 0;
+        } else if (returnType == long.class) {
+            return 0L;
+        } else if (returnType == double.class) {
+            return 0D;
+        } else if (returnType == float.class) {
+            return 0F;
+        } else if (returnType == short.class) {
+            return (short) 0;
+        } else if (returnType == byte.class) {
+            return (byte) 0;
+        } else if (returnType == char.class) {
+            return (char) 0;
+        } else if (returnType == Set.class) {
+            return Collections.emptySet();
+        } else if (returnType == List.class || returnType == Collection.class) {
+            return Collections.emptyList();
+        } else if (returnType == Map.class) {
+            return Collections.emptyMap();
+        }
+
+        return null;
+    }
+}
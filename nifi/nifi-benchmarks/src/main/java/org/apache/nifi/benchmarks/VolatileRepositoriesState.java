@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.ConnectableType;
+import org.apache.nifi.controller.repository.ProcessContext;
+import org.apache.nifi.controller.repository.RingBufferEventRepository;
+import org.apache.nifi.controller.repository.StandardCounterRepository;
+import org.apache.nifi.controller.repository.StandardProcessSession;
+import org.apache.nifi.controller.repository.VolatileContentRepository;
+import org.apache.nifi.controller.repository.VolatileFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardContentClaimManager;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * The in-memory repositories that back the {@link StandardProcessSession}s
+ * created for a benchmark. Using the volatile implementations keeps disk I/O
+ * out of the measurement so that the cost of the session itself is what is
+ * observed.
+ *
+ * The Connectable that owns the sessions has no connections and
+ * auto-terminates every Relationship, so anything that is transferred and
+ * committed is dropped and its content is reclaimed rather than accumulating
+ * over the course of the benchmark.
+ */
+@State(Scope.Benchmark)
+public class VolatileRepositoriesState {
+
+    public static final Relationship REL_SUCCESS = new Relationship.Builder().name("success").build();
+
+    private VolatileContentRepository contentRepository;
+    private VolatileFlowFileRepository flowFileRepository;
+    private VolatileProvenanceRepository provenanceRepository;
+    private RingBufferEventRepository flowFileEventRepository;
+    private StandardCounterRepository counterRepository;
+    private Connectable connectable;
+    private final AtomicLong connectionIndex = new AtomicLong(0L);
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkEnvironment.initialize();
+
+        final StandardContentClaimManager claimManager = new StandardContentClaimManager();
+        contentRepository = new VolatileContentRepository();
+        contentRepository.initialize(claimManager);
+        flowFileRepository = new VolatileFlowFileRepository();
+        flowFileRepository.initialize(claimManager);
+        provenanceRepository = new VolatileProvenanceRepository();
+        flowFileEventRepository = new RingBufferEventRepository(5);
+        counterRepository = new StandardCounterRepository();
+
+        final ProcessGroup group = Stubs.create(ProcessGroup.class, Collections.singletonMap("getIdentifier", "benchmark-group"));
+
+        final Map<String, Object> connectableValues = new HashMap<>();
+        connectableValues.put("getIdentifier", "benchmark-port");
+        connectableValues.put("getName", "Benchmark Port");
+        connectableValues.put("getConnectableType", ConnectableType.INPUT_PORT);
+        connectableValues.put("getProcessGroup", group);
+        connectableValues.put("isAutoTerminated", Boolean.TRUE);
+        connectable = Stubs.create(Connectable.class, connectableValues);
+    }
+
+    @TearDown
+    public void shutdown() throws IOException {
+        contentRepository.shutdown();
+        flowFileRepository.close();
+        provenanceRepository.close();
+        flowFileEventRepository.close();
+    }
+
+    /**
+     * @return a new session; sessions are not thread-safe, so each benchmark
+     * thread must create its own
+     */
+    public StandardProcessSession createSession() {
+        final ProcessContext context = new ProcessContext(connectable, connectionIndex, contentRepository,
+                flowFileRepository, flowFileEventRepository, counterRepository, provenanceRepository);
+        return new StandardProcessSession(context);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.controller.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.QueueProvider;
+import org.apache.nifi.controller.repository.RepositoryRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.StandardRepositoryRecord;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardContentClaimManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link WriteAheadFlowFileRepository#updateRepository}.
+ * Each invocation writes a batch of newly created FlowFiles to the repository
+ * and then a second update that deletes them, as a session that receives data
+ * and a later session that drops it would, so that the number of FlowFiles
+ * that the repository is tracking does not grow over the course of the run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WriteAheadFlowFileRepositoryBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class RepositoryState {
+
+        @Param({"1", "100"})
+        public int recordsPerUpdate;
+
+        @Param({"1", "25"})
+        public int attributeCount;
+
+        private WriteAheadFlowFileRepository repository;
+        private FlowFileQueue queue;
+        private final AtomicLong idGenerator = new AtomicLong(0L);
+
+        @Setup
+        public void setup() throws IOException {
+            BenchmarkEnvironment.initialize();
+
+            queue = Stubs.create(FlowFileQueue.class, Collections.singletonMap("getIdentifier", "benchmark-queue"));
+
+            repository = new WriteAheadFlowFileRepository();
+            repository.initialize(new StandardContentClaimManager());
+            repository.loadFlowFiles(new QueueProvider() {
+                @Override
+                public Collection<FlowFileQueue> getAllQueues() {
+                    return Collections.singleton(queue);
+                }
+            }, 0L);
+        }
+
+        @TearDown
+        public void shutdown() throws IOException {
+            repository.close();
+        }
+    }
+
+    private final List<FlowFileRecord> flowFiles = new ArrayList<>();
+
+    @Setup
+    public void setup(final RepositoryState repositoryState) {
+        for (int i = 0; i < repositoryState.recordsPerUpdate; i++) {
+            final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                    .id(repositoryState.idGenerator.getAndIncrement())
+                    .entryDate(System.currentTimeMillis())
+                    .size(1024L);
+            for (int j = 0; j < repositoryState.attributeCount; j++) {
+                builder.addAttribute("attribute." + j, "value of attribute " + j);
+            }
+
+            flowFiles.add(builder.build());
+        }
+    }
+
+    @Benchmark
+    public void createAndDelete(final RepositoryState repositoryState) throws IOException {
+        final List<RepositoryRecord> created = new ArrayList<>(flowFiles.size());
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(null);
+            record.setWorking(flowFile);
+            record.setDestination(repositoryState.queue);
+            created.add(record);
+        }
+        repositoryState.repository.updateRepository(created);
+
+        final List<RepositoryRecord> deleted = new ArrayList<>(flowFiles.size());
+        for (final FlowFileRecord flowFile : flowFiles) {
+            final StandardRepositoryRecord record = new StandardRepositoryRecord(repositoryState.queue, flowFile);
+            record.markForDelete();
+            deleted.add(record);
+        }
+        repositoryState.repository.updateRepository(deleted);
+    }
+}
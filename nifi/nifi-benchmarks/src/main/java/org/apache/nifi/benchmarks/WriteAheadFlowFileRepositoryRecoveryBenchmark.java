@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.FlowFileQueue;
+import org.apache.nifi.controller.ProcessScheduler;
+import org.apache.nifi.controller.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.QueueProvider;
+import org.apache.nifi.controller.repository.RepositoryRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.StandardRepositoryRecord;
+import org.apache.nifi.controller.repository.WriteAheadFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardContentClaimManager;
+import org.apache.nifi.scheduling.SchedulingStrategy;
+import org.apache.nifi.util.NiFiProperties;
+import org.apache.nifi.util.file.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many FlowFiles per second {@link WriteAheadFlowFileRepository}
+ * restores on startup after NiFi was stopped without checkpointing, so that
+ * every FlowFile must be recovered from the journals. The FlowFiles are
+ * created in batches, and once thousands of them are queued, each batch is
+ * moved to another queue, without changing the FlowFiles' attributes, and
+ * some of the FlowFiles are then removed, as a flow with a backlog would.
+ * Each invocation recovers a copy of the same repository,
+ * which includes the checkpoint that recovery performs and the population of
+ * the queues.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WriteAheadFlowFileRepositoryRecoveryBenchmark {
+
+    private static final int FLOWFILE_COUNT = 250000;
+    private static final int QUEUE_COUNT = 32;
+    private static final int FLOWFILES_PER_TRANSACTION = 10;
+    private static final int FLOWFILES_QUEUED = 10000;
+
+    @Param({"1", "8"})
+    public int recoveryThreads;
+
+    private Path repositoryPath;
+    private Path pristinePath;
+    private List<FlowFileQueue> queues;
+
+    @Setup(Level.Trial)
+    public void createRepository() throws IOException {
+        BenchmarkEnvironment.initialize();
+        final NiFiProperties properties = NiFiProperties.getInstance();
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_RECOVERY_THREADS, String.valueOf(recoveryThreads));
+        properties.setProperty(NiFiProperties.FLOWFILE_REPOSITORY_CHECKPOINT_INTERVAL, "1 hour");
+
+        repositoryPath = properties.getFlowFileRepositoryPath();
+        delete(repositoryPath);
+        pristinePath = BenchmarkEnvironment.createDirectory("flowfile-repository-journals");
+
+        createQueues();
+        final WriteAheadFlowFileRepository repository = createRepositoryAndLoad();
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(FLOWFILES_QUEUED);
+        for (int i = 0; i < FLOWFILE_COUNT; i++) {
+            flowFiles.add(new StandardFlowFileRecord.Builder()
+                    .id(i)
+                    .entryDate(System.currentTimeMillis())
+                    .size(1024L)
+                    .addAttribute("filename", "file-" + i)
+                    .addAttribute("path", "./")
+                    .addAttribute("uuid", "00000000-0000-0000-0000-" + String.format("%012d", i))
+                    .build());
+
+            if (flowFiles.size() == FLOWFILES_QUEUED) {
+                writeTransactions(repository, flowFiles);
+                flowFiles.clear();
+            }
+        }
+
+        repository.close();
+        delete(pristinePath);
+        copy(repositoryPath.toFile(), pristinePath.toFile());
+    }
+
+    private void writeTransactions(final WriteAheadFlowFileRepository repository, final List<FlowFileRecord> flowFiles) throws IOException {
+        for (int i = 0; i < flowFiles.size(); i += FLOWFILES_PER_TRANSACTION) {
+            final List<RepositoryRecord> created = new ArrayList<>(FLOWFILES_PER_TRANSACTION);
+            for (final FlowFileRecord flowFile : flowFiles.subList(i, i + FLOWFILES_PER_TRANSACTION)) {
+                final StandardRepositoryRecord record = new StandardRepositoryRecord(null);
+                record.setWorking(flowFile);
+                record.setDestination(queueOf(flowFile, 0));
+                created.add(record);
+            }
+            repository.updateRepository(created);
+        }
+
+        for (int i = 0; i < flowFiles.size(); i += FLOWFILES_PER_TRANSACTION) {
+            final List<RepositoryRecord> moved = new ArrayList<>(FLOWFILES_PER_TRANSACTION);
+            final List<RepositoryRecord> removed = new ArrayList<>();
+            for (final FlowFileRecord flowFile : flowFiles.subList(i, i + FLOWFILES_PER_TRANSACTION)) {
+                final StandardRepositoryRecord record = new StandardRepositoryRecord(queueOf(flowFile, 0), flowFile);
+                record.setWorking(new StandardFlowFileRecord.Builder().fromFlowFile(flowFile).lastQueueDate(System.currentTimeMillis()).build());
+                record.setDestination(queueOf(flowFile, 1));
+                moved.add(record);
+
+                if (flowFile.getId() % 5 == 0) {
+                    final StandardRepositoryRecord removal = new StandardRepositoryRecord(queueOf(flowFile, 1), flowFile);
+                    removal.markForDelete();
+                    removed.add(removal);
+                }
+            }
+            repository.updateRepository(moved);
+            repository.updateRepository(removed);
+        }
+    }
+
+    private FlowFileQueue queueOf(final FlowFileRecord flowFile, final int hop) {
+        return queues.get((int) ((flowFile.getId() + hop) % QUEUE_COUNT));
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreJournals() throws IOException {
+        delete(repositoryPath);
+        copy(pristinePath.toFile(), repositoryPath.toFile());
+        createQueues();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FLOWFILE_COUNT)
+    public void recover() throws IOException {
+        createRepositoryAndLoad().close();
+    }
+
+    private WriteAheadFlowFileRepository createRepositoryAndLoad() throws IOException {
+        final WriteAheadFlowFileRepository repository = new WriteAheadFlowFileRepository();
+        repository.initialize(new StandardContentClaimManager());
+        repository.loadFlowFiles(new QueueProvider() {
+            @Override
+            public Collection<FlowFileQueue> getAllQueues() {
+                return queues;
+            }
+        }, 0L);
+        return repository;
+    }
+
+    private void createQueues() {
+        final Connectable connectable = Stubs.create(Connectable.class, Collections.singletonMap("getSchedulingStrategy", SchedulingStrategy.TIMER_DRIVEN));
+        final ProcessScheduler scheduler = Stubs.create(ProcessScheduler.class, Collections.<String, Object>emptyMap());
+
+        queues = new ArrayList<>(QUEUE_COUNT);
+        for (int i = 0; i < QUEUE_COUNT; i++) {
+            final Map<String, Object> connectionValues = new HashMap<>();
+            connectionValues.put("getIdentifier", "connection-" + i);
+            connectionValues.put("getSource", connectable);
+            connectionValues.put("getDestination", connectable);
+            final Connection connection = Stubs.create(Connection.class, connectionValues);
+            queues.add(new StandardFlowFileQueue("queue-" + i, connection, scheduler, Integer.MAX_VALUE));
+        }
+    }
+
+    private static void delete(final Path path) throws IOException {
+        if (Files.exists(path)) {
+            FileUtils.deleteFile(path.toFile(), true);
+        }
+    }
+
+    private static void copy(final File source, final File destination) throws IOException {
+        if (source.isDirectory()) {
+            Files.createDirectories(destination.toPath());
+            for (final File child : source.listFiles()) {
+                copy(child, new File(destination, child.getName()));
+            }
+        } else {
+            Files.copy(source.toPath(), destination.toPath());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.benchmarks;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.util.file.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wali.MinimalLockingWriteAheadLog;
+import org.wali.SerDe;
+import org.wali.UpdateType;
+import org.wali.WriteAheadRepository;
+
+/**
+ * Measures the time taken to recover a {@link MinimalLockingWriteAheadLog}
+ * whose journals hold many small transactions, serially and with several
+ * recovery threads. As in the FlowFile Repository, each update writes only
+ * the attributes that changed, so reading an update depends on the state of
+ * the record that it updates. The journals are written once per trial and
+ * copied before each recovery, since recovery rolls the journals over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WriteAheadLogRecoveryBenchmark {
+
+    private static final int PARTITIONS = 16;
+    private static final int TRANSACTIONS = 200000;
+    private static final int RECORDS = 20000;
+
+    @Param({"1", "4"})
+    public int recoveryThreads;
+
+    private Path journals;
+    private Path recoveryDirectory;
+
+    @Setup(Level.Trial)
+    public void writeJournals() throws IOException {
+        journals = BenchmarkEnvironment.createDirectory("wali-journals");
+
+        final WriteAheadRepository<Record> repo = new MinimalLockingWriteAheadLog<>(journals, PARTITIONS, new DeltaSerDe(), null);
+        repo.recoverRecords();
+
+        final Random random = new Random(1L);
+        final Map<Long, Record> records = new HashMap<>();
+        final List<Record> transaction = new ArrayList<>(1);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            final long id = random.nextInt(RECORDS);
+            final Record previous = records.get(id);
+            final Record record;
+            if (previous == null) {
+                record = new Record(id, UpdateType.CREATE, new HashMap<String, String>());
+                record.attributes.put("filename", "file-" + id);
+                record.attributes.put("path", "./");
+                record.attributes.put("uuid", String.valueOf(id));
+                record.attributes.put("counter", "0");
+                records.put(id, record);
+            } else if (random.nextInt(20) == 0) {
+                record = new Record(id, UpdateType.DELETE, null);
+                records.remove(id);
+            } else {
+                record = new Record(id, UpdateType.UPDATE, new HashMap<>(previous.attributes));
+                record.attributes.put("counter", String.valueOf(i));
+                records.put(id, record);
+            }
+
+            transaction.clear();
+            transaction.add(record);
+            repo.update(transaction, false);
+        }
+        repo.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyJournals() throws IOException {
+        recoveryDirectory = BenchmarkEnvironment.createDirectory("wali-recovery");
+        copy(journals.toFile(), recoveryDirectory.toFile());
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteRecoveryDirectory() throws IOException {
+        FileUtils.deleteFile(recoveryDirectory.toFile(), true);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournals() throws IOException {
+        FileUtils.deleteFile(journals.toFile(), true);
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        final WriteAheadRepository<Record> repo = new MinimalLockingWriteAheadLog<>(recoveryDirectory, PARTITIONS, new DeltaSerDe(), null, recoveryThreads);
+        try {
+            return repo.recoverRecords().size();
+        } finally {
+            repo.shutdown();
+        }
+    }
+
+    private static void copy(final File source, final File destination) throws IOException {
+        final File[] children = source.listFiles();
+        if (children == null) {
+            return;
+        }
+
+        for (final File child : children) {
+            final File copy = new File(destination, child.getName());
+            if (child.isDirectory()) {
+                Files.createDirectories(copy.toPath());
+                copy(child, copy);
+            } else {
+                Files.copy(child.toPath(), copy.toPath());
+            }
+        }
+    }
+
+    private static class Record {
+
+        private final long id;
+        private final UpdateType updateType;
+        private final Map<String, String> attributes;
+
+        public Record(final long id, final UpdateType updateType, final Map<String, String> attributes) {
+            this.id = id;
+            this.updateType = updateType;
+            this.attributes = attributes;
+        }
+    }
+
+    /**
+     * Writes the attributes of a record that differ from those of its previous
+     * state
+     */
+    private static class DeltaSerDe implements SerDe<Record> {
+
+        @Override
+        public void serializeEdit(final Record previousState, final Record record, final DataOutputStream out) throws IOException {
+            out.write(record.updateType.ordinal());
+            out.writeLong(record.id);
+            if (record.updateType == UpdateType.DELETE) {
+                return;
+            }
+
+            final Map<String, String> changed = new HashMap<>(record.attributes);
+            if (previousState != null && previousState.attributes != null) {
+                changed.entrySet().removeAll(previousState.attributes.entrySet());
+            }
+
+            out.writeInt(changed.size());
+            for (final Map.Entry<String, String> entry : changed.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        }
+
+        @Override
+        public void serializeRecord(final Record record, final DataOutputStream out) throws IOException {
+            serializeEdit(null, record, out);
+        }
+
+        @Override
+        public Record deserializeEdit(final DataInputStream in, final Map<Object, Record> currentRecordStates, final int version) throws IOException {
+            final int updateTypeOrdinal = in.read();
+            if (updateTypeOrdinal < 0) {
+                throw new EOFException();
+            }
+
+            final UpdateType updateType = UpdateType.values()[updateTypeOrdinal];
+            final long id = in.readLong();
+            if (updateType == UpdateType.DELETE) {
+                return new Record(id, updateType, null);
+            }
+
+            final Record previous = currentRecordStates.get(id);
+            final Map<String, String> attributes = (previous == null || previous.attributes == null) ? new HashMap<String, String>() : new HashMap<>(previous.attributes);
+            final int changed = in.readInt();
+            for (int i = 0; i < changed; i++) {
+                attributes.put(in.readUTF(), in.readUTF());
+            }
+            return new Record(id, updateType, attributes);
+        }
+
+        @Override
+        public Record deserializeRecord(final DataInputStream in, final int version) throws IOException {
+            return deserializeEdit(in, new HashMap<Object, Record>(), version);
+        }
+
+        @Override
+        public Object getRecordIdentifier(final Record record) {
+            return record.id;
+        }
+
+        @Override
+        public UpdateType getUpdateType(final Record record) {
+            return record.updateType;
+        }
+
+        @Override
+        public String getLocation(final Record record) {
+            return null;
+        }
+
+        @Override
+        public int getVersion() {
+            return 1;
+        }
+    }
+}
@@ -50,6 +50,7 @@ public class MockProcessContext extends MockControllerServiceLookup implements S
     private boolean allowExpressionValidation = true;
 
     private volatile Set<Relationship> unavailableRelationships = new HashSet<>();
+    private volatile boolean batchingSessions = false;
 
     /**
      * Creates a new MockProcessContext for the given Processor
@@ -281,4 +282,19 @@ public class MockProcessContext extends MockControllerServiceLookup implements S
     public Set<Relationship> getUnavailableRelationships() {
         return unavailableRelationships;
     }
+
+    @Override
+    public boolean isBatchingSessions() {
+        return batchingSessions;
+    }
+
+    /**
+     * Indicates whether the Processor should behave as though the framework
+     * were batching its invocations
+     *
+     * @param batchingSessions
+     */
+    public void setBatchingSessions(final boolean batchingSessions) {
+        this.batchingSessions = batchingSessions;
+    }
 }
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
@@ -50,10 +51,13 @@ import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.FlowFileAccessException;
 import org.apache.nifi.processor.exception.FlowFileHandlingException;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.ByteBufferCallback;
+import org.apache.nifi.processor.io.ByteChannelCallback;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.io.StreamCallback;
 import org.apache.nifi.provenance.ProvenanceReporter;
+import org.apache.nifi.stream.io.ByteBufferChannel;
 
 public class MockProcessSession implements ProcessSession {
 
@@ -415,6 +419,44 @@ public class MockProcessSession implements ProcessSession {
         }
     }
 
+    @Override
+    public void read(final FlowFile flowFile, final ByteChannelCallback callback) {
+        if (callback == null || flowFile == null) {
+            throw new IllegalArgumentException("argument cannot be null");
+        }
+
+        validateState(flowFile);
+        if (!(flowFile instanceof MockFlowFile)) {
+            throw new IllegalArgumentException("Cannot export a flow file that I did not create");
+        }
+        final MockFlowFile mock = (MockFlowFile) flowFile;
+
+        try (final ByteBufferChannel channel = new ByteBufferChannel(mock.getData())) {
+            callback.process(channel);
+        } catch (IOException e) {
+            throw new ProcessException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public void read(final FlowFile flowFile, final ByteBufferCallback callback) {
+        if (callback == null || flowFile == null) {
+            throw new IllegalArgumentException("argument cannot be null");
+        }
+
+        validateState(flowFile);
+        if (!(flowFile instanceof MockFlowFile)) {
+            throw new IllegalArgumentException("Cannot export a flow file that I did not create");
+        }
+        final MockFlowFile mock = (MockFlowFile) flowFile;
+
+        try {
+            callback.process(ByteBuffer.wrap(mock.getData()).asReadOnlyBuffer());
+        } catch (IOException e) {
+            throw new ProcessException(e.toString(), e);
+        }
+    }
+
     @Override
     public void remove(final FlowFile flowFile) {
         validateState(flowFile);